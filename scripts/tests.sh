@@ -58,6 +58,11 @@ function envar_tests(){
 
 }
 
+function bench_tests(){
+  echo "========= [Running Benchmarks] ====="
+  time mvn --batch-mode test -P bench -DsurefireReportsDirectory=${REPORTS_DIR}/bench
+}
+
 function sum_tests(){
   TEST_SUM=$(grep -R "^Tests run:" $1 | awk '{print $3}' | sed "s/,//" | awk '{s+=$1} END {print s}')
   printf "\nTest run total: %s\n" "${TEST_SUM}"
@@ -117,6 +122,13 @@ case $1 in
      FAILED="true"
    fi
    ;;
+   "-b" | "--bench")
+   bench_tests
+   failure_check "${REPORTS_DIR}/bench/*.txt"
+   if [[ $? -gt 0 ]]; then
+     FAILED="true"
+   fi
+   ;;
    "-c" | "--clean")
    clean
    ;;
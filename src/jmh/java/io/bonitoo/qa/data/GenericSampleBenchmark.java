@@ -0,0 +1,77 @@
+package io.bonitoo.qa.data;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.data.generator.NumGenerator;
+import io.bonitoo.qa.data.serializer.PayloadBuffer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures updating and serializing a generic sample holding 1, 10 or 100 items.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class GenericSampleBenchmark {
+
+  @Param({"1", "10", "100"})
+  public int items;
+
+  GenericSample sample;
+
+  final PayloadBuffer buffer = new PayloadBuffer();
+
+  @Setup(Level.Trial)
+  public void setup() {
+    List<ItemConfig> configs = new ArrayList<>();
+    for (int i = 0; i < items; i++) {
+      configs.add(new ItemNumConfig(String.format("benchItem%03d", i), String.format("val%03d", i),
+          i % 2 == 0 ? ItemType.Double : ItemType.Long, 0, 100, 1.0, NumGenerator.DEFAULT_DEV));
+    }
+    sample = GenericSample.of(new SampleConfig("random", "benchSample" + items, "bench/sample",
+        configs));
+    sample.update();
+  }
+
+  @Benchmark
+  public Sample update() {
+    return sample.update();
+  }
+
+  @Benchmark
+  public String toJson() throws JsonProcessingException {
+    return sample.toJson();
+  }
+
+  @Benchmark
+  public ByteBuffer toPayload() throws IOException {
+    return sample.toPayload(buffer);
+  }
+
+  @Benchmark
+  public ByteBuffer updateAndPayload() throws IOException {
+    return sample.update().toPayload(buffer);
+  }
+
+}
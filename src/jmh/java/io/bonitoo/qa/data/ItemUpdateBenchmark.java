@@ -0,0 +1,73 @@
+package io.bonitoo.qa.data;
+
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.ItemStringConfig;
+import io.bonitoo.qa.data.generator.NumGenerator;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures <code>Item.update()</code> for each built-in item type.
+ *
+ * <p>Plugin items are not covered, since they depend on plugin jars loaded at runtime.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class ItemUpdateBenchmark {
+
+  @Param({"Double", "Long", "String"})
+  public String type;
+
+  Item item;
+
+  TickContext tick;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ItemConfig config;
+    switch (ItemType.valueOf(type)) {
+      case Double:
+        config = new ItemNumConfig("benchDouble", "dbl", ItemType.Double,
+          -40, 40, 1.0, NumGenerator.DEFAULT_DEV, 2);
+        break;
+      case Long:
+        config = new ItemNumConfig("benchLong", "lng", ItemType.Long,
+          0, 1000, 2.0, NumGenerator.DEFAULT_DEV);
+        break;
+      default:
+        config = new ItemStringConfig("benchString", "str", ItemType.String,
+          Arrays.asList("alpha", "beta", "gamma", "delta"));
+        break;
+    }
+    item = Item.of(config);
+    tick = new TickContext(System.currentTimeMillis());
+  }
+
+  @Benchmark
+  public Item update() {
+    return item.update();
+  }
+
+  @Benchmark
+  public Item updateWithTick() {
+    return item.update(tick);
+  }
+
+}
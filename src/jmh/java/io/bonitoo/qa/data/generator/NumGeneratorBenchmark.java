@@ -0,0 +1,50 @@
+package io.bonitoo.qa.data.generator;
+
+import io.bonitoo.qa.conf.data.DataConfig;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the value functions of NumGenerator and the instantiation of data generators.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class NumGeneratorBenchmark {
+
+  long time;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    time = NumGenerator.millisSince0Hour();
+  }
+
+  @Benchmark
+  public double genDoubleValSin() {
+    return NumGenerator.genDoubleValSin(1.0, NumGenerator.DEFAULT_DEV, -40, 40, time);
+  }
+
+  @Benchmark
+  public double gaussNormalFilter() {
+    return NumGenerator.gaussNormalFilter(-40, 40);
+  }
+
+  @Benchmark
+  public DataGenerator<? extends DataConfig> create() {
+    return DataGenerator.create(NumGenerator.class.getName());
+  }
+
+}
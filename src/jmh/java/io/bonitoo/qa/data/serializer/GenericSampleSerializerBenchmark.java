@@ -0,0 +1,78 @@
+package io.bonitoo.qa.data.serializer;
+
+import io.bonitoo.qa.conf.data.ItemArType;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.data.GenericSample;
+import io.bonitoo.qa.data.ItemType;
+import io.bonitoo.qa.data.generator.NumGenerator;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures GenericSampleSerializer, and the SampleTemplate which replaces it for compact
+ * payloads, for a multi-valued item in each array layout.
+ *
+ * <p>The time per message should grow linearly with the count of the item.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class GenericSampleSerializerBenchmark {
+
+  @Param({"Array", "Object", "Flat"})
+  public String arType;
+
+  @Param({"10", "100", "1000"})
+  public int count;
+
+  GenericSample sample;
+
+  SampleTemplate template;
+
+  final PayloadBuffer buffer = new PayloadBuffer();
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ItemConfig config = new ItemNumConfig("benchArItem" + arType + count, "val", ItemType.Double,
+        0, 100, 1.0, NumGenerator.DEFAULT_DEV, 2);
+    config.setCount(count);
+    config.setArType(ItemArType.valueOf(arType));
+    sample = GenericSample.of(new SampleConfig("random", "benchArSample" + arType + count, "bench/array",
+        Collections.singletonList(config)));
+    sample.update();
+    template = SampleTemplate.compile(sample);
+  }
+
+  @Benchmark
+  public int serialize() throws IOException {
+    buffer.reset();
+    JsonWriterCache.writerFor(GenericSample.class).writeValue(buffer, sample);
+    return buffer.size();
+  }
+
+  @Benchmark
+  public int template() throws IOException {
+    buffer.reset();
+    template.write(sample, buffer);
+    return buffer.size();
+  }
+
+}
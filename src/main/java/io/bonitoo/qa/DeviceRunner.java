@@ -1,30 +1,51 @@
 package io.bonitoo.qa;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.bonitoo.qa.conf.BackfillConfig;
 import io.bonitoo.qa.conf.Config;
 import io.bonitoo.qa.conf.Mode;
+import io.bonitoo.qa.conf.RampConfig;
+import io.bonitoo.qa.conf.RunnerConfig;
+import io.bonitoo.qa.conf.SinkConfig;
 import io.bonitoo.qa.conf.VirDevConfigException;
 import io.bonitoo.qa.conf.data.ItemConfigRegistry;
 import io.bonitoo.qa.conf.device.DeviceConfig;
 import io.bonitoo.qa.conf.mqtt.broker.BrokerConfig;
+import io.bonitoo.qa.data.serializer.JsonWriterCache;
 import io.bonitoo.qa.device.Device;
+import io.bonitoo.qa.device.DeviceScheduler;
 import io.bonitoo.qa.device.GenericDevice;
+import io.bonitoo.qa.device.LazyFleet;
+import io.bonitoo.qa.device.RampUpController;
+import io.bonitoo.qa.metrics.MetricsRegistry;
+import io.bonitoo.qa.mqtt.client.MqttClient;
+import io.bonitoo.qa.mqtt.client.MqttClientPool;
 import io.bonitoo.qa.mqtt.client.VirDevMqttClientBuilder;
 import io.bonitoo.qa.plugin.Plugin;
 import io.bonitoo.qa.plugin.PluginConfigException;
 import io.bonitoo.qa.plugin.PluginLoader;
+import io.bonitoo.qa.sink.FileSink;
+import io.bonitoo.qa.sink.FleetSink;
+import io.bonitoo.qa.sink.SinkType;
+import io.bonitoo.qa.util.HotPathLog;
 import io.bonitoo.qa.util.LogHelper;
-import io.bonitoo.qa.util.VirDevWorkInProgressException;
+import io.bonitoo.qa.util.RandomStreams;
+import io.bonitoo.qa.util.VirtualThreads;
 import io.reactivex.Flowable;
 import io.reactivex.disposables.Disposable;
 import java.io.File;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.LockSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +56,8 @@ import org.slf4j.LoggerFactory;
 public class DeviceRunner {
   static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  static final long SHUTDOWN_GRACE_MILLIS = 10000;
+
   /**
    * Starting point.
    *
@@ -45,7 +68,7 @@ public class DeviceRunner {
 
     loadPlugins();
 
-    List<Device> devices = new ArrayList<>();
+    configureHotPathLog();
 
     List<DeviceConfig> devConfigs = Config.getDeviceConfs();
 
@@ -53,9 +76,95 @@ public class DeviceRunner {
 
     VirDevMqttClientBuilder builder = new VirDevMqttClientBuilder(broker);
 
+    // item streams are derived from the seed when devices are created
+    RandomStreams.setSeed(Config.getRunnerConfig().getSeed());
+
+    final FileSink fileSink = openFileSink(Config.getRunnerConfig().getSink());
+
+    final MqttClientPool pool = fileSink == null
+        ? openClientPool(builder, Config.getRunnerConfig()) : null;
+
+    final boolean lazy = Config.getRunnerConfig().isLazy();
+
+    // a lazy fleet materializes its devices only when they tick
+    final List<Device> devices = lazy ? new ArrayList<>()
+        : buildDevices(devConfigs, builder, fileSink, pool);
+
+    logger.debug("ItemConfigRegistry keys " + ItemConfigRegistry.keys());
+
+    if (fileSink != null && Config.getRunnerConfig().isPrettyPrint()) {
+      logger.warn(LogHelper.buildMsg(Thread.currentThread().getName(),
+          "Runner Setup - Core", "prettyPrint ignored, file sinks write one sample per line"));
+      JsonWriterCache.setPrettyPrint(false);
+    } else {
+      JsonWriterCache.setPrettyPrint(Config.getRunnerConfig().isPrettyPrint());
+    }
+
+    logger.info(LogHelper.buildMsg(
+        Thread.currentThread().getName(),
+        "Runner Setup - Core",
+        "Executing runner in mode " + Config.getRunnerConfig().getMode()));
+
+    if (fileSink != null && Config.getRunnerConfig().getRamp() != null) {
+      logger.warn(LogHelper.buildMsg(Thread.currentThread().getName(),
+          "Runner Setup - Core", "ramp ignored, file sinks do not connect"));
+    }
+
+    final RampUpController ramp = fileSink == null && !lazy
+        ? startRamp(Config.getRunnerConfig().getRamp(), devices) : null;
+
+    // rates are calculated from the start of the run
+    MetricsRegistry.clear();
+
+    try {
+      if (lazy) {
+        lazyMain(new LazyFleet(devConfigs), fileSink, pool, Config.getRunnerConfig().getRamp());
+      } else if (Config.getRunnerConfig().getMode() == Mode.ASYNC) {
+        asyncMain(devices);
+      } else if (Config.getRunnerConfig().getMode() == Mode.VIRTUAL) {
+        virtualMain(devices);
+      } else if (Config.getRunnerConfig().getMode() == Mode.BACKFILL) {
+        backfillMain(devices, Config.getRunnerConfig().getBackfill());
+      } else if (Config.getRunnerConfig().getMode() == Mode.REACTIVE) {
+        reactiveMain(devices);
+      } else {
+        blockingMain(devices);
+      }
+    } finally {
+      if (ramp != null) {
+        ramp.stopReporting();
+      }
+      HotPathLog.flush();
+      if (fileSink == null) {
+        MetricsRegistry.logSummary();
+      }
+      closeFileSink(fileSink);
+    }
+  }
+
+  /**
+   * Materializes all devices of the configs up front.
+   *
+   * @param devConfigs - configurations of the devices.
+   * @param builder - builder for the clients of devices with a connection of their own.
+   * @param fileSink - the file sink shared by all devices, or null.
+   * @param pool - the connection pool shared by all devices, or null.
+   * @return - the devices.
+   */
+  protected static List<Device> buildDevices(List<DeviceConfig> devConfigs,
+                                             VirDevMqttClientBuilder builder,
+                                             FileSink fileSink,
+                                             MqttClientPool pool) {
+    List<Device> devices = new ArrayList<>();
     for (DeviceConfig devConf : devConfigs) {
       for (int i = 0; i < devConf.getCount(); i++) {
-        if (devConf.getCount() > 1) {
+        if (fileSink != null) {
+          devices.add(GenericDevice.numberedDevice(fileSink,
+              devConf.getCount() > 1 ? new DeviceConfig(devConf, (i + 1)) : devConf, (i + 1)));
+        } else if (pool != null) {
+          devices.add(GenericDevice.numberedDevice(pool.lease(),
+              devConf.getCount() > 1 ? new DeviceConfig(devConf, (i + 1)) : devConf, (i + 1)));
+        } else if (devConf.getCount() > 1) {
           DeviceConfig copyDevConfig = new DeviceConfig(devConf, (i + 1));
           devices.add(GenericDevice.numberedDevice(builder
               .id(copyDevConfig.getId())
@@ -69,36 +178,263 @@ public class DeviceRunner {
         }
       }
     }
+    return devices;
+  }
 
-    logger.debug("ItemConfigRegistry keys " + ItemConfigRegistry.keys());
+  /**
+   * Starts a ramp pacing the connects of all generic devices.
+   *
+   * @param rampConf - the ramp configuration of the runner.
+   * @param devices - devices to be run.
+   * @return - the controller of the ramp, or null when devices connect as they start.
+   */
+  protected static RampUpController startRamp(RampConfig rampConf, List<Device> devices) {
+    if (rampConf == null) {
+      return null;
+    }
+    RampUpController ramp = new RampUpController(rampConf);
+    long paced = 0;
+    for (Device device : devices) {
+      if (device instanceof GenericDevice) {
+        ((GenericDevice) device).setRamp(ramp);
+        paced++;
+      }
+    }
+    logger.info(LogHelper.buildMsg(Thread.currentThread().getName(),
+        "Runner Setup - Core", String.format("Ramping %d devices: %s", paced, rampConf)));
+    ramp.startReporting(paced);
+    return ramp;
+  }
 
-    logger.info(LogHelper.buildMsg(
-        Thread.currentThread().getName(),
-        "Runner Setup - Core",
-        "Executing runner in mode " + Config.getRunnerConfig().getMode()));
+  /**
+   * Sets up logging on the publish hot path from the property
+   * <code>log.payload.every</code>, which logs the payload of 1 in N samples.  Without
+   * the property 1 in <code>HotPathLog.DEFAULT_PAYLOAD_EVERY</code> payloads is logged.
+   */
+  protected static void configureHotPathLog() {
+    String every = Config.getProp("log.payload.every");
+    if (every == null) {
+      return;
+    }
+    try {
+      HotPathLog.setPayloadEvery(Integer.parseInt(every.trim()));
+    } catch (IllegalArgumentException e) {
+      throw new VirDevConfigException("Property log.payload.every must be an integer >= 1, got "
+        + every);
+    }
+  }
 
-    if (Config.getRunnerConfig().getMode() == Mode.ASYNC) {
-      asyncMain(devices);
-    } else if (Config.getRunnerConfig().getMode() == Mode.REACTIVE) {
-      reactiveMain(devices);
-    } else {
-      blockingMain(devices);
+  /**
+   * Opens the file sink shared by all devices.
+   *
+   * @param sinkConf - the sink configuration of the runner.
+   * @return - the file sink, or null when samples are to be published to the broker.
+   */
+  protected static FileSink openFileSink(SinkConfig sinkConf) {
+    if (sinkConf == null || sinkConf.getType() != SinkType.FILE) {
+      return null;
+    }
+    try {
+      logger.info(LogHelper.buildMsg(Thread.currentThread().getName(),
+          "Runner Setup - Core",
+          String.format("Writing %s samples to %s", sinkConf.getFormat(), sinkConf.getPath())));
+      return new FileSink(Paths.get(sinkConf.getPath()), sinkConf.getFormat());
+    } catch (IOException e) {
+      throw new VirtualDeviceRuntimeException("Failed to open file sink " + sinkConf.getPath(), e);
     }
   }
 
+  /**
+   * Opens the pool of connections shared by all devices.
+   *
+   * <p>A lazy fleet always shares a pool, by default of one connection per available
+   * processor.</p>
+   *
+   * @param builder - builder for the clients of the pool.
+   * @param runnerConf - configuration of the runner.
+   * @return - the pool, or null when each device gets its own connection.
+   */
+  protected static MqttClientPool openClientPool(VirDevMqttClientBuilder builder,
+                                                 RunnerConfig runnerConf) {
+    int size = runnerConf.getConnections() < 1 && runnerConf.isLazy()
+        ? DeviceScheduler.defaultPoolSize(Integer.MAX_VALUE) : runnerConf.getConnections();
+    if (size < 1) {
+      return null;
+    }
+    // client identifiers must not clash with those of other load generators
+    return new MqttClientPool(builder, runnerConf.getMode(), size,
+        "virdev-" + UUID.randomUUID());
+  }
+
+  private static void closeFileSink(FileSink fileSink) {
+    if (fileSink == null) {
+      return;
+    }
+    try {
+      fileSink.close();
+    } catch (IOException e) {
+      throw new VirtualDeviceRuntimeException("Failed to close file sink " + fileSink.getPath(), e);
+    }
+  }
+
+  /**
+   * Runs all devices in BLOCKING mode.
+   *
+   * <p>Generic devices are not run as threads.  Their publishing ticks get triggered
+   * by a shared <code>DeviceScheduler</code> with one thread per available processor,
+   * so the size of the simulated fleet does not dictate the number of threads.
+   * Any other device implementations are still run on their own threads.</p>
+   *
+   * @param devices - devices to be run.
+   */
   protected static void blockingMain(List<Device> devices) {
 
-    ExecutorService service = Executors.newFixedThreadPool(devices.size());
+    DeviceScheduler scheduler =
+        new DeviceScheduler(DeviceScheduler.defaultPoolSize(devices.size()));
 
-    devices.forEach(service::execute);
+    List<Device> threadedDevices = new ArrayList<>();
+
+    long ttl = System.currentTimeMillis() + Config.ttl();
+
+    for (Device device : devices) {
+      if (device instanceof GenericDevice) {
+        scheduler.scheduleBlocking((GenericDevice) device, ttl);
+      } else {
+        threadedDevices.add(device);
+      }
+    }
+
+    ExecutorService service = null;
+    if (!threadedDevices.isEmpty()) {
+      service = Executors.newFixedThreadPool(threadedDevices.size());
+      threadedDevices.forEach(service::execute);
+      service.shutdown();
+    }
+
+    try {
+      scheduler.awaitCompletion(Config.ttl() + SHUTDOWN_GRACE_MILLIS);
+      if (service != null) {
+        service.awaitTermination(Config.ttl(), TimeUnit.MILLISECONDS);
+      }
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  /**
+   * Runs a lazy fleet in BLOCKING mode.
+   *
+   * <p>Devices are kept as templates and only materialized for a tick by a shared
+   * <code>DeviceScheduler</code>.  They publish through the connections of the pool,
+   * which are opened up front, paced by the ramp if one is configured, and closed once
+   * the run is over.  So memory and connections stay bounded however large the fleet,
+   * and the runner starts publishing without building the fleet first.</p>
+   *
+   * @param fleet - the devices to be run.
+   * @param fileSink - the file sink shared by all devices, or null.
+   * @param pool - the connection pool shared by all devices, or null with a file sink.
+   * @param rampConf - pacing of the connects of the pool, or null.
+   */
+  protected static void lazyMain(LazyFleet fleet, FileSink fileSink, MqttClientPool pool,
+                                 RampConfig rampConf) {
+    if (fileSink == null && pool == null) {
+      throw new VirtualDeviceRuntimeException(
+        "A lazy fleet requires a file sink or a connection pool");
+    }
+    for (DeviceConfig template : fleet.getTemplates()) {
+      if (template.getBatch() != null) {
+        logger.warn(LogHelper.buildMsg(template.getId(), "Runner Setup - Core",
+            "batch ignored, devices of a lazy fleet publish each sample"));
+      }
+    }
+    logger.info(LogHelper.buildMsg(Thread.currentThread().getName(), "Runner Setup - Core",
+        String.format("Lazy fleet of %d devices from %d configs",
+          fleet.size(), fleet.getTemplates().size())));
+
+    final LazyFleet.SinkFactory sinks = fileSink != null
+        ? template -> fileSink : template -> new FleetSink(pool.lease(), template);
+
+    DeviceScheduler scheduler = new DeviceScheduler(
+        DeviceScheduler.defaultPoolSize((int) Math.min(fleet.size(), Integer.MAX_VALUE)));
+
+    RampUpController ramp = rampConf == null || pool == null
+        ? null : new RampUpController(rampConf);
 
     try {
-      boolean terminated = service.awaitTermination(Config.ttl(), TimeUnit.MILLISECONDS);
+      if (pool != null) {
+        connectPool(pool, ramp);
+      }
+      scheduler.scheduleFleet(fleet, sinks, System.currentTimeMillis() + Config.ttl());
+      scheduler.awaitCompletion(Config.ttl() + SHUTDOWN_GRACE_MILLIS);
     } catch (InterruptedException e) {
       throw new RuntimeException(e);
+    } finally {
+      scheduler.shutdown();
+      if (ramp != null) {
+        ramp.stopReporting();
+      }
+      if (pool != null) {
+        disconnectPool(pool);
+      }
+    }
+  }
+
+  private static void connectPool(MqttClientPool pool, RampUpController ramp)
+      throws InterruptedException {
+    if (ramp != null) {
+      ramp.startReporting(pool.size());
+    }
+    for (MqttClient connection : pool.getConnections()) {
+      if (ramp == null) {
+        connection.connect();
+      } else {
+        ramp.rampConnect(connection::connect);
+      }
     }
+  }
+
+  private static void disconnectPool(MqttClientPool pool) {
+    for (MqttClient connection : pool.getConnections()) {
+      try {
+        connection.disconnect();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        logger.warn(LogHelper.buildMsg(connection.toString(), "Runner Shutdown",
+            "Failed to disconnect " + e));
+      }
+    }
+  }
+
+  /**
+   * Runs all devices in VIRTUAL mode.
+   *
+   * <p>Each device runs its blocking publishing loop on its own Java virtual thread.
+   * The device code remains simple blocking code, but parked devices hold no platform
+   * thread, so very large fleets can be run from a single JVM.  Requires Java 21 or later.</p>
+   *
+   * @param devices - devices to be run.
+   */
+  protected static void virtualMain(List<Device> devices) {
+
+    ExecutorService service = VirtualThreads.newExecutor();
+
+    devices.forEach(service::execute);
 
     service.shutdown();
+
+    try {
+      if (!service.awaitTermination(Config.ttl() + SHUTDOWN_GRACE_MILLIS, TimeUnit.MILLISECONDS)) {
+        logger.warn(LogHelper.buildMsg(Thread.currentThread().getName(),
+            "Runner Shutdown", "Devices did not complete in time"));
+        service.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
   }
 
   protected static void reactiveMain(List<Device> devices) {
@@ -122,8 +458,115 @@ public class DeviceRunner {
     }
   }
 
+  /**
+   * Runs all devices in ASYNC mode.
+   *
+   * <p>Devices do not get their own threads.  Instead, a shared <code>DeviceScheduler</code>
+   * triggers device connects and publishing ticks, while the MQTT clients handle
+   * acknowledgements asynchronously.</p>
+   *
+   * @param devices - devices to be run.  They must be GenericDevices with async clients.
+   */
   public static void asyncMain(List<Device> devices) {
-    throw new VirDevWorkInProgressException("asyncMain to be implemented");
+
+    DeviceScheduler scheduler =
+        new DeviceScheduler(DeviceScheduler.defaultPoolSize(devices.size()));
+
+    long ttl = System.currentTimeMillis() + Config.ttl();
+
+    try {
+      for (Device device : devices) {
+        if (! (device instanceof GenericDevice)) {
+          throw new VirtualDeviceRuntimeException(
+            "Attempt to run non-generic device in async mode " + device.getClass().getName()
+          );
+        }
+        scheduler.scheduleAsync((GenericDevice) device, ttl);
+      }
+      scheduler.awaitCompletion(Config.ttl() + SHUTDOWN_GRACE_MILLIS);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  /**
+   * Runs all devices in BACKFILL mode.
+   *
+   * <p>Each device publishes its samples over the configured span of simulated time,
+   * without waiting between ticks.  The devices are shared out over a thread pool sized
+   * to the available processors.  The runner ttl does not apply, the runner ends once
+   * every device has reached the end of the span, or gives up once the timeout of the
+   * backfill has passed.</p>
+   *
+   * @param devices - devices to be run.  They must be GenericDevices with blocking clients
+   *                or non MQTT sinks.
+   * @param backfill - the span of simulated time.
+   * @throws VirtualDeviceRuntimeException - when any device fails, or the devices do not
+   *     complete within the timeout.
+   */
+  public static void backfillMain(List<Device> devices, BackfillConfig backfill) {
+
+    if (backfill == null) {
+      throw new VirDevConfigException("Mode BACKFILL requires a backfill configuration");
+    }
+
+    ExecutorService service =
+        Executors.newFixedThreadPool(DeviceScheduler.defaultPoolSize(devices.size()));
+
+    final long started = System.currentTimeMillis();
+
+    List<Future<Long>> runs = new ArrayList<>();
+    for (Device device : devices) {
+      if (! (device instanceof GenericDevice)) {
+        service.shutdownNow();
+        throw new VirtualDeviceRuntimeException(
+          "Attempt to run non-generic device in backfill mode " + device.getClass().getName()
+        );
+      }
+      runs.add(service.submit(() -> ((GenericDevice) device)
+          .backfillRun(backfill.getStart(), backfill.getEnd())));
+    }
+
+    service.shutdown();
+
+    long ticks = 0;
+    int failed = 0;
+    Throwable firstFailure = null;
+    try {
+      for (int i = 0; i < runs.size(); i++) {
+        try {
+          ticks += runs.get(i).get(
+              Math.max(0, started + backfill.getTimeout() - System.currentTimeMillis()),
+              TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+          failed++;
+          firstFailure = firstFailure == null ? e.getCause() : firstFailure;
+          logger.error(LogHelper.buildMsg(((GenericDevice) devices.get(i)).getConfig().getId(),
+              "Backfill failed", e.getCause().toString()));
+        }
+      }
+    } catch (TimeoutException e) {
+      service.shutdownNow();
+      throw new VirtualDeviceRuntimeException(String.format(
+        "Backfill did not complete within the timeout of %d ms", backfill.getTimeout()));
+    } catch (InterruptedException e) {
+      service.shutdownNow();
+      throw new RuntimeException(e);
+    }
+
+    if (failed > 0) {
+      throw new VirtualDeviceRuntimeException(String.format(
+        "Backfill failed for %d of %d devices after %d device ticks", failed, runs.size(),
+        ticks), firstFailure);
+    }
+
+    logger.info(LogHelper.buildMsg(Thread.currentThread().getName(),
+        "Backfill complete",
+        String.format("%d device ticks over %d ms of simulated time in %d ms",
+          ticks, backfill.getEnd() - backfill.getStart(),
+          System.currentTimeMillis() - started)));
   }
 
   /**
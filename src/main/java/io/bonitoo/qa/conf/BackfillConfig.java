@@ -0,0 +1,37 @@
+package io.bonitoo.qa.conf;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Span of simulated time for which devices publish samples in BACKFILL mode.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BackfillConfig {
+
+  public static final long DEFAULT_TIMEOUT_MILLIS = 3600000L;
+
+  // milliseconds since the epoch
+  long start;
+
+  // milliseconds since the epoch, exclusive
+  long end;
+
+  // wall clock milliseconds after which the runner gives up on the devices
+  long timeout = DEFAULT_TIMEOUT_MILLIS;
+
+  public BackfillConfig(long start, long end) {
+    this(start, end, DEFAULT_TIMEOUT_MILLIS);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("start:%d,end:%d,timeout:%d", start, end, timeout);
+  }
+
+}
@@ -8,6 +8,10 @@ public enum Mode {
   BLOCKING,
 
   REACTIVE,
-  ASYNC
+  ASYNC,
+
+  VIRTUAL,
+
+  BACKFILL
 
 }
@@ -0,0 +1,39 @@
+package io.bonitoo.qa.conf;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Paces the connects of the devices of a runner, to avoid connect storms.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RampConfig {
+
+  public static final long DEFAULT_REPORT_MILLIS = 1000L;
+
+  // target connects per second
+  double connectsPerSecond;
+
+  // upper bound of connects awaiting acknowledgement, 0 for no bound
+  int maxConcurrent = 0;
+
+  RampCurve curve = RampCurve.LINEAR;
+
+  // time until the target rate is reached, ignored by a CONSTANT curve
+  long rampMillis = 0;
+
+  // interval of progress reports while devices are connecting
+  long reportMillis = DEFAULT_REPORT_MILLIS;
+
+  @Override
+  public String toString() {
+    return String.format("connectsPerSecond:%.2f,maxConcurrent:%d,curve:%s,rampMillis:%d,"
+        + "reportMillis:%d", connectsPerSecond, maxConcurrent, curve, rampMillis, reportMillis);
+  }
+
+}
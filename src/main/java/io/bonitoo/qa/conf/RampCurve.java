@@ -0,0 +1,13 @@
+package io.bonitoo.qa.conf;
+
+/**
+ * How the connect rate of a ramp-up rises to its target.
+ *
+ * <ul>
+ *   <li>CONSTANT - devices connect at the target rate from the start.</li>
+ *   <li>LINEAR - the rate rises linearly from zero to the target over the ramp duration.</li>
+ * </ul>
+ */
+public enum RampCurve {
+  CONSTANT, LINEAR
+}
@@ -28,6 +28,171 @@ public class RunnerConfig {
 
   Mode mode = Mode.BLOCKING;
 
+  boolean prettyPrint = false;
+
+  // null for unseeded, non-reproducible data
+  Long seed = null;
+
+  // only used in BACKFILL mode
+  BackfillConfig backfill = null;
+
+  // null to publish samples to the broker
+  SinkConfig sink = null;
+
+  // size of the pool of connections shared by all devices, 0 for one per device
+  int connections = 0;
+
+  // null to connect devices as they start
+  RampConfig ramp = null;
+
+  // true to materialize devices from their configs only for each tick
+  boolean lazy = false;
+
+  /**
+   * Constructs a RunnerConfig with compact sample payloads.
+   *
+   * @param broker - configuration of the MQTT broker.
+   * @param devices - configurations of the devices to be run.
+   * @param ttl - time to live of the runner in milliseconds.
+   * @param mode - the mode in which devices communicate with the broker.
+   */
+  public RunnerConfig(BrokerConfig broker, List<DeviceConfig> devices, Long ttl, Mode mode) {
+    this(broker, devices, ttl, mode, false);
+  }
+
+  /**
+   * Constructs an unseeded RunnerConfig.
+   *
+   * @param broker - configuration of the MQTT broker.
+   * @param devices - configurations of the devices to be run.
+   * @param ttl - time to live of the runner in milliseconds.
+   * @param mode - the mode in which devices communicate with the broker.
+   * @param prettyPrint - whether sample payloads should be indented.
+   */
+  public RunnerConfig(BrokerConfig broker,
+                      List<DeviceConfig> devices,
+                      Long ttl,
+                      Mode mode,
+                      boolean prettyPrint) {
+    this(broker, devices, ttl, mode, prettyPrint, null);
+  }
+
+  /**
+   * Constructs a RunnerConfig without a backfill span.
+   *
+   * @param broker - configuration of the MQTT broker.
+   * @param devices - configurations of the devices to be run.
+   * @param ttl - time to live of the runner in milliseconds.
+   * @param mode - the mode in which devices communicate with the broker.
+   * @param prettyPrint - whether sample payloads should be indented.
+   * @param seed - seed for reproducible data, or null.
+   */
+  public RunnerConfig(BrokerConfig broker,
+                      List<DeviceConfig> devices,
+                      Long ttl,
+                      Mode mode,
+                      boolean prettyPrint,
+                      Long seed) {
+    this(broker, devices, ttl, mode, prettyPrint, seed, null);
+  }
+
+  /**
+   * Constructs a RunnerConfig publishing to the broker.
+   *
+   * @param broker - configuration of the MQTT broker.
+   * @param devices - configurations of the devices to be run.
+   * @param ttl - time to live of the runner in milliseconds.
+   * @param mode - the mode in which devices communicate with the broker.
+   * @param prettyPrint - whether sample payloads should be indented.
+   * @param seed - seed for reproducible data, or null.
+   * @param backfill - span of simulated time for BACKFILL mode, or null.
+   */
+  public RunnerConfig(BrokerConfig broker,
+                      List<DeviceConfig> devices,
+                      Long ttl,
+                      Mode mode,
+                      boolean prettyPrint,
+                      Long seed,
+                      BackfillConfig backfill) {
+    this(broker, devices, ttl, mode, prettyPrint, seed, backfill, null);
+  }
+
+  /**
+   * Constructs a RunnerConfig with one connection per device.
+   *
+   * @param broker - configuration of the MQTT broker.
+   * @param devices - configurations of the devices to be run.
+   * @param ttl - time to live of the runner in milliseconds.
+   * @param mode - the mode in which devices communicate with the broker.
+   * @param prettyPrint - whether sample payloads should be indented.
+   * @param seed - seed for reproducible data, or null.
+   * @param backfill - span of simulated time for BACKFILL mode, or null.
+   * @param sink - destination of the samples, or null for the broker.
+   */
+  public RunnerConfig(BrokerConfig broker,
+                      List<DeviceConfig> devices,
+                      Long ttl,
+                      Mode mode,
+                      boolean prettyPrint,
+                      Long seed,
+                      BackfillConfig backfill,
+                      SinkConfig sink) {
+    this(broker, devices, ttl, mode, prettyPrint, seed, backfill, sink, 0);
+  }
+
+  /**
+   * Constructs a RunnerConfig without a connect ramp.
+   *
+   * @param broker - configuration of the MQTT broker.
+   * @param devices - configurations of the devices to be run.
+   * @param ttl - time to live of the runner in milliseconds.
+   * @param mode - the mode in which devices communicate with the broker.
+   * @param prettyPrint - whether sample payloads should be indented.
+   * @param seed - seed for reproducible data, or null.
+   * @param backfill - span of simulated time for BACKFILL mode, or null.
+   * @param sink - destination of the samples, or null for the broker.
+   * @param connections - size of the shared connection pool, or 0 for one per device.
+   */
+  public RunnerConfig(BrokerConfig broker,
+                      List<DeviceConfig> devices,
+                      Long ttl,
+                      Mode mode,
+                      boolean prettyPrint,
+                      Long seed,
+                      BackfillConfig backfill,
+                      SinkConfig sink,
+                      int connections) {
+    this(broker, devices, ttl, mode, prettyPrint, seed, backfill, sink, connections, null);
+  }
+
+  /**
+   * Constructs a RunnerConfig materializing all devices up front.
+   *
+   * @param broker - configuration of the MQTT broker.
+   * @param devices - configurations of the devices to be run.
+   * @param ttl - time to live of the runner in milliseconds.
+   * @param mode - the mode in which devices communicate with the broker.
+   * @param prettyPrint - whether sample payloads should be indented.
+   * @param seed - seed for reproducible data, or null.
+   * @param backfill - span of simulated time for BACKFILL mode, or null.
+   * @param sink - destination of the samples, or null for the broker.
+   * @param connections - size of the shared connection pool, or 0 for one per device.
+   * @param ramp - pacing of device connects, or null.
+   */
+  public RunnerConfig(BrokerConfig broker,
+                      List<DeviceConfig> devices,
+                      Long ttl,
+                      Mode mode,
+                      boolean prettyPrint,
+                      Long seed,
+                      BackfillConfig backfill,
+                      SinkConfig sink,
+                      int connections,
+                      RampConfig ramp) {
+    this(broker, devices, ttl, mode, prettyPrint, seed, backfill, sink, connections, ramp,
+        false);
+  }
+
   @Override
   public String toString() {
     StringBuilder result = new StringBuilder(String.format("ttl:%d\nBroker: %s\n", ttl, broker));
@@ -9,7 +9,12 @@ import io.bonitoo.qa.conf.data.SampleConfig;
 import io.bonitoo.qa.conf.data.SampleConfigRegistry;
 import io.bonitoo.qa.conf.device.DeviceConfig;
 import io.bonitoo.qa.conf.mqtt.broker.BrokerConfig;
+import io.bonitoo.qa.sink.SinkFormat;
+import io.bonitoo.qa.sink.SinkType;
+import io.bonitoo.qa.util.RandomStreams;
 import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,6 +39,11 @@ public class RunnerConfigDeserializer extends VirDevDeserializer<RunnerConfig> {
       case "ASYNC":
       case "ASYNCHRONOUS":
         return Mode.ASYNC;
+      case "VIRTUAL":
+      case "VIRTUAL_THREADS":
+        return Mode.VIRTUAL;
+      case "BACKFILL":
+        return Mode.BACKFILL;
       default:
         throw new VirDevConfigException(
           String.format("Unknown Mode type " + modeNode)
@@ -41,6 +51,150 @@ public class RunnerConfigDeserializer extends VirDevDeserializer<RunnerConfig> {
     }
   }
 
+  /**
+   * Parses a point in time given either as milliseconds since the epoch
+   * or as an ISO-8601 instant, e.g. <code>2023-01-01T00:00:00Z</code>.
+   *
+   * @param timeNode - the node holding the time.
+   * @return - milliseconds since the epoch.
+   */
+  protected static long parseTime(JsonNode timeNode) {
+    if (timeNode.isNumber()) {
+      return timeNode.asLong();
+    }
+    try {
+      return Instant.parse(timeNode.asText()).toEpochMilli();
+    } catch (DateTimeParseException e) {
+      throw new VirDevConfigException(
+        String.format("Cannot parse time %s, expected epoch millis or ISO-8601 instant",
+          timeNode.asText()));
+    }
+  }
+
+  protected static BackfillConfig parseBackfill(JsonNode backfillNode) {
+    JsonNode startNode = backfillNode.get("start");
+    JsonNode endNode = backfillNode.get("end"); // can be null
+    JsonNode timeoutNode = backfillNode.get("timeout"); // can be null
+
+    if (startNode == null) {
+      throw new VirDevConfigException("Backfill configuration requires a start time");
+    }
+
+    long start = parseTime(startNode);
+    long end = endNode == null ? System.currentTimeMillis() : parseTime(endNode);
+
+    if (start >= end) {
+      throw new VirDevConfigException(
+        String.format("Backfill start %d must precede end %d", start, end));
+    }
+
+    long timeout = timeoutNode == null
+        ? BackfillConfig.DEFAULT_TIMEOUT_MILLIS : timeoutNode.asLong();
+    if (timeout <= 0) {
+      throw new VirDevConfigException(
+        String.format("Backfill timeout must be positive, got %s", timeoutNode.asText()));
+    }
+    return new BackfillConfig(start, end, timeout);
+  }
+
+  protected static SinkType parseSinkType(String typeNode) {
+    switch (typeNode.replace("\"", "").toUpperCase()) {
+      case "MQTT":
+        return SinkType.MQTT;
+      case "FILE":
+        return SinkType.FILE;
+      default:
+        throw new VirDevConfigException("Unknown sink type " + typeNode);
+    }
+  }
+
+  protected static SinkFormat parseSinkFormat(String formatNode) {
+    switch (formatNode.replace("\"", "").toUpperCase()) {
+      case "NDJSON":
+      case "JSON":
+        return SinkFormat.NDJSON;
+      case "LINE_PROTOCOL":
+      case "LINEPROTOCOL":
+      case "LP":
+        return SinkFormat.LINE_PROTOCOL;
+      default:
+        throw new VirDevConfigException("Unknown sink format " + formatNode);
+    }
+  }
+
+  protected static SinkConfig parseSink(JsonNode sinkNode) {
+    JsonNode typeNode = sinkNode.get("type"); // can be null
+    JsonNode pathNode = sinkNode.get("path"); // can be null
+    JsonNode formatNode = sinkNode.get("format"); // can be null
+
+    SinkType type = typeNode == null || typeNode.isNull()
+        ? SinkType.MQTT : parseSinkType(typeNode.asText());
+    SinkFormat format = formatNode == null || formatNode.isNull()
+        ? SinkFormat.NDJSON : parseSinkFormat(formatNode.asText());
+    String path = pathNode == null || pathNode.isNull() ? null : pathNode.asText();
+
+    if (type == SinkType.FILE && (path == null || path.isEmpty())) {
+      throw new VirDevConfigException("File sink requires a path");
+    }
+    return new SinkConfig(type, path, format);
+  }
+
+  protected static RampCurve parseRampCurve(String curveNode) {
+    switch (curveNode.replace("\"", "").toUpperCase()) {
+      case "CONSTANT":
+      case "STEP":
+        return RampCurve.CONSTANT;
+      case "LINEAR":
+        return RampCurve.LINEAR;
+      default:
+        throw new VirDevConfigException("Unknown ramp curve " + curveNode);
+    }
+  }
+
+  protected static RampConfig parseRamp(JsonNode rampNode) {
+    JsonNode rateNode = rampNode.get("connectsPerSecond");
+    final JsonNode maxConcurrentNode = rampNode.get("maxConcurrent"); // can be null
+    final JsonNode curveNode = rampNode.get("curve"); // can be null
+    final JsonNode rampMillisNode = rampNode.get("rampMillis"); // can be null
+    final JsonNode reportMillisNode = rampNode.get("reportMillis"); // can be null
+
+    if (rateNode == null || rateNode.isNull()) {
+      throw new VirDevConfigException("Ramp configuration requires connectsPerSecond");
+    }
+
+    RampConfig ramp = new RampConfig();
+    ramp.setConnectsPerSecond(rateNode.asDouble());
+    if (maxConcurrentNode != null && !maxConcurrentNode.isNull()) {
+      ramp.setMaxConcurrent(maxConcurrentNode.asInt());
+    }
+    if (curveNode != null && !curveNode.isNull()) {
+      ramp.setCurve(parseRampCurve(curveNode.asText()));
+    }
+    if (rampMillisNode != null && !rampMillisNode.isNull()) {
+      ramp.setRampMillis(rampMillisNode.asLong());
+    }
+    if (reportMillisNode != null && !reportMillisNode.isNull()) {
+      ramp.setReportMillis(reportMillisNode.asLong());
+    }
+
+    if (ramp.getConnectsPerSecond() <= 0) {
+      throw new VirDevConfigException(
+        "Ramp connectsPerSecond must be > 0, got " + rateNode.asText());
+    }
+    if (ramp.getMaxConcurrent() < 0) {
+      throw new VirDevConfigException(
+        "Ramp maxConcurrent must be >= 0, got " + ramp.getMaxConcurrent());
+    }
+    if (ramp.getRampMillis() < 0) {
+      throw new VirDevConfigException("Ramp rampMillis must be >= 0, got " + ramp.getRampMillis());
+    }
+    if (ramp.getReportMillis() <= 0) {
+      throw new VirDevConfigException(
+        "Ramp reportMillis must be > 0, got " + ramp.getReportMillis());
+    }
+    return ramp;
+  }
+
   public RunnerConfigDeserializer() {
     this(null);
   }
@@ -67,6 +221,10 @@ public class RunnerConfigDeserializer extends VirDevDeserializer<RunnerConfig> {
     JsonNode samplesNode = node.get("samples"); // can be null
     JsonNode devicesNode = node.get("devices");
     JsonNode modeNode = node.get("mode"); // can be null
+    JsonNode prettyPrintNode = node.get("prettyPrint"); // can be null
+    JsonNode seedNode = node.get("seed"); // can be null
+    JsonNode backfillNode = node.get("backfill"); // can be null
+    JsonNode sinkNode = node.get("sink"); // can be null
 
     if (ttlNode == null
         && brokerNode == null
@@ -89,6 +247,53 @@ public class RunnerConfigDeserializer extends VirDevDeserializer<RunnerConfig> {
 
     final Mode mode = modeNode == null ? Mode.BLOCKING : parseMode(modeNode.toString());
 
+    final boolean prettyPrint = prettyPrintNode != null && prettyPrintNode.asBoolean();
+
+    final Long seed = seedNode == null || seedNode.isNull() ? null : seedNode.asLong();
+
+    final BackfillConfig backfill = backfillNode == null || backfillNode.isNull()
+        ? null : parseBackfill(backfillNode);
+
+    if (mode == Mode.BACKFILL && backfill == null) {
+      throw new VirDevConfigException("Mode BACKFILL requires a backfill configuration");
+    }
+
+    final SinkConfig sink = sinkNode == null || sinkNode.isNull()
+        ? null : parseSink(sinkNode);
+
+    if (sink != null && sink.getType() == SinkType.FILE
+        && (mode == Mode.ASYNC || mode == Mode.REACTIVE)) {
+      throw new VirDevConfigException(
+        String.format("File sink cannot be used in mode %s", mode));
+    }
+
+    JsonNode connectionsNode = node.get("connections"); // can be null
+    final int connections = connectionsNode == null || connectionsNode.isNull()
+        ? 0 : connectionsNode.asInt();
+
+    if (connections < 0) {
+      throw new VirDevConfigException("Connections must be >= 0, got " + connections);
+    }
+
+    if (connections > 0 && mode == Mode.REACTIVE) {
+      throw new VirDevConfigException(
+        String.format("Connection pool cannot be used in mode %s", mode));
+    }
+
+    JsonNode rampNode = node.get("ramp"); // can be null
+    final RampConfig ramp = rampNode == null || rampNode.isNull() ? null : parseRamp(rampNode);
+
+    JsonNode lazyNode = node.get("lazy"); // can be null
+    final boolean lazy = lazyNode != null && lazyNode.asBoolean();
+
+    if (lazy && mode != Mode.BLOCKING) {
+      throw new VirDevConfigException(
+        String.format("Lazy fleets cannot be run in mode %s", mode));
+    }
+
+    // random IDs in the item, sample and device configs below are drawn from the seed
+    RandomStreams.setSeed(seed);
+
     if (itemsNode != null) {
       for (JsonNode itemNode : itemsNode) {
         if (itemNode.isTextual()) {
@@ -120,6 +325,7 @@ public class RunnerConfigDeserializer extends VirDevDeserializer<RunnerConfig> {
       }
     }
 
-    return new RunnerConfig(broker, devices, ttl, mode);
+    return new RunnerConfig(broker, devices, ttl, mode, prettyPrint, seed, backfill, sink,
+      connections, ramp, lazy);
   }
 }
@@ -0,0 +1,32 @@
+package io.bonitoo.qa.conf;
+
+import io.bonitoo.qa.sink.SinkFormat;
+import io.bonitoo.qa.sink.SinkType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Destination of the samples of all devices.  By default, samples are published to
+ * the MQTT broker.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SinkConfig {
+
+  SinkType type = SinkType.MQTT;
+
+  // only used by FILE sinks
+  String path;
+
+  SinkFormat format = SinkFormat.NDJSON;
+
+  @Override
+  public String toString() {
+    return String.format("type:%s,path:%s,format:%s", type, path, format);
+  }
+
+}
@@ -3,6 +3,7 @@ package io.bonitoo.qa.conf;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
 
 /**
  * Base class for deserializers.
@@ -29,6 +30,34 @@ public abstract class VirDevDeserializer<T> extends StdDeserializer<T> {
     return subNode;
   }
 
+  /**
+   * Parses an optional MQTT QoS, given either as its code 0, 1 or 2 or as its name,
+   * e.g. <code>AT_LEAST_ONCE</code>.
+   *
+   * @param qosNode - the node, can be null.
+   * @return - the QoS or null when the node is missing.
+   * @throws VirDevConfigException - when the node holds no valid QoS.
+   */
+  protected static MqttQos parseQos(JsonNode qosNode) throws VirDevConfigException {
+    if (qosNode == null || qosNode.isNull()) {
+      return null;
+    }
+    String qos = qosNode.asText().trim().toUpperCase();
+    if (qos.matches("[0-9]")) {
+      MqttQos result = MqttQos.fromCode(Integer.parseInt(qos));
+      if (result != null) {
+        return result;
+      }
+    } else {
+      for (MqttQos value : MqttQos.values()) {
+        if (value.name().equals(qos)) {
+          return value;
+        }
+      }
+    }
+    throw new VirDevConfigException("Unknown MQTT QoS " + qosNode);
+  }
+
   protected static JsonNode getDefaultDoubleNode(JsonNode node,
                                         String subName,
                                         double defVal) {
@@ -2,9 +2,11 @@ package io.bonitoo.qa.conf.data;
 
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import io.bonitoo.qa.util.RandomStreams;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.Objects;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -30,6 +32,12 @@ public class SampleConfig extends DataConfig {
   // optional - if set plugin will be used to generated samples
   String plugin;
 
+  // optional - if not set the QoS of the device, or else of the client, is used
+  MqttQos qos;
+
+  // optional - if not set the retain flag of the device is used
+  Boolean retain;
+
   /**
    * Basic all arguments constructor.
    *
@@ -130,6 +138,28 @@ public class SampleConfig extends DataConfig {
     this.topic = sampleConfig.getTopic();
     this.items = sampleConfig.getItems();
     this.arType = sampleConfig.getArType();
+    this.qos = sampleConfig.getQos();
+    this.retain = sampleConfig.getRetain();
+  }
+
+  /**
+   * Resolves the QoS with which samples of this config get published.
+   *
+   * @param fallback - QoS of the device, can be null.
+   * @return - the QoS of this config if set, otherwise the fallback.
+   */
+  public MqttQos qosOr(MqttQos fallback) {
+    return qos == null ? fallback : qos;
+  }
+
+  /**
+   * Resolves whether samples of this config get retained by the broker.
+   *
+   * @param fallback - retain flag of the device.
+   * @return - the retain flag of this config if set, otherwise the fallback.
+   */
+  public boolean retainOr(boolean fallback) {
+    return retain == null ? fallback : retain;
   }
 
   /**
@@ -140,7 +170,7 @@ public class SampleConfig extends DataConfig {
    */
   public static String resolveId(String id) {
     if (id.equalsIgnoreCase("RANDOM")) {
-      return UUID.randomUUID().toString();
+      return RandomStreams.randomUuid();
     }
     return id;
   }
@@ -173,7 +203,9 @@ public class SampleConfig extends DataConfig {
 
     if (!(name.equals(conf.name)
         && id.equals(conf.id)
-        && topic.equals(conf.topic))) {
+        && topic.equals(conf.topic)
+        && qos == conf.qos
+        && Objects.equals(retain, conf.retain))) {
       return false;
     }
 
@@ -82,6 +82,11 @@ public class SampleConfigDeserializer extends VirDevDeserializer<SampleConfig> {
     if (arType != ItemArType.Undefined) {
       config.setArType(arType);
     }
+    config.setQos(parseQos(node.get("qos")));
+    JsonNode retainNode = node.get("retain"); // can be null
+    if (retainNode != null && !retainNode.isNull()) {
+      config.setRetain(retainNode.asBoolean());
+    }
 
     return config;
   }
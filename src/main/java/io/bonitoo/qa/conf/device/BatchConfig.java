@@ -0,0 +1,59 @@
+package io.bonitoo.qa.conf.device;
+
+import io.bonitoo.qa.sink.BatchMode;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Optional batching of the samples a device publishes to the broker.
+ *
+ * <p>A batch is closed as soon as it holds maxSamples samples, or would grow beyond
+ * maxBytes, or its first sample is older than maxLingerMillis at the end of a tick.
+ * With maxLingerMillis 0 every batch is closed at the end of the tick in which it
+ * was opened.</p>
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchConfig {
+
+  public static final int DEFAULT_MAX_SAMPLES = 100;
+  public static final int DEFAULT_MAX_BYTES = 256 * 1024;
+  public static final long DEFAULT_MAX_LINGER_MILLIS = 0L;
+
+  BatchMode mode = BatchMode.PIPELINE;
+
+  int maxSamples = DEFAULT_MAX_SAMPLES;
+
+  int maxBytes = DEFAULT_MAX_BYTES;
+
+  long maxLingerMillis = DEFAULT_MAX_LINGER_MILLIS;
+
+  @Override
+  public String toString() {
+    return String.format("mode:%s,maxSamples:%d,maxBytes:%d,maxLingerMillis:%d",
+      mode, maxSamples, maxBytes, maxLingerMillis);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof BatchConfig)) {
+      return false;
+    }
+    final BatchConfig conf = (BatchConfig) obj;
+    return conf.mode == mode
+      && conf.maxSamples == maxSamples
+      && conf.maxBytes == maxBytes
+      && conf.maxLingerMillis == maxLingerMillis;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(mode, maxSamples, maxBytes, maxLingerMillis);
+  }
+
+}
@@ -1,10 +1,12 @@
 package io.bonitoo.qa.conf.device;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
 import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.util.RandomStreams;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.Objects;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -20,6 +22,8 @@ import lombok.Setter;
 @JsonDeserialize(using = DeviceConfigDeserializer.class)
 public class DeviceConfig {
 
+  public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
   String id;
   String name;
   String description;
@@ -28,6 +32,88 @@ public class DeviceConfig {
   Long jitter = 0L;
   int count;
 
+  // upper bound of unacknowledged publishes when running in ASYNC mode
+  int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+  // null when every sample is published on its own
+  BatchConfig batch;
+
+  // null leaves the QoS to the samples or else the client
+  MqttQos qos;
+
+  // null is not retained, unless a sample says otherwise
+  Boolean retain;
+
+  /**
+   * Constructor leaving maxInFlight at its default value.
+   *
+   * @param id - id of the device.
+   * @param name - name of the device.
+   * @param description - description of the device.
+   * @param samples - sample configurations to be generated by the device.
+   * @param interval - interval in milliseconds between publishing samples.
+   * @param jitter - additional wait in milliseconds.
+   * @param count - number of devices of this type to be run.
+   */
+  public DeviceConfig(String id,
+                      String name,
+                      String description,
+                      List<SampleConfig> samples,
+                      Long interval,
+                      Long jitter,
+                      int count) {
+    this(id, name, description, samples, interval, jitter, count, DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  /**
+   * Constructor leaving the device without batching.
+   *
+   * @param id - id of the device.
+   * @param name - name of the device.
+   * @param description - description of the device.
+   * @param samples - sample configurations to be generated by the device.
+   * @param interval - interval in milliseconds between publishing samples.
+   * @param jitter - additional wait in milliseconds.
+   * @param count - number of devices of this type to be run.
+   * @param maxInFlight - upper bound of unacknowledged publishes in ASYNC mode.
+   */
+  public DeviceConfig(String id,
+                      String name,
+                      String description,
+                      List<SampleConfig> samples,
+                      Long interval,
+                      Long jitter,
+                      int count,
+                      int maxInFlight) {
+    this(id, name, description, samples, interval, jitter, count, maxInFlight, null);
+  }
+
+  /**
+   * Constructor leaving QoS and retain flag to the samples of the device.
+   *
+   * @param id - id of the device.
+   * @param name - name of the device.
+   * @param description - description of the device.
+   * @param samples - sample configurations to be generated by the device.
+   * @param interval - interval in milliseconds between publishing samples.
+   * @param jitter - additional wait in milliseconds.
+   * @param count - number of devices of this type to be run.
+   * @param maxInFlight - upper bound of unacknowledged publishes in ASYNC mode.
+   * @param batch - batching of published samples, or null.
+   */
+  public DeviceConfig(String id,
+                      String name,
+                      String description,
+                      List<SampleConfig> samples,
+                      Long interval,
+                      Long jitter,
+                      int count,
+                      int maxInFlight,
+                      BatchConfig batch) {
+    this(id, name, description, samples, interval, jitter, count, maxInFlight, batch,
+        null, null);
+  }
+
   /**
    * Copy constructor needed when creating more than one device.
    *
@@ -42,8 +128,12 @@ public class DeviceConfig {
     this.interval = deviceConfig.getInterval();
     this.jitter = deviceConfig.getJitter();
     this.count = 1;
-    this.samples = new ArrayList<>();
-    // deep copy sample configs and modify
+    this.maxInFlight = deviceConfig.getMaxInFlight();
+    this.batch = deviceConfig.getBatch();
+    this.qos = deviceConfig.getQos();
+    this.retain = deviceConfig.getRetain();
+    this.samples = new ArrayList<>(deviceConfig.getSamples().size());
+    // copy sample configs for their numbered id and name, items are shared
     for (SampleConfig sampleConfig : deviceConfig.getSamples()) {
       SampleConfig newConf = new SampleConfig(sampleConfig);
       newConf.setId(String.format("%s-%03d", sampleConfig.getId(), number));
@@ -60,11 +150,31 @@ public class DeviceConfig {
    */
   public String getId() {
     if (id == null || id.equalsIgnoreCase("RANDOM")) {
-      id = UUID.randomUUID().toString();
+      id = RandomStreams.randomUuid();
     }
     return id;
   }
 
+  /**
+   * Resolves the QoS with which a sample of this device gets published.
+   *
+   * @param sample - config of the sample.
+   * @return - QoS of the sample, else of the device, else null for the client default.
+   */
+  public MqttQos qosFor(SampleConfig sample) {
+    return sample.qosOr(qos);
+  }
+
+  /**
+   * Resolves whether a sample of this device gets retained by the broker.
+   *
+   * @param sample - config of the sample.
+   * @return - retain flag of the sample, else of the device, else false.
+   */
+  public boolean retainFor(SampleConfig sample) {
+    return sample.retainOr(Boolean.TRUE.equals(retain));
+  }
+
   public SampleConfig getSample(int index) {
     return samples.get(index);
   }
@@ -87,8 +197,9 @@ public class DeviceConfig {
   @Override
   public String toString() {
     StringBuilder result = new StringBuilder(
-        String.format("name=%s,id=%s,description=%s,interval=%d,jitter=%d,count=%d,\nsamples=[\n",
-        name, getId(), description, interval, jitter, count)
+        String.format("name=%s,id=%s,description=%s,interval=%d,jitter=%d,count=%d,"
+            + "maxInFlight=%d,batch=%s,qos=%s,retain=%s,\nsamples=[\n",
+        name, getId(), description, interval, jitter, count, maxInFlight, batch, qos, retain)
     );
     for (SampleConfig sample : samples) {
       result.append(String.format("%s", sample));
@@ -114,7 +225,11 @@ public class DeviceConfig {
         && conf.name.equals(name)
         && conf.interval.equals(interval)
         && conf.jitter.equals(jitter)
-        && conf.count == count)) {
+        && conf.count == count
+        && conf.maxInFlight == maxInFlight
+        && Objects.equals(conf.batch, batch)
+        && conf.qos == qos
+        && Objects.equals(conf.retain, retain))) {
       return false;
     }
 
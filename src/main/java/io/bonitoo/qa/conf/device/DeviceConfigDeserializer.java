@@ -13,6 +13,7 @@ import io.bonitoo.qa.plugin.sample.SamplePlugin;
 import io.bonitoo.qa.plugin.sample.SamplePluginConfig;
 import io.bonitoo.qa.plugin.sample.SamplePluginConfigClass;
 import io.bonitoo.qa.plugin.sample.SamplePluginMill;
+import io.bonitoo.qa.sink.BatchMode;
 import io.bonitoo.qa.util.LogHelper;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
@@ -34,6 +35,47 @@ public class DeviceConfigDeserializer extends VirDevDeserializer<DeviceConfig> {
 
   static final int defaultCount = Integer.parseInt(Config.getProp("default.device.count"));
 
+  static final int defaultMaxInFlight = Config.getProp("default.device.maxInFlight") == null
+      ? DeviceConfig.DEFAULT_MAX_IN_FLIGHT
+      : Integer.parseInt(Config.getProp("default.device.maxInFlight"));
+
+  protected static BatchMode parseBatchMode(String modeNode) {
+    switch (modeNode.replace("\"", "").toUpperCase()) {
+      case "JSON_ARRAY":
+      case "ARRAY":
+        return BatchMode.JSON_ARRAY;
+      case "NDJSON":
+        return BatchMode.NDJSON;
+      case "PIPELINE":
+        return BatchMode.PIPELINE;
+      default:
+        throw new VirDevConfigException("Unknown batch mode " + modeNode);
+    }
+  }
+
+  protected static BatchConfig parseBatch(JsonNode batchNode) {
+    JsonNode modeNode = batchNode.get("mode"); // can be null
+    JsonNode maxSamplesNode = batchNode.get("maxSamples"); // can be null
+    JsonNode maxBytesNode = batchNode.get("maxBytes"); // can be null
+    JsonNode maxLingerNode = batchNode.get("maxLingerMillis"); // can be null
+
+    BatchMode mode = modeNode == null || modeNode.isNull()
+        ? BatchMode.PIPELINE : parseBatchMode(modeNode.asText());
+    int maxSamples = maxSamplesNode == null || maxSamplesNode.isNull()
+        ? BatchConfig.DEFAULT_MAX_SAMPLES : maxSamplesNode.asInt();
+    int maxBytes = maxBytesNode == null || maxBytesNode.isNull()
+        ? BatchConfig.DEFAULT_MAX_BYTES : maxBytesNode.asInt();
+    long maxLingerMillis = maxLingerNode == null || maxLingerNode.isNull()
+        ? BatchConfig.DEFAULT_MAX_LINGER_MILLIS : maxLingerNode.asLong();
+
+    if (maxSamples < 1 || maxBytes < 1 || maxLingerMillis < 0) {
+      throw new VirDevConfigException(String.format(
+        "Batch requires maxSamples and maxBytes > 0 and maxLingerMillis >= 0, got %d, %d, %d",
+        maxSamples, maxBytes, maxLingerMillis));
+    }
+    return new BatchConfig(mode, maxSamples, maxBytes, maxLingerMillis);
+  }
+
   public DeviceConfigDeserializer() {
     this(null);
   }
@@ -53,6 +95,10 @@ public class DeviceConfigDeserializer extends VirDevDeserializer<DeviceConfig> {
     Long interval = node.get("interval") == null ? defaultInterval : node.get("interval").asLong();
     Long jitter = node.get("jitter") == null ? defaultJitter : node.get("jitter").asLong();
     int count = node.get("count") == null ? defaultCount : node.get("count").asInt();
+    int maxInFlight = node.get("maxInFlight") == null
+        ? defaultMaxInFlight : node.get("maxInFlight").asInt();
+    JsonNode batchNode = node.get("batch"); // can be null
+    BatchConfig batch = batchNode == null || batchNode.isNull() ? null : parseBatch(batchNode);
     JsonNode samplesNode = safeGetNode(node, "samples");
     List<SampleConfig> samples = new ArrayList<>();
 
@@ -89,6 +135,10 @@ public class DeviceConfigDeserializer extends VirDevDeserializer<DeviceConfig> {
       }
     }
 
-    return new DeviceConfig(id, name, description, samples, interval, jitter, count);
+    JsonNode retainNode = node.get("retain"); // can be null
+    Boolean retain = retainNode == null || retainNode.isNull() ? null : retainNode.asBoolean();
+
+    return new DeviceConfig(id, name, description, samples, interval, jitter, count,
+        maxInFlight, batch, parseQos(node.get("qos")), retain);
   }
 }
@@ -1,9 +1,8 @@
 package io.bonitoo.qa.conf.mqtt.broker;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
-import io.bonitoo.qa.util.EncryptPass;
 import java.util.Arrays;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -14,13 +13,22 @@ import lombok.Setter;
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 @JsonDeserialize(using = AuthConfigDeserializer.class)
 public class AuthConfig {
 
   String username;
   char[] password;
 
+  // every client of a fleet asks for the password, but it is decrypted only once
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  volatile DecryptedPass decrypted;
+
+  public AuthConfig(String username, char[] password) {
+    this.username = username;
+    this.password = password;
+  }
+
   /**
    * Special getter checks to see if held password value is encrypted.
    * If so it then decrypts it.
@@ -28,13 +36,12 @@ public class AuthConfig {
    * @return - the password.
    */
   public char[] getPassword() {
-    if (EncryptPass.passIsEncoded(password)) {
-      return EncryptPass.decryptPass(
-        TlsConfig.class.getPackage().getName().toCharArray(),
-        new String(password)
-      );
+    if (password == null) {
+      return null;
     }
-    return password;
+    DecryptedPass pass = DecryptedPass.of(decrypted, password);
+    decrypted = pass;
+    return pass.get();
   }
 
   public char[] getRawPassword() {
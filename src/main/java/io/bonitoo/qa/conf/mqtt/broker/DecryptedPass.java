@@ -0,0 +1,49 @@
+package io.bonitoo.qa.conf.mqtt.broker;
+
+import io.bonitoo.qa.util.EncryptPass;
+
+/**
+ * The decrypted value of a password, kept together with the password it came from.
+ *
+ * <p>Decrypting derives a key with PBKDF2, which is far too slow to repeat for every
+ * client of a large fleet.  A config therefore decrypts its password once and reuses the
+ * value until the password is replaced.</p>
+ */
+final class DecryptedPass {
+
+  final char[] source;
+  final char[] value;
+
+  private DecryptedPass(char[] source, char[] value) {
+    this.source = source;
+    this.value = value;
+  }
+
+  /**
+   * Gets the decrypted value of a password, reusing a previous result when it was
+   * decrypted from the same password.
+   *
+   * @param cached - a previous result, or null.
+   * @param password - the password, possibly encrypted.
+   * @return - the result for the password.
+   */
+  static DecryptedPass of(DecryptedPass cached, char[] password) {
+    if (cached != null && cached.source == password) {
+      return cached;
+    }
+    return new DecryptedPass(password, EncryptPass.passIsEncoded(password)
+      ? EncryptPass.decryptPass(TlsConfig.class.getPackage().getName().toCharArray(),
+        new String(password))
+      : password);
+  }
+
+  /**
+   * Gets the decrypted password.
+   *
+   * @return - a copy of the decrypted password, which the caller may clear.
+   */
+  char[] get() {
+    return value.clone();
+  }
+
+}
@@ -2,9 +2,8 @@ package io.bonitoo.qa.conf.mqtt.broker;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
-import io.bonitoo.qa.util.EncryptPass;
 import java.lang.invoke.MethodHandles;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -16,7 +15,6 @@ import org.slf4j.LoggerFactory;
  */
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
 @JsonDeserialize(using = TlsConfigDeserializer.class)
 public class TlsConfig {
@@ -31,19 +29,32 @@ public class TlsConfig {
 
   char[] trustPass;
 
+  @JsonIgnore
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  volatile DecryptedPass decrypted;
+
+  public TlsConfig(String trustStore, char[] trustPass) {
+    this.trustStore = trustStore;
+    this.trustPass = trustPass;
+  }
+
   /**
    * Gets the password as a char[].
-   * If the password is encrypted, decrypts it.
+   * If the password is encrypted, decrypts it, once for all clients.
    *
    * @return - the password.
    */
   public char[] getTrustPass() {
-    if (EncryptPass.passIsEncoded(trustPass)) {
-      return EncryptPass.decryptPass(
-        TlsConfig.class.getPackage().getName().toCharArray(),
-        new String(trustPass)
-      );
+    if (trustPass == null) {
+      return null;
     }
+    DecryptedPass pass = DecryptedPass.of(decrypted, trustPass);
+    decrypted = pass;
+    return pass.get();
+  }
+
+  public char[] getRawTrustPass() {
     return trustPass;
   }
 
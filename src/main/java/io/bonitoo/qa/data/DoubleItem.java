@@ -0,0 +1,70 @@
+package io.bonitoo.qa.data;
+
+import io.bonitoo.qa.conf.data.DataConfig;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.data.generator.DataGenerator;
+
+/**
+ * An item holding its value as a primitive double.
+ *
+ * <p>Updating and serializing the item does not allocate.  The value is only boxed
+ * when requested through <code>getVal()</code> or <code>asDouble()</code>.</p>
+ */
+public class DoubleItem extends Item {
+
+  double value;
+
+  /**
+   * Base constructor.
+   *
+   * @param config - the config.
+   * @param init - an initial value.
+   * @param generator - the DataGenerator.
+   */
+  public DoubleItem(ItemConfig config,
+                    double init,
+                    DataGenerator<? extends DataConfig> generator) {
+    super(config, null, generator);
+    this.value = init;
+  }
+
+  public double doubleValue() {
+    return value;
+  }
+
+  @Override
+  public Object getVal() {
+    return value;
+  }
+
+  @Override
+  public void setVal(Object obj) {
+    value = toDouble(obj);
+  }
+
+  @Override
+  public Item update() {
+    try {
+      value = generator.genDouble();
+      return this;
+    } catch (Exception e) {
+      throw genDataFailure(e);
+    }
+  }
+
+  @Override
+  public Item update(TickContext tick) {
+    try {
+      value = generator.genDouble(tick);
+      return this;
+    } catch (Exception e) {
+      throw genDataFailure(e);
+    }
+  }
+
+  @Override
+  public Double asDouble() {
+    return value;
+  }
+
+}
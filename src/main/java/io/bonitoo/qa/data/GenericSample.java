@@ -1,15 +1,19 @@
 package io.bonitoo.qa.data;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.bonitoo.qa.VirtualDeviceRuntimeException;
 import io.bonitoo.qa.conf.data.ItemArType;
 import io.bonitoo.qa.conf.data.ItemConfig;
 import io.bonitoo.qa.conf.data.SampleConfig;
 import io.bonitoo.qa.data.serializer.GenericSampleSerializer;
+import io.bonitoo.qa.data.serializer.JsonWriterCache;
+import io.bonitoo.qa.data.serializer.SampleTemplate;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * A configurable sample based on a SampleConfig.
@@ -44,7 +48,8 @@ public class GenericSample extends Sample {
         ic.setArType(conf.getArType());
       }
 
-      gs.getItems().put(ic.getName(), new ArrayList<>());
+      // sized to the count, most items hold a single instance
+      gs.getItems().put(ic.getName(), new ArrayList<>(ic.getCount()));
 
       for (int i = 0; i < ic.getCount(); i++) {
         gs.getItems().get(ic.getName()).add(getItemFromConfig(ic));
@@ -52,19 +57,32 @@ public class GenericSample extends Sample {
 
     }
 
+    gs.checkNameClash();
+
     gs.timestamp = System.currentTimeMillis();
 
     return gs;
   }
 
+  // reused for every update, a sample is only updated by one thread at a time
+  private final TickContext tick = new TickContext();
+
+  // compact payload layout, compiled on first use
+  private SampleTemplate template;
+
   @Override
   public GenericSample update() {
-    for (String itemName : items.keySet()) {
-      for (Item item : items.get(itemName)) {
-        item.update();
+    return update(tick.setMillis(getClock().millis()));
+  }
+
+  @Override
+  public GenericSample update(TickContext tick) {
+    for (List<Item> itemList : items.values()) {
+      for (Item item : itemList) {
+        item.update(tick);
       }
     }
-    this.timestamp = System.currentTimeMillis();
+    this.timestamp = tick.getMillis();
     return this;
   }
 
@@ -72,17 +90,44 @@ public class GenericSample extends Sample {
   /**
    * Serialize the sample to JSON.
    *
+   * <p>Uses the shared writer for this class, which is compact unless pretty printing
+   * has been configured.</p>
+   *
    * @return - a JSON representation of the object.
    * @throws JsonProcessingException - when object cannot be serialized.
    */
 
   public String toJson() throws JsonProcessingException {
 
-    checkNameClash();
+    return JsonWriterCache.writerFor(getClass()).writeValueAsString(this);
+
+  }
+
+  /**
+   * Streams the JSON payload directly into the output, without an intermediate String.
+   *
+   * <p>Compact payloads are written through a <code>SampleTemplate</code> compiled from
+   * the layout of the sample, so that only the values are formatted on each tick.
+   * Pretty printed payloads, and samples with items the template cannot write, are
+   * serialized with Jackson.</p>
+   *
+   * @param out - stream to receive the payload.
+   * @throws IOException - when the sample cannot be serialized or written.
+   */
+  @Override
+  public void serializeInto(OutputStream out) throws IOException {
 
-    ObjectMapper om = new ObjectMapper();
+    if (!JsonWriterCache.isPrettyPrint()) {
+      if (template == null || !template.matches(this)) {
+        template = SampleTemplate.compile(this);
+      }
+      if (template.isSupported()) {
+        template.write(this, out);
+        return;
+      }
+    }
 
-    return om.writer().withDefaultPrettyPrinter().writeValueAsString(this);
+    JsonWriterCache.writerFor(getClass()).writeValue(out, this);
 
   }
 }
@@ -6,9 +6,7 @@ import io.bonitoo.qa.conf.VirDevConfigException;
 import io.bonitoo.qa.conf.data.DataConfig;
 import io.bonitoo.qa.conf.data.ItemArType;
 import io.bonitoo.qa.conf.data.ItemConfig;
-import io.bonitoo.qa.conf.data.ItemNumConfig;
 import io.bonitoo.qa.conf.data.ItemPluginConfig;
-import io.bonitoo.qa.conf.data.ItemStringConfig;
 import io.bonitoo.qa.data.generator.DataGenerator;
 import io.bonitoo.qa.data.generator.NumGenerator;
 import io.bonitoo.qa.data.generator.SimpleStringGenerator;
@@ -17,7 +15,6 @@ import io.bonitoo.qa.plugin.PluginProperties;
 import io.bonitoo.qa.plugin.item.DataGenPlugin;
 import io.bonitoo.qa.plugin.item.ItemPluginMill;
 import java.lang.reflect.InvocationTargetException;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 /**
@@ -25,9 +22,12 @@ import lombok.Getter;
  *
  * <p>An item simply wraps an Object identified by the field val.  The actual type of the val field
  * is specified in the ItemConfig upon which the item is based.
+ *
+ * <p>Items created by <code>Item.of()</code> for the Double, Long and String types are the
+ * specialized subclasses {@link DoubleItem}, {@link LongItem} and {@link StringItem}, which hold
+ * their value as a primitive or String rather than in the val field.</p>
  */
 @Getter
-@AllArgsConstructor
 @JsonSerialize(using = ItemSerializer.class)
 public class Item {
 
@@ -39,6 +39,22 @@ public class Item {
 
   DataGenerator<? extends DataConfig> generator;
 
+  /**
+   * All args constructor.
+   *
+   * @param val - initial value.
+   * @param config - configuration for the item.
+   * @param label - label used when serializing the item.
+   * @param generator - the DataGenerator.
+   */
+  public Item(Object val, ItemConfig config, String label,
+              DataGenerator<? extends DataConfig> generator) {
+    this.val = val;
+    this.config = config;
+    this.label = label;
+    this.generator = generator;
+  }
+
   /**
    * Basic constructor.
    *
@@ -82,6 +98,11 @@ public class Item {
   /**
    * Generates a new Item based on the ItemConfig.
    *
+   * <p>Double, Long and String items share the config they were created from with every
+   * other item of that config, so that a fleet of devices holds one config per item
+   * rather than one per device.  Shared configs must be treated as read only.  Plugin
+   * items get their own copy, since plugins may change their configuration.</p>
+   *
    * @param config - the config.
    * @return - an Item.
    */
@@ -89,18 +110,21 @@ public class Item {
     Item it;
     switch (config.getType()) {
       case Double:
+        NumGenerator dng = (NumGenerator) DataGenerator.create(config.getGenClassName());
+        it = new DoubleItem(config, 0.0, dng);
+        dng.setItem(it);
+        it.update();
+        break;
       case Long:
-        NumGenerator ng = (NumGenerator) DataGenerator.create(config.getGenClassName());
-        // ensure each new item has its own copy of config so changes impact only this item
-        it = new Item(new ItemNumConfig((ItemNumConfig) config), 0.0, ng);
-        ng.setItem(it);
+        NumGenerator lng = (NumGenerator) DataGenerator.create(config.getGenClassName());
+        it = new LongItem(config, 0L, lng);
+        lng.setItem(it);
         it.update();
         break;
       case String:
         SimpleStringGenerator sg =
             (SimpleStringGenerator) DataGenerator.create(config.getGenClassName());
-        // ensure each new item has its own copy of config so changes impact only this item
-        it = new Item(new ItemStringConfig((ItemStringConfig) config), "", sg);
+        it = new StringItem(config, "", sg);
         sg.setItem(it);
         it.update();
         break;
@@ -161,7 +185,13 @@ public class Item {
 
   }
 
-  private static Long ensureLong(Object obj) {
+  /**
+   * Converts a generated value to a primitive long.
+   *
+   * @param obj - a Long, Double or String value.
+   * @return - the value as a long.
+   */
+  public static long toLong(Object obj) {
     if (obj instanceof Long) {
       return (long) obj;
     } else if (obj instanceof Double) {
@@ -172,7 +202,13 @@ public class Item {
     throw new VirDevConfigException("Cannot get Long from unknown type " + obj);
   }
 
-  private static Double ensureDouble(Object obj) {
+  /**
+   * Converts a generated value to a primitive double.
+   *
+   * @param obj - a Long, Double or String value.
+   * @return - the value as a double.
+   */
+  public static double toDouble(Object obj) {
     if (obj instanceof Long) {
       return (double) (Long) obj;
     } else if (obj instanceof Double) {
@@ -181,7 +217,13 @@ public class Item {
       return Double.parseDouble(obj.toString());
     }
     throw new VirDevConfigException("Cannot get Double from unknown type " + obj);
+  }
 
+  VirtualDeviceRuntimeException genDataFailure(Exception e) {
+    return new VirtualDeviceRuntimeException(
+      String.format("Failed to execute genData() for generator %s ",
+        generator.getClass().getName()), e
+    );
   }
 
   /**
@@ -191,42 +233,57 @@ public class Item {
    */
   public Item update() {
     try {
-      Object obj = generator.genData();
-      switch (config.getType()) {
-        case Long:
-          val = ensureLong(obj);
-          break;
-        case Double:
-          val = ensureDouble(obj);
-          break;
-        case String:
-          val = obj.toString();
-          break;
-        case Plugin:
-          switch (((ItemPluginConfig) config).getResultType()) {
-            case Long:
-              val = ensureLong(obj);
-              break;
-            case Double:
-              val = ensureDouble(obj);
-              break;
-            case String:
-              val = obj.toString();
-              break;
-            default:
-              throw new VirDevConfigException("Unknown plugin result type "
-                + ((ItemPluginConfig) config).getResultType());
-          }
-          break;
-        default:
-          throw new VirDevConfigException("Unknown type " + config.getType());
-      }
+      assign(generator.genData());
+      return this;
+    } catch (Exception e) {
+      throw genDataFailure(e);
+    }
+  }
+
+  /**
+   * Updates the internal value of the item for a sample tick.
+   *
+   * @param tick - time context shared by all items of the sample.
+   * @return - the updated item.
+   */
+  public Item update(TickContext tick) {
+    try {
+      assign(generator.genData(tick));
       return this;
     } catch (Exception e) {
-      throw new VirtualDeviceRuntimeException(
-         String.format("Failed to execute genData() for generator %s ",
-           generator.getClass().getName()), e
-       );
+      throw genDataFailure(e);
+    }
+  }
+
+  private void assign(Object obj) {
+    switch (config.getType()) {
+      case Long:
+        val = toLong(obj);
+        break;
+      case Double:
+        val = toDouble(obj);
+        break;
+      case String:
+        val = obj.toString();
+        break;
+      case Plugin:
+        switch (((ItemPluginConfig) config).getResultType()) {
+          case Long:
+            val = toLong(obj);
+            break;
+          case Double:
+            val = toDouble(obj);
+            break;
+          case String:
+            val = obj.toString();
+            break;
+          default:
+            throw new VirDevConfigException("Unknown plugin result type "
+              + ((ItemPluginConfig) config).getResultType());
+        }
+        break;
+      default:
+        throw new VirDevConfigException("Unknown type " + config.getType());
     }
   }
 
@@ -278,13 +335,28 @@ public class Item {
   public static double precision(double val, int prec) {
     double p;
     if (prec < 0) {  // treat negative values as positive.
-      p = Double.parseDouble("1e" + prec) * -1;
+      p = prec >= -MAX_POW10 ? NEG_POW10[-prec] : Double.parseDouble("1e" + prec) * -1;
     } else {
-      p = Double.parseDouble("1e" + prec);
+      p = prec <= MAX_POW10 ? POW10[prec] : Double.parseDouble("1e" + prec);
     }
     return (long) (val * p) / p;
   }
 
+  // powers of ten up to 1e22 are exact doubles
+  private static final int MAX_POW10 = 22;
+
+  private static final double[] POW10 = new double[MAX_POW10 + 1];
+
+  private static final double[] NEG_POW10 = new double[MAX_POW10 + 1];
+
+  static {
+    // parsed exactly as before, so that precision() results are unchanged
+    for (int i = 0; i <= MAX_POW10; i++) {
+      POW10[i] = Double.parseDouble("1e" + i);
+      NEG_POW10[i] = Double.parseDouble("1e-" + i) * -1;
+    }
+  }
+
   public void setVal(Object obj) {
     val = obj;
   }
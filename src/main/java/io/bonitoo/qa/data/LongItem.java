@@ -0,0 +1,70 @@
+package io.bonitoo.qa.data;
+
+import io.bonitoo.qa.conf.data.DataConfig;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.data.generator.DataGenerator;
+
+/**
+ * An item holding its value as a primitive long.
+ *
+ * <p>Updating and serializing the item does not allocate.  The value is only boxed
+ * when requested through <code>getVal()</code> or <code>asLong()</code>.</p>
+ */
+public class LongItem extends Item {
+
+  long value;
+
+  /**
+   * Base constructor.
+   *
+   * @param config - the config.
+   * @param init - an initial value.
+   * @param generator - the DataGenerator.
+   */
+  public LongItem(ItemConfig config,
+                  long init,
+                  DataGenerator<? extends DataConfig> generator) {
+    super(config, null, generator);
+    this.value = init;
+  }
+
+  public long longValue() {
+    return value;
+  }
+
+  @Override
+  public Object getVal() {
+    return value;
+  }
+
+  @Override
+  public void setVal(Object obj) {
+    value = toLong(obj);
+  }
+
+  @Override
+  public Item update() {
+    try {
+      value = generator.genLong();
+      return this;
+    } catch (Exception e) {
+      throw genDataFailure(e);
+    }
+  }
+
+  @Override
+  public Item update(TickContext tick) {
+    try {
+      value = generator.genLong(tick);
+      return this;
+    } catch (Exception e) {
+      throw genDataFailure(e);
+    }
+  }
+
+  @Override
+  public Long asLong() {
+    return value;
+  }
+
+}
@@ -7,14 +7,24 @@ import io.bonitoo.qa.VirtualDeviceRuntimeException;
 import io.bonitoo.qa.conf.data.ItemConfig;
 import io.bonitoo.qa.conf.data.ItemPluginConfig;
 import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.data.serializer.PayloadBuffer;
 import io.bonitoo.qa.plugin.PluginConfigException;
 import io.bonitoo.qa.plugin.item.ItemPluginMill;
+import io.bonitoo.qa.util.RandomStreams;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import lombok.Getter;
 import lombok.Setter;
@@ -33,6 +43,12 @@ public abstract class Sample {
 
   static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  // names, compared case insensitively, which items may not take, as they clash with the
+  // payload and original fields of a sample.  Fields added later must not be listed here,
+  // since items named after them used to be valid.
+  private static final Set<String> RESERVED_NAMES = Collections.unmodifiableSet(
+      new HashSet<>(Arrays.asList("logger", "id", "topic", "timestamp", "config", "items")));
+
   public String id;
 
   @JsonIgnore //should not be part of payload
@@ -43,18 +59,35 @@ public abstract class Sample {
   @JsonIgnore
   private SampleConfig config;
 
+  @JsonIgnore
+  private Clock clock = Clock.systemUTC();
+
   @JsonIgnore
   @JsonAnyGetter
   public Map<String, List<Item>> items;
 
   public abstract Sample update();
 
+  /**
+   * Updates the sample for a given tick.
+   *
+   * <p>By default the tick is ignored.  Samples holding items should pass it on to them,
+   * so that time dependent values are derived once for all items.</p>
+   *
+   * @param tick - time context of the update.
+   * @return - the updated sample.
+   */
+  public Sample update(TickContext tick) {
+    return update();
+  }
+
   /**
    * Helper factory method.
    */
   public static Sample of(Function<SampleConfig, Sample> init, SampleConfig config) {
     Sample s = init.apply(config);
     s.setConfig(config);
+    s.checkNameClash();
     return s;
   }
 
@@ -82,9 +115,57 @@ public abstract class Sample {
     return Item.of(ic);
   }
 
+  /**
+   * Sets the clock from which the sample and the generators of its items take the time,
+   * e.g. a SimulatedClock when backfilling.
+   *
+   * @param clock - the clock.
+   */
+  public void setClock(Clock clock) {
+    this.clock = clock;
+    if (items == null) {
+      return;
+    }
+    for (List<Item> itemList : items.values()) {
+      for (Item item : itemList) {
+        if (item.getGenerator() != null) {
+          item.getGenerator().setClock(clock);
+        }
+      }
+    }
+  }
+
+  /**
+   * Gives each item of the sample its own random stream derived from the runner seed.
+   *
+   * <p>Items are indexed in the order of the sample configuration, so the same
+   * configuration always maps the same stream to the same item.  Does nothing when no
+   * seed is set.</p>
+   *
+   * @param keys - values identifying the sample, e.g. its device and index within it.
+   */
+  public void seedItems(long... keys) {
+    if (!RandomStreams.isSeeded() || config == null || items == null) {
+      return;
+    }
+    long[] itemKeys = Arrays.copyOf(keys, keys.length + 1);
+    int index = 0;
+    for (ItemConfig ic : config.getItems()) {
+      List<Item> list = items.get(ic.getName());
+      if (list == null) {
+        continue;
+      }
+      for (Item item : list) {
+        itemKeys[keys.length] = index++;
+        if (item.getGenerator() != null) {
+          item.getGenerator().setRandom(RandomStreams.stream(itemKeys));
+        }
+      }
+    }
+  }
+
   @Override
   public String toString() {
-    checkNameClash();
     StringBuilder result = new StringBuilder(
         String.format("id=%s,timestamp=%d,items=[", id, timestamp)
     );
@@ -100,24 +181,27 @@ public abstract class Sample {
     return result.append("]\n").toString();
   }
 
+  /**
+   * Removes any items whose names clash with the fields of a sample.
+   *
+   * <p>Called once when the sample is built, so that serializing the sample involves no
+   * reflection.  Items added to the sample later are not checked.</p>
+   */
   protected void checkNameClash() {
 
-    List<String> toRemove = new ArrayList<>();
-
-    for (String item : items.keySet()) {
-      for (Field f : Sample.class.getDeclaredFields()) {
-        if (f.getName().equalsIgnoreCase(item)) {
-          toRemove.add(item);
-        }
-      }
+    if (items == null) {
+      return;
     }
 
-    for (String key : toRemove) {
-      logger.warn(String
-          .format("Item field name %s not allowed, item removed from sample list.",
-            key));
-      items.remove(key);
-    }
+    items.keySet().removeIf(key -> {
+      if (RESERVED_NAMES.contains(key.toLowerCase(Locale.ROOT))) {
+        logger.warn(String
+            .format("Item field name %s not allowed, item removed from sample list.",
+              key));
+        return true;
+      }
+      return false;
+    });
   }
 
   public SampleConfig getConfig() {
@@ -136,4 +220,31 @@ public abstract class Sample {
    * @throws JsonProcessingException - thrown when object cannot be serialized.
    */
   public abstract String toJson() throws JsonProcessingException;
+
+  /**
+   * Writes the serialized payload of the sample into an output stream.
+   *
+   * <p>The default implementation encodes the result of <code>toJson()</code>, so that
+   * custom serializations of sample plugins are respected.  Implementations able to
+   * stream their payload directly should override this.  The stream is not closed.</p>
+   *
+   * @param out - stream to receive the payload.
+   * @throws IOException - when the sample cannot be serialized or written.
+   */
+  public void serializeInto(OutputStream out) throws IOException {
+    out.write(toJson().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Serializes the sample into a reusable buffer.
+   *
+   * @param buffer - buffer to be reset and then filled with the payload.
+   * @return - a view on the payload in the buffer, valid until the buffer is next reset.
+   * @throws IOException - when the sample cannot be serialized.
+   */
+  public ByteBuffer toPayload(PayloadBuffer buffer) throws IOException {
+    buffer.reset();
+    serializeInto(buffer);
+    return buffer.toByteBuffer();
+  }
 }
@@ -0,0 +1,65 @@
+package io.bonitoo.qa.data;
+
+import io.bonitoo.qa.conf.data.DataConfig;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.data.generator.DataGenerator;
+
+/**
+ * An item holding its value as a String.
+ *
+ * <p>Skips the type dispatch of the generic <code>update()</code>.</p>
+ */
+public class StringItem extends Item {
+
+  String value;
+
+  /**
+   * Base constructor.
+   *
+   * @param config - the config.
+   * @param init - an initial value.
+   * @param generator - the DataGenerator.
+   */
+  public StringItem(ItemConfig config,
+                    String init,
+                    DataGenerator<? extends DataConfig> generator) {
+    super(config, null, generator);
+    this.value = init;
+  }
+
+  @Override
+  public Object getVal() {
+    return value;
+  }
+
+  @Override
+  public void setVal(Object obj) {
+    value = obj == null ? null : obj.toString();
+  }
+
+  @Override
+  public Item update() {
+    try {
+      value = generator.genData().toString();
+      return this;
+    } catch (Exception e) {
+      throw genDataFailure(e);
+    }
+  }
+
+  @Override
+  public Item update(TickContext tick) {
+    try {
+      value = generator.genData(tick).toString();
+      return this;
+    } catch (Exception e) {
+      throw genDataFailure(e);
+    }
+  }
+
+  @Override
+  public String asString() {
+    return value;
+  }
+
+}
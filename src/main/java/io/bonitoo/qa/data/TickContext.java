@@ -0,0 +1,91 @@
+package io.bonitoo.qa.data;
+
+import io.bonitoo.qa.data.generator.NumGenerator;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Time of a sample update, shared by all items of the sample.
+ *
+ * <p>Values derived from the time, such as the radians of the 24 hour clock used by
+ * NumGenerator, are calculated once per tick rather than once per item.  A sample
+ * reuses its context for every update, so instances are not thread safe.</p>
+ */
+public class TickContext {
+
+  private static final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+
+  private final ZoneId zone;
+
+  private long millis;
+
+  private double radiansOfClock;
+
+  private long millisSince0Hour = -1;
+
+  public TickContext() {
+    this(ZoneId.systemDefault());
+  }
+
+  public TickContext(ZoneId zone) {
+    this.zone = zone;
+  }
+
+  /**
+   * Constructs a context for a given time.
+   *
+   * @param millis - milliseconds since the epoch.
+   */
+  public TickContext(long millis) {
+    this();
+    setMillis(millis);
+  }
+
+  /**
+   * Moves the context to a new tick.
+   *
+   * @param millis - milliseconds since the epoch.
+   * @return - this context.
+   */
+  public TickContext setMillis(long millis) {
+    this.millis = millis;
+    this.radiansOfClock = NumGenerator.radiansOfClock(millis);
+    this.millisSince0Hour = -1;
+    return this;
+  }
+
+  public long getMillis() {
+    return millis;
+  }
+
+  public double getRadiansOfClock() {
+    return radiansOfClock;
+  }
+
+  /**
+   * Gets the milliseconds elapsed since local midnight at this tick.
+   *
+   * <p>The zone offset is only resolved on first use within a tick.</p>
+   *
+   * @return - milliseconds since midnight in the zone of this context.
+   */
+  public long getMillisSince0Hour() {
+    if (millisSince0Hour < 0) {
+      millisSince0Hour = millisSince0Hour(millis, zone);
+    }
+    return millisSince0Hour;
+  }
+
+  /**
+   * Calculates the milliseconds elapsed since midnight in a zone.
+   *
+   * @param millis - milliseconds since the epoch.
+   * @param zone - the time zone.
+   * @return - milliseconds elapsed since midnight.
+   */
+  public static long millisSince0Hour(long millis, ZoneId zone) {
+    long offset = zone.getRules().getOffset(Instant.ofEpochMilli(millis)).getTotalSeconds() * 1000L;
+    return Math.floorMod(millis + offset, DAY_MILLIS);
+  }
+
+}
@@ -3,9 +3,17 @@ package io.bonitoo.qa.data.generator;
 import io.bonitoo.qa.conf.VirDevConfigException;
 import io.bonitoo.qa.conf.data.DataConfig;
 import io.bonitoo.qa.data.Item;
+import io.bonitoo.qa.data.TickContext;
 import io.bonitoo.qa.plugin.item.ItemPluginMill;
+import io.bonitoo.qa.util.FactoryHandles;
+import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationTargetException;
+import java.time.Clock;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import lombok.Getter;
 import lombok.Setter;
 import org.slf4j.Logger;
@@ -22,42 +30,161 @@ public abstract class DataGenerator<T extends DataConfig> {
 
   static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  // constructors of generators loaded through the system class loader, by class name
+  static final Map<String, MethodHandle> internalConstructors = new ConcurrentHashMap<>();
+
   protected Item item;
 
+  // set only when the runner is seeded, see RandomStreams
+  protected SplittableRandom random;
+
+  // source of time for values generated outside a sample tick
+  protected Clock clock = Clock.systemUTC();
+
   public abstract Object genData();
 
+  /**
+   * Generates a value for a sample tick.
+   *
+   * <p>By default ignores the tick.  Generators whose values depend on time should
+   * override this to use the time of the tick.</p>
+   *
+   * @param tick - time context shared by all items of the sample.
+   * @return - the generated value.
+   */
+  public Object genData(TickContext tick) {
+    return genData();
+  }
+
+  /**
+   * Generates a value for a Double item.
+   *
+   * <p>Boxes by way of <code>genData()</code>.  Numeric generators should override this
+   * to return the primitive directly.</p>
+   *
+   * @return - the generated value as a double.
+   */
+  public double genDouble() {
+    return Item.toDouble(genData());
+  }
+
+  /**
+   * Generates a value for a Double item at a sample tick.
+   *
+   * @param tick - time context shared by all items of the sample.
+   * @return - the generated value as a double.
+   */
+  public double genDouble(TickContext tick) {
+    return Item.toDouble(genData(tick));
+  }
+
+  /**
+   * Generates a value for a Long item.
+   *
+   * <p>Boxes by way of <code>genData()</code>.  Numeric generators should override this
+   * to return the primitive directly.</p>
+   *
+   * @return - the generated value as a long.
+   */
+  public long genLong() {
+    return Item.toLong(genData());
+  }
+
+  /**
+   * Generates a value for a Long item at a sample tick.
+   *
+   * @param tick - time context shared by all items of the sample.
+   * @return - the generated value as a long.
+   */
+  public long genLong(TickContext tick) {
+    return Item.toLong(genData(tick));
+  }
+
+  /**
+   * Draws a uniform random value for generating data.
+   *
+   * <p>Generators should draw from here, rather than from <code>Math.random()</code>,
+   * so that their output can be replayed when the runner configuration sets a seed.</p>
+   *
+   * @return - a random value from 0.0 (inclusive) to 1.0 (exclusive).
+   */
+  protected double nextDouble() {
+    return random == null ? ThreadLocalRandom.current().nextDouble() : random.nextDouble();
+  }
+
+  /**
+   * Draws a uniform random index for generating data.
+   *
+   * @param bound - the upper bound (exclusive).
+   * @return - a random value from 0 (inclusive) to bound (exclusive).
+   */
+  protected int nextInt(int bound) {
+    return random == null ? ThreadLocalRandom.current().nextInt(bound) : random.nextInt(bound);
+  }
+
   /**
    * Factory method for instantiating data generators.
    *
+   * <p>Without args the no argument constructor of the class is resolved once to a
+   * method handle, by way of ItemPluginMill for plugin classes and otherwise through
+   * the system class loader, so that no reflection is needed per instance.</p>
+   *
    * @param className - name of the data generator class to be instantiated.
    * @param args - any additional args to be sent to a constructor.
    * @return - a new data generator instance.
    */
   @SuppressWarnings("unchecked")
   public static DataGenerator<? extends DataConfig> create(String className, Object... args) {
-    ClassLoader systemLoader = ClassLoader.getSystemClassLoader();
+    if (args.length > 0) {
+      return createWithArgs(className, args);
+    }
+
+    try {
+      MethodHandle constructor = ItemPluginMill.getConstructorByName(className);
+      if (constructor == null) {
+        constructor = internalConstructor(className);
+      }
+      return (DataGenerator<? extends DataConfig>) (Object) constructor.invokeExact();
+    } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+      throw new VirDevConfigException(
+          new Throwable(
+            String.format("Unable to instantiate data generator class %s", className), e));
+    } catch (Throwable t) {
+      throw new VirDevConfigException(
+          new Throwable(
+            String.format("Unable to instantiate data generator class %s", className),
+            FactoryHandles.wrap(FactoryHandles.target(t))));
+    }
+  }
 
-    // TODO - review if calling constructor with args is used or is usable
+  private static MethodHandle internalConstructor(String className)
+      throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException {
+    MethodHandle constructor = internalConstructors.get(className);
+    if (constructor == null) {
+      logger.info(String.format("Resolving DataGenerator constructor of internal class %s",
+          className));
+      constructor = FactoryHandles.constructor(
+        ClassLoader.getSystemClassLoader().loadClass(className));
+      internalConstructors.put(className, constructor);
+    }
+    return constructor;
+  }
 
+  // TODO - review if calling constructor with args is used or is usable
+  @SuppressWarnings("unchecked")
+  private static DataGenerator<? extends DataConfig> createWithArgs(String className,
+                                                                  Object... args) {
     try {
-      // check if plugin
-      if (ItemPluginMill.hasPluginClass(className)) {
-        logger.info(String.format("Creating DataGenerator instance of plugin class %s", className));
-        Class<?>[] argTypes = new Class<?>[args.length];
-        int index = 0;
-        for (Object o : args) {
-          argTypes[index++] = o.getClass();
-        }
-
-        return (DataGenerator<? extends DataConfig>) ItemPluginMill.getPluginClassByName(className)
-            .getDeclaredConstructor(argTypes).newInstance(args);
-      } else { // try systemLoader
-        logger.info(String.format("Creating DataGenerator instance of internal class %s",
-            className));
-        Class<DataGenerator<? extends DataConfig>> clazz =
-            (Class<DataGenerator<? extends DataConfig>>) systemLoader.loadClass(className);
-        return clazz.getDeclaredConstructor().newInstance(args);
+      Class<?>[] argTypes = new Class<?>[args.length];
+      int index = 0;
+      for (Object o : args) {
+        argTypes[index++] = o.getClass();
       }
+      Class<?> clazz = ItemPluginMill.hasPluginClass(className)
+          ? ItemPluginMill.getPluginClassByName(className)
+          : ClassLoader.getSystemClassLoader().loadClass(className);
+      return (DataGenerator<? extends DataConfig>) clazz
+          .getDeclaredConstructor(argTypes).newInstance(args);
     } catch (ClassNotFoundException | NoSuchMethodException | InvocationTargetException
              | InstantiationException | IllegalAccessException e) {
       throw new VirDevConfigException(
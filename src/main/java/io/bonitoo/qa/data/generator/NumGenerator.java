@@ -4,7 +4,9 @@ import io.bonitoo.qa.VirtualDeviceRuntimeException;
 import io.bonitoo.qa.conf.data.DataConfig;
 import io.bonitoo.qa.conf.data.ItemConfig;
 import io.bonitoo.qa.conf.data.ItemNumConfig;
-import java.time.LocalDateTime;
+import io.bonitoo.qa.data.TickContext;
+import java.time.ZoneId;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Generates random numerical values based on a sinusoidal attractor.
@@ -25,10 +27,7 @@ public class NumGenerator extends DataGenerator<DataConfig> {
    * @return - milliseconds elapsed since midnight.
    */
   public static long millisSince0Hour() {
-    LocalDateTime now = LocalDateTime.now();
-    return (((now.getHour() * 60 * 60)
-      + (now.getMinute() * 60)
-      + now.getSecond()) * 1000) + (now.getNano() / 1000000);
+    return TickContext.millisSince0Hour(System.currentTimeMillis(), ZoneId.systemDefault());
   }
 
   public static double pctOfDay(long millis) {
@@ -68,6 +67,50 @@ public class NumGenerator extends DataGenerator<DataConfig> {
                                        double min,
                                        double max,
                                        long time) {
+    return genDoubleValSin(period, dev, min, max, time,
+      ThreadLocalRandom.current().nextDouble());
+  }
+
+  /**
+   * Generates a value as <code>genDoubleValSin(period, dev, min, max, time)</code>,
+   * but from a given uniform random value.
+   *
+   * @param period - number of cycles executed in one day.
+   * @param dev - standard deviation from 0.0 to 1.0 to be used in generating a value.
+   * @param min - approximate minimum value.
+   * @param max - approximate maximum value.
+   * @param time - in milliseconds since midnight at which the value should be generated.
+   * @param uniform - a random value from 0.0 (inclusive) to 1.0 (exclusive).
+   * @return - a random value.
+   */
+  public static double genDoubleValSin(double period,
+                                       double dev,
+                                       double min,
+                                       double max,
+                                       long time,
+                                       double uniform) {
+    return genDoubleValAtRadians(period, dev, min, max, radiansOfClock(time), uniform);
+  }
+
+  /**
+   * Generates a value as <code>genDoubleValSin()</code>, but from the radians of the
+   * 24 hour clock at which the value should be generated, e.g. as precalculated by a
+   * {@link TickContext}.
+   *
+   * @param period - number of cycles executed in one day.
+   * @param dev - standard deviation from 0.0 to 1.0 to be used in generating a value.
+   * @param min - approximate minimum value.
+   * @param max - approximate maximum value.
+   * @param radians - radians of the 24 hour clock.
+   * @param uniform - a random value from 0.0 (inclusive) to 1.0 (exclusive).
+   * @return - a random value.
+   */
+  public static double genDoubleValAtRadians(double period,
+                                             double dev,
+                                             double min,
+                                             double max,
+                                             double radians,
+                                             double uniform) {
 
     if (dev < 0 || dev > 1) {
       throw new VirtualDeviceRuntimeException(
@@ -87,7 +130,7 @@ public class NumGenerator extends DataGenerator<DataConfig> {
     // Use a negative period value (-1) to get set similar to temperature model
     // the lowest values occur around 06h and highest values around 18h
     // on or around the equinox.
-    double attr = Math.sin(radiansOfClock(time) * period) / 2.0 + 0.5;
+    double attr = Math.sin(radians * period) / 2.0 + 0.5;
     double spread = max - min;
 
     // Narrows down the band to take into account standard dev
@@ -95,7 +138,7 @@ public class NumGenerator extends DataGenerator<DataConfig> {
     double localMax = ((attr * spread) + sigmaFictif) + min;
     double localMin = ((attr * spread) - sigmaFictif) + min;
 
-    return gaussNormalFilter(localMin, localMax);
+    return gaussNormalQuantile(localMin, localMax, uniform);
   }
 
   @Override
@@ -103,22 +146,24 @@ public class NumGenerator extends DataGenerator<DataConfig> {
     ItemConfig conf = item.getConfig();
     switch (conf.getType()) {
       case Double:
-        return genDoubleValSin(
-          ((ItemNumConfig) conf).getPeriod(),
-          ((ItemNumConfig) conf).getDev(),
-          ((ItemNumConfig) conf).getMin(),
-          ((ItemNumConfig) conf).getMax(),
-          System.currentTimeMillis());
-
+        return genDouble();
       case Long:
-        return Math.round(genDoubleValSin(
-          ((ItemNumConfig) conf).getPeriod(),
-          ((ItemNumConfig) conf).getDev(),
-          ((ItemNumConfig) conf).getMin(),
-          ((ItemNumConfig) conf).getMax(),
-          System.currentTimeMillis())
+        return genLong();
+      default:
+        throw new VirtualDeviceRuntimeException(
+          String.format("ItemType %s not supported by NumGenerator", conf.getType())
         );
+    }
+  }
 
+  @Override
+  public Object genData(TickContext tick) {
+    ItemConfig conf = item.getConfig();
+    switch (conf.getType()) {
+      case Double:
+        return genDouble(tick);
+      case Long:
+        return genLong(tick);
       default:
         throw new VirtualDeviceRuntimeException(
           String.format("ItemType %s not supported by NumGenerator", conf.getType())
@@ -126,6 +171,40 @@ public class NumGenerator extends DataGenerator<DataConfig> {
     }
   }
 
+  @Override
+  public double genDouble() {
+    ItemNumConfig conf = (ItemNumConfig) item.getConfig();
+    return genDoubleValSin(
+      conf.getPeriod(),
+      conf.getDev(),
+      conf.getMin(),
+      conf.getMax(),
+      clock.millis(),
+      nextDouble());
+  }
+
+  @Override
+  public double genDouble(TickContext tick) {
+    ItemNumConfig conf = (ItemNumConfig) item.getConfig();
+    return genDoubleValAtRadians(
+      conf.getPeriod(),
+      conf.getDev(),
+      conf.getMin(),
+      conf.getMax(),
+      tick.getRadiansOfClock(),
+      nextDouble());
+  }
+
+  @Override
+  public long genLong() {
+    return Math.round(genDouble());
+  }
+
+  @Override
+  public long genLong(TickContext tick) {
+    return Math.round(genDouble(tick));
+  }
+
   private static final double CHANCE_3SIGMA = 0.010;
   private static final double CHANCE_2_5SIGMA = 0.037;
   private static final double CHANCE_2SIGMA = 0.080;
@@ -134,6 +213,11 @@ public class NumGenerator extends DataGenerator<DataConfig> {
   private static final double CHANCE_0_5SIGMA = 0.380;
   private static final double CHANCE_OUTLIER = 0.003;
 
+  // Band bounds as fractions of the spread, in ascending order.  LOW_BOUNDS are measured
+  // from min.  HIGH_BOUNDS are measured from zero, so they shift with min / spread.
+  private static final double[] LOW_BOUNDS = {0.003, 0.013, 0.05, 0.13, 0.32, 0.62};
+  private static final double[] HIGH_BOUNDS = {0.38, 0.68, 0.87, 0.95, 0.987, 0.997};
+
   /**
    * Generates a random double based on the spread between min and max
    * and using a normal gaussian distribution of possible values.
@@ -143,53 +227,111 @@ public class NumGenerator extends DataGenerator<DataConfig> {
    * @return - random double value.
    */
   public static double gaussNormalFilter(double min, double max) {
+    return gaussNormalQuantile(min, max, ThreadLocalRandom.current().nextDouble());
+  }
+
+  /**
+   * Maps a uniform random value onto the banded distribution used by gaussNormalFilter.
+   *
+   * <p>Values between min and max are weighted by the chance of the sigma band into which
+   * they fall, with a floor of CHANCE_OUTLIER.  The bands split the spread into at most
+   * thirteen segments of constant weight, so the inverse of the cumulative distribution
+   * is found by walking those segments.  This yields the same distribution as drawing
+   * values and rejecting them by band chance, but always in constant time.</p>
+   *
+   * @param min - minimum target value.
+   * @param max - maximum target value.
+   * @param uniform - a random value from 0.0 (inclusive) to 1.0 (exclusive).
+   * @return - the value at which the cumulative distribution reaches uniform.
+   */
+  public static double gaussNormalQuantile(double min, double max, double uniform) {
     double spread = max - min;
-    double mid = spread / 2;
-    double sigma3Max = spread * 0.997;
-    double sigma3Min = max - sigma3Max;
-    double sigma2dot5Max = spread * 0.987;
-    double sigma2dot5Min = max - sigma2dot5Max;
-    double sigma2Max = spread * 0.95;
-    double sigma2Min = max - sigma2Max;
-    double sigma1dot5Max = spread * 0.87;
-    double sigma1dot5Min = max - sigma1dot5Max;
-    double sigma1Max = spread * 0.68;
-    double sigma1Min = max - sigma1Max;
-    double sigma0dot5Max = max - (spread * 0.38);
-    double sigma0dot5Min = max - sigma0dot5Max;
-
-    double d = (Math.random() * spread) + min;
-
-    while (true) {
-      double check = Math.random();
-      if ((d > sigma0dot5Min && d < sigma0dot5Max)
-          && check < CHANCE_0_5SIGMA) {
-        break;
-      } else if (((d > sigma1Min && d < sigma0dot5Min)
-          || (d < sigma1Max && d > sigma0dot5Max))
-          && check < CHANCE_1SIGMA) {
-        break;
-      } else if (((d > sigma1dot5Min && d < sigma1Min)
-          || (d < sigma1dot5Max && d > sigma1Max))
-          && check < CHANCE_1_5SIGMA) {
-        break;
-      } else if (((d > sigma2Min && d < sigma1dot5Min)
-          || (d < sigma2Max && d > sigma2dot5Max))
-          && check < CHANCE_2SIGMA) {
-        break;
-      } else if (((d > sigma2dot5Min && d < sigma2Min)
-          || (d < sigma2dot5Max && d > sigma2Max))
-          && check < CHANCE_2_5SIGMA) {
-        break;
-      } else if (((d > sigma3Min && d < sigma2dot5Min)
-          || (d < sigma3Max && d > sigma2dot5Max))
-          && check < CHANCE_3SIGMA) {
-        break;
-      } else if (check < CHANCE_OUTLIER) {
-        break;
+    if (spread == 0) {
+      return min;
+    }
+    double shift = min / spread;
+
+    // first pass - total weight, second pass - locate the segment holding uniform
+    double total = walkSegments(shift, spread, Double.POSITIVE_INFINITY);
+    double pos = walkSegments(shift, spread, uniform * total);
+    return min + (pos * spread);
+  }
+
+  /**
+   * Walks the segments of constant weight between 0.0 and 1.0 of the spread.
+   *
+   * @param shift - min divided by spread.
+   * @param spread - max minus min.
+   * @param target - cumulative weight to be located.
+   * @return - the fraction of the spread at which target is reached, or the total
+   *     weight of all segments if it is not reached.
+   */
+  private static double walkSegments(double shift, double spread, double target) {
+    double cumulative = 0;
+    double start = 0;
+    int low = 0;
+    int high = 0;
+    while (start < 1.0) {
+      double end = 1.0;
+      if (low < LOW_BOUNDS.length) {
+        end = Math.min(end, LOW_BOUNDS[low]);
+      }
+      if (high < HIGH_BOUNDS.length) {
+        end = Math.min(end, HIGH_BOUNDS[high] - shift);
       }
-      d = (Math.random() * spread) + min;
+      if (low < LOW_BOUNDS.length && LOW_BOUNDS[low] <= end) {
+        low++;
+      } else if (high < HIGH_BOUNDS.length) {
+        high++;
+      }
+      if (end <= start) {
+        continue;
+      }
+      double weight = (end - start) * chance((start + end) / 2, shift, spread);
+      if (cumulative + weight > target) {
+        return start + ((target - cumulative) / weight) * (end - start);
+      }
+      cumulative += weight;
+      start = end;
     }
-    return d;
+    return target == Double.POSITIVE_INFINITY ? cumulative : 1.0;
+  }
+
+  /**
+   * Gets the chance with which a value is retained, based on its sigma band.
+   *
+   * <p>The band bounds mirror those originally used for rejection sampling.  Where bands
+   * overlap the first band listed applies.</p>
+   *
+   * @param pos - fraction of the spread above min.
+   * @param shift - min divided by spread.
+   * @param spread - max minus min.
+   * @return - the chance of the band.
+   */
+  private static double chance(double pos, double shift, double spread) {
+    if (between(pos, HIGH_BOUNDS[0] - shift, LOW_BOUNDS[5], spread)) {
+      return CHANCE_0_5SIGMA;
+    } else if (between(pos, LOW_BOUNDS[4], HIGH_BOUNDS[0] - shift, spread)
+        || between(pos, LOW_BOUNDS[5], HIGH_BOUNDS[1] - shift, spread)) {
+      return CHANCE_1SIGMA;
+    } else if (between(pos, LOW_BOUNDS[3], LOW_BOUNDS[4], spread)
+        || between(pos, HIGH_BOUNDS[1] - shift, HIGH_BOUNDS[2] - shift, spread)) {
+      return CHANCE_1_5SIGMA;
+    } else if (between(pos, LOW_BOUNDS[2], LOW_BOUNDS[3], spread)
+        || between(pos, HIGH_BOUNDS[4] - shift, HIGH_BOUNDS[3] - shift, spread)) {
+      return CHANCE_2SIGMA;
+    } else if (between(pos, LOW_BOUNDS[1], LOW_BOUNDS[2], spread)
+        || between(pos, HIGH_BOUNDS[3] - shift, HIGH_BOUNDS[4] - shift, spread)) {
+      return CHANCE_2_5SIGMA;
+    } else if (between(pos, LOW_BOUNDS[0], LOW_BOUNDS[1], spread)
+        || between(pos, HIGH_BOUNDS[4] - shift, HIGH_BOUNDS[5] - shift, spread)) {
+      return CHANCE_3SIGMA;
+    }
+    return CHANCE_OUTLIER;
+  }
+
+  // bounds are given for a positive spread, a negative spread reverses them
+  private static boolean between(double pos, double lower, double upper, double spread) {
+    return spread > 0 ? pos > lower && pos < upper : pos > upper && pos < lower;
   }
 }
@@ -13,7 +13,7 @@ public class SimpleStringGenerator extends DataGenerator<DataConfig> {
   public Object genData() {
     ItemStringConfig conf = (ItemStringConfig) item.getConfig();
     List<String> vals = conf.getValues();
-    return vals.get(((int) Math.floor(Math.random() * vals.size())));
+    return vals.get(nextInt(vals.size()));
   }
 
 }
@@ -1,8 +1,7 @@
 package io.bonitoo.qa.data.generator;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
+import io.bonitoo.qa.data.serializer.JsonWriterCache;
 
 /**
  * Location for utilities used in working with data.
@@ -13,8 +12,7 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 public class Utils {
 
   public static String pojoToJson(Object pojo) throws JsonProcessingException {
-    ObjectWriter objectWriter = new ObjectMapper().writer().withDefaultPrettyPrinter();
-    return objectWriter.writeValueAsString(pojo);
+    return JsonWriterCache.writeValueAsString(pojo);
   }
 
 }
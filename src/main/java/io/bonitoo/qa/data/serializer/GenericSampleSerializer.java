@@ -1,6 +1,7 @@
 package io.bonitoo.qa.data.serializer;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import io.bonitoo.qa.VirtualDeviceRuntimeException;
@@ -8,6 +9,9 @@ import io.bonitoo.qa.conf.data.ItemArType;
 import io.bonitoo.qa.data.GenericSample;
 import io.bonitoo.qa.data.Item;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A serializer for samples based on the Generic Sample class.
@@ -22,6 +26,32 @@ public class GenericSampleSerializer extends StdSerializer<GenericSample> {
     super(t);
   }
 
+  // field names of multi-valued items, keyed by prefix and count, shared by all samples
+  static final ConcurrentMap<String, SerializedString[]> indexedNames =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Gets the field names of the elements of a multi-valued item, e.g. <code>val00</code>
+   * to <code>val11</code> for the prefix <code>val</code> and a count of 12.
+   *
+   * <p>Indexes are zero padded to one digit more than the largest index needs.
+   * Names are built once per prefix and count and then reused for every message.</p>
+   *
+   * @param prefix - prefix of the names, the item label for flat layouts or empty for objects.
+   * @param count - number of elements.
+   * @return - the names in index order.
+   */
+  static SerializedString[] indexedNames(String prefix, int count) {
+    return indexedNames.computeIfAbsent(prefix + '#' + count, key -> {
+      String format = "%s%0" + (((int) Math.ceil(Math.log10(count))) + 1) + "d";
+      SerializedString[] names = new SerializedString[count];
+      for (int i = 0; i < count; i++) {
+        names[i] = new SerializedString(String.format(format, prefix, i));
+      }
+      return names;
+    });
+  }
+
   @Override
   public void serialize(GenericSample gs,
                         JsonGenerator jsonGen,
@@ -31,71 +61,49 @@ public class GenericSampleSerializer extends StdSerializer<GenericSample> {
     jsonGen.writeStartObject();
     jsonGen.writeStringField("id", gs.getId());
     jsonGen.writeNumberField("timestamp", gs.getTimestamp());
-    for (String key : gs.getItems().keySet()) {
-      if (gs.getItems().get(key).size() == 1) {
-        Item item = gs.getItems().get(key).get(0);
-        serProvider.defaultSerializeField(item.getLabel(), item, jsonGen);
-      } else {
-        ItemArType arType = gs.getItems().get(key).get(0).getConfig().getArType();
-        switch (arType) {
-          case Array:
-            jsonGen.writeFieldName(gs.getItems().get(key).get(0).getLabel());
-            jsonGen.writeStartArray();
-            break;
-          case Object:
-            jsonGen.writeFieldName(gs.getItems().get(key).get(0).getLabel());
-            jsonGen.writeStartObject();
-            break;
-          case Undefined:
-          case Flat:
-            // nothing to do
-            break;
-          default:
-            throw new VirtualDeviceRuntimeException("Unhandled ItemArrayType "
-              + arType);
-        }
-        for (Item it : gs.getItems().get(key)) {
-          String labelFormat = "%s%0"
-              + (((int) Math.ceil(Math.log10(gs.getItems().get(key).size()))) + 1)
-              + "d";
-          int index = gs.getItems().get(key).indexOf(it);
-          switch (arType) {
-            case Flat:
-            case Undefined:
-              serProvider.defaultSerializeField(
-                  String.format(labelFormat, it.getLabel(), index), it, jsonGen);
-              break;
-            case Array:
-              serProvider.defaultSerializeValue(it, jsonGen);
-              break;
-            case Object:
-              serProvider.defaultSerializeField(
-                  String.format(labelFormat, "", index), it, jsonGen
-              );
-              break;
-            default:
-              throw new VirtualDeviceRuntimeException("Unhandled ItemArrayType "
-                + arType);
+    for (List<Item> items : gs.getItems().values()) {
+      Item first = items.get(0);
+      if (items.size() == 1) {
+        serProvider.defaultSerializeField(first.getLabel(), first, jsonGen);
+        continue;
+      }
+      final int size = items.size();
+      ItemArType arType = first.getConfig().getArType();
+      switch (arType) {
+        case Array:
+          jsonGen.writeFieldName(first.getLabel());
+          jsonGen.writeStartArray();
+          for (int i = 0; i < size; i++) {
+            serProvider.defaultSerializeValue(items.get(i), jsonGen);
           }
-        }
-        switch (arType) {
-          case Array:
-            jsonGen.writeEndArray();
-            break;
-          case Object:
-            jsonGen.writeEndObject();
-            break;
-          case Undefined:
-          case Flat:
-            // nothing to do.
-            break;
-          default:
-            throw new VirtualDeviceRuntimeException("Unhandled ItemArrayType "
-              + arType);
-        }
+          jsonGen.writeEndArray();
+          break;
+        case Object:
+          jsonGen.writeFieldName(first.getLabel());
+          jsonGen.writeStartObject();
+          writeIndexedFields(items, indexedNames("", size), jsonGen, serProvider);
+          jsonGen.writeEndObject();
+          break;
+        case Undefined:
+        case Flat:
+          writeIndexedFields(items, indexedNames(first.getLabel(), size), jsonGen, serProvider);
+          break;
+        default:
+          throw new VirtualDeviceRuntimeException("Unhandled ItemArrayType "
+            + arType);
       }
-
     }
     jsonGen.writeEndObject();
   }
+
+  private static void writeIndexedFields(List<Item> items,
+                                         SerializedString[] names,
+                                         JsonGenerator jsonGen,
+                                         SerializerProvider serProvider)
+      throws IOException {
+    for (int i = 0; i < names.length; i++) {
+      jsonGen.writeFieldName(names[i]);
+      serProvider.defaultSerializeValue(items.get(i), jsonGen);
+    }
+  }
 }
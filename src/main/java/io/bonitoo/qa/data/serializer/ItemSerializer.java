@@ -6,8 +6,10 @@ import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import io.bonitoo.qa.conf.VirDevConfigException;
 import io.bonitoo.qa.conf.data.ItemNumConfig;
 import io.bonitoo.qa.conf.data.ItemPluginConfig;
+import io.bonitoo.qa.data.DoubleItem;
 import io.bonitoo.qa.data.Item;
 import io.bonitoo.qa.data.ItemType;
+import io.bonitoo.qa.data.LongItem;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import org.slf4j.Logger;
@@ -43,6 +45,18 @@ public class ItemSerializer extends StdSerializer<Item> {
                         JsonGenerator jsonGen,
                         SerializerProvider serializerProvider)
       throws IOException {
+    // specialized items are written from their primitive values without boxing
+    if (item instanceof DoubleItem) {
+      double d = ((DoubleItem) item).doubleValue();
+      Integer prec = item.getConfig() instanceof ItemNumConfig
+          ? ((ItemNumConfig) item.getConfig()).getPrec() : null;
+      jsonGen.writeNumber(prec == null ? d : Item.precision(d, prec));
+      return;
+    } else if (item instanceof LongItem) {
+      jsonGen.writeNumber(((LongItem) item).longValue());
+      return;
+    }
+
     switch (item.getConfig().getType()) {
       case Double:
         Integer dprec = ((ItemNumConfig) item.getConfig()).getPrec();
@@ -0,0 +1,78 @@
+package io.bonitoo.qa.data.serializer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds one process wide ObjectMapper and a prepared ObjectWriter per serialized class.
+ *
+ * <p>ObjectMapper and ObjectWriter instances are thread safe once configured.  Reusing
+ * them means that the serializers of a class are resolved only once, rather than on
+ * every published message.</p>
+ *
+ * <p>Output is compact JSON by default.  Pretty printing can be switched on through
+ * the runner configuration property <code>prettyPrint</code>.</p>
+ */
+public class JsonWriterCache {
+
+  // writing into a stream, e.g. a PayloadBuffer, must leave the stream open to the caller
+  static final ObjectMapper mapper = JsonMapper.builder()
+      .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+      .build();
+
+  static final ConcurrentMap<Class<?>, ObjectWriter> compactWriters = new ConcurrentHashMap<>();
+
+  static final ConcurrentMap<Class<?>, ObjectWriter> prettyWriters = new ConcurrentHashMap<>();
+
+  static volatile boolean prettyPrint = false;
+
+  public static boolean isPrettyPrint() {
+    return prettyPrint;
+  }
+
+  public static void setPrettyPrint(boolean pretty) {
+    prettyPrint = pretty;
+  }
+
+  /**
+   * Gets the writer for a class using the current pretty print setting.
+   *
+   * @param clazz - class of the objects to be written.
+   * @return - a shared ObjectWriter.
+   */
+  public static ObjectWriter writerFor(Class<?> clazz) {
+    return writerFor(clazz, prettyPrint);
+  }
+
+  /**
+   * Gets the writer for a class.
+   *
+   * @param clazz - class of the objects to be written.
+   * @param pretty - whether the writer should indent its output.
+   * @return - a shared ObjectWriter.
+   */
+  public static ObjectWriter writerFor(Class<?> clazz, boolean pretty) {
+    if (pretty) {
+      return prettyWriters.computeIfAbsent(clazz,
+        c -> mapper.writerFor(c).withDefaultPrettyPrinter());
+    }
+    return compactWriters.computeIfAbsent(clazz, mapper::writerFor);
+  }
+
+  /**
+   * Serializes an object to JSON with the writer for its class.
+   *
+   * @param pojo - object to be serialized.
+   * @return - JSON representation of the object.
+   * @throws JsonProcessingException - when the object cannot be serialized.
+   */
+  public static String writeValueAsString(Object pojo) throws JsonProcessingException {
+    return writerFor(pojo.getClass()).writeValueAsString(pojo);
+  }
+
+}
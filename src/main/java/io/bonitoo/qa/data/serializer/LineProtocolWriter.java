@@ -0,0 +1,160 @@
+package io.bonitoo.qa.data.serializer;
+
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.data.DoubleItem;
+import io.bonitoo.qa.data.Item;
+import io.bonitoo.qa.data.LongItem;
+import io.bonitoo.qa.data.Sample;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes samples as InfluxDB line protocol.
+ *
+ * <p>The sample name is the measurement and the sample id its only tag.  Items become
+ * fields named by their labels.  Where a sample holds more than one item of a name, the
+ * fields are numbered as in flat JSON payloads, since line protocol has no nesting.
+ * Doubles are written as floats, longs as integers and anything else as strings.
+ * The timestamp is written in nanoseconds.  No line terminator is written.</p>
+ */
+public class LineProtocolWriter {
+
+  private static final String MEASUREMENT_SPECIALS = ", ";
+
+  private static final String KEY_SPECIALS = ",= ";
+
+  private static final String STRING_SPECIALS = "\"\\";
+
+  private static final long NANOS_PER_MILLI = 1000000L;
+
+  /**
+   * Writes a sample as one line of line protocol.
+   *
+   * @param sample - the sample.
+   * @param out - stream to receive the line.  It is not closed.
+   * @return - false when the sample has no item values, in which case nothing is written.
+   * @throws IOException - when the line cannot be written.
+   */
+  public static boolean write(Sample sample, OutputStream out) throws IOException {
+
+    if (!hasValues(sample.getItems())) {
+      return false;
+    }
+
+    writeEscaped(out, sample.getName(), MEASUREMENT_SPECIALS);
+    out.write(',');
+    out.write('i');
+    out.write('d');
+    out.write('=');
+    writeEscaped(out, sample.getId(), KEY_SPECIALS);
+
+    char separator = ' ';
+    for (List<Item> list : sample.getItems().values()) {
+      String format = list.size() > 1
+          ? "%s%0" + (((int) Math.ceil(Math.log10(list.size()))) + 1) + "d"
+          : null;
+      for (int i = 0; i < list.size(); i++) {
+        Item item = list.get(i);
+        if (!hasValue(item)) {
+          continue;
+        }
+        out.write(separator);
+        separator = ',';
+        writeEscaped(out, format == null
+            ? item.getLabel() : String.format(format, item.getLabel(), i), KEY_SPECIALS);
+        out.write('=');
+        writeValue(out, item);
+      }
+    }
+
+    out.write(' ');
+    writeAscii(out, Long.toString(sample.getTimestamp() * NANOS_PER_MILLI));
+    return true;
+  }
+
+  private static boolean hasValues(Map<String, List<Item>> items) {
+    if (items == null) {
+      return false;
+    }
+    for (List<Item> list : items.values()) {
+      for (Item item : list) {
+        if (hasValue(item)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // primitive items always hold a value, which need not be boxed to tell
+  private static boolean hasValue(Item item) {
+    return item instanceof DoubleItem || item instanceof LongItem || item.getVal() != null;
+  }
+
+  private static void writeValue(OutputStream out, Item item) throws IOException {
+    if (item instanceof DoubleItem) {
+      double d = ((DoubleItem) item).doubleValue();
+      Integer prec = item.getConfig() instanceof ItemNumConfig
+          ? ((ItemNumConfig) item.getConfig()).getPrec() : null;
+      writeAscii(out, Double.toString(prec == null ? d : Item.precision(d, prec)));
+      return;
+    } else if (item instanceof LongItem) {
+      writeAscii(out, Long.toString(((LongItem) item).longValue()));
+      out.write('i');
+      return;
+    }
+
+    Object val = item.getVal();
+    if (val instanceof Double || val instanceof Float) {
+      writeAscii(out, val.toString());
+    } else if (val instanceof Number) {
+      writeAscii(out, Long.toString(((Number) val).longValue()));
+      out.write('i');
+    } else if (val instanceof Boolean) {
+      writeAscii(out, val.toString());
+    } else {
+      out.write('"');
+      writeEscaped(out, val.toString(), STRING_SPECIALS);
+      out.write('"');
+    }
+  }
+
+  private static void writeAscii(OutputStream out, String s) throws IOException {
+    for (int i = 0; i < s.length(); i++) {
+      out.write(s.charAt(i));
+    }
+  }
+
+  private static void writeEscaped(OutputStream out, String s, String specials)
+      throws IOException {
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c >= 0x80) {
+        // leave multibyte characters to the encoder
+        writeEncoded(out, s.substring(i), specials);
+        return;
+      }
+      if (specials.indexOf(c) >= 0) {
+        out.write('\\');
+      }
+      out.write(c);
+    }
+  }
+
+  private static void writeEncoded(OutputStream out, String s, String specials)
+      throws IOException {
+    StringBuilder escaped = new StringBuilder(s.length() + 8);
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (specials.indexOf(c) >= 0) {
+        escaped.append('\\');
+      }
+      escaped.append(c);
+    }
+    out.write(escaped.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+}
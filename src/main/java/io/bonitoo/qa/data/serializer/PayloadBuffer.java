@@ -0,0 +1,72 @@
+package io.bonitoo.qa.data.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer into which samples can be serialized.
+ *
+ * <p>After the first few messages the buffer has grown to the payload size of its
+ * samples, so it can be reset and reused for every publish without further allocation.
+ * The content is exposed as a ByteBuffer view on the same array, without copying.</p>
+ *
+ * <p>N.B. not thread safe.  The ByteBuffer view is only valid until the next reset, so a
+ * buffer should only be reused once the client has finished publishing its content.</p>
+ */
+public class PayloadBuffer extends ByteArrayOutputStream {
+
+  public static final int DEFAULT_CAPACITY = 256;
+
+  public PayloadBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public PayloadBuffer(int capacity) {
+    super(capacity);
+  }
+
+  // unlike those of ByteArrayOutputStream, writes are not synchronized
+
+  @Override
+  public void write(int b) {
+    ensureCapacity(count + 1);
+    buf[count++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    if (off < 0 || len < 0 || off > b.length - len) {
+      throw new IndexOutOfBoundsException();
+    }
+    ensureCapacity(count + len);
+    System.arraycopy(b, off, buf, count, len);
+    count += len;
+  }
+
+  private void ensureCapacity(int minCapacity) {
+    if (minCapacity > buf.length) {
+      buf = Arrays.copyOf(buf, Math.max(buf.length << 1, minCapacity));
+    }
+  }
+
+  /**
+   * Wraps the current content without copying.
+   *
+   * @return - a ByteBuffer view on the bytes written since the last reset.
+   */
+  public ByteBuffer toByteBuffer() {
+    return ByteBuffer.wrap(buf, 0, count);
+  }
+
+  /**
+   * Decodes the current content, e.g. for logging.
+   *
+   * @return - the content as a UTF-8 string.
+   */
+  public String asString() {
+    return new String(buf, 0, count, StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,343 @@
+package io.bonitoo.qa.data.serializer;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.io.SerializedString;
+import io.bonitoo.qa.conf.data.ItemArType;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.data.DoubleItem;
+import io.bonitoo.qa.data.GenericSample;
+import io.bonitoo.qa.data.Item;
+import io.bonitoo.qa.data.LongItem;
+import io.bonitoo.qa.data.StringItem;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compact JSON payload of a generic sample, compiled once into pre-encoded bytes
+ * with slots for the values.
+ *
+ * <p>The id, field names and brackets of a sample never change between ticks, so they
+ * are encoded when the template is compiled.  Writing the payload then only formats the
+ * timestamp and the item values between those bytes.  Should the id be replaced, e.g. when
+ * a lazy fleet reuses the sample for another device, only the id is encoded again.  The
+ * output is identical to that of <code>GenericSampleSerializer</code> without pretty
+ * printing.</p>
+ *
+ * <p>Only samples made up of Double, Long and String items are supported.  For any
+ * other items, e.g. from item plugins, <code>isSupported()</code> returns false and the
+ * sample should be serialized with Jackson.</p>
+ *
+ * <p>N.B. not thread safe.  A template belongs to one sample, which is serialized by one
+ * thread at a time.</p>
+ */
+public class SampleTemplate {
+
+  static final JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+
+  static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+  static final int NO_PREC = -1;
+
+  // larger values are not written from their digits, e.g. to keep Double.toString() notation
+  static final int MAX_DECIMAL_PREC = 15;
+
+  static final long MAX_DECIMAL_DIGITS = 1000000000000000L;
+
+  static final long[] POW10 = new long[19];
+
+  static {
+    POW10[0] = 1;
+    for (int i = 1; i < POW10.length; i++) {
+      POW10[i] = POW10[i - 1] * 10;
+    }
+  }
+
+  // what the template was compiled from
+  String id;
+  final Map<String, List<Item>> itemMap;
+  final int itemKeys;
+
+  final boolean supported;
+
+  // {"id":"...","timestamp":
+  byte[] head;
+
+  // bytes preceding each value, e.g. ,"label":[
+  final byte[][] prefixes;
+
+  final Item[] items;
+
+  final int[] precs;
+
+  // closing bracket of the last item array and of the sample
+  final byte[] tail;
+
+  // digits of numbers being written
+  final byte[] scratch = new byte[32];
+
+  private SampleTemplate(GenericSample sample) {
+    this.id = sample.getId();
+    this.head = head(id);
+    this.itemMap = sample.getItems();
+    this.itemKeys = itemMap.size();
+
+    List<byte[]> prefixList = new ArrayList<>();
+    List<Item> itemList = new ArrayList<>();
+    boolean allSupported = true;
+    String close = "";
+
+    for (List<Item> list : itemMap.values()) {
+      Item first = list.get(0);
+      final int size = list.size();
+      if (size == 1) {
+        prefixList.add(prefix(close + ",", first.getLabel(), ""));
+        itemList.add(first);
+        close = "";
+        continue;
+      }
+      ItemArType arType = first.getConfig().getArType();
+      SerializedString[] names;
+      switch (arType) {
+        case Array:
+          for (int i = 0; i < size; i++) {
+            prefixList.add(i == 0 ? prefix(close + ",", first.getLabel(), "[") : ascii(","));
+          }
+          close = "]";
+          break;
+        case Object:
+          names = GenericSampleSerializer.indexedNames("", size);
+          for (int i = 0; i < size; i++) {
+            prefixList.add(i == 0
+                ? concat(prefix(close + ",", first.getLabel(), "{"),
+                  prefix("", names[0].getValue(), ""))
+                : prefix(",", names[i].getValue(), ""));
+          }
+          close = "}";
+          break;
+        case Undefined:
+        case Flat:
+          names = GenericSampleSerializer.indexedNames(first.getLabel(), size);
+          for (int i = 0; i < size; i++) {
+            prefixList.add(prefix(i == 0 ? close + "," : ",", names[i].getValue(), ""));
+          }
+          close = "";
+          break;
+        default:
+          allSupported = false;
+      }
+      itemList.addAll(list);
+    }
+
+    this.prefixes = prefixList.toArray(new byte[0][]);
+    this.items = itemList.toArray(new Item[0]);
+    this.precs = new int[items.length];
+    for (int i = 0; i < items.length; i++) {
+      Item item = items[i];
+      if (!(item instanceof DoubleItem || item instanceof LongItem || item instanceof StringItem)) {
+        allSupported = false;
+      }
+      Integer prec = item.getConfig() instanceof ItemNumConfig
+          ? ((ItemNumConfig) item.getConfig()).getPrec() : null;
+      precs[i] = prec == null ? NO_PREC : prec;
+    }
+    this.supported = allSupported;
+    this.tail = ascii(close + "}");
+  }
+
+  private static byte[] head(String id) {
+    ByteArrayOutputStream headBytes = new ByteArrayOutputStream();
+    headBytes.write('{');
+    writeQuoted(headBytes, "id");
+    headBytes.write(':');
+    if (id == null) {
+      headBytes.write(NULL, 0, NULL.length);
+    } else {
+      writeQuoted(headBytes, id);
+    }
+    headBytes.write(',');
+    writeQuoted(headBytes, "timestamp");
+    headBytes.write(':');
+    return headBytes.toByteArray();
+  }
+
+  /**
+   * Compiles the template of a sample.
+   *
+   * @param sample - the sample, with all of its items.
+   * @return - the template.
+   */
+  public static SampleTemplate compile(GenericSample sample) {
+    return new SampleTemplate(sample);
+  }
+
+  public boolean isSupported() {
+    return supported;
+  }
+
+  /**
+   * Checks whether the template still fits a sample, i.e. whether its item map has been
+   * replaced since the template was compiled.  A replaced id does not matter.
+   *
+   * @param sample - the sample.
+   * @return - true when the template can be used to write the sample.
+   */
+  public boolean matches(GenericSample sample) {
+    // identity checks, so that a tick costs no string comparison
+    return sample.getItems() == itemMap
+      && itemMap.size() == itemKeys;
+  }
+
+  /**
+   * Writes the payload of the sample with its current timestamp and item values.
+   *
+   * @param sample - the sample the template was compiled from.
+   * @param out - stream to receive the payload.  It is not closed.
+   * @throws IOException - when the payload cannot be written.
+   */
+  public void write(GenericSample sample, OutputStream out) throws IOException {
+    if (sample.getId() != id) {
+      id = sample.getId();
+      head = head(id);
+    }
+    out.write(head);
+    writeLong(out, sample.getTimestamp());
+    for (int i = 0; i < items.length; i++) {
+      out.write(prefixes[i]);
+      Item item = items[i];
+      if (item instanceof DoubleItem) {
+        writeDouble(out, ((DoubleItem) item).doubleValue(), precs[i]);
+      } else if (item instanceof LongItem) {
+        writeLong(out, ((LongItem) item).longValue());
+      } else {
+        writeString(out, item.asString());
+      }
+    }
+    out.write(tail);
+  }
+
+  private void writeLong(OutputStream out, long val) throws IOException {
+    if (val == Long.MIN_VALUE) {
+      writeAscii(out, Long.toString(val));
+      return;
+    }
+    int pos = scratch.length;
+    long rest = Math.abs(val);
+    do {
+      scratch[--pos] = (byte) ('0' + (rest % 10));
+      rest /= 10;
+    } while (rest != 0);
+    if (val < 0) {
+      scratch[--pos] = '-';
+    }
+    out.write(scratch, pos, scratch.length - pos);
+  }
+
+  private void writeDouble(OutputStream out, double val, int prec) throws IOException {
+    if (prec >= 0 && prec <= MAX_DECIMAL_PREC) {
+      // the digits Item.precision() keeps
+      long scaled = (long) (val * POW10[prec]);
+      long abs = Math.abs(scaled);
+      // Double.toString() writes such values without exponent and with the shortest digits
+      if (scaled == 0
+          || (abs < MAX_DECIMAL_DIGITS && abs * 1000 >= POW10[prec]
+            && abs < POW10[Math.min(prec + 7, POW10.length - 1)])) {
+        writeDecimal(out, scaled, prec);
+        return;
+      }
+    }
+    writeDouble(out, prec == NO_PREC ? val : Item.precision(val, prec));
+  }
+
+  private void writeDouble(OutputStream out, double val) throws IOException {
+    if (Double.isNaN(val) || Double.isInfinite(val)) {
+      // as Jackson, which quotes non-numeric numbers
+      out.write('"');
+      writeAscii(out, Double.toString(val));
+      out.write('"');
+    } else {
+      writeAscii(out, Double.toString(val));
+    }
+  }
+
+  // writes scaled / 10^prec as Double.toString() would, e.g. 1250, 2 as 12.5
+  private void writeDecimal(OutputStream out, long scaled, int prec) throws IOException {
+    long rest = Math.abs(scaled);
+    int pos = scratch.length;
+    if (prec == 0) {
+      scratch[--pos] = '0';
+    } else {
+      boolean significant = false;
+      for (int i = 0; i < prec; i++) {
+        int digit = (int) (rest % 10);
+        rest /= 10;
+        // drop trailing zeros, but keep one fraction digit
+        if (digit != 0 || significant || i == prec - 1) {
+          scratch[--pos] = (byte) ('0' + digit);
+          significant = true;
+        }
+      }
+    }
+    scratch[--pos] = '.';
+    do {
+      scratch[--pos] = (byte) ('0' + (rest % 10));
+      rest /= 10;
+    } while (rest != 0);
+    if (scaled < 0) {
+      scratch[--pos] = '-';
+    }
+    out.write(scratch, pos, scratch.length - pos);
+  }
+
+  private void writeAscii(OutputStream out, String s) throws IOException {
+    final int len = s.length();
+    for (int i = 0; i < len; i++) {
+      scratch[i] = (byte) s.charAt(i);
+    }
+    out.write(scratch, 0, len);
+  }
+
+  private static void writeString(OutputStream out, String s) throws IOException {
+    if (s == null) {
+      out.write(NULL);
+      return;
+    }
+    out.write('"');
+    out.write(encoder.quoteAsUTF8(s));
+    out.write('"');
+  }
+
+  private static void writeQuoted(ByteArrayOutputStream out, String s) {
+    byte[] quoted = encoder.quoteAsUTF8(s);
+    out.write('"');
+    out.write(quoted, 0, quoted.length);
+    out.write('"');
+  }
+
+  // e.g. ],"label":[
+  private static byte[] prefix(String before, String name, String after) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] bytes = ascii(before);
+    out.write(bytes, 0, bytes.length);
+    writeQuoted(out, name);
+    bytes = ascii(":" + after);
+    out.write(bytes, 0, bytes.length);
+    return out.toByteArray();
+  }
+
+  private static byte[] concat(byte[] first, byte[] second) {
+    byte[] result = new byte[first.length + second.length];
+    System.arraycopy(first, 0, result, 0, first.length);
+    System.arraycopy(second, 0, result, first.length, second.length);
+    return result;
+  }
+
+  private static byte[] ascii(String s) {
+    return s.getBytes(StandardCharsets.US_ASCII);
+  }
+
+}
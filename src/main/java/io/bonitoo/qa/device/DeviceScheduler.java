@@ -0,0 +1,333 @@
+package io.bonitoo.qa.device;
+
+import io.bonitoo.qa.sink.SampleSink;
+import io.bonitoo.qa.util.LogHelper;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives device publishing cycles from one shared, core sized pool of threads.
+ *
+ * <p>Devices scheduled here do not run as threads.  Instead, each device connect, tick
+ * and disconnect is submitted as a task to a <code>ScheduledExecutorService</code>.  The
+ * number of simulated devices is therefore independent of the number of threads.</p>
+ *
+ * <p>A device is first connected after <code>jitter * number</code> milliseconds.  Its
+ * first tick follows after <code>jitter</code> milliseconds and subsequent ticks follow
+ * every <code>interval + jitter</code> milliseconds, matching the cadence of a device
+ * run as a thread.  Once the ttl has passed the device is disconnected.</p>
+ *
+ * <p>When the device has a <code>RampUpController</code>, the connect is scheduled for
+ * the connect slot of the device instead, should that fall later.  Blocking connects run
+ * on threads of their own once the ramp grants them a handshake, so that devices already
+ * connected keep ticking while others wait for a handshake or for the broker.</p>
+ */
+public class DeviceScheduler {
+
+  static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  // time a fleet range ticks before it yields its thread to other tasks
+  static final long SLICE_MILLIS = 50;
+
+  @Getter
+  final ScheduledExecutorService executor;
+
+  // runs the blocking connects, so that they do not hold up the ticks of other devices
+  final ExecutorService connector;
+
+  final int poolSize;
+
+  final List<CompletableFuture<Void>> runs = new ArrayList<>();
+
+  /**
+   * Creates a scheduler backed by a pool of the given size.
+   *
+   * @param poolSize - number of threads shared by all scheduled devices.
+   */
+  public DeviceScheduler(int poolSize) {
+    this.poolSize = Math.max(1, poolSize);
+    this.executor = Executors.newScheduledThreadPool(this.poolSize);
+    AtomicInteger connectors = new AtomicInteger();
+    this.connector = Executors.newFixedThreadPool(this.poolSize, runnable -> {
+      Thread thread = new Thread(runnable, "device-connect-" + connectors.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Determines a default pool size - one thread per available processor, but never more
+   * threads than devices.
+   *
+   * @param deviceCount - number of devices to be scheduled.
+   * @return - suggested pool size.
+   */
+  public static int defaultPoolSize(int deviceCount) {
+    return Math.max(1, Math.min(deviceCount, Runtime.getRuntime().availableProcessors()));
+  }
+
+  /**
+   * Schedules a device using a blocking client.
+   *
+   * @param device - the device to be scheduled.
+   * @param ttl - time in epoch milliseconds at which the device should stop publishing.
+   * @return - a future completed once the device has been disconnected.
+   */
+  public CompletableFuture<Void> scheduleBlocking(GenericDevice device, long ttl) {
+    device.checkBlockingClient();
+    BlockingTicker ticker = new BlockingTicker(device, ttl);
+    long startDelay = Math.max(device.getConfig().getJitter() > 0
+        ? device.getConfig().getJitter() * device.getNumber() : 0, device.reserveConnectSlot());
+    executor.schedule(ticker::start, startDelay, TimeUnit.MILLISECONDS);
+    return track(device, ticker.done);
+  }
+
+  /**
+   * Schedules a device using an async client.
+   *
+   * @param device - the device to be scheduled.
+   * @param ttl - time in epoch milliseconds at which the device should stop publishing.
+   * @return - a future completed once the device has been disconnected.
+   */
+  public CompletableFuture<Void> scheduleAsync(GenericDevice device, long ttl) {
+    return track(device, device.asyncRun(ttl, executor));
+  }
+
+  /**
+   * Schedules the devices of a lazy fleet.
+   *
+   * <p>The devices of the fleet are split into as many ranges as the pool has threads,
+   * though at least one per config.  One task per range builds a single live device and,
+   * whenever the tick of a device of the range is due, turns the live device into that
+   * device and ticks it.  Devices tick every <code>interval + jitter</code> milliseconds,
+   * with their ticks spread evenly over that period by device number.</p>
+   *
+   * <p>A task yields its thread after ticking for <code>SLICE_MILLIS</code>, so a range
+   * that cannot keep up does not starve the ranges queued behind it.  A range that falls
+   * more than a whole period behind skips the overdue rounds of its devices and logs the
+   * lag.</p>
+   *
+   * @param fleet - the fleet.
+   * @param sinks - provides a sink per range, through which its devices publish.
+   * @param ttl - time in epoch milliseconds at which the devices should stop publishing.
+   * @return - a future completed once all devices have stopped.
+   */
+  public CompletableFuture<Void> scheduleFleet(LazyFleet fleet, LazyFleet.SinkFactory sinks,
+                                               long ttl) {
+    long start = System.currentTimeMillis();
+    List<CompletableFuture<Void>> ranges = new ArrayList<>();
+    for (LazyFleet.Range range : fleet.ranges(poolSize)) {
+      FleetTicker ticker = new FleetTicker(range, sinks.sinkFor(range.getTemplate()),
+          start, ttl);
+      executor.execute(ticker);
+      ranges.add(track(range.getTemplate().getId(), ticker.done));
+    }
+    return CompletableFuture.allOf(ranges.toArray(new CompletableFuture[0]));
+  }
+
+  private CompletableFuture<Void> track(GenericDevice device, CompletableFuture<Void> done) {
+    return track(device.getConfig().getId(), done);
+  }
+
+  private CompletableFuture<Void> track(String id, CompletableFuture<Void> done) {
+    CompletableFuture<Void> run = done.exceptionally(throwable -> {
+      logger.error(LogHelper.buildMsg(id,
+          "Scheduled run failed", throwable.toString()));
+      return null;
+    });
+    runs.add(run);
+    return run;
+  }
+
+  /**
+   * Waits for all scheduled devices to complete.
+   *
+   * @param timeoutMillis - maximum time to wait.
+   * @return - true if all devices completed in time.
+   * @throws InterruptedException - when interrupted while waiting.
+   */
+  public boolean awaitCompletion(long timeoutMillis) throws InterruptedException {
+    try {
+      CompletableFuture.allOf(runs.toArray(new CompletableFuture[0]))
+          .get(timeoutMillis, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (ExecutionException | TimeoutException e) {
+      logger.warn(LogHelper.buildMsg(Thread.currentThread().getName(),
+          "Scheduler Shutdown", "Devices did not complete in time: " + e));
+      return false;
+    }
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+    connector.shutdownNow();
+  }
+
+  /**
+   * Drives the publishing cycles of a range of devices of a lazy fleet.
+   */
+  private class FleetTicker implements Runnable {
+
+    final LazyFleet.Range range;
+    final SampleSink sink;
+    final long start;
+    final long period;
+    final long ttl;
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    // the next device to tick and its tick
+    int number;
+    long round = 0;
+
+    // ticks of the range skipped for being overdue
+    long skipped = 0;
+
+    // turned into each device of the range in turn, built on the first tick
+    GenericDevice device;
+
+    FleetTicker(LazyFleet.Range range, SampleSink sink, long start, long ttl) {
+      this.range = range;
+      this.sink = sink;
+      this.start = start;
+      this.period = Math.max(1, range.getTemplate().getInterval()
+          + range.getTemplate().getJitter());
+      this.ttl = ttl;
+      this.number = range.getFrom();
+    }
+
+    long due() {
+      return start + (number - 1) * period / range.getTemplate().getCount() + round * period;
+    }
+
+    @Override
+    public void run() {
+      try {
+        long now = System.currentTimeMillis();
+        long yieldAt = now + SLICE_MILLIS;
+        skipOverdue(now);
+        long due = due();
+        while (due <= now && due < ttl && now < yieldAt) {
+          DeviceTemplate next = new DeviceTemplate(range.getTemplate(), number);
+          if (device == null) {
+            device = next.live(sink);
+          }
+          next.applyTo(device, round);
+          device.tick();
+          if (++number == range.getTo()) {
+            number = range.getFrom();
+            round++;
+          }
+          due = due();
+          now = System.currentTimeMillis();
+        }
+        if (due >= ttl) {
+          if (skipped > 0) {
+            logger.warn(LogHelper.buildMsg(range.getTemplate().getId(), "Fleet Lagged",
+                String.format("devices %d to %d skipped %d ticks in total",
+                range.getFrom(), range.getTo() - 1, skipped)));
+          }
+          done.complete(null);
+          return;
+        }
+        // queued behind the tasks already due, should the range still be behind
+        executor.schedule(this, Math.max(0, due - now), TimeUnit.MILLISECONDS);
+      } catch (Exception e) {
+        done.completeExceptionally(e);
+      }
+    }
+
+    // skips whole rounds of the range, while the next device is a period or more overdue
+    void skipOverdue(long now) {
+      long behind = now - due();
+      if (behind < period) {
+        return;
+      }
+      long rounds = behind / period;
+      long ticks = rounds * (range.getTo() - range.getFrom());
+      round += rounds;
+      skipped += ticks;
+      logger.warn(LogHelper.buildMsg(range.getTemplate().getId(), "Fleet Lagging",
+          String.format("devices %d to %d are %d ms behind, skipped %d ticks",
+          range.getFrom(), range.getTo() - 1, behind, ticks)));
+    }
+  }
+
+  /**
+   * Drives the publishing cycle of one device with a blocking client.
+   */
+  private class BlockingTicker implements Runnable {
+
+    final GenericDevice device;
+    final long ttl;
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    BlockingTicker(GenericDevice device, long ttl) {
+      this.device = device;
+      this.ttl = ttl;
+    }
+
+    void start() {
+      device.connectInSlot(connector).whenComplete((connected, throwable) -> {
+        if (throwable != null) {
+          done.completeExceptionally(throwable instanceof CompletionException
+              && throwable.getCause() != null ? throwable.getCause() : throwable);
+          return;
+        }
+        try {
+          executor.schedule(this, device.getConfig().getJitter(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+          done.completeExceptionally(e);
+        }
+      });
+    }
+
+    @Override
+    public void run() {
+      if (System.currentTimeMillis() >= ttl) {
+        finish(null);
+        return;
+      }
+
+      try {
+        device.tick();
+      } catch (Exception e) {
+        finish(e);
+        return;
+      }
+
+      executor.schedule(this,
+          device.getConfig().getInterval() + device.getConfig().getJitter(),
+          TimeUnit.MILLISECONDS);
+    }
+
+    void finish(Exception cause) {
+      try {
+        device.disconnect();
+      } catch (Exception e) {
+        if (cause == null) {
+          cause = e;
+        }
+      }
+      if (cause != null) {
+        done.completeExceptionally(cause);
+      } else {
+        done.complete(null);
+      }
+    }
+  }
+
+}
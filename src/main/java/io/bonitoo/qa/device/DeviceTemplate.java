@@ -0,0 +1,93 @@
+package io.bonitoo.qa.device;
+
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.conf.device.DeviceConfig;
+import io.bonitoo.qa.data.Sample;
+import io.bonitoo.qa.sink.SampleSink;
+import io.bonitoo.qa.util.RandomStreams;
+import java.util.List;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A device of a lazy fleet, held as the config shared by its series of devices plus its
+ * number in the series, until it is materialized into a live device.
+ *
+ * <p>A task ticking many devices of a series builds a single live device with
+ * <code>live()</code> and turns it into each device in turn with <code>applyTo()</code>,
+ * which only renumbers the IDs of the device and its samples and re-keys the random
+ * streams of its items.  So a tick does not build a device with its samples and items.</p>
+ */
+@Getter
+@AllArgsConstructor
+public class DeviceTemplate {
+
+  final DeviceConfig config;
+
+  final int number;
+
+  /**
+   * Builds a live device, to be turned into devices of the series by
+   * <code>applyTo()</code>.
+   *
+   * @param sink - destination of the samples of the device.
+   * @return - a live device, with its own copy of the config when the series has more
+   *     than one device.
+   */
+  public GenericDevice live(SampleSink sink) {
+    return GenericDevice.fleetDevice(sink,
+      config.getCount() > 1 ? new DeviceConfig(config, number) : config, number);
+  }
+
+  /**
+   * Turns a live device of the same series into this device for one tick.
+   *
+   * <p>When the runner is seeded, the items of the device draw from streams keyed by
+   * the tick as well, so that each tick of the device generates new values, which are
+   * replayed by a rerun with the same seed.  Items otherwise keep their state, so items
+   * such as counters advance over all devices sharing the live device.</p>
+   *
+   * @param device - a device built by <code>live()</code> for a device of the series.
+   * @param tick - number of the tick of the device, starting with 0.
+   */
+  public void applyTo(GenericDevice device, long tick) {
+    if (device.getNumber() != number) {
+      renumber(device);
+    }
+    seed(device, tick);
+  }
+
+  private void renumber(GenericDevice device) {
+    DeviceConfig numbered = device.getConfig();
+    numbered.setId(numbered(config.getId()));
+    numbered.setName(numbered(config.getName()));
+    List<Sample> samples = device.getSampleList();
+    for (int i = 0; i < samples.size(); i++) {
+      SampleConfig template = config.getSamples().get(i);
+      Sample sample = samples.get(i);
+      sample.getConfig().setId(numbered(template.getId()));
+      sample.getConfig().setName(numbered(template.getName()));
+      sample.setId(sample.getConfig().getId());
+    }
+    device.setNumber(number);
+  }
+
+  // as DeviceConfig numbers the IDs of a series, without the cost of String.format()
+  private String numbered(String base) {
+    String digits = Integer.toString(number);
+    return base + "-" + "000".substring(Math.min(3, digits.length())) + digits;
+  }
+
+  private void seed(GenericDevice device, long tick) {
+    if (!RandomStreams.isSeeded()) {
+      return;
+    }
+    // keyed as in GenericDevice, plus the tick
+    long name = Objects.hashCode(device.getConfig().getName());
+    for (int i = 0; i < device.getSampleList().size(); i++) {
+      device.getSampleList().get(i).seedItems(name, number, i, tick);
+    }
+  }
+
+}
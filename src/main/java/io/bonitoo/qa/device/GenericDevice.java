@@ -1,35 +1,53 @@
 package io.bonitoo.qa.device;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.message.connect.connack.Mqtt5ConnAck;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
 import io.bonitoo.qa.VirtualDeviceRuntimeException;
+import io.bonitoo.qa.conf.BackfillConfig;
 import io.bonitoo.qa.conf.Config;
 import io.bonitoo.qa.conf.Mode;
 import io.bonitoo.qa.conf.data.SampleConfig;
 import io.bonitoo.qa.conf.device.DeviceConfig;
 import io.bonitoo.qa.data.GenericSample;
 import io.bonitoo.qa.data.Sample;
+import io.bonitoo.qa.data.serializer.PayloadBuffer;
+import io.bonitoo.qa.metrics.MetricsRegistry;
+import io.bonitoo.qa.metrics.PublishMetrics;
 import io.bonitoo.qa.mqtt.client.MqttClient;
+import io.bonitoo.qa.mqtt.client.MqttClientAsync;
 import io.bonitoo.qa.mqtt.client.MqttClientBlocking;
 import io.bonitoo.qa.mqtt.client.MqttClientRx;
 import io.bonitoo.qa.plugin.PluginConfigException;
 import io.bonitoo.qa.plugin.sample.SamplePluginConfig;
 import io.bonitoo.qa.plugin.sample.SamplePluginMill;
+import io.bonitoo.qa.sink.BatchingSink;
+import io.bonitoo.qa.sink.MqttSink;
+import io.bonitoo.qa.sink.SampleSink;
+import io.bonitoo.qa.util.HotPathLog;
 import io.bonitoo.qa.util.LogHelper;
-import io.bonitoo.qa.util.VirDevWorkInProgressException;
+import io.bonitoo.qa.util.SimulatedClock;
 import io.reactivex.Flowable;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.functions.BooleanSupplier;
 import io.reactivex.functions.Consumer;
 import io.reactivex.schedulers.Schedulers;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -45,14 +63,30 @@ import lombok.Setter;
 @NoArgsConstructor
 public class GenericDevice extends Device {
 
+  static HotPathLog hotLog = HotPathLog.of(logger);
+
   int number;
 
   MqttClient client;
 
+  // where samples go, by default published through the client
+  SampleSink sink;
+
+  // paces connects, null to connect as soon as the device starts
+  RampUpController ramp;
+
+  // reused by every blocking publish of this device
+  final PayloadBuffer payloadBuffer = new PayloadBuffer();
+
   protected GenericDevice(MqttClient client, DeviceConfig config, int number) {
+    this(client, config, number, true);
+  }
+
+  private GenericDevice(MqttClient client, DeviceConfig config, int number, boolean seeded) {
     this.config = config;
     this.sampleList = new ArrayList<>();
     this.client = client;
+    this.sink = mqttSink(client, config);
     this.number = number;
     for (SampleConfig sc : config.getSamples()) {
       if (sc instanceof SamplePluginConfig) { // add a plugin
@@ -66,6 +100,10 @@ public class GenericDevice extends Device {
         this.sampleList.add(GenericSample.of(sc));
       }
     }
+    // device numbers restart for each device config, so its name is part of the key
+    for (int i = 0; seeded && i < sampleList.size(); i++) {
+      sampleList.get(i).seedItems(Objects.hashCode(config.getName()), number, i);
+    }
   }
 
   public static GenericDevice singleDevice(MqttClient client, DeviceConfig config) {
@@ -86,44 +124,230 @@ public class GenericDevice extends Device {
     return new GenericDevice(client, config, number);
   }
 
-  private void blockingRun(long ttl) throws InterruptedException {
+  /**
+   * Generates a numbered device which writes its samples to a sink other than an MQTT
+   * broker, e.g. a FileSink.  Such a device has no client.
+   *
+   * @param sink - destination of the samples of the device.
+   * @param config - configuration for the device.
+   * @param number - serial number for the device to be added to id and name fields in samples.
+   * @return - a generic device.
+   */
+  public static GenericDevice numberedDevice(SampleSink sink,
+                                             DeviceConfig config, int number) {
+    GenericDevice device = new GenericDevice(null, config, number);
+    device.sink = sink;
+    return device;
+  }
+
+  /**
+   * Generates a device of a lazy fleet writing to a sink, whose items are left unseeded
+   * for the fleet to seed them per tick.
+   *
+   * @param sink - destination of the samples of the device.
+   * @param config - configuration for the device.
+   * @param number - serial number for the device.
+   * @return - a generic device.
+   */
+  static GenericDevice fleetDevice(SampleSink sink, DeviceConfig config, int number) {
+    GenericDevice device = new GenericDevice(null, config, number, false);
+    device.sink = sink;
+    return device;
+  }
+
+  /**
+   * Sets the client of the device.  Samples are then published through it.
+   *
+   * @param client - the client that the device will use to communicate with an MQTT broker.
+   */
+  public void setClient(MqttClient client) {
+    this.client = client;
+    this.sink = mqttSink(client, config);
+  }
+
+  private static SampleSink mqttSink(MqttClient client, DeviceConfig config) {
+    boolean retain = Boolean.TRUE.equals(config.getRetain());
+    return config.getBatch() == null || client == null
+      ? new MqttSink(client, config.getQos(), retain, config.getId())
+      : new BatchingSink(client, config.getBatch(), config.getQos(), retain, config.getId());
+  }
+
+  private SampleSink sink() {
+    if (sink == null) {
+      sink = mqttSink(client, config);
+    }
+    return sink;
+  }
+
+  /**
+   * Connects the device to its sink, e.g. its client to the broker.
+   *
+   * @throws InterruptedException - when interrupted while waiting on the broker.
+   */
+  public void connect() throws InterruptedException {
+    if (ramp == null) {
+      connectSink();
+    } else {
+      ramp.rampConnect(this::connectSink);
+    }
+  }
+
+  /**
+   * Reserves the connect slot of the device on its ramp, so that the connect can be
+   * scheduled for the slot instead of waiting for it.
+   *
+   * @return - milliseconds until the slot, 0 without a ramp.
+   */
+  long reserveConnectSlot() {
+    return ramp == null ? 0 : TimeUnit.NANOSECONDS.toMillis(ramp.reserve());
+  }
+
+  /**
+   * Connects the device in the slot reserved with <code>reserveConnectSlot()</code>.
+   *
+   * <p>The blocking connect runs on the <code>connector</code> once the ramp grants it a
+   * handshake, so the calling thread waits neither for the handshake nor for the
+   * broker.</p>
+   *
+   * @param connector - runs the blocking connect.
+   * @return - a future completed once the device is connected.
+   */
+  CompletableFuture<Void> connectInSlot(Executor connector) {
+    if (ramp == null) {
+      return CompletableFuture.runAsync(this::connectInterruptibly, connector);
+    }
+    return ramp.connectAsync(
+        () -> CompletableFuture.runAsync(this::connectInterruptibly, connector));
+  }
+
+  private void connectInterruptibly() {
+    try {
+      connectSink();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CompletionException(e);
+    }
+  }
+
+  private void connectSink() throws InterruptedException {
+    logger.info(LogHelper.buildMsg(config.getId(), "Device Connection", ""));
+    sink().connect();
+  }
+
+  /**
+   * Updates every sample of the device and writes it once to the sink of the device.
+   *
+   * <p>This is one publishing cycle of the device.  It can be called from a
+   * device thread loop or triggered by a shared scheduler, but not concurrently,
+   * since samples are serialized into the reusable buffer of the device.</p>
+   *
+   * @throws IOException - when a sample cannot be serialized.
+   * @throws InterruptedException - when interrupted while publishing.
+   */
+  public void tick() throws IOException, InterruptedException {
+    SampleSink target = sink();
+    for (Sample sample : sampleList) {
+      target.write(sample.update(), payloadBuffer);
+    }
+    target.endTick();
+  }
+
+  /**
+   * Disconnects the device from its sink, e.g. its client from the broker.
+   *
+   * @throws InterruptedException - when interrupted while waiting on the broker.
+   */
+  public void disconnect() throws InterruptedException {
+    sink().disconnect();
+  }
+
+  /**
+   * Sets the clock from which all samples of the device take the time.
+   *
+   * @param clock - the clock.
+   */
+  public void setClock(Clock clock) {
+    for (Sample sample : sampleList) {
+      sample.setClock(clock);
+    }
+  }
+
+  /**
+   * Publishes the samples of the device for a span of simulated time.
+   *
+   * <p>Ticks follow the timeline of blockingRun, i.e. the first tick comes after
+   * jitter * (number + 1) milliseconds and each further tick after interval + jitter
+   * milliseconds.  Simulated time is moved on from one tick to the next without waiting,
+   * so the span is published as fast as the client allows.</p>
+   *
+   * @param start - start of the span in milliseconds since the epoch.
+   * @param end - end of the span (exclusive) in milliseconds since the epoch.
+   * @return - the number of ticks published.
+   * @throws InterruptedException - when interrupted while publishing.
+   */
+  public long backfillRun(long start, long end) throws InterruptedException {
+
+    checkBlockingClient();
+
+    SimulatedClock clock = new SimulatedClock(start);
+    setClock(clock);
+
+    long step = Math.max(1L, config.getInterval() + config.getJitter());
+    long ticks = 0;
+
+    connect();
+
+    try {
+      for (long time = start + (config.getJitter() * (number + 1)); time < end; time += step) {
+        clock.setMillis(time);
+        tick();
+        ticks++;
+      }
+      logger.info(LogHelper.buildMsg(config.getId(), "Backfilled",
+          String.format("%d ticks from %d to %d", ticks, start, end)));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      disconnect();
+    }
+    return ticks;
+  }
 
-    if (! (this.client instanceof MqttClientBlocking)) {
+  void checkBlockingClient() {
+    // other sinks need no client
+    if (sink() instanceof MqttSink && ! (this.client instanceof MqttClientBlocking)) {
       throw new VirtualDeviceRuntimeException(
         "Attempt to start blockingRun with non-blocking client " + this.client.getClass().getName()
       );
     }
+  }
+
+  private void blockingRun(long ttl) throws InterruptedException {
+
+    checkBlockingClient();
 
     try {
       if (config.getJitter() > 0) {
         LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(config.getJitter() * number));
       }
-      logger.info(LogHelper.buildMsg(config.getId(), "Device Connection", ""));
-      client.connect();
+      connect();
     } catch (InterruptedException e) {
       throw new RuntimeException(e);
     }
 
     try {
       while (System.currentTimeMillis() < ttl) {
-        logger.debug(LogHelper.buildMsg(config.getId(),
-            "Wait to publish",
-            Long.toString((ttl - System.currentTimeMillis()))));
+        hotLog.debug(config.getId(), "Wait to publish", "%d",
+            ttl - System.currentTimeMillis());
         LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(config.getJitter()));
-        for (Sample sample : sampleList) {
-          String jsonSample = sample.update().toJson();
-          logger.info(LogHelper.buildMsg(sample.getId(), "Publishing", jsonSample));
-          client.publish(sample.getTopic(), jsonSample);
-        }
+        tick();
         LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(config.getInterval()));
       }
-      logger.debug(LogHelper.buildMsg(config.getId(),
-          "Published",
-          Long.toString((ttl - System.currentTimeMillis()))));
-    } catch (JsonProcessingException | InterruptedException e) {
+      hotLog.debug(config.getId(), "Published", "%d", ttl - System.currentTimeMillis());
+    } catch (IOException | InterruptedException e) {
       throw new RuntimeException(e);
     } finally {
-      client.disconnect();
+      disconnect();
     }
   }
 
@@ -140,7 +364,11 @@ public class GenericDevice extends Device {
         LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(config.getJitter() * number));
       }
       logger.info(LogHelper.buildMsg(config.getId(), "Device Connection", ""));
-      client.connect();
+      if (ramp == null) {
+        client.connect();
+      } else {
+        ramp.rampConnect(client::connect);
+      }
     } catch (InterruptedException e) {
       throw new RuntimeException(e);
     }
@@ -155,8 +383,11 @@ public class GenericDevice extends Device {
         })
         .doOnNext(sample -> {
           sample.update();
-          logger.debug("sample on thread "
-              + Thread.currentThread().getName() + ":\n" + sample.toJson());
+          if (hotLog.isDebugEnabled()) {
+            // the sample changes on its next update, so it is serialized now
+            hotLog.debug(sample.getId(), "Sample on thread " + Thread.currentThread().getName(),
+                sample.toJson());
+          }
         })
         .doOnError(System.err::println)
         .doOnComplete(() -> {
@@ -168,8 +399,10 @@ public class GenericDevice extends Device {
         .map(sample ->
           Mqtt5Publish.builder()
             .topic(sample.getTopic())
-            .qos(MqttQos.EXACTLY_ONCE)
-            .payload(sample.toJson().getBytes())
+            .qos(sample.getConfig().qosOr(config.getQos() == null
+              ? MqttClientRx.DEFAULT_QOS : config.getQos()))
+            .retain(config.retainFor(sample.getConfig()))
+            .payload(sample.toPayload(new PayloadBuffer()))
             .build()
         )
         .repeatUntil(new BooleanSupplier() {
@@ -181,11 +414,11 @@ public class GenericDevice extends Device {
 
     Disposable disposable = ((MqttClientRx) client).getClient().publish(messageFlow)
         // todo - create method to return richer result currently "payload=Nbyte"
-        .doOnNext(pubRes -> logger.info("published: " + pubRes.getPublish()))
+        .doOnNext(pubRes -> hotLog.info(config.getId(), "Published", pubRes.getPublish()))
         .doOnError(System.err::println)
         .doOnComplete(() -> logger.debug(Thread.currentThread().getName()
           + " publishing samples complete"))
-        .subscribe(pr -> logger.debug(pr.toString()),
+        .subscribe(pr -> hotLog.debug(config.getId(), "Publish result", pr),
           er -> logger.error(er.toString()));
 
     while (!disposable.isDisposed()) {
@@ -201,8 +434,163 @@ public class GenericDevice extends Device {
 
   }
 
+  /**
+   * Runs the device in ASYNC mode on a private scheduler and waits for it to complete.
+   *
+   * <p>Used when the device is started as a thread.  To drive many devices from one
+   * small pool of threads use <code>asyncRun(long, ScheduledExecutorService)</code>.</p>
+   *
+   * @param ttl - time in epoch milliseconds at which the device should stop publishing.
+   */
   public void asyncRun(long ttl) {
-    throw new VirDevWorkInProgressException("asyncRun logic TBD");
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    try {
+      asyncRun(ttl, scheduler).join();
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  /**
+   * Runs the device in ASYNC mode without blocking the calling thread.
+   *
+   * <p>Connecting, publishing and disconnecting all go through the CompletableFuture
+   * chains of <code>MqttClientAsync</code>.  Publishing is triggered by ticks
+   * on the scheduler, so no thread is held between publishes.  At most
+   * <code>maxInFlight</code> publishes from this device await acknowledgement at any time.
+   * Samples that would exceed this bound are dropped for that tick.</p>
+   *
+   * @param ttl - time in epoch milliseconds at which the device should stop publishing.
+   * @param scheduler - scheduler on which connects and publishing ticks get triggered.
+   * @return - a future completed once the device has stopped and disconnected.
+   */
+  public CompletableFuture<Void> asyncRun(long ttl, ScheduledExecutorService scheduler) {
+
+    if (! (this.client instanceof MqttClientAsync)) {
+      throw new VirtualDeviceRuntimeException(
+        "Attempt to start asyncRun with non-async client " + this.client.getClass().getName()
+      );
+    }
+
+    AsyncTicker ticker = new AsyncTicker((MqttClientAsync) client, ttl, scheduler);
+
+    long startDelay = Math.max(config.getJitter() > 0 ? config.getJitter() * number : 0,
+        reserveConnectSlot());
+
+    scheduler.schedule(ticker::start, startDelay, TimeUnit.MILLISECONDS);
+
+    return ticker.done;
+  }
+
+  /**
+   * Drives the publishing cycle of one device in ASYNC mode.
+   */
+  private class AsyncTicker implements Runnable {
+
+    final MqttClientAsync asyncClient;
+    final long ttl;
+    final ScheduledExecutorService scheduler;
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicBoolean finished = new AtomicBoolean(false);
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+    volatile boolean stopping = false;
+
+    AsyncTicker(MqttClientAsync asyncClient, long ttl, ScheduledExecutorService scheduler) {
+      this.asyncClient = asyncClient;
+      this.ttl = ttl;
+      this.scheduler = scheduler;
+    }
+
+    void start() {
+      logger.info(LogHelper.buildMsg(config.getId(), "Device Connection", ""));
+      CompletableFuture<Mqtt5ConnAck> connecting = ramp == null
+          ? asyncClient.connectAsync() : ramp.connectAsync(asyncClient::connectAsync);
+      connecting.whenComplete((ack, throwable) -> {
+        if (throwable != null) {
+          done.completeExceptionally(throwable);
+        } else {
+          scheduler.schedule(this, config.getJitter(), TimeUnit.MILLISECONDS);
+        }
+      });
+    }
+
+    @Override
+    public void run() {
+      if (System.currentTimeMillis() >= ttl) {
+        hotLog.debug(config.getId(), "Published", "%d", ttl - System.currentTimeMillis());
+        stopping = true;
+        if (inFlight.get() == 0) {
+          finish();
+        }
+        return;
+      }
+
+      try {
+        for (Sample sample : sampleList) {
+          MqttQos qos = config.qosFor(sample.getConfig());
+          boolean retain = config.retainFor(sample.getConfig());
+          if (qos == MqttQos.AT_MOST_ONCE) {
+            // fire and forget - awaits no acknowledgement, so not bounded by maxInFlight
+            // the client copies the payload, so the buffer of the device can be reused
+            ByteBuffer payload = sample.update().toPayload(payloadBuffer);
+            hotLog.payload(sample.getId(), payloadBuffer);
+            asyncClient.publish(sample.getTopic(), payload, qos, retain);
+            MetricsRegistry.of(config.getId(), sample.getId()).sent(payloadBuffer.size());
+            continue;
+          }
+          if (inFlight.get() >= config.getMaxInFlight()) {
+            // never reaches the broker, so counted as failed
+            MetricsRegistry.of(config.getId(), sample.getId()).failed();
+            logger.warn(LogHelper.buildMsg(sample.getId(), "Publish dropped",
+                String.format("%d publishes already in flight", inFlight.get())));
+            continue;
+          }
+          // in flight payloads cannot share a buffer
+          PayloadBuffer buffer = new PayloadBuffer();
+          ByteBuffer payload = sample.update().toPayload(buffer);
+          hotLog.payload(sample.getId(), buffer);
+          PublishMetrics metrics = MetricsRegistry.of(config.getId(), sample.getId());
+          final int size = buffer.size();
+          final long begin = System.nanoTime();
+          inFlight.incrementAndGet();
+          asyncClient.publishAsync(sample.getTopic(), payload, qos, retain)
+              .whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                  metrics.failed();
+                  logger.error(LogHelper.buildMsg(sample.getId(), "Publish failed",
+                      throwable.toString()));
+                } else if (result != null && result.getError().isPresent()) {
+                  metrics.failed();
+                  logger.error(LogHelper.buildMsg(sample.getId(), "Publish failed",
+                      result.getError().get().toString()));
+                } else {
+                  metrics.published(size, System.nanoTime() - begin);
+                }
+                if (inFlight.decrementAndGet() == 0 && stopping) {
+                  finish();
+                }
+              });
+        }
+      } catch (IOException e) {
+        stopping = true;
+        done.completeExceptionally(e);
+        return;
+      }
+
+      scheduler.schedule(this, config.getInterval() + config.getJitter(), TimeUnit.MILLISECONDS);
+    }
+
+    void finish() {
+      if (finished.compareAndSet(false, true)) {
+        asyncClient.disconnectAsync().whenComplete((v, throwable) -> {
+          if (throwable != null) {
+            done.completeExceptionally(throwable);
+          } else {
+            done.complete(null);
+          }
+        });
+      }
+    }
   }
 
   @Override
@@ -214,7 +602,14 @@ public class GenericDevice extends Device {
       reactiveRun(ttl);
     } else if (Config.getRunnerConfig().getMode() == Mode.ASYNC) {
       asyncRun(ttl);
-    } else {
+    } else if (Config.getRunnerConfig().getMode() == Mode.BACKFILL) {
+      BackfillConfig backfill = Config.getRunnerConfig().getBackfill();
+      try {
+        backfillRun(backfill.getStart(), backfill.getEnd());
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    } else { // BLOCKING or VIRTUAL
       try {
         blockingRun(ttl);
       } catch (InterruptedException e) {
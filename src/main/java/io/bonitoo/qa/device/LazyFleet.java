@@ -0,0 +1,95 @@
+package io.bonitoo.qa.device;
+
+import io.bonitoo.qa.conf.device.DeviceConfig;
+import io.bonitoo.qa.sink.SampleSink;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A fleet of logical devices, which are only materialized into live devices for a tick.
+ *
+ * <p>The fleet holds nothing but the device configs.  Device <code>n</code> of a config
+ * is the template of that config plus the number <code>n</code>, so the memory of the
+ * fleet and the time to set it up do not grow with the number of devices.  A
+ * <code>DeviceScheduler</code> ticks each range of devices with one live device, which
+ * it turns into each device of the range in turn, publishing through a sink shared by
+ * many devices.</p>
+ *
+ * <p>Since the devices of a range share their samples and items, item generators and
+ * plugins keep their state across the devices of the range rather than per device.</p>
+ */
+public class LazyFleet {
+
+  /**
+   * Provides the sink through which a range of devices of a config publish.
+   */
+  public interface SinkFactory {
+    SampleSink sinkFor(DeviceConfig template);
+  }
+
+  /**
+   * The devices with numbers from <code>from</code> (inclusive) to <code>to</code>
+   * (exclusive) of a config, ticked in turn by the same task.
+   */
+  @Getter
+  @AllArgsConstructor
+  public static class Range {
+    final DeviceConfig template;
+    final int from;
+    final int to;
+  }
+
+  @Getter
+  final List<DeviceConfig> templates;
+
+  final long size;
+
+  /**
+   * Creates a fleet of all devices of the configs.
+   *
+   * @param templates - configs of the devices, each run <code>count</code> times.
+   */
+  public LazyFleet(List<DeviceConfig> templates) {
+    this.templates = Collections.unmodifiableList(new ArrayList<>(templates));
+    long total = 0;
+    for (DeviceConfig template : templates) {
+      total += template.getCount();
+    }
+    this.size = total;
+  }
+
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Splits the devices of the fleet into contiguous ranges, one range per thread.
+   *
+   * <p>The ranges are shared among the configs by their number of devices, though each
+   * config gets at least one range, since a range holds the devices of a single config.</p>
+   *
+   * @param total - number of ranges to split the fleet into.
+   * @return - the ranges, which are at most <code>total</code> or the number of configs,
+   *     whichever is larger, however large the fleet.
+   */
+  public List<Range> ranges(int total) {
+    List<Range> ranges = new ArrayList<>();
+    for (DeviceConfig template : templates) {
+      int count = template.getCount();
+      long share = size > 0 ? (long) total * count / size : 0;
+      int parts = (int) Math.max(1, Math.min(count, share));
+      for (int part = 0; part < parts; part++) {
+        int from = (int) ((long) count * part / parts) + 1;
+        int to = (int) ((long) count * (part + 1) / parts) + 1;
+        if (from < to) {
+          ranges.add(new Range(template, from, to));
+        }
+      }
+    }
+    return ranges;
+  }
+
+}
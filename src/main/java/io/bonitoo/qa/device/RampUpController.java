@@ -0,0 +1,280 @@
+package io.bonitoo.qa.device;
+
+import io.bonitoo.qa.conf.RampConfig;
+import io.bonitoo.qa.conf.RampCurve;
+import io.bonitoo.qa.conf.VirDevConfigException;
+import io.bonitoo.qa.metrics.LatencyHistogram;
+import io.bonitoo.qa.util.LogHelper;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Paces the connects of many devices according to a RampConfig.
+ *
+ * <p>Connect slots are handed out in order.  The n-th slot falls at the time when the
+ * integral of the ramp curve reaches n, so the connect rate follows the curve up to
+ * <code>connectsPerSecond</code>.  Independently of the rate, at most
+ * <code>maxConcurrent</code> connects may await acknowledgement from the broker.  Further
+ * connects wait until one of them completes, so that e.g. TLS handshakes do not pile up
+ * when the broker falls behind.</p>
+ *
+ * <p>Connect latencies are recorded in a LatencyHistogram and reported periodically while
+ * devices are connecting.</p>
+ */
+public class RampUpController {
+
+  static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * A connect to be paced.
+   */
+  public interface Connector {
+    void connect() throws InterruptedException;
+  }
+
+  @Getter
+  final RampConfig config;
+
+  final long startNanos;
+
+  final AtomicLong reserved = new AtomicLong();
+
+  final AtomicLong failed = new AtomicLong();
+
+  @Getter
+  final LatencyHistogram connectLatency = new LatencyHistogram();
+
+  // handshakes granted, and connects waiting for one, guarded by this
+  int handshakes = 0;
+  final Queue<Runnable> waiting = new ArrayDeque<>();
+
+  // number of connects after which the ramp is reported as complete
+  volatile long expected = 0;
+
+  ScheduledExecutorService reporter;
+
+  /**
+   * Creates a controller, whose ramp starts now.
+   *
+   * @param config - the ramp configuration.
+   */
+  public RampUpController(RampConfig config) {
+    if (config.getConnectsPerSecond() <= 0) {
+      throw new VirDevConfigException(
+        "Ramp requires connectsPerSecond > 0, got " + config.getConnectsPerSecond());
+    }
+    this.config = config;
+    this.startNanos = System.nanoTime();
+  }
+
+  /**
+   * Calculates when a connect slot falls.
+   *
+   * @param slot - the number of the slot, starting with 0.
+   * @return - nanoseconds since the start of the ramp.
+   */
+  long slotNanos(long slot) {
+    double ratePerNano = config.getConnectsPerSecond() / 1e9;
+    double rampNanos = config.getCurve() == RampCurve.LINEAR
+        ? TimeUnit.MILLISECONDS.toNanos(config.getRampMillis()) : 0;
+    // slots handed out while the rate is still rising
+    double rampSlots = ratePerNano * rampNanos / 2;
+    if (slot < rampSlots) {
+      return (long) Math.sqrt(2 * rampNanos * slot / ratePerNano);
+    }
+    return (long) (rampNanos + (slot - rampSlots) / ratePerNano);
+  }
+
+  /**
+   * Reserves the next connect slot.
+   *
+   * @return - nanoseconds from now until the slot, 0 if it is already due.
+   */
+  public long reserve() {
+    long due = startNanos + slotNanos(reserved.getAndIncrement());
+    return Math.max(0, due - System.nanoTime());
+  }
+
+  /**
+   * Waits for the next connect slot and connects, e.g. from the thread of a device.
+   *
+   * @param connector - the blocking connect.
+   * @throws InterruptedException - when interrupted while waiting or connecting.
+   */
+  public void rampConnect(Connector connector) throws InterruptedException {
+    long wait = reserve();
+    long until = System.nanoTime() + wait;
+    while (wait > 0) {
+      LockSupport.parkNanos(wait);
+      if (Thread.interrupted()) {
+        throw new InterruptedException("Interrupted waiting for connect slot");
+      }
+      wait = until - System.nanoTime();
+    }
+    connect(connector);
+  }
+
+  /**
+   * Connects without waiting for a slot, e.g. when the slot was reserved ahead,
+   * but still within the bound of concurrent connects.
+   *
+   * @param connector - the blocking connect.
+   * @throws InterruptedException - when interrupted while waiting or connecting.
+   */
+  public void connect(Connector connector) throws InterruptedException {
+    CompletableFuture<Void> granted = new CompletableFuture<>();
+    acquire(() -> granted.complete(null));
+    try {
+      granted.get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      // hand the handshake on, should it have been granted meanwhile
+      granted.thenRun(this::release);
+      throw e;
+    }
+
+    long begin = System.nanoTime();
+    boolean connected = false;
+    try {
+      connector.connect();
+      connected = true;
+    } finally {
+      completed(begin, connected);
+      release();
+    }
+  }
+
+  /**
+   * Connects without blocking, within the bound of concurrent connects.
+   *
+   * @param connector - starts the connect and returns its future.
+   * @param <T> - result of the connect, e.g. the acknowledgement of the broker.
+   * @return - a future completed with the result of the connect.
+   */
+  public <T> CompletableFuture<T> connectAsync(Supplier<CompletableFuture<T>> connector) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    acquire(() -> {
+      long begin = System.nanoTime();
+      CompletableFuture<T> connecting;
+      try {
+        connecting = connector.get();
+      } catch (RuntimeException e) {
+        completed(begin, false);
+        release();
+        result.completeExceptionally(e);
+        return;
+      }
+      connecting.whenComplete((value, throwable) -> {
+        completed(begin, throwable == null);
+        release();
+        if (throwable != null) {
+          result.completeExceptionally(throwable);
+        } else {
+          result.complete(value);
+        }
+      });
+    });
+    return result;
+  }
+
+  private void acquire(Runnable onGranted) {
+    synchronized (this) {
+      if (config.getMaxConcurrent() > 0 && handshakes >= config.getMaxConcurrent()) {
+        waiting.add(onGranted);
+        return;
+      }
+      handshakes++;
+    }
+    onGranted.run();
+  }
+
+  private void release() {
+    Runnable next;
+    synchronized (this) {
+      next = waiting.poll();
+      if (next == null) {
+        handshakes--;
+      }
+    }
+    // the handshake passes straight to the next connect
+    if (next != null) {
+      next.run();
+    }
+  }
+
+  private void completed(long beginNanos, boolean connected) {
+    if (connected) {
+      connectLatency.record(System.nanoTime() - beginNanos);
+    } else {
+      failed.incrementAndGet();
+    }
+    if (expected > 0 && connectLatency.count() + failed.get() == expected) {
+      logger.info(LogHelper.buildMsg("ramp", "Ramp complete", progress()));
+      stopReporting();
+    }
+  }
+
+  /**
+   * Summarizes the progress of the ramp.
+   *
+   * @return - connects so far, failures, connects in progress and connect latencies.
+   */
+  public String progress() {
+    int inProgress;
+    int queued;
+    synchronized (this) {
+      inProgress = handshakes;
+      queued = waiting.size();
+    }
+    double elapsed = (System.nanoTime() - startNanos) / 1e9;
+    long connected = connectLatency.count();
+    return String.format("connected=%d/%d,failed=%d,inProgress=%d,queued=%d,"
+        + "rate=%.1f/s,latency[%s]", connected, expected, failed.get(), inProgress, queued,
+        elapsed > 0 ? connected / elapsed : 0.0, connectLatency.summary());
+  }
+
+  /**
+   * Logs the progress of the ramp every <code>reportMillis</code> until the expected
+   * number of devices has connected or failed to connect.
+   *
+   * @param expected - number of connects making up the ramp.
+   */
+  public synchronized void startReporting(long expected) {
+    this.expected = expected;
+    if (reporter != null || config.getReportMillis() <= 0 || expected < 1) {
+      return;
+    }
+    reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "ramp-report");
+      thread.setDaemon(true);
+      return thread;
+    });
+    reporter.scheduleAtFixedRate(
+        () -> logger.info(LogHelper.buildMsg("ramp", "Ramp progress", progress())),
+        config.getReportMillis(), config.getReportMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops progress reports, e.g. once the runner is done.
+   */
+  public synchronized void stopReporting() {
+    if (reporter != null) {
+      reporter.shutdownNow();
+      reporter = null;
+    }
+  }
+
+}
@@ -0,0 +1,163 @@
+package io.bonitoo.qa.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of latencies in nanoseconds.
+ *
+ * <p>Values are counted in log-linear buckets: each power of two is split into
+ * <code>SUB_BUCKETS</code> equal buckets, so a percentile is reported with a relative
+ * error below 1 / SUB_BUCKETS, i.e. about 6%.  Buckets only cover publish latencies that
+ * are realistic, from about a microsecond (<code>2^MIN_EXPONENT</code> ns) to about a
+ * minute (<code>2^MAX_EXPONENT</code> ns).  Lower values are counted in the first bucket and
+ * higher ones in the last, whose bound is the largest recorded latency.  The buckets are
+ * allocated on the first record, so an idle histogram costs a few counters.  Recording is
+ * a single atomic increment, so the histogram can be shared by many threads.</p>
+ */
+public class LatencyHistogram {
+
+  static final int SUB_BUCKET_BITS = 4;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  static final int MIN_EXPONENT = 10;
+  static final int MAX_EXPONENT = 36;
+
+  // one bucket below 2^MIN_EXPONENT, SUB_BUCKETS per power of two and one above
+  static final int BUCKETS = (MAX_EXPONENT - MIN_EXPONENT) * SUB_BUCKETS + 2;
+
+  volatile AtomicLongArray counts;
+  final AtomicLong total = new AtomicLong();
+  final AtomicLong sum = new AtomicLong();
+  final AtomicLong max = new AtomicLong();
+
+  static int bucketOf(long value) {
+    if (value < (1L << MIN_EXPONENT)) {
+      return 0;
+    }
+    if (value >= (1L << MAX_EXPONENT)) {
+      return BUCKETS - 1;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - MIN_EXPONENT) * SUB_BUCKETS + sub + 1;
+  }
+
+  // largest value counted in a bucket
+  static long upperBoundOf(int bucket) {
+    if (bucket == 0) {
+      return (1L << MIN_EXPONENT) - 1;
+    }
+    if (bucket >= BUCKETS - 1) {
+      return Long.MAX_VALUE;
+    }
+    int exponent = (bucket - 1) / SUB_BUCKETS + MIN_EXPONENT;
+    long sub = (bucket - 1) % SUB_BUCKETS;
+    long lower = (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+
+  private AtomicLongArray buckets() {
+    AtomicLongArray buckets = counts;
+    if (buckets == null) {
+      synchronized (this) {
+        buckets = counts;
+        if (buckets == null) {
+          buckets = new AtomicLongArray(BUCKETS);
+          counts = buckets;
+        }
+      }
+    }
+    return buckets;
+  }
+
+  /**
+   * Counts a latency.
+   *
+   * @param nanos - the latency in nanoseconds.  Negative values are counted as 0.
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    buckets().incrementAndGet(bucketOf(value));
+    total.incrementAndGet();
+    sum.addAndGet(value);
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Adds the latencies recorded by another histogram, e.g. to total those of many devices.
+   *
+   * @param other - the histogram to be added.
+   */
+  public void add(LatencyHistogram other) {
+    AtomicLongArray otherCounts = other.counts;
+    if (otherCounts != null) {
+      AtomicLongArray buckets = buckets();
+      for (int i = 0; i < otherCounts.length(); i++) {
+        long count = otherCounts.get(i);
+        if (count > 0) {
+          buckets.addAndGet(i, count);
+        }
+      }
+    }
+    total.addAndGet(other.total.get());
+    sum.addAndGet(other.sum.get());
+    long otherMax = other.max.get();
+    long current = max.get();
+    while (otherMax > current && !max.compareAndSet(current, otherMax)) {
+      current = max.get();
+    }
+  }
+
+  public long count() {
+    return total.get();
+  }
+
+  public long max() {
+    return max.get();
+  }
+
+  public double mean() {
+    long count = total.get();
+    return count == 0 ? 0.0 : (double) sum.get() / count;
+  }
+
+  /**
+   * Gets a percentile of the recorded latencies.
+   *
+   * @param percentile - the percentile, between 0 and 100.
+   * @return - the upper bound in nanoseconds of the bucket holding the percentile, never more
+   *     than the largest recorded latency, or 0 when nothing has been recorded.
+   */
+  public long percentile(double percentile) {
+    long count = total.get();
+    AtomicLongArray buckets = counts;
+    if (count == 0 || buckets == null) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(count * Math.min(100.0, percentile) / 100.0));
+    long seen = 0;
+    for (int i = 0; i < buckets.length(); i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(upperBoundOf(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Summarizes the histogram in milliseconds, e.g. for logging.
+   *
+   * @return - count, mean, 50th, 90th, 99th percentile and max.
+   */
+  public String summary() {
+    return String.format("count=%d,mean=%.2fms,p50=%.2fms,p90=%.2fms,p99=%.2fms,max=%.2fms",
+      count(), mean() / 1e6, percentile(50) / 1e6, percentile(90) / 1e6,
+      percentile(99) / 1e6, max() / 1e6);
+  }
+
+}
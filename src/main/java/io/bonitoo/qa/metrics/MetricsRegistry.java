@@ -0,0 +1,248 @@
+package io.bonitoo.qa.metrics;
+
+import io.bonitoo.qa.util.LogHelper;
+import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the publish metrics of all devices of a run, keyed by device and sample, and
+ * the number of connects of each MQTT client.
+ *
+ * <p>Messages, bytes and failures are counted per device and sample.  Latencies are
+ * recorded per group of devices and samples numbered from the same configs, i.e. whose
+ * IDs only differ in a trailing <code>-NNN</code>, so that a large fleet does not hold a
+ * histogram per device.  Metrics can be queried while devices are publishing.  The runner
+ * logs a summary once its ttl has passed.</p>
+ */
+public class MetricsRegistry {
+
+  static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  static final ConcurrentMap<String, ConcurrentMap<String, PublishMetrics>> registry =
+      new ConcurrentHashMap<>();
+
+  // latencies keyed by device group and sample group
+  static final ConcurrentMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+  static final ConcurrentMap<String, AtomicLong> connects = new ConcurrentHashMap<>();
+
+  static volatile long startNanos = System.nanoTime();
+
+  /**
+   * Gets the metrics of a sample of a device, creating them on first use.
+   *
+   * @param device - ID of the device.
+   * @param sample - ID of the sample.
+   * @return - the metrics.
+   */
+  public static PublishMetrics of(String device, String sample) {
+    ConcurrentMap<String, PublishMetrics> samples = registry.get(String.valueOf(device));
+    if (samples == null) {
+      samples = registry.computeIfAbsent(String.valueOf(device), k -> new ConcurrentHashMap<>());
+    }
+    PublishMetrics metrics = samples.get(String.valueOf(sample));
+    return metrics != null
+      ? metrics : samples.computeIfAbsent(String.valueOf(sample), k -> new PublishMetrics(
+        latencies.computeIfAbsent(groupKey(String.valueOf(device), k),
+          g -> new LatencyHistogram())));
+  }
+
+  /**
+   * Gets the group of a device or sample, i.e. its ID without the number given to it
+   * by a config with a <code>count</code> above one.
+   *
+   * @param id - ID of a device or sample.
+   * @return - the ID without a trailing <code>-NNN</code> of three or more digits.
+   */
+  public static String groupOf(String id) {
+    int end = id.length();
+    int digits = 0;
+    while (digits < end && Character.isDigit(id.charAt(end - 1 - digits))) {
+      digits++;
+    }
+    return digits >= 3 && digits + 1 < end && id.charAt(end - 1 - digits) == '-'
+      ? id.substring(0, end - 1 - digits) : id;
+  }
+
+  private static String groupKey(String device, String sample) {
+    return groupOf(device) + "/" + groupOf(sample);
+  }
+
+  /**
+   * Gets the metrics of a sample of a device.
+   *
+   * @param device - ID of the device.
+   * @param sample - ID of the sample.
+   * @return - the metrics, or null when nothing has been published for the sample.
+   */
+  public static PublishMetrics get(String device, String sample) {
+    Map<String, PublishMetrics> samples = registry.get(String.valueOf(device));
+    return samples == null ? null : samples.get(String.valueOf(sample));
+  }
+
+  public static Set<String> devices() {
+    return Collections.unmodifiableSet(registry.keySet());
+  }
+
+  /**
+   * Lists the samples published by a device.
+   *
+   * @param device - ID of the device.
+   * @return - IDs of the samples.
+   */
+  public static Set<String> samples(String device) {
+    Map<String, PublishMetrics> samples = registry.get(String.valueOf(device));
+    return samples == null
+      ? Collections.emptySet() : Collections.unmodifiableSet(samples.keySet());
+  }
+
+  /**
+   * Totals the metrics of all samples of a device.
+   *
+   * @param device - ID of the device.
+   * @return - a snapshot of the totals, with the latencies of the groups of the device.
+   */
+  public static PublishMetrics device(String device) {
+    PublishMetrics total = new PublishMetrics();
+    Map<String, PublishMetrics> samples = registry.get(String.valueOf(device));
+    if (samples != null) {
+      Set<LatencyHistogram> added = Collections.newSetFromMap(new IdentityHashMap<>());
+      samples.values().forEach(metrics -> {
+        metrics.addCountsTo(total);
+        if (added.add(metrics.getLatency())) {
+          total.getLatency().add(metrics.getLatency());
+        }
+      });
+    }
+    return total;
+  }
+
+  /**
+   * Totals the metrics of all devices.
+   *
+   * @return - a snapshot of the totals.
+   */
+  public static PublishMetrics total() {
+    PublishMetrics total = new PublishMetrics();
+    registry.values().forEach(samples -> samples.values()
+        .forEach(metrics -> metrics.addCountsTo(total)));
+    latencies.values().forEach(latency -> total.getLatency().add(latency));
+    return total;
+  }
+
+  /**
+   * Totals the metrics per group of devices and samples.
+   *
+   * @return - snapshots of the totals keyed by <code>deviceGroup/sampleGroup</code>.
+   */
+  public static SortedMap<String, PublishMetrics> groups() {
+    SortedMap<String, PublishMetrics> groups = new TreeMap<>();
+    registry.forEach((device, samples) -> samples.forEach((sample, metrics) ->
+        metrics.addCountsTo(groups.computeIfAbsent(groupKey(device, sample),
+          k -> new PublishMetrics(new LatencyHistogram())))));
+    groups.forEach((key, metrics) -> {
+      LatencyHistogram latency = latencies.get(key);
+      if (latency != null) {
+        metrics.getLatency().add(latency);
+      }
+    });
+    return groups;
+  }
+
+  /**
+   * Counts a connect of an MQTT client.
+   *
+   * @param client - identifier of the client.
+   */
+  public static void connected(String client) {
+    connects.computeIfAbsent(String.valueOf(client), k -> new AtomicLong()).incrementAndGet();
+  }
+
+  /**
+   * Gets the number of times a client connected again after its first connect.
+   *
+   * @param client - identifier of the client.
+   * @return - the number of reconnects.
+   */
+  public static long reconnects(String client) {
+    AtomicLong count = connects.get(String.valueOf(client));
+    return count == null ? 0 : Math.max(0, count.get() - 1);
+  }
+
+  /**
+   * Totals the reconnects of all clients.
+   *
+   * @return - the number of reconnects.
+   */
+  public static long reconnects() {
+    return connects.values().stream().mapToLong(count -> Math.max(0, count.get() - 1)).sum();
+  }
+
+  public static double elapsedSeconds() {
+    return (System.nanoTime() - startNanos) / 1e9;
+  }
+
+  /**
+   * Discards all metrics and restarts the clock, from which rates are calculated.
+   */
+  public static void clear() {
+    registry.clear();
+    latencies.clear();
+    connects.clear();
+    startNanos = System.nanoTime();
+  }
+
+  /**
+   * Summarizes all metrics.
+   *
+   * @return - the totals over all devices, followed by one line per group of devices
+   *     and samples numbered from the same configs.
+   */
+  public static String summary() {
+    double seconds = elapsedSeconds();
+    StringBuilder result = new StringBuilder(String.format("total: %s,reconnects=%d",
+        total().summary(seconds), reconnects()));
+    groups().forEach((group, metrics) -> result.append(String.format("\n%s: %s", group,
+        metrics.summary(seconds))));
+    return result.toString();
+  }
+
+  /**
+   * Summarizes the counts of each sample of each device.
+   *
+   * @return - one line per sample of each device, with the latencies of its group.
+   */
+  public static String deviceSummary() {
+    double seconds = elapsedSeconds();
+    StringBuilder result = new StringBuilder();
+    registry.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(device ->
+        device.getValue().entrySet().stream().sorted(Map.Entry.comparingByKey())
+          .forEach(sample -> result.append(result.length() == 0 ? "" : "\n")
+            .append(String.format("%s/%s: %s", device.getKey(),
+            sample.getKey(), sample.getValue().summary(seconds)))));
+    return result.toString();
+  }
+
+  /**
+   * Logs the summary, followed by the metrics of each device when debugging.
+   */
+  public static void logSummary() {
+    logger.info(LogHelper.buildMsg(Thread.currentThread().getName(), "Publish metrics",
+        summary()));
+    if (logger.isDebugEnabled()) {
+      logger.debug(LogHelper.buildMsg(Thread.currentThread().getName(),
+          "Publish metrics per device", deviceSummary()));
+    }
+  }
+
+}
@@ -0,0 +1,105 @@
+package io.bonitoo.qa.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+
+/**
+ * Counts the messages published for one sample of one device.
+ *
+ * <p>The latency histogram may be shared with the metrics of other devices, e.g. all
+ * devices numbered from the same config, so that the heap held by metrics does not grow
+ * with a histogram per device.  Latency is the time from handing a message to the client
+ * until the broker has acknowledged it.  Messages published with QoS 0 are not
+ * acknowledged.  When handed off without waiting they are counted without a latency,
+ * otherwise the latency is the time until the message was sent.  All counters can be
+ * updated from any thread.</p>
+ */
+public class PublishMetrics {
+
+  final LongAdder messages = new LongAdder();
+  final LongAdder bytes = new LongAdder();
+  final LongAdder failures = new LongAdder();
+
+  @Getter
+  final LatencyHistogram latency;
+
+  public PublishMetrics() {
+    this(new LatencyHistogram());
+  }
+
+  /**
+   * Creates metrics recording latencies in a given histogram.
+   *
+   * @param latency - the histogram, which may be shared with other metrics.
+   */
+  public PublishMetrics(LatencyHistogram latency) {
+    this.latency = latency;
+  }
+
+  /**
+   * Counts a message, once acknowledged by the broker.
+   *
+   * @param size - payload size in bytes.
+   * @param latencyNanos - time from publish to acknowledgement.
+   */
+  public void published(int size, long latencyNanos) {
+    sent(size);
+    latency.record(latencyNanos);
+  }
+
+  /**
+   * Counts a message for which no acknowledgement is awaited.
+   *
+   * @param size - payload size in bytes.
+   */
+  public void sent(int size) {
+    messages.increment();
+    bytes.add(size);
+  }
+
+  public void failed() {
+    failures.increment();
+  }
+
+  public long messages() {
+    return messages.sum();
+  }
+
+  public long bytes() {
+    return bytes.sum();
+  }
+
+  public long failures() {
+    return failures.sum();
+  }
+
+  /**
+   * Adds these metrics to a total.
+   *
+   * @param total - metrics totalling those of many samples.
+   */
+  public void addTo(PublishMetrics total) {
+    addCountsTo(total);
+    total.latency.add(latency);
+  }
+
+  // adds all but the latencies, for totals over metrics sharing their histograms
+  void addCountsTo(PublishMetrics total) {
+    total.messages.add(messages.sum());
+    total.bytes.add(bytes.sum());
+    total.failures.add(failures.sum());
+  }
+
+  /**
+   * Summarizes the metrics, e.g. for logging.
+   *
+   * @param seconds - time over which the messages were published, for rates.
+   * @return - messages and bytes with their rates per second, failures and latencies.
+   */
+  public String summary(double seconds) {
+    double span = Math.max(seconds, 1e-3);
+    return String.format("messages=%d(%.1f/s),bytes=%d(%.1f/s),failures=%d,latency[%s]",
+      messages(), messages() / span, bytes(), bytes() / span, failures(), latency.summary());
+  }
+
+}
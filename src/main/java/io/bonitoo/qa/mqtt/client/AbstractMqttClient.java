@@ -1,7 +1,12 @@
 package io.bonitoo.qa.mqtt.client;
 
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishBuilder;
 import io.bonitoo.qa.conf.mqtt.broker.BrokerConfig;
+import io.bonitoo.qa.util.HotPathLog;
 import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -20,8 +25,32 @@ public abstract class AbstractMqttClient implements MqttClient {
 
   static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  // for messages logged on every publish
+  static HotPathLog hotLog = HotPathLog.of(logger);
+
   String id;
 
   BrokerConfig broker;
 
+  /**
+   * Builds a message to be published.
+   *
+   * @param topic - the MQTT topic.
+   * @param payload - the message payload.
+   * @param qos - QoS of the message, or null to leave the default of the builder.
+   * @param retain - whether the broker should retain the message.
+   * @return - the message.
+   */
+  protected static Mqtt5Publish buildPublish(String topic, ByteBuffer payload,
+                                             MqttQos qos, boolean retain) {
+    Mqtt5PublishBuilder.Complete builder = Mqtt5Publish.builder()
+        .topic(topic)
+        .payload(payload)
+        .retain(retain);
+    if (qos != null) {
+      builder.qos(qos);
+    }
+    return builder.build();
+  }
+
 }
@@ -1,5 +1,8 @@
 package io.bonitoo.qa.mqtt.client;
 
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import java.nio.ByteBuffer;
+
 /**
  * Base of an MqttClient.
  */
@@ -12,6 +15,34 @@ public interface MqttClient {
 
   MqttClient publish(String topic, String payload) throws InterruptedException;
 
+  /**
+   * Publishes a binary payload.
+   *
+   * <p>Once this method returns the caller may reuse the payload buffer.</p>
+   *
+   * @param topic - the MQTT topic.
+   * @param payload - the message payload from its position up to its limit.
+   * @return - this client.
+   * @throws InterruptedException - when interrupted while publishing.
+   */
+  MqttClient publish(String topic, ByteBuffer payload) throws InterruptedException;
+
+  /**
+   * Publishes a binary payload with the given QoS and retain flag.
+   *
+   * <p>Once this method returns the caller may reuse the payload buffer.  With QoS 0
+   * there is no acknowledgement to wait for, so the message may still be on its way.</p>
+   *
+   * @param topic - the MQTT topic.
+   * @param payload - the message payload from its position up to its limit.
+   * @param qos - QoS of the message, or null for the default of the client.
+   * @param retain - whether the broker should retain the message.
+   * @return - this client.
+   * @throws InterruptedException - when interrupted while publishing.
+   */
+  MqttClient publish(String topic, ByteBuffer payload, MqttQos qos, boolean retain)
+      throws InterruptedException;
+
   MqttClient disconnect() throws InterruptedException;
 
   void shutdown();
@@ -1,18 +1,23 @@
 package io.bonitoo.qa.mqtt.client;
 
-import com.hivemq.client.internal.mqtt.message.connect.connack.MqttConnAck;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5Connect;
 import com.hivemq.client.mqtt.mqtt5.message.connect.connack.Mqtt5ConnAck;
 import com.hivemq.client.mqtt.mqtt5.message.disconnect.Mqtt5Disconnect;
 import com.hivemq.client.mqtt.mqtt5.message.disconnect.Mqtt5DisconnectReasonCode;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishResult;
 import io.bonitoo.qa.VirtualDeviceRuntimeException;
 import io.bonitoo.qa.conf.mqtt.broker.BrokerConfig;
+import io.bonitoo.qa.util.LogHelper;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.locks.LockSupport;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -22,8 +27,11 @@ import lombok.Setter;
  * An MQTT client leveraging Mqtt5AsyncClient for asynchronous communications
  * with the MQTT broker.
  *
- * <p>Note this is not yet leveraged with the rest of the code and is currently
- * included for experimenting.
+ * <p>The <code>*Async</code> methods return the underlying CompletableFuture chains
+ * and never block the calling thread.  They are used by devices running in
+ * {@link io.bonitoo.qa.conf.Mode#ASYNC} mode.  The methods inherited from
+ * <code>MqttClient</code> wait on the same chains, so that this client can still
+ * be used wherever a synchronous client is expected.</p>
  */
 @Builder
 @AllArgsConstructor
@@ -31,6 +39,8 @@ import lombok.Setter;
 @Getter
 public class MqttClientAsync extends AbstractMqttClient {
 
+  public static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+
   Mqtt5AsyncClient client;
 
   protected MqttClientAsync() {
@@ -59,70 +69,192 @@ public class MqttClientAsync extends AbstractMqttClient {
     return mqc;
   }
 
-  @Override
-  public MqttClient connect() throws InterruptedException {
-    // todo implement - see MqttClientBlocking
-    try {
-      Mqtt5ConnAck ack = this.client.connect().get(5000, TimeUnit.MILLISECONDS);
+  /**
+   * Connects to the broker without blocking, using simple authentication when
+   * the broker configuration defines a username.
+   *
+   * @return - a future completed with the broker acknowledgement.
+   */
+  public CompletableFuture<Mqtt5ConnAck> connectAsync() {
+    if (broker.getAuth() == null || broker.getAuth().getUsername() == null) {
+      return connectAnonAsync();
+    }
+    return connectSimpleAsync(broker.getAuth().getUsername(),
+      new String(broker.getAuth().getPassword()));
+  }
+
+  /**
+   * Connects to the broker without blocking, using simple authentication.
+   *
+   * <p>As with the blocking client, the broker is left a will announcing that the
+   * device is gone.</p>
+   *
+   * @param username - user name for authentication.
+   * @param password - password for authentication.
+   * @return - a future completed with the broker acknowledgement.
+   */
+  public CompletableFuture<Mqtt5ConnAck> connectSimpleAsync(String username, String password) {
+    logger.info(LogHelper.buildMsg(id, "Connect Simple", username));
+
+    return client.connect(Mqtt5Connect.builder()
+        .simpleAuth()
+        .username(username)
+        .password(password.getBytes(StandardCharsets.UTF_8))
+        .applySimpleAuth()
+        .willPublish()
+        .topic("virtual/device")
+        .payload(String.format("device %s gone", id).getBytes(StandardCharsets.UTF_8))
+        .applyWillPublish()
+        .build())
+      .whenComplete(this::logConnect);
+  }
+
+  /**
+   * Connects to the broker anonymously without blocking.
+   *
+   * @return - a future completed with the broker acknowledgement.
+   */
+  public CompletableFuture<Mqtt5ConnAck> connectAnonAsync() {
+    logger.info(LogHelper.buildMsg(id, "Connect Anonymous", ""));
+
+    return client.connect().whenComplete(this::logConnect);
+  }
+
+  private void logConnect(Mqtt5ConnAck ack, Throwable throwable) {
+    if (throwable != null) {
+      logger.error(LogHelper.buildMsg(id, "Connect failed", throwable.toString()));
+    } else {
+      logger.debug(LogHelper.buildMsg(id, "ACK Connect", String.valueOf(ack)));
+    }
+  }
+
+  /**
+   * Publishes a payload without blocking.
+   *
+   * @param topic - the MQTT topic.
+   * @param payload - the message payload.
+   * @return - a future completed once the broker has handled the message
+   *     according to its QoS.
+   */
+  public CompletableFuture<Mqtt5PublishResult> publishAsync(String topic, byte[] payload) {
+    return client.publish(Mqtt5Publish.builder()
+        .topic(topic)
+        .payload(payload)
+        .build());
+  }
+
+  /**
+   * Publishes a payload without blocking.
+   *
+   * <p>The client reads the payload when the message is sent, so the buffer must not be
+   * modified until the returned future completes.</p>
+   *
+   * @param topic - the MQTT topic.
+   * @param payload - the message payload.
+   * @return - a future completed once the broker has handled the message
+   *     according to its QoS.
+   */
+  public CompletableFuture<Mqtt5PublishResult> publishAsync(String topic, ByteBuffer payload) {
+    return publishAsync(topic, payload, null, false);
+  }
+
+  /**
+   * Publishes a payload with the given QoS and retain flag without blocking.
+   *
+   * <p>With QoS 0 the future completes once the message has been sent, since the broker
+   * does not acknowledge it.</p>
+   *
+   * @param topic - the MQTT topic.
+   * @param payload - the message payload, not to be modified until the future completes.
+   * @param qos - QoS of the message, or null for the default of the client.
+   * @param retain - whether the broker should retain the message.
+   * @return - a future completed once the broker has handled the message
+   *     according to its QoS.
+   */
+  public CompletableFuture<Mqtt5PublishResult> publishAsync(String topic, ByteBuffer payload,
+                                                            MqttQos qos, boolean retain) {
+    return client.publish(buildPublish(topic, payload, qos, retain));
+  }
+
+  /**
+   * Disconnects from the broker without blocking.
+   *
+   * @return - a future completed when the disconnect has been sent.
+   */
+  public CompletableFuture<Void> disconnectAsync() {
+
+    if (!client.getState().isConnected()) {
+      return CompletableFuture.completedFuture(null);
+    }
 
-      System.out.println("DEBUG ack " + ack);
+    Mqtt5Disconnect disconnect = Mqtt5Disconnect.builder()
+        .reasonCode(Mqtt5DisconnectReasonCode.NORMAL_DISCONNECTION)
+        .sessionExpiryInterval(600L)
+        .reasonString("Planned Disconnect").build();
+
+    return client.disconnect(disconnect)
+      .whenComplete((v, throwable) -> {
+        if (throwable != null) {
+          logger.error(LogHelper.buildMsg(id, "Disconnect failed", throwable.toString()));
+        } else {
+          logger.info(LogHelper.buildMsg(id, "Disconnected", ""));
+        }
+      });
+  }
 
+  private <T> T await(CompletableFuture<T> future, String action) throws InterruptedException {
+    try {
+      return future.get(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
     } catch (ExecutionException | TimeoutException e) {
-      throw new VirtualDeviceRuntimeException("failed to connect to broker in 5 seconds", e);
+      throw new VirtualDeviceRuntimeException(
+        String.format("%s failed to %s within %d milliseconds", id, action, DEFAULT_TIMEOUT_MILLIS),
+        e);
     }
+  }
 
+  @Override
+  public MqttClientAsync connect() throws InterruptedException {
+    await(connectAsync(), "connect");
     return this;
   }
 
   @Override
-  public MqttClient connectSimple(String username, String password) throws InterruptedException {
-    //TODO implement
-    return null;
+  public MqttClientAsync connectSimple(String username, String password)
+      throws InterruptedException {
+    await(connectSimpleAsync(username, password), "connect");
+    return this;
   }
 
   @Override
-  public MqttClientAsync connectAnon() {
-
-    System.out.println("CONNECTING");
-
-    CompletableFuture<Mqtt5ConnAck> cf = client.connect().whenComplete((conAck, throwable) -> {
-      if (throwable != null) {
-        System.err.println("Failed to connect to broker");
-        System.err.println(throwable.toString());
-        System.exit(1);
-      }
-      System.out.println("Connected to broker");
-    });
-
-    System.out.print("connecting.");
-    while (!cf.isDone()) {
-      System.out.print(".");
-      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(300));
-    }
-
+  public MqttClientAsync connectAnon() throws InterruptedException {
+    await(connectAnonAsync(), "connect");
     return this;
+  }
+
+  @Override
+  public MqttClientAsync publish(String topic, String payload) {
+    return publish(topic, ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8)));
+  }
 
+  @Override
+  public MqttClientAsync publish(String topic, ByteBuffer payload) {
+    return publish(topic, payload, null, false);
   }
 
   @Override
-  public MqttClientAsync publish(String topic, String payload) throws InterruptedException {
+  public MqttClientAsync publish(String topic, ByteBuffer payload, MqttQos qos, boolean retain) {
 
-    System.out.println("PUBLISHING");
-    if (!client.getState().isConnected()) {
-      // Todo fix if connection is not anonymous
-      connectAnon();
-    }
+    // the caller may reuse its buffer on return, while this publish is still in flight
+    byte[] copy = new byte[payload.remaining()];
+    payload.duplicate().get(copy);
 
-    client.publishWith()
-        .topic(topic)
-        .payload(payload.getBytes())
-        .send()
+    publishAsync(topic, ByteBuffer.wrap(copy), qos, retain)
         .whenComplete((result, throwable) -> {
           if (throwable != null) {
-            System.err.println("Failed to publish to topic " + topic);
-            System.out.println(throwable.toString());
+            logger.error(LogHelper.buildMsg(id, "Publish failed",
+                String.format("[%s] - %s", topic, throwable)));
           } else {
-            System.out.println("Publish Success " + result);
+            hotLog.debug(id, "Published", topic);
           }
         });
 
@@ -131,26 +263,7 @@ public class MqttClientAsync extends AbstractMqttClient {
 
   @Override
   public MqttClientAsync disconnect() throws InterruptedException {
-
-    System.out.println("DISCONNECTING");
-
-    Mqtt5Disconnect disconnect = Mqtt5Disconnect.builder()
-        .reasonCode(Mqtt5DisconnectReasonCode.NORMAL_DISCONNECTION)
-        .sessionExpiryInterval(600L)
-        .reasonString("Planned Disconnect").build();
-
-    if (client.getState().isConnected()) {
-      client.disconnect(disconnect)
-          .whenComplete((ack, throwable) -> {
-            if (throwable != null) {
-              System.err.println("Failed to disconnect");
-              System.err.println(throwable.toString());
-            } else {
-              System.out.println("Disconnect Success");
-            }
-          });
-    }
-
+    await(disconnectAsync(), "disconnect");
     return this;
   }
 
@@ -1,17 +1,17 @@
 package io.bonitoo.qa.mqtt.client;
 
-import com.hivemq.client.mqtt.MqttClientSslConfig;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5BlockingClient;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientBuilder;
 import com.hivemq.client.mqtt.mqtt5.exceptions.Mqtt5MessageException;
 import com.hivemq.client.mqtt.mqtt5.message.connect.connack.Mqtt5ConnAck;
-import com.hivemq.client.util.KeyStoreUtil;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishResult;
 import io.bonitoo.qa.conf.mqtt.broker.BrokerConfig;
 import io.bonitoo.qa.util.LogHelper;
-import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
 import javax.net.ssl.SSLException;
-import javax.net.ssl.TrustManagerFactory;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -56,14 +56,8 @@ public class MqttClientBlocking extends AbstractMqttClient {
 
     if (broker.getTls() != null) {
       try {
-        TrustManagerFactory trustManagerFactory = KeyStoreUtil
-            .trustManagerFromKeystore(new File(broker.getTls().getTrustStore()),
-              new String(broker.getTls().getTrustPass()));
-        clientBuilder.sslConfig(MqttClientSslConfig.builder()
-            .keyManagerFactory(null)
-            .trustManagerFactory(trustManagerFactory)
-            .build()
-        );
+        // one truststore load for the whole fleet
+        clientBuilder.sslConfig(SslConfigCache.sslConfig(broker.getTls()));
       } catch (SSLException e) {
         throw new RuntimeException(e);
       }
@@ -153,6 +147,80 @@ public class MqttClientBlocking extends AbstractMqttClient {
 
   }
 
+  @Override
+  public MqttClientBlocking publish(String topic, ByteBuffer payload) {
+    return publish(topic, payload, null, false);
+  }
+
+  @Override
+  public MqttClientBlocking publish(String topic, ByteBuffer payload,
+                                    MqttQos qos, boolean retain) {
+
+    if (hotLog.isDebugEnabled()) {
+      hotLog.debug(client.getConfig().getClientIdentifier().get().toString(), "Publishing",
+          String.format("[%s] - %d bytes, qos %s", topic, payload.remaining(), qos));
+    }
+
+    if (qos == MqttQos.AT_MOST_ONCE) {
+      // fire and forget - nothing will be acknowledged, so do not wait for the send
+      // the caller may reuse its buffer on return, while this publish is still queued
+      ByteBuffer copy = ByteBuffer.allocate(payload.remaining());
+      copy.put(payload.duplicate()).flip();
+      client.toAsync().publish(buildPublish(topic, copy, qos, retain))
+          .whenComplete((result, throwable) -> {
+            if (throwable != null) {
+              logger.error(LogHelper.buildMsg(
+                  client.getConfig().getClientIdentifier().get().toString(),
+                  "Publish failed", String.format("[%s] - %s", topic, throwable)));
+            }
+          });
+      return this;
+    }
+
+    // blocks until acknowledged, so the buffer is free for reuse on return
+    client.publish(buildPublish(topic, payload, qos, retain));
+
+    return this;
+  }
+
+  /**
+   * Publishes a payload over the same connection without waiting for its acknowledgement,
+   * e.g. to pipeline a batch of messages.
+   *
+   * <p>The client reads the payload when the message is sent, so the buffer must not be
+   * modified until the returned future completes.</p>
+   *
+   * @param topic - the MQTT topic.
+   * @param payload - the message payload.
+   * @return - a future completed once the broker has handled the message
+   *     according to its QoS.
+   */
+  public CompletableFuture<Mqtt5PublishResult> publishAsync(String topic, ByteBuffer payload) {
+    return publishAsync(topic, payload, null, false);
+  }
+
+  /**
+   * Publishes a payload with the given QoS and retain flag over the same connection
+   * without waiting for its acknowledgement.
+   *
+   * @param topic - the MQTT topic.
+   * @param payload - the message payload, not to be modified until the future completes.
+   * @param qos - QoS of the message, or null for the default of the client.
+   * @param retain - whether the broker should retain the message.
+   * @return - a future completed once the broker has handled the message
+   *     according to its QoS.
+   */
+  public CompletableFuture<Mqtt5PublishResult> publishAsync(String topic, ByteBuffer payload,
+                                                            MqttQos qos, boolean retain) {
+
+    if (hotLog.isDebugEnabled()) {
+      hotLog.debug(client.getConfig().getClientIdentifier().get().toString(), "Publishing async",
+          String.format("[%s] - %d bytes, qos %s", topic, payload.remaining(), qos));
+    }
+
+    return client.toAsync().publish(buildPublish(topic, payload, qos, retain));
+  }
+
   @Override
   public MqttClientBlocking disconnect() {
 
@@ -0,0 +1,268 @@
+package io.bonitoo.qa.mqtt.client;
+
+import com.hivemq.client.mqtt.mqtt5.message.connect.connack.Mqtt5ConnAck;
+import io.bonitoo.qa.VirtualDeviceRuntimeException;
+import io.bonitoo.qa.conf.Mode;
+import io.bonitoo.qa.util.LogHelper;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fixed pool of physical MQTT connections shared by many devices.
+ *
+ * <p>Each call to <code>lease()</code> returns a new logical client bound round robin
+ * to one of the connections of the pool.  A logical client is of the same class as
+ * a dedicated client for the mode, i.e. an <code>MqttClientBlocking</code> or an
+ * <code>MqttClientAsync</code>, so devices run unchanged.  The connection is opened
+ * when the first of its devices connects and closed when the last one disconnects.
+ * Devices still publish under the topics of their own samples, so the number of
+ * connections to the broker can be varied independently of the message rate.</p>
+ *
+ * <p>Reactive clients cannot be pooled.</p>
+ */
+public class MqttClientPool {
+
+  static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  @Getter
+  final Mode mode;
+
+  final List<MqttClient> connections;
+
+  final List<SharedConnection> shared;
+
+  int next = 0;
+
+  /**
+   * Builds the physical clients of the pool.  Nothing is connected until the first
+   * device connects.
+   *
+   * @param builder - builder for the physical clients.
+   * @param mode - the mode in which the devices will run.
+   * @param size - number of physical connections.
+   * @param idPrefix - prefix of the client identifiers of the connections, which get
+   *                 a serial number appended.
+   */
+  public MqttClientPool(VirDevMqttClientBuilder builder, Mode mode, int size, String idPrefix) {
+    if (size < 1) {
+      throw new VirtualDeviceRuntimeException("Connection pool size must be > 0, got " + size);
+    }
+    if (mode == Mode.REACTIVE) {
+      throw new VirtualDeviceRuntimeException("Connection pool cannot be used in mode " + mode);
+    }
+    this.mode = mode;
+    this.connections = new ArrayList<>(size);
+    this.shared = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      connections.add(builder.id(String.format("%s-%03d", idPrefix, i + 1))
+          .genClientFromMode(mode));
+      shared.add(new SharedConnection());
+    }
+    logger.info(LogHelper.buildMsg(idPrefix, "Connection pool",
+        String.format("%d %s connections", size, mode)));
+  }
+
+  public int size() {
+    return connections.size();
+  }
+
+  public List<MqttClient> getConnections() {
+    return Collections.unmodifiableList(connections);
+  }
+
+  /**
+   * Gets a logical client for a device, bound to the next connection of the pool.
+   *
+   * @return - a client sharing its connection with other devices.
+   */
+  public synchronized MqttClient lease() {
+    int index = next;
+    next = (next + 1) % connections.size();
+    MqttClient connection = connections.get(index);
+    if (connection instanceof MqttClientAsync) {
+      return new PooledClientAsync((MqttClientAsync) connection, shared.get(index));
+    }
+    return new PooledClientBlocking((MqttClientBlocking) connection, shared.get(index));
+  }
+
+  /**
+   * Counts the devices using one physical connection.
+   */
+  static class SharedConnection {
+
+    interface Action {
+      void run() throws InterruptedException;
+    }
+
+    int users = 0;
+
+    CompletableFuture<Mqtt5ConnAck> opened;
+
+    // completed once a blocking connect is up, later devices wait on it
+    CompletableFuture<Void> connected;
+
+    /**
+     * Connects the first device and waits for the connection for the others.
+     *
+     * <p>The connect itself runs outside the lock, so that a slow broker does not hold
+     * up the bookkeeping of the other devices of the connection.  When it fails, all
+     * devices waiting on it fail, and the next device to connect tries again.</p>
+     */
+    void open(Action connect) throws InterruptedException {
+      final CompletableFuture<Void> pending;
+      final boolean first;
+      synchronized (this) {
+        users++;
+        first = connected == null || connected.isCompletedExceptionally();
+        if (first) {
+          connected = new CompletableFuture<>();
+        }
+        pending = connected;
+      }
+
+      if (first) {
+        try {
+          connect.run();
+        } catch (Throwable t) {
+          leave();
+          pending.completeExceptionally(t);
+          throw t;
+        }
+        pending.complete(null);
+        return;
+      }
+
+      try {
+        pending.get();
+      } catch (ExecutionException e) {
+        leave();
+        throw new VirtualDeviceRuntimeException("Shared connection failed to connect",
+          e.getCause());
+      } catch (InterruptedException e) {
+        leave();
+        throw e;
+      }
+    }
+
+    private synchronized void leave() {
+      if (users > 0) {
+        users--;
+      }
+    }
+
+    synchronized void close(Action disconnect) throws InterruptedException {
+      if (users > 0 && --users == 0) {
+        connected = null;
+        disconnect.run();
+      }
+    }
+
+    /**
+     * Connects the first device and lets the others wait on its connect.
+     *
+     * <p>A device whose connect fails no longer counts as a user of the connection, as
+     * it will not disconnect, and the next device to connect tries again.</p>
+     */
+    CompletableFuture<Mqtt5ConnAck> openAsync(
+        Supplier<CompletableFuture<Mqtt5ConnAck>> connect) {
+      final CompletableFuture<Mqtt5ConnAck> pending;
+      synchronized (this) {
+        if (users++ == 0 || opened == null || opened.isCompletedExceptionally()) {
+          try {
+            opened = connect.get();
+          } catch (RuntimeException e) {
+            users--;
+            throw e;
+          }
+        }
+        pending = opened;
+      }
+
+      CompletableFuture<Mqtt5ConnAck> result = new CompletableFuture<>();
+      pending.whenComplete((ack, throwable) -> {
+        if (throwable != null) {
+          leave();
+          result.completeExceptionally(throwable);
+        } else {
+          result.complete(ack);
+        }
+      });
+      return result;
+    }
+
+    synchronized CompletableFuture<Void> closeAsync(Supplier<CompletableFuture<Void>> disconnect) {
+      if (users > 0 && --users == 0) {
+        opened = null;
+        return disconnect.get();
+      }
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
+  /**
+   * A blocking client sharing the connection of a pooled client.
+   */
+  static class PooledClientBlocking extends MqttClientBlocking {
+
+    final SharedConnection connection;
+
+    PooledClientBlocking(MqttClientBlocking physical, SharedConnection connection) {
+      super();
+      setId(physical.getId());
+      setBroker(physical.getBroker());
+      setClient(physical.getClient());
+      this.connection = connection;
+    }
+
+    @Override
+    public MqttClient connect() throws InterruptedException {
+      connection.open(super::connect);
+      return this;
+    }
+
+    @Override
+    public MqttClientBlocking disconnect() {
+      try {
+        connection.close(super::disconnect);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return this;
+    }
+  }
+
+  /**
+   * An async client sharing the connection of a pooled client.
+   */
+  static class PooledClientAsync extends MqttClientAsync {
+
+    final SharedConnection connection;
+
+    PooledClientAsync(MqttClientAsync physical, SharedConnection connection) {
+      super();
+      setId(physical.getId());
+      setBroker(physical.getBroker());
+      setClient(physical.getClient());
+      this.connection = connection;
+    }
+
+    @Override
+    public CompletableFuture<Mqtt5ConnAck> connectAsync() {
+      return connection.openAsync(super::connectAsync);
+    }
+
+    @Override
+    public CompletableFuture<Void> disconnectAsync() {
+      return connection.closeAsync(super::disconnectAsync);
+    }
+  }
+
+}
@@ -11,6 +11,7 @@ import io.bonitoo.qa.conf.mqtt.broker.BrokerConfig;
 import io.reactivex.Completable;
 import io.reactivex.Flowable;
 import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
 import java.util.concurrent.TimeUnit;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -33,6 +34,9 @@ public class MqttClientRx extends AbstractMqttClient {
 
   static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  // used when neither sample nor device sets a QoS
+  public static final MqttQos DEFAULT_QOS = MqttQos.EXACTLY_ONCE;
+
   Mqtt5RxClient client;
 
   protected MqttClientRx() {
@@ -95,13 +99,20 @@ public class MqttClientRx extends AbstractMqttClient {
 
   @Override
   public MqttClient publish(String topic, String payload) throws InterruptedException {
+    return publish(topic, ByteBuffer.wrap(payload.getBytes()));
+  }
+
+  @Override
+  public MqttClient publish(String topic, ByteBuffer payload) throws InterruptedException {
+    return publish(topic, payload, null, false);
+  }
+
+  @Override
+  public MqttClient publish(String topic, ByteBuffer payload, MqttQos qos, boolean retain)
+      throws InterruptedException {
 
     Flowable<Mqtt5Publish> msg2Publish = Flowable.just(
-        Mqtt5Publish.builder()
-        .topic(topic)
-        .qos(MqttQos.EXACTLY_ONCE)
-        .payload(payload.getBytes())
-        .build());
+        buildPublish(topic, payload, qos == null ? DEFAULT_QOS : qos, retain));
 
     Completable pubScenario = client.publish(msg2Publish)
         .doOnNext(publishResult -> System.out.println(
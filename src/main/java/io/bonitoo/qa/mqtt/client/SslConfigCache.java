@@ -0,0 +1,78 @@
+package io.bonitoo.qa.mqtt.client;
+
+import com.hivemq.client.mqtt.MqttClientSslConfig;
+import com.hivemq.client.util.KeyStoreUtil;
+import io.bonitoo.qa.conf.mqtt.broker.TlsConfig;
+import io.bonitoo.qa.util.LogHelper;
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.TrustManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares one MqttClientSslConfig between all clients connecting with the same TlsConfig.
+ *
+ * <p>Building the config loads the truststore from disk and initializes a
+ * TrustManagerFactory.  Done for every client this dominates the startup of a large
+ * fleet, so the config is built once per TlsConfig instance and rebuilt only when its
+ * truststore or password is replaced.  MqttClientSslConfig is immutable and the
+ * TrustManagerFactory is only read during handshakes, so clients can share them.</p>
+ */
+public class SslConfigCache {
+
+  static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  // weak, so that configs of finished runs, e.g. in tests, can be collected
+  static final Map<TlsConfig, Entry> cache = new WeakHashMap<>();
+
+  /**
+   * Gets the SSL config for a TlsConfig, building it on first use.
+   *
+   * @param tls - the TLS configuration of a broker.
+   * @return - the SSL config shared by all clients using the TlsConfig.
+   * @throws SSLException - when the truststore cannot be loaded.
+   */
+  public static synchronized MqttClientSslConfig sslConfig(TlsConfig tls) throws SSLException {
+    Entry entry = cache.get(tls);
+    if (entry == null || !entry.isFor(tls)) {
+      logger.debug(LogHelper.buildMsg("tls", "Loading truststore", tls.getTrustStore()));
+      TrustManagerFactory trustManagerFactory = KeyStoreUtil
+          .trustManagerFromKeystore(new File(tls.getTrustStore()),
+            new String(tls.getTrustPass()));
+      entry = new Entry(tls.getTrustStore(), tls.getRawTrustPass(),
+          MqttClientSslConfig.builder()
+            .keyManagerFactory(null)
+            .trustManagerFactory(trustManagerFactory)
+            .build());
+      cache.put(tls, entry);
+    }
+    return entry.sslConfig;
+  }
+
+  public static synchronized void clear() {
+    cache.clear();
+  }
+
+  static class Entry {
+    final String trustStore;
+    final char[] trustPass;
+    final MqttClientSslConfig sslConfig;
+
+    Entry(String trustStore, char[] trustPass, MqttClientSslConfig sslConfig) {
+      this.trustStore = trustStore;
+      this.trustPass = trustPass;
+      this.sslConfig = sslConfig;
+    }
+
+    boolean isFor(TlsConfig tls) {
+      return Objects.equals(trustStore, tls.getTrustStore())
+        && trustPass == tls.getRawTrustPass();
+    }
+  }
+
+}
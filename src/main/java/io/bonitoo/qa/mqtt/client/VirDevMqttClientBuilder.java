@@ -1,20 +1,17 @@
 package io.bonitoo.qa.mqtt.client;
 
-import com.hivemq.client.mqtt.MqttClientSslConfig;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientBuilder;
 import com.hivemq.client.mqtt.mqtt5.message.auth.Mqtt5SimpleAuth;
-import com.hivemq.client.util.KeyStoreUtil;
 import io.bonitoo.qa.VirtualDeviceRuntimeException;
 import io.bonitoo.qa.conf.Mode;
 import io.bonitoo.qa.conf.mqtt.broker.AuthConfig;
 import io.bonitoo.qa.conf.mqtt.broker.BrokerConfig;
 import io.bonitoo.qa.conf.mqtt.broker.TlsConfig;
-import java.io.File;
+import io.bonitoo.qa.metrics.MetricsRegistry;
 import java.lang.invoke.MethodHandles;
 import java.util.UUID;
 import javax.net.ssl.SSLException;
-import javax.net.ssl.TrustManagerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,10 +43,14 @@ public class VirDevMqttClientBuilder {
 
   private Mqtt5ClientBuilder startClientBuilder() {
 
+    final String clientId = this.id;
+
     Mqtt5ClientBuilder clientBuilder = Mqtt5Client.builder()
         .identifier(this.id)
         .serverHost(this.brokerConfig.getHost())
-        .serverPort(this.brokerConfig.getPort());
+        .serverPort(this.brokerConfig.getPort())
+        // every connect after the first is counted as a reconnect
+        .addConnectedListener(context -> MetricsRegistry.connected(clientId));
 
     if (this.authConfig != null) {
       clientBuilder.simpleAuth(Mqtt5SimpleAuth.builder()
@@ -60,14 +61,8 @@ public class VirDevMqttClientBuilder {
 
     if (this.tlsConfig != null) {
       try {
-        TrustManagerFactory trustManagerFactory = KeyStoreUtil
-            .trustManagerFromKeystore(new File(this.tlsConfig.getTrustStore()),
-              new String(this.tlsConfig.getTrustPass()));
-        clientBuilder.sslConfig(MqttClientSslConfig.builder()
-            .keyManagerFactory(null)
-            .trustManagerFactory(trustManagerFactory)
-            .build()
-        );
+        // one truststore load for the whole fleet
+        clientBuilder.sslConfig(SslConfigCache.sslConfig(this.tlsConfig));
       } catch (SSLException e) {
         throw new RuntimeException(e);
       }
@@ -172,6 +167,8 @@ public class VirDevMqttClientBuilder {
         // return MqttClientRx.client(config, id);
         return buildRx();
       case BLOCKING:
+      case VIRTUAL:
+      case BACKFILL:
         logger.info("Generating Blocking Client");
         // return MqttClientBlocking.client(config, id);
         return buildBlocking();
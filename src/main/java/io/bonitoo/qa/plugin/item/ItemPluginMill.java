@@ -7,35 +7,105 @@ import io.bonitoo.qa.data.Item;
 import io.bonitoo.qa.plugin.Plugin;
 import io.bonitoo.qa.plugin.PluginConfigException;
 import io.bonitoo.qa.plugin.PluginProperties;
+import io.bonitoo.qa.util.FactoryHandles;
+import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URLClassLoader;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import lombok.AllArgsConstructor;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * A class for storing plugin classes and generating instances.
+ *
+ * <p>Plugins are also indexed by class name, and the no argument constructor of each
+ * is resolved once to a method handle, so that creating items for many devices costs
+ * neither a search of the registry nor reflection per item.</p>
  */
 public class ItemPluginMill {
 
   static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-  @AllArgsConstructor
   static class PluginPack {
-    Class<? extends Plugin> pluginClass;
-    PluginProperties pluginProps;
+    final String key;
+    final Class<? extends Plugin> pluginClass;
+    final PluginProperties pluginProps;
+    volatile MethodHandle constructor;
+
+    PluginPack(String key, Class<? extends Plugin> pluginClass, PluginProperties pluginProps) {
+      this.key = key;
+      this.pluginClass = pluginClass;
+      this.pluginProps = pluginProps;
+    }
+
+    MethodHandle constructor() throws NoSuchMethodException, IllegalAccessException {
+      if (constructor == null) {
+        constructor = FactoryHandles.constructor(pluginClass);
+        logger.info(String.format("Resolved constructor of plugin class %s",
+            pluginClass.getName()));
+      }
+      return constructor;
+    }
   }
 
-  static Map<String, PluginPack> pluginPackMap = new HashMap<>();
+  static Map<String, PluginPack> pluginPackMap = new ConcurrentHashMap<>();
+
+  // plugins by class name, checked against pluginPackMap on lookup
+  static Map<String, PluginPack> classIndex = new ConcurrentHashMap<>();
 
   public static Class<? extends Plugin> getPluginClass(String key) {
     return pluginPackMap.get(key).pluginClass;
   }
 
+  private static void put(String key, Class<? extends Plugin> pluginClass,
+                          PluginProperties props) {
+    PluginPack pack = new PluginPack(key, pluginClass, props);
+    pluginPackMap.put(key, pack);
+    classIndex.put(pluginClass.getName(), pack);
+    logger.info(String.format("Added plugin to mill %s:%s", props.getName(), props.getMain()));
+  }
+
+  /**
+   * Finds the plugin of a class.
+   *
+   * @param classname - name of the plugin class.
+   * @return - the registered plugin or null.
+   */
+  static PluginPack findByClassName(String classname) {
+    PluginPack pack = classIndex.get(classname);
+    if (pack == null || pluginPackMap.get(pack.key) == pack) {
+      return pack;
+    }
+    // the indexed plugin was removed or replaced, so look for the class under another key
+    classIndex.remove(classname, pack);
+    for (PluginPack candidate : pluginPackMap.values()) {
+      if (candidate.pluginClass.getName().equals(classname)) {
+        classIndex.put(classname, candidate);
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Gets a handle to the no argument constructor of a plugin class, resolved once
+   * per registration.
+   *
+   * @param classname - name of the plugin class.
+   * @return - a handle returning a new instance as <code>Object</code>, or null when
+   *     no plugin of the class is registered.
+   * @throws NoSuchMethodException - when the plugin class has no such constructor.
+   * @throws IllegalAccessException - when the constructor is not accessible.
+   */
+  public static MethodHandle getConstructorByName(String classname)
+      throws NoSuchMethodException, IllegalAccessException {
+    PluginPack pack = findByClassName(classname);
+    return pack == null ? null : pack.constructor();
+  }
+
   /**
    * Return the class matching the sought class name.
    *
@@ -45,10 +115,9 @@ public class ItemPluginMill {
    * @return - the class stored in the registry.
    */
   public static Class<? extends Plugin> getPluginClassByName(String classname) {
-    for (String key : pluginPackMap.keySet()) {
-      if (pluginPackMap.get(key).pluginClass.getName().equals(classname)) {
-        return pluginPackMap.get(key).pluginClass;
-      }
+    PluginPack pack = findByClassName(classname);
+    if (pack != null) {
+      return pack.pluginClass;
     }
     throw new RuntimeException(String.format("Class %s is not a loaded plugin", classname));
   }
@@ -56,8 +125,7 @@ public class ItemPluginMill {
   public static void addPluginClass(String key,
                                     Class<? extends Plugin> pluginClass,
                                     PluginProperties props) {
-    pluginPackMap.put(key, new PluginPack(pluginClass, props));
-    logger.info(String.format("Added plugin to mill %s:%s", props.getName(), props.getMain()));
+    put(key, pluginClass, props);
   }
 
   /**
@@ -78,8 +146,7 @@ public class ItemPluginMill {
     @SuppressWarnings("unchecked")
     Class<Plugin> pluginClass =
         (Class<Plugin>) Class.forName(props.getMain());
-    pluginPackMap.put(key, new PluginPack(pluginClass, props));
-    logger.info(String.format("Added plugin to mill %s:%s", props.getName(), props.getMain()));
+    put(key, pluginClass, props);
   }
 
   /**
@@ -102,9 +169,7 @@ public class ItemPluginMill {
     Class<Plugin> pluginClass = (Class<Plugin>)
         Class.forName(props.getMain(), true, ucl);
 
-    pluginPackMap.put(key, new PluginPack(pluginClass, props));
-    logger.info(String.format("Added plugin to mill %s:%s", props.getName(), props.getMain()));
-
+    put(key, pluginClass, props);
   }
 
 
@@ -171,8 +236,17 @@ public class ItemPluginMill {
     return plugin;
   }
 
+  /**
+   * Removes a plugin class from the mill.
+   *
+   * @param key - name of the plugin.
+   */
   public static void removePluginClass(String key) {
-    pluginPackMap.remove(key);
+    PluginPack pack = pluginPackMap.remove(key);
+    if (pack != null) {
+      // the class may still be registered under another key
+      findByClassName(pack.pluginClass.getName());
+    }
     logger.info(String.format("Removed plugin %s", key));
   }
 
@@ -187,12 +261,7 @@ public class ItemPluginMill {
    * @return - true if the entry is found otherwise false.
    */
   public static boolean hasPluginClass(String classname) {
-    for (String key : pluginPackMap.keySet()) {
-      if (pluginPackMap.get(key).pluginClass.getName().equals(classname)) {
-        return true;
-      }
-    }
-    return false;
+    return findByClassName(classname) != null;
   }
 
 
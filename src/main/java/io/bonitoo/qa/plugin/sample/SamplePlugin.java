@@ -10,6 +10,8 @@ import io.bonitoo.qa.data.Item;
 import io.bonitoo.qa.data.Sample;
 import io.bonitoo.qa.plugin.Plugin;
 import io.bonitoo.qa.plugin.PluginProperties;
+import io.bonitoo.qa.util.FactoryHandles;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -77,6 +79,30 @@ public abstract class SamplePlugin extends Sample implements Plugin {
 
   }
 
+  /**
+   * Factory style method for instantiating SamplePlugin from a resolved init method.
+   *
+   * @param init - a handle to the static init method, of type
+   *             <code>(SamplePluginConfig)Object</code>.
+   * @param config - the sample config.
+   * @param props - the plugin properties.
+   * @return - the result of the init method.
+   */
+  public static SamplePlugin of(MethodHandle init, SamplePluginConfig config,
+                                PluginProperties props) {
+    SamplePlugin sp;
+    try {
+      sp = (SamplePlugin) (Object) init.invokeExact(config);
+    } catch (Throwable t) {
+      throw new RuntimeException(FactoryHandles.wrap(FactoryHandles.target(t)));
+    }
+    sp.onLoad();
+    sp.props = props;
+    sp.applyProps(props);
+    sp.setConfig(config);
+    return sp;
+  }
+
   /**
    * Constructs a Sample Plugin.
    *
@@ -105,12 +131,13 @@ public abstract class SamplePlugin extends Sample implements Plugin {
         itemConfig.setArType(config.getArType());
       }
 
-      this.items.put(itemConfig.getName(), new ArrayList<>());
+      this.items.put(itemConfig.getName(), new ArrayList<>(itemConfig.getCount()));
       for (int i = 0; i < itemConfig.getCount(); i++) {
         this.items.get(itemConfig.getName()).add(getItemFromConfig(itemConfig));
       }
 
     }
+    checkNameClash();
     this.timestamp = System.currentTimeMillis();
     this.setConfig(config);
     System.out.println("DEBUG this.config " + this.getConfig());
@@ -132,7 +159,7 @@ public abstract class SamplePlugin extends Sample implements Plugin {
 
   @Override
   public Sample update() {
-    this.timestamp = System.currentTimeMillis();
+    this.timestamp = getClock().millis();
     return this;
   }
 
@@ -4,20 +4,27 @@ import io.bonitoo.qa.VirtualDeviceRuntimeException;
 import io.bonitoo.qa.plugin.Plugin;
 import io.bonitoo.qa.plugin.PluginConfigException;
 import io.bonitoo.qa.plugin.PluginProperties;
+import io.bonitoo.qa.util.FactoryHandles;
+import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.net.URLClassLoader;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * A factory for generating and managing Sample Plugins.
+ *
+ * <p>The static <code>create</code> method and the constructor of each plugin class are
+ * resolved once to method handles, so that generating instances for many devices costs
+ * no reflection per instance.</p>
  */
 public class SamplePluginMill {
 
@@ -25,11 +32,33 @@ public class SamplePluginMill {
 
   @AllArgsConstructor
   static class PluginPack {
-    Class<? extends Plugin> pluginClass;
-    PluginProperties pluginProps;
+    final Class<? extends Plugin> pluginClass;
+    final PluginProperties pluginProps;
+    volatile MethodHandle create;
+    volatile MethodHandle constructor;
+
+    PluginPack(Class<? extends Plugin> pluginClass, PluginProperties pluginProps) {
+      this(pluginClass, pluginProps, null, null);
+    }
+
+    MethodHandle create() throws NoSuchMethodException, IllegalAccessException {
+      if (create == null) {
+        create = FactoryHandles.factory(getCreateMethod(pluginClass))
+          .asType(MethodType.methodType(Object.class, SamplePluginConfig.class));
+      }
+      return create;
+    }
+
+    MethodHandle constructor() throws NoSuchMethodException, IllegalAccessException {
+      if (constructor == null) {
+        constructor = FactoryHandles.constructor(pluginClass,
+          PluginProperties.class, SamplePluginConfig.class, Object[].class);
+      }
+      return constructor;
+    }
   }
 
-  static Map<String, PluginPack> pluginPackMap = new HashMap<>();
+  static Map<String, PluginPack> pluginPackMap = new ConcurrentHashMap<>();
 
   /**
    * Returns the plugin class from the registry matching the key.
@@ -116,14 +145,17 @@ public class SamplePluginMill {
 
     SamplePluginMill.PluginPack pack = pluginPackMap.get(pluginName);
 
-    SamplePlugin plugin = (SamplePlugin) pack.pluginClass.getDeclaredConstructor(
-        PluginProperties.class,
-        SamplePluginConfig.class,
-        Object[].class).newInstance(
+    final MethodHandle constructor = pack.constructor();
+    SamplePlugin plugin;
+    try {
+      plugin = (SamplePlugin) (Object) constructor.invokeExact(
         pack.pluginProps,
         spConfig,
         args
-    );
+      );
+    } catch (Throwable t) {
+      throw FactoryHandles.wrap(FactoryHandles.target(t));
+    }
 
     plugin.onLoad();
 
@@ -167,16 +199,14 @@ public class SamplePluginMill {
         + pluginName);
     }
 
-    @SuppressWarnings("unchecked")
-    Class<SamplePlugin> clazz = (Class<SamplePlugin>) getPluginClass(pluginName);
+    SamplePluginMill.PluginPack pack = pluginPackMap.get(pluginName);
 
     try {
-      Method m = getCreateMethod(clazz);
-      return SamplePlugin.of(m, spConfig, getPluginProps(pluginName));
+      return SamplePlugin.of(pack.create(), spConfig, pack.pluginProps);
     } catch (NoSuchMethodException e) {
       throw new PluginConfigException(String.format("Cannot instantiate pluginClass %s. "
         + " It Must have a static \"create\" method with parameter: %s ",
-        clazz.getName(), SamplePluginConfig.class.getName()), e);
+        pack.pluginClass.getName(), SamplePluginConfig.class.getName()), e);
     }
   }
 
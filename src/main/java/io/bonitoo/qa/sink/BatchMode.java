@@ -0,0 +1,17 @@
+package io.bonitoo.qa.sink;
+
+/**
+ * Ways in which a BatchingSink publishes a batch of samples.
+ *
+ * <ul>
+ *   <li>JSON_ARRAY - samples for the same topic are published as one message
+ *   holding a JSON array.</li>
+ *   <li>NDJSON - samples for the same topic are published as one message holding
+ *   one JSON object per line.</li>
+ *   <li>PIPELINE - each sample is still published as its own message, but acks
+ *   are only awaited once the batch is full.</li>
+ * </ul>
+ */
+public enum BatchMode {
+  JSON_ARRAY, NDJSON, PIPELINE
+}
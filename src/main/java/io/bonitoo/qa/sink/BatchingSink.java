@@ -0,0 +1,278 @@
+package io.bonitoo.qa.sink;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishResult;
+import io.bonitoo.qa.VirtualDeviceRuntimeException;
+import io.bonitoo.qa.conf.device.BatchConfig;
+import io.bonitoo.qa.data.Sample;
+import io.bonitoo.qa.data.serializer.PayloadBuffer;
+import io.bonitoo.qa.metrics.PublishMetrics;
+import io.bonitoo.qa.mqtt.client.MqttClient;
+import io.bonitoo.qa.mqtt.client.MqttClientAsync;
+import io.bonitoo.qa.mqtt.client.MqttClientBlocking;
+import io.bonitoo.qa.util.HotPathLog;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An MqttSink which publishes the samples of a device in batches.
+ *
+ * <p>In JSON_ARRAY and NDJSON mode the samples written for the same topic are coalesced
+ * into one message, which is published once the batch is closed.  In PIPELINE mode every
+ * sample is sent as its own message straight away, but acknowledgements are only
+ * awaited once the batch is closed, so that messages follow each other over the
+ * connection without waiting on the broker in between.  Batches are closed according
+ * to the BatchConfig of the device and at the latest on disconnect.</p>
+ *
+ * <p>Linger is measured in sample time, so batching behaves the same when backfilling
+ * with a SimulatedClock.</p>
+ *
+ * <p>N.B. like the device that owns it, not thread safe.</p>
+ */
+@Getter
+public class BatchingSink extends MqttSink {
+
+  static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  static HotPathLog hotLog = HotPathLog.of(logger);
+
+  final BatchConfig batch;
+
+  // coalesced payloads by topic, in the order in which the topics were first written
+  final Map<String, TopicBatch> topicBatches = new LinkedHashMap<>();
+
+  // payloads of a pipelined batch must not be reused before they are acknowledged
+  final List<PayloadBuffer> pipelineBuffers = new ArrayList<>();
+  final List<CompletableFuture<Mqtt5PublishResult>> pipelined = new ArrayList<>();
+  int pipelinedBytes;
+  long pipelineStart;
+
+  // latest sample timestamp seen, used as "now" for linger
+  long lastTimestamp;
+
+  /**
+   * Creates a batching sink for a client.
+   *
+   * @param client - the client of the device.
+   * @param batch - batch settings of the device.
+   */
+  public BatchingSink(MqttClient client, BatchConfig batch) {
+    this(client, batch, null, false);
+  }
+
+  /**
+   * Creates a batching sink publishing with the QoS and retain flag of a device.
+   *
+   * @param client - the client of the device.
+   * @param batch - batch settings of the device.
+   * @param qos - QoS of the device, or null for the default of the client.
+   * @param retain - retain flag of the device.
+   */
+  public BatchingSink(MqttClient client, BatchConfig batch, MqttQos qos, boolean retain) {
+    this(client, batch, qos, retain, null);
+  }
+
+  /**
+   * Creates a batching sink publishing with the QoS and retain flag of a device and
+   * counting its messages in the MetricsRegistry under the ID of the device.
+   *
+   * @param client - the client of the device.
+   * @param batch - batch settings of the device.
+   * @param qos - QoS of the device, or null for the default of the client.
+   * @param retain - retain flag of the device.
+   * @param deviceId - ID of the device.
+   */
+  public BatchingSink(MqttClient client, BatchConfig batch, MqttQos qos, boolean retain,
+                      String deviceId) {
+    super(client, qos, retain, deviceId);
+    if (batch.getMode() == BatchMode.PIPELINE
+        && !(client instanceof MqttClientBlocking || client instanceof MqttClientAsync)) {
+      throw new VirtualDeviceRuntimeException(
+        "Pipelined batches need an MqttClientBlocking or MqttClientAsync, got "
+          + (client == null ? null : client.getClass().getName()));
+    }
+    this.batch = batch;
+  }
+
+  @Override
+  public void write(Sample sample, PayloadBuffer buffer)
+      throws IOException, InterruptedException {
+    lastTimestamp = Math.max(lastTimestamp, sample.getTimestamp());
+    if (batch.getMode() == BatchMode.PIPELINE) {
+      pipeline(sample);
+    } else {
+      coalesce(sample, buffer);
+    }
+  }
+
+  @Override
+  public void endTick() throws InterruptedException {
+    if (batch.getMode() == BatchMode.PIPELINE) {
+      if (!pipelined.isEmpty() && lingered(pipelineStart)) {
+        awaitPipelined();
+      }
+      return;
+    }
+    for (TopicBatch topicBatch : topicBatches.values()) {
+      if (topicBatch.samples > 0 && lingered(topicBatch.start)) {
+        publish(topicBatch);
+      }
+    }
+  }
+
+  /**
+   * Closes all open batches and disconnects the client.
+   *
+   * @throws InterruptedException - when interrupted while publishing.
+   */
+  @Override
+  public void disconnect() throws InterruptedException {
+    flush();
+    super.disconnect();
+  }
+
+  /**
+   * Closes all open batches.
+   *
+   * @throws InterruptedException - when interrupted while publishing.
+   */
+  public void flush() throws InterruptedException {
+    awaitPipelined();
+    for (TopicBatch topicBatch : topicBatches.values()) {
+      if (topicBatch.samples > 0) {
+        publish(topicBatch);
+      }
+    }
+  }
+
+  private boolean lingered(long start) {
+    return lastTimestamp - start >= batch.getMaxLingerMillis();
+  }
+
+  private void coalesce(Sample sample, PayloadBuffer buffer)
+      throws IOException, InterruptedException {
+    sample.toPayload(buffer);
+    TopicBatch topicBatch = topicBatches.computeIfAbsent(sample.getTopic(), TopicBatch::new);
+
+    // one byte for the separator and one for a closing bracket
+    if (topicBatch.samples > 0
+        && topicBatch.payload.size() + buffer.size() + 2 > batch.getMaxBytes()) {
+      publish(topicBatch);
+    }
+
+    if (topicBatch.samples == 0) {
+      topicBatch.start = sample.getTimestamp();
+      topicBatch.qos = qosOf(sample);
+      topicBatch.retain = retainOf(sample);
+      topicBatch.metrics = metricsOf(sample);
+      if (batch.getMode() == BatchMode.JSON_ARRAY) {
+        topicBatch.payload.write('[');
+      }
+    } else {
+      topicBatch.payload.write(batch.getMode() == BatchMode.JSON_ARRAY ? ',' : '\n');
+    }
+    buffer.writeTo(topicBatch.payload);
+    topicBatch.samples++;
+
+    if (topicBatch.samples >= batch.getMaxSamples()
+        || topicBatch.payload.size() + 1 >= batch.getMaxBytes()) {
+      publish(topicBatch);
+    }
+  }
+
+  private void publish(TopicBatch topicBatch) throws InterruptedException {
+    if (batch.getMode() == BatchMode.JSON_ARRAY) {
+      topicBatch.payload.write(']');
+    }
+    hotLog.info(topicBatch.topic, "Publishing batch", "%d samples, %d bytes",
+        topicBatch.samples, topicBatch.payload.size());
+    if (hotLog.isDebugEnabled()) {
+      hotLog.debug(topicBatch.topic, "Batch", topicBatch.payload.asString());
+    }
+    publishMeasured(topicBatch.metrics, topicBatch.topic, topicBatch.payload.toByteBuffer(),
+        topicBatch.qos, topicBatch.retain);
+    topicBatch.payload.reset();
+    topicBatch.samples = 0;
+  }
+
+  private void pipeline(Sample sample) throws IOException, InterruptedException {
+    if (pipelined.isEmpty()) {
+      pipelineStart = sample.getTimestamp();
+    }
+    if (pipelineBuffers.size() == pipelined.size()) {
+      pipelineBuffers.add(new PayloadBuffer());
+    }
+    PayloadBuffer payloadBuffer = pipelineBuffers.get(pipelined.size());
+    ByteBuffer payload = sample.toPayload(payloadBuffer);
+    hotLog.payload(sample.getId(), payloadBuffer);
+    MqttQos sampleQos = qosOf(sample);
+    boolean sampleRetain = retainOf(sample);
+    PublishMetrics metrics = metricsOf(sample);
+    int size = payloadBuffer.size();
+    long begin = System.nanoTime();
+    CompletableFuture<Mqtt5PublishResult> future = client instanceof MqttClientBlocking
+        ? ((MqttClientBlocking) client).publishAsync(sample.getTopic(), payload,
+          sampleQos, sampleRetain)
+        : ((MqttClientAsync) client).publishAsync(sample.getTopic(), payload,
+          sampleQos, sampleRetain);
+    future.whenComplete((result, throwable) -> {
+      if (throwable != null || (result != null && result.getError().isPresent())) {
+        metrics.failed();
+      } else {
+        metrics.published(size, System.nanoTime() - begin);
+      }
+    });
+    pipelined.add(future);
+    pipelinedBytes += payloadBuffer.size();
+
+    if (pipelined.size() >= batch.getMaxSamples() || pipelinedBytes >= batch.getMaxBytes()) {
+      awaitPipelined();
+    }
+  }
+
+  private void awaitPipelined() throws InterruptedException {
+    if (pipelined.isEmpty()) {
+      return;
+    }
+    try {
+      for (CompletableFuture<Mqtt5PublishResult> future : pipelined) {
+        Mqtt5PublishResult result = future.get();
+        if (result != null && result.getError().isPresent()) {
+          throw new VirtualDeviceRuntimeException("Pipelined publish failed",
+            result.getError().get());
+        }
+      }
+    } catch (ExecutionException e) {
+      throw new VirtualDeviceRuntimeException("Pipelined publish failed", e.getCause());
+    } finally {
+      pipelined.clear();
+      pipelinedBytes = 0;
+    }
+  }
+
+  static class TopicBatch {
+    final String topic;
+    final PayloadBuffer payload = new PayloadBuffer();
+    int samples;
+    long start;
+    // taken from the first sample of the batch
+    MqttQos qos;
+    boolean retain;
+    PublishMetrics metrics;
+
+    TopicBatch(String topic) {
+      this.topic = topic;
+    }
+  }
+
+}
@@ -0,0 +1,146 @@
+package io.bonitoo.qa.sink;
+
+import io.bonitoo.qa.VirtualDeviceRuntimeException;
+import io.bonitoo.qa.data.Sample;
+import io.bonitoo.qa.data.serializer.LineProtocolWriter;
+import io.bonitoo.qa.data.serializer.PayloadBuffer;
+import io.bonitoo.qa.util.LogHelper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes samples to a file instead of publishing them to a broker, one sample per line.
+ *
+ * <p>One sink can be shared by all devices of a runner.  Each device serializes its
+ * samples into its own buffer, so only appending the finished line is synchronized.
+ * Lines are gathered in a direct buffer and handed to the file channel in large
+ * blocks.  Lines from different devices are never interleaved, but their order
+ * follows the order in which the devices ticked.</p>
+ *
+ * <p>The sink outlives the devices, so connecting and disconnecting a device does
+ * nothing.  The owner must close the sink once all devices have stopped, which flushes
+ * any remaining lines to the file.</p>
+ */
+@Getter
+public class FileSink implements SampleSink, Closeable {
+
+  static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+  static final byte NEWLINE = '\n';
+
+  final Path path;
+
+  final SinkFormat format;
+
+  final FileChannel channel;
+
+  final ByteBuffer buffer;
+
+  long lines = 0;
+
+  long bytes = 0;
+
+  public FileSink(Path path, SinkFormat format) throws IOException {
+    this(path, format, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Opens a file sink.  An existing file is truncated.
+   *
+   * @param path - the file to which samples are written.
+   * @param format - format of the lines.
+   * @param bufferSize - size in bytes of the buffer gathering lines between writes to the file.
+   * @throws IOException - when the file cannot be opened.
+   */
+  public FileSink(Path path, SinkFormat format, int bufferSize) throws IOException {
+    this.path = path;
+    this.format = format;
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+      StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    this.buffer = ByteBuffer.allocateDirect(bufferSize);
+  }
+
+  @Override
+  public void connect() {
+    if (!channel.isOpen()) {
+      throw new VirtualDeviceRuntimeException("File sink " + path + " is already closed");
+    }
+  }
+
+  @Override
+  public void write(Sample sample, PayloadBuffer payloadBuffer) throws IOException {
+    payloadBuffer.reset();
+    if (format == SinkFormat.LINE_PROTOCOL) {
+      if (!LineProtocolWriter.write(sample, payloadBuffer)) {
+        logger.debug(LogHelper.buildMsg(sample.getId(), "Skipped", "no item values"));
+        return;
+      }
+    } else {
+      sample.serializeInto(payloadBuffer);
+    }
+    payloadBuffer.write(NEWLINE);
+    append(payloadBuffer.toByteBuffer());
+  }
+
+  @Override
+  public void disconnect() {
+    // the sink is shared - it gets closed by its owner
+  }
+
+  synchronized void append(ByteBuffer line) throws IOException {
+    bytes += line.remaining();
+    lines++;
+    if (line.remaining() > buffer.remaining()) {
+      drain();
+    }
+    if (line.remaining() > buffer.capacity()) {
+      while (line.hasRemaining()) {
+        channel.write(line);
+      }
+    } else {
+      buffer.put(line);
+    }
+  }
+
+  private void drain() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Writes all gathered lines to the file.
+   *
+   * @throws IOException - when the lines cannot be written.
+   */
+  public synchronized void flush() throws IOException {
+    drain();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (!channel.isOpen()) {
+      return;
+    }
+    try {
+      drain();
+    } finally {
+      channel.close();
+    }
+    logger.info(LogHelper.buildMsg(path.toString(), "File sink closed",
+        String.format("%d lines, %d bytes", lines, bytes)));
+  }
+
+}
@@ -0,0 +1,50 @@
+package io.bonitoo.qa.sink;
+
+import io.bonitoo.qa.conf.device.DeviceConfig;
+import io.bonitoo.qa.data.Sample;
+import io.bonitoo.qa.metrics.MetricsRegistry;
+import io.bonitoo.qa.metrics.PublishMetrics;
+import io.bonitoo.qa.mqtt.client.MqttClient;
+
+/**
+ * Publishes the samples of many devices of a lazy fleet through one client of a pool.
+ *
+ * <p>The connections of the pool outlive the devices, so connecting and disconnecting a
+ * device does nothing.  Publish metrics are kept per device config and sample config
+ * rather than per device, so that their memory does not grow with the fleet.</p>
+ */
+public class FleetSink extends MqttSink {
+
+  // whether sample IDs carry the number of their device
+  final boolean numbered;
+
+  /**
+   * Creates a sink for devices of a config.
+   *
+   * @param client - a client sharing a connection of the pool.
+   * @param template - the config of the devices.
+   */
+  public FleetSink(MqttClient client, DeviceConfig template) {
+    super(client, template.getQos(), Boolean.TRUE.equals(template.getRetain()),
+        template.getId());
+    this.numbered = template.getCount() > 1;
+  }
+
+  @Override
+  public void connect() {
+    // the pool is connected by the runner
+  }
+
+  @Override
+  public void disconnect() {
+    // the pool is disconnected by the runner
+  }
+
+  @Override
+  protected PublishMetrics metricsOf(Sample sample) {
+    String id = sample.getId();
+    int suffix = numbered ? id.lastIndexOf('-') : -1;
+    return MetricsRegistry.of(deviceId, suffix < 0 ? id : id.substring(0, suffix));
+  }
+
+}
@@ -0,0 +1,136 @@
+package io.bonitoo.qa.sink;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import io.bonitoo.qa.data.Sample;
+import io.bonitoo.qa.data.serializer.PayloadBuffer;
+import io.bonitoo.qa.metrics.MetricsRegistry;
+import io.bonitoo.qa.metrics.PublishMetrics;
+import io.bonitoo.qa.mqtt.client.MqttClient;
+import io.bonitoo.qa.util.HotPathLog;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes samples as JSON payloads to the topics of the samples through an MQTT client.
+ */
+@Getter
+public class MqttSink implements SampleSink {
+
+  static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  static HotPathLog hotLog = HotPathLog.of(logger);
+
+  final MqttClient client;
+
+  // defaults of the device, unless set by the config of a sample
+  final MqttQos qos;
+  final boolean retain;
+
+  // key of the publish metrics of the device
+  final String deviceId;
+
+  public MqttSink(MqttClient client) {
+    this(client, null, false);
+  }
+
+  /**
+   * Creates a sink publishing with the QoS and retain flag of a device.
+   *
+   * @param client - the client of the device.
+   * @param qos - QoS of the device, or null for the default of the client.
+   * @param retain - retain flag of the device.
+   */
+  public MqttSink(MqttClient client, MqttQos qos, boolean retain) {
+    this(client, qos, retain, null);
+  }
+
+  /**
+   * Creates a sink publishing with the QoS and retain flag of a device and counting its
+   * messages in the MetricsRegistry under the ID of the device.
+   *
+   * @param client - the client of the device.
+   * @param qos - QoS of the device, or null for the default of the client.
+   * @param retain - retain flag of the device.
+   * @param deviceId - ID of the device.
+   */
+  public MqttSink(MqttClient client, MqttQos qos, boolean retain, String deviceId) {
+    this.client = client;
+    this.qos = qos;
+    this.retain = retain;
+    this.deviceId = deviceId;
+  }
+
+  @Override
+  public void connect() throws InterruptedException {
+    client.connect();
+  }
+
+  @Override
+  public void write(Sample sample, PayloadBuffer buffer)
+      throws IOException, InterruptedException {
+    ByteBuffer payload = sample.toPayload(buffer);
+    hotLog.payload(sample.getId(), buffer);
+    publishMeasured(metricsOf(sample), sample.getTopic(), payload,
+        qosOf(sample), retainOf(sample));
+  }
+
+  /**
+   * Publishes a payload and counts it in the metrics of a sample.
+   *
+   * @param metrics - the metrics of the sample.
+   * @param topic - the MQTT topic.
+   * @param payload - the message payload.
+   * @param qos - QoS of the message, or null for the default of the client.
+   * @param retain - whether the broker should retain the message.
+   * @throws InterruptedException - when interrupted while publishing.
+   */
+  protected void publishMeasured(PublishMetrics metrics, String topic, ByteBuffer payload,
+                                 MqttQos qos, boolean retain) throws InterruptedException {
+    int size = payload.remaining();
+    long begin = System.nanoTime();
+    try {
+      publish(topic, payload, qos, retain);
+    } catch (RuntimeException e) {
+      metrics.failed();
+      throw e;
+    }
+    if (qos == MqttQos.AT_MOST_ONCE) {
+      // handed off without waiting, nothing to measure
+      metrics.sent(size);
+    } else {
+      metrics.published(size, System.nanoTime() - begin);
+    }
+  }
+
+  protected void publish(String topic, ByteBuffer payload, MqttQos qos, boolean retain)
+      throws InterruptedException {
+    if (qos == null && !retain) {
+      // nothing configured, so leave it all to the client
+      client.publish(topic, payload);
+    } else {
+      client.publish(topic, payload, qos, retain);
+    }
+  }
+
+  protected PublishMetrics metricsOf(Sample sample) {
+    return MetricsRegistry.of(deviceId, sample.getId());
+  }
+
+  protected MqttQos qosOf(Sample sample) {
+    return sample.getConfig().qosOr(qos);
+  }
+
+  protected boolean retainOf(Sample sample) {
+    return sample.getConfig().retainOr(retain);
+  }
+
+  @Override
+  public void disconnect() throws InterruptedException {
+    client.disconnect();
+  }
+
+}
@@ -0,0 +1,52 @@
+package io.bonitoo.qa.sink;
+
+import io.bonitoo.qa.data.Sample;
+import io.bonitoo.qa.data.serializer.PayloadBuffer;
+import java.io.IOException;
+
+/**
+ * Destination of the samples published by a device.
+ *
+ * <p>A device connects its sink once before its first tick, writes every updated sample
+ * to it and disconnects it once it has stopped.  The default sink is an
+ * <code>MqttSink</code> wrapping the MQTT client of the device.  A <code>FileSink</code>
+ * bypasses the broker and can be shared by all devices of a runner.</p>
+ */
+public interface SampleSink {
+
+  /**
+   * Prepares the sink for a device, e.g. by connecting to the broker.
+   *
+   * @throws InterruptedException - when interrupted while connecting.
+   */
+  void connect() throws InterruptedException;
+
+  /**
+   * Serializes a sample and hands it on to the destination.
+   *
+   * @param sample - the updated sample.
+   * @param buffer - reusable buffer of the calling device, into which the sample
+   *               gets serialized.
+   * @throws IOException - when the sample cannot be serialized or written.
+   * @throws InterruptedException - when interrupted while publishing.
+   */
+  void write(Sample sample, PayloadBuffer buffer) throws IOException, InterruptedException;
+
+  /**
+   * Called once a device has written all of its samples for a tick, e.g. so that
+   * a batching sink can close batches that have lingered long enough.
+   *
+   * @throws InterruptedException - when interrupted while publishing.
+   */
+  default void endTick() throws InterruptedException {
+    // nothing is held back by default
+  }
+
+  /**
+   * Releases the sink for a device, e.g. by disconnecting from the broker.
+   *
+   * @throws InterruptedException - when interrupted while disconnecting.
+   */
+  void disconnect() throws InterruptedException;
+
+}
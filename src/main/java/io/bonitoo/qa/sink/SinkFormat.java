@@ -0,0 +1,8 @@
+package io.bonitoo.qa.sink;
+
+/**
+ * Formats in which a FileSink writes samples, one sample per line.
+ */
+public enum SinkFormat {
+  NDJSON, LINE_PROTOCOL
+}
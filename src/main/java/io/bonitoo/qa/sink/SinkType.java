@@ -0,0 +1,8 @@
+package io.bonitoo.qa.sink;
+
+/**
+ * Destinations to which a runner can send samples.
+ */
+public enum SinkType {
+  MQTT, FILE
+}
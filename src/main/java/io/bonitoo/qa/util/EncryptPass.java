@@ -16,6 +16,9 @@ public class EncryptPass {
 
   private static final String ENCODE_HEADER = "ENC";
 
+  private static final Pattern BASE64_PATTERN = Pattern
+      .compile("^([A-Za-z0-9+/]{4})*([A-Za-z0-9+/]{3}=|[A-Za-z0-9+/]{2}==)?$");
+
   /**
    * Helper util for generating passwords.
    *
@@ -99,15 +102,12 @@ public class EncryptPass {
    */
   public static boolean passIsEncoded(char[] trustHash) {
 
-    final Pattern base64Pattern = Pattern
-        .compile("^([A-Za-z0-9+/]{4})*([A-Za-z0-9+/]{3}=|[A-Za-z0-9+/]{2}==)?$");
-
     String trustHashString = new String(trustHash);
     if (!trustHashString.startsWith(ENCODE_HEADER)) {
       return false;
     }
 
-    return base64Pattern.matcher(trustHashString.substring(ENCODE_HEADER.length())).find();
+    return BASE64_PATTERN.matcher(trustHashString.substring(ENCODE_HEADER.length())).find();
 
   }
 
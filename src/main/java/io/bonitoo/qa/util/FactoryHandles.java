@@ -0,0 +1,89 @@
+package io.bonitoo.qa.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Resolves constructors and factory methods to method handles once, so that
+ * instances can be created repeatedly without reflection.
+ *
+ * <p>Handles are adapted to return <code>Object</code>, so callers invoke them with
+ * <code>(Object) handle.invokeExact(...)</code> using the declared parameter types.</p>
+ */
+public class FactoryHandles {
+
+  static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+  /**
+   * Resolves a constructor, including one that is not public.
+   *
+   * @param clazz - the class to be instantiated.
+   * @param paramTypes - parameter types of the constructor.
+   * @return - a handle to the constructor returning <code>Object</code>.
+   * @throws NoSuchMethodException - when the class has no such constructor.
+   * @throws IllegalAccessException - when the constructor cannot be made accessible.
+   */
+  public static MethodHandle constructor(Class<?> clazz, Class<?>... paramTypes)
+      throws NoSuchMethodException, IllegalAccessException {
+    MethodHandle handle;
+    try {
+      handle = lookup.findConstructor(clazz, MethodType.methodType(void.class, paramTypes));
+    } catch (IllegalAccessException e) {
+      Constructor<?> constructor = clazz.getDeclaredConstructor(paramTypes);
+      constructor.setAccessible(true);
+      handle = lookup.unreflectConstructor(constructor);
+    }
+    return handle.asType(handle.type().changeReturnType(Object.class));
+  }
+
+  /**
+   * Resolves a static factory method.
+   *
+   * @param method - the static method.
+   * @return - a handle to the method returning <code>Object</code>.
+   * @throws IllegalAccessException - when the method cannot be made accessible.
+   */
+  public static MethodHandle factory(Method method) throws IllegalAccessException {
+    method.setAccessible(true);
+    MethodHandle handle = lookup.unreflect(method);
+    return handle.asType(handle.type().changeReturnType(Object.class));
+  }
+
+  /**
+   * Passes on what a handle threw, unless it is to be wrapped as reflection would.
+   *
+   * <p>Errors such as <code>OutOfMemoryError</code> are rethrown as they are, as is a
+   * <code>WrongMethodTypeException</code> or <code>ClassCastException</code>, which point
+   * at a handle invoked with the wrong types rather than at the constructor or method
+   * behind it.</p>
+   *
+   * @param thrown - thrown by invoking a handle.
+   * @return - the exception thrown by the constructor or method behind the handle.
+   */
+  public static Exception target(Throwable thrown) {
+    if (thrown instanceof Error) {
+      throw (Error) thrown;
+    }
+    if (thrown instanceof WrongMethodTypeException || thrown instanceof ClassCastException) {
+      throw (RuntimeException) thrown;
+    }
+    return thrown instanceof Exception ? (Exception) thrown : new Exception(thrown);
+  }
+
+  /**
+   * Wraps an exception thrown by the constructor or method behind a handle the way
+   * reflection would.
+   *
+   * @param thrown - thrown by the constructor or method, see <code>target()</code>.
+   * @return - an exception for the caller to throw.
+   */
+  public static InvocationTargetException wrap(Exception thrown) {
+    return new InvocationTargetException(thrown);
+  }
+
+}
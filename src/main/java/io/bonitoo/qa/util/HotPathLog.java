@@ -0,0 +1,300 @@
+package io.bonitoo.qa.util;
+
+import io.bonitoo.qa.data.serializer.PayloadBuffer;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+/**
+ * Logging for the publish hot path, i.e. code run for every sample or tick of a device.
+ *
+ * <p>Every method checks the level of the wrapped logger first, so a disabled message
+ * costs neither formatting nor allocation.  Messages are passed as constants, suppliers
+ * or a format with primitive arguments, and only turned into strings once written.</p>
+ *
+ * <p>Enabled messages are handed to a bounded ring buffer and written by a single
+ * background thread, so devices do not wait on the console.  When the buffer is full
+ * messages are dropped rather than slowing devices down.  The number of dropped messages
+ * is reported on <code>flush()</code>.  Since messages are written later, suppliers must
+ * not depend on state that changes after the call.</p>
+ *
+ * <p>Payloads are logged for only 1 in <code>payloadEvery</code> samples, by default 1 in
+ * <code>DEFAULT_PAYLOAD_EVERY</code>, since at high message rates logging every payload
+ * costs more than publishing it.  Samples are counted per thread, so devices publishing
+ * on different threads do not contend on a shared counter.</p>
+ */
+public class HotPathLog {
+
+  static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  public static final int DEFAULT_CAPACITY = 8192;
+
+  static final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(DEFAULT_CAPACITY);
+
+  static final AtomicLong dropped = new AtomicLong();
+
+  static volatile boolean async = true;
+
+  public static final int DEFAULT_PAYLOAD_EVERY = 1000;
+
+  static volatile int payloadEvery = DEFAULT_PAYLOAD_EVERY;
+
+  static Thread writer;
+
+  final Logger target;
+
+  // payloads passed by the calling thread, in a holder so counting does not box
+  final ThreadLocal<long[]> payloads = ThreadLocal.withInitial(() -> new long[1]);
+
+  HotPathLog(Logger target) {
+    this.target = target;
+  }
+
+  public static HotPathLog of(Logger target) {
+    return new HotPathLog(target);
+  }
+
+  /**
+   * Sets how many payloads are published per payload logged.
+   *
+   * @param every - 1 to log every payload, N to log 1 in N.
+   */
+  public static void setPayloadEvery(int every) {
+    if (every < 1) {
+      throw new IllegalArgumentException("Payload sampling must be >= 1, got " + every);
+    }
+    payloadEvery = every;
+  }
+
+  public static int getPayloadEvery() {
+    return payloadEvery;
+  }
+
+  /**
+   * Switches between writing messages on a background thread and writing them on the
+   * calling thread, e.g. for tests.
+   *
+   * @param enabled - true to write messages on a background thread.
+   */
+  public static void setAsync(boolean enabled) {
+    if (!enabled) {
+      flush();
+    }
+    async = enabled;
+  }
+
+  public boolean isDebugEnabled() {
+    return target.isDebugEnabled();
+  }
+
+  public boolean isInfoEnabled() {
+    return target.isInfoEnabled();
+  }
+
+  /**
+   * Logs a debug message.
+   *
+   * @param id - id of the device, sample or client.
+   * @param event - what happened.
+   * @param info - details, turned into a string once written.
+   */
+  public void debug(String id, String event, Object info) {
+    if (target.isDebugEnabled()) {
+      log(new Entry(target, Level.DEBUG, id, event, info));
+    }
+  }
+
+  /**
+   * Logs a debug message with details only computed once written.
+   *
+   * @param id - id of the device, sample or client.
+   * @param event - what happened.
+   * @param info - supplies the details.
+   */
+  public void debug(String id, String event, Supplier<?> info) {
+    if (target.isDebugEnabled()) {
+      log(new Entry(target, Level.DEBUG, id, event, info));
+    }
+  }
+
+  /**
+   * Logs a debug message formatted once written.
+   *
+   * @param id - id of the device, sample or client.
+   * @param event - what happened.
+   * @param format - a format with one %d placeholder.
+   * @param arg - the value for the placeholder.
+   */
+  public void debug(String id, String event, String format, long arg) {
+    if (target.isDebugEnabled()) {
+      log(new Entry(target, Level.DEBUG, id, event, format, arg, 0));
+    }
+  }
+
+  /**
+   * Logs an info message.
+   *
+   * @param id - id of the device, sample or client.
+   * @param event - what happened.
+   * @param info - details, turned into a string once written.
+   */
+  public void info(String id, String event, Object info) {
+    if (target.isInfoEnabled()) {
+      log(new Entry(target, Level.INFO, id, event, info));
+    }
+  }
+
+  /**
+   * Logs an info message with details only computed once written.
+   *
+   * @param id - id of the device, sample or client.
+   * @param event - what happened.
+   * @param info - supplies the details.
+   */
+  public void info(String id, String event, Supplier<?> info) {
+    if (target.isInfoEnabled()) {
+      log(new Entry(target, Level.INFO, id, event, info));
+    }
+  }
+
+  /**
+   * Logs an info message formatted once written.
+   *
+   * @param id - id of the device, sample or client.
+   * @param event - what happened.
+   * @param format - a format with two %d placeholders.
+   * @param arg1 - the value for the first placeholder.
+   * @param arg2 - the value for the second placeholder.
+   */
+  public void info(String id, String event, String format, long arg1, long arg2) {
+    if (target.isInfoEnabled()) {
+      log(new Entry(target, Level.INFO, id, event, format, arg1, arg2));
+    }
+  }
+
+  /**
+   * Logs a sampled payload at info level, 1 in <code>payloadEvery</code> calls of the
+   * calling thread.
+   *
+   * @param id - id of the sample.
+   * @param buffer - buffer holding the payload.  Only read when the payload is logged.
+   */
+  public void payload(String id, PayloadBuffer buffer) {
+    if (!target.isInfoEnabled()) {
+      return;
+    }
+    int every = payloadEvery;
+    if (every > 1 && ++payloads.get()[0] % every != 0) {
+      return;
+    }
+    // the buffer is reused by the device, so it is read now
+    log(new Entry(target, Level.INFO, id, "Publishing", buffer.asString()));
+  }
+
+  private static void log(Entry entry) {
+    if (!async) {
+      entry.write();
+      return;
+    }
+    startWriter();
+    if (!queue.offer(entry)) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  private static synchronized void startWriter() {
+    if (writer != null) {
+      return;
+    }
+    writer = new Thread(() -> {
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          queue.take().write();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, "hot-path-log");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Writes all pending messages on the calling thread and reports dropped messages,
+   * e.g. before the runner exits.
+   */
+  public static void flush() {
+    List<Entry> pending = new ArrayList<>();
+    queue.drainTo(pending);
+    pending.forEach(Entry::write);
+    long lost = dropped.getAndSet(0);
+    if (lost > 0) {
+      logger.warn(LogHelper.buildMsg(Thread.currentThread().getName(), "Log messages dropped",
+          String.format("%d messages, buffer of %d full", lost, DEFAULT_CAPACITY)));
+    }
+  }
+
+  /**
+   * A message waiting to be written.
+   */
+  static class Entry {
+    final Logger target;
+    final Level level;
+    final String id;
+    final String event;
+    final Object info;
+    final String format;
+    final long arg1;
+    final long arg2;
+
+    Entry(Logger target, Level level, String id, String event, Object info) {
+      this.target = target;
+      this.level = level;
+      this.id = id;
+      this.event = event;
+      this.info = info;
+      this.format = null;
+      this.arg1 = 0;
+      this.arg2 = 0;
+    }
+
+    Entry(Logger target, Level level, String id, String event,
+          String format, long arg1, long arg2) {
+      this.target = target;
+      this.level = level;
+      this.id = id;
+      this.event = event;
+      this.info = null;
+      this.format = format;
+      this.arg1 = arg1;
+      this.arg2 = arg2;
+    }
+
+    String message() {
+      Object value = format != null ? String.format(format, arg1, arg2)
+          : info instanceof Supplier ? ((Supplier<?>) info).get() : info;
+      return LogHelper.buildMsg(id, event, String.valueOf(value));
+    }
+
+    void write() {
+      try {
+        if (level == Level.DEBUG) {
+          target.debug(message());
+        } else {
+          target.info(message());
+        }
+      } catch (RuntimeException e) {
+        // a failing supplier must not stop the writer
+        logger.warn(LogHelper.buildMsg(id, "Log message failed", e.toString()));
+      }
+    }
+  }
+
+}
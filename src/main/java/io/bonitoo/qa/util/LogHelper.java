@@ -5,7 +5,8 @@ package io.bonitoo.qa.util;
  */
 public class LogHelper {
 
+  // concatenated rather than formatted, since messages are built for every sample
   public static String buildMsg(String id, String event, String info) {
-    return String.format("%s: %s - %s", id, event, info);
+    return id + ": " + event + " - " + info;
   }
 }
@@ -0,0 +1,102 @@
+package io.bonitoo.qa.util;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Derives reproducible random number streams from the seed of the runner configuration.
+ *
+ * <p>When no seed is set every generator draws from <code>ThreadLocalRandom</code> and
+ * random IDs are ordinary random UUIDs.  When a seed is set, each item receives its own
+ * <code>SplittableRandom</code> keyed by its device, device number, sample and item index,
+ * so a rerun with the same seed and configuration replays the same values regardless
+ * of thread scheduling.  Random IDs are then drawn, in configuration order, from a
+ * stream of their own.</p>
+ */
+public class RandomStreams {
+
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  /**
+   * The seed in use, replaced as a whole when the seed is set, so that streams are derived
+   * without taking a lock.
+   */
+  private static final class Seeding {
+    final Long seed;
+    final long mixed;
+    final SplittableRandom idRandom;
+
+    Seeding(Long seed) {
+      this.seed = seed;
+      this.mixed = seed == null ? 0 : mix(seed);
+      this.idRandom = seed == null ? null : new SplittableRandom(mix(seed ^ GOLDEN_GAMMA));
+    }
+  }
+
+  private static volatile Seeding seeding = new Seeding(null);
+
+  /**
+   * Sets the seed from which all streams are derived.
+   *
+   * <p>Setting the seed already in use leaves the ID stream where it is.</p>
+   *
+   * @param newSeed - the seed, or null for unseeded random values.
+   */
+  public static synchronized void setSeed(Long newSeed) {
+    if (newSeed != null && newSeed.equals(seeding.seed)) {
+      return;
+    }
+    seeding = new Seeding(newSeed);
+  }
+
+  public static Long getSeed() {
+    return seeding.seed;
+  }
+
+  public static boolean isSeeded() {
+    return seeding.seed != null;
+  }
+
+  /**
+   * Gets a new stream derived from the seed and a sequence of keys.
+   *
+   * @param keys - values identifying the consumer of the stream,
+   *             e.g. device number, sample index and item index.
+   * @return - a new stream, or null when no seed is set.
+   */
+  public static SplittableRandom stream(long... keys) {
+    Seeding current = seeding;
+    if (current.seed == null) {
+      return null;
+    }
+    long hash = current.mixed;
+    for (long key : keys) {
+      hash = mix(hash + GOLDEN_GAMMA + key);
+    }
+    return new SplittableRandom(hash);
+  }
+
+  /**
+   * Generates a version 4 UUID string.
+   *
+   * @return - a UUID drawn from the ID stream when seeded, otherwise a random UUID.
+   */
+  public static synchronized String randomUuid() {
+    // the ID stream itself is not thread safe, so it is drawn from under the lock
+    SplittableRandom idRandom = seeding.idRandom;
+    if (idRandom == null) {
+      return UUID.randomUUID().toString();
+    }
+    long msb = (idRandom.nextLong() & ~0xF000L) | 0x4000L;
+    long lsb = (idRandom.nextLong() & ~0xC000000000000000L) | 0x8000000000000000L;
+    return new UUID(msb, lsb).toString();
+  }
+
+  // splitmix64 finalizer
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+}
@@ -0,0 +1,65 @@
+package io.bonitoo.qa.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A clock whose time only moves when it is set or advanced.
+ *
+ * <p>Samples and data generators given a simulated clock stamp and generate their values
+ * at simulated time.  This lets the runner backfill long spans of device history as fast
+ * as the CPU and broker allow.</p>
+ */
+public class SimulatedClock extends Clock {
+
+  private final AtomicLong millis;
+
+  private final ZoneId zone;
+
+  public SimulatedClock(long startMillis) {
+    this(new AtomicLong(startMillis), ZoneOffset.UTC);
+  }
+
+  private SimulatedClock(AtomicLong millis, ZoneId zone) {
+    this.millis = millis;
+    this.zone = zone;
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  /**
+   * Gets a view of this clock in another zone.
+   *
+   * @param zone - the time-zone to use.
+   * @return - a clock sharing the simulated time of this clock.
+   */
+  @Override
+  public Clock withZone(ZoneId zone) {
+    return new SimulatedClock(millis, zone);
+  }
+
+  @Override
+  public long millis() {
+    return millis.get();
+  }
+
+  @Override
+  public Instant instant() {
+    return Instant.ofEpochMilli(millis.get());
+  }
+
+  public void setMillis(long newMillis) {
+    millis.set(newMillis);
+  }
+
+  public long advance(long deltaMillis) {
+    return millis.addAndGet(deltaMillis);
+  }
+
+}
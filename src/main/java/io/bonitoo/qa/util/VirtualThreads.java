@@ -0,0 +1,54 @@
+package io.bonitoo.qa.util;
+
+import io.bonitoo.qa.conf.VirDevConfigException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Gives access to Java virtual threads while the project is still compiled for Java 8.
+ *
+ * <p>The factory method <code>Executors.newVirtualThreadPerTaskExecutor()</code> is looked
+ * up once at runtime.  On a JVM older than Java 21 it is not found and virtual threads
+ * are reported as unavailable.</p>
+ */
+public class VirtualThreads {
+
+  private static final MethodHandle NEW_EXECUTOR = lookupExecutorFactory();
+
+  private static MethodHandle lookupExecutorFactory() {
+    try {
+      return MethodHandles.publicLookup().findStatic(Executors.class,
+        "newVirtualThreadPerTaskExecutor",
+        MethodType.methodType(ExecutorService.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  public static boolean isAvailable() {
+    return NEW_EXECUTOR != null;
+  }
+
+  /**
+   * Creates an executor that starts a new virtual thread for each submitted task.
+   *
+   * @return - a virtual thread per task executor.
+   * @throws VirDevConfigException - when the running JVM does not support virtual threads.
+   */
+  public static ExecutorService newExecutor() {
+    if (NEW_EXECUTOR == null) {
+      throw new VirDevConfigException(String.format(
+        "Virtual threads require Java 21 or later.  Running java version is %s",
+        System.getProperty("java.version")));
+    }
+    try {
+      return (ExecutorService) NEW_EXECUTOR.invoke();
+    } catch (Throwable e) {
+      throw new VirDevConfigException(e);
+    }
+  }
+
+}
@@ -0,0 +1,167 @@
+package io.bonitoo.qa;
+
+import io.bonitoo.qa.conf.Config;
+import io.bonitoo.qa.conf.Mode;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.conf.device.DeviceConfig;
+import io.bonitoo.qa.data.ItemType;
+import io.bonitoo.qa.data.generator.NumGenerator;
+import io.bonitoo.qa.device.Device;
+import io.bonitoo.qa.device.GenericDevice;
+import io.bonitoo.qa.mqtt.client.MqttClient;
+import io.bonitoo.qa.mqtt.client.MqttClientBlocking;
+import io.bonitoo.qa.util.VirtualThreads;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares memory use and throughput of the BLOCKING and VIRTUAL modes.
+ *
+ * <p>Run with <code>mvn test -P bench</code>.  The fleet size, run time and simulated
+ * broker latency can be set with the system properties <code>bench.devices</code>,
+ * <code>bench.ttl</code> and <code>bench.latency</code>.</p>
+ */
+@Tag("bench")
+public class DeviceRunnerBenchTest {
+
+    static final int DEVICES = Integer.getInteger("bench.devices", 5000);
+    static final long TTL = Long.getLong("bench.ttl", 10000L);
+    static final long LATENCY_MILLIS = Long.getLong("bench.latency", 5L);
+
+    static long origTTL;
+    static Mode origMode;
+
+    /**
+     * Stands in for a broker connection which takes a fixed time to acknowledge a publish.
+     */
+    static class LatencyClient extends MqttClientBlocking {
+
+        final AtomicLong published;
+
+        LatencyClient(AtomicLong published) {
+            super();
+            this.published = published;
+        }
+
+        @Override
+        public MqttClient connect() {
+            return this;
+        }
+
+        @Override
+        public MqttClientBlocking publish(String topic, ByteBuffer payload) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(LATENCY_MILLIS));
+            published.incrementAndGet();
+            return this;
+        }
+
+        @Override
+        public MqttClientBlocking disconnect() {
+            return this;
+        }
+    }
+
+    static class Result {
+        long published;
+        int peakThreads;
+        long peakHeapBytes;
+
+        @Override
+        public String toString() {
+            return String.format("published=%d, msgs/sec=%.1f, peakThreads=%d, peakHeapMB=%.1f",
+              published, published * 1000.0 / TTL, peakThreads, peakHeapBytes / (1024.0 * 1024.0));
+        }
+    }
+
+    @BeforeEach
+    public void setup() {
+        Config.reset();
+        origTTL = Config.ttl();
+        origMode = Config.getRunnerConfig().getMode();
+        Config.getRunnerConfig().setTtl(TTL);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Config.getRunnerConfig().setTtl(origTTL);
+        Config.getRunnerConfig().setMode(origMode);
+    }
+
+    private List<Device> genDevices(AtomicLong published) {
+        ItemConfig iConf = new ItemNumConfig("benchItem", "val", ItemType.Double, 0, 100, 1.0, NumGenerator.DEFAULT_DEV);
+        SampleConfig sConf = new SampleConfig("benchSample", "benchSample", "test/bench",
+          Collections.singletonList(iConf));
+        DeviceConfig devConf = new DeviceConfig("benchDevice", "benchDevice", "Bench device",
+          Collections.singletonList(sConf), 1000L, 0L, DEVICES);
+
+        List<Device> devices = new ArrayList<>();
+        for (int i = 1; i <= DEVICES; i++) {
+            devices.add(GenericDevice.numberedDevice(new LatencyClient(published),
+              new DeviceConfig(devConf, i), i));
+        }
+        return devices;
+    }
+
+    private Result measure(Mode mode, Consumer<List<Device>> runner) {
+        Config.getRunnerConfig().setMode(mode);
+        AtomicLong published = new AtomicLong();
+        List<Device> devices = genDevices(published);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        threads.resetPeakThreadCount();
+        AtomicLong peakHeap = new AtomicLong();
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() ->
+            peakHeap.accumulateAndGet(runtime.totalMemory() - runtime.freeMemory(), Math::max),
+          0, 100, TimeUnit.MILLISECONDS);
+
+        runner.accept(devices);
+
+        sampler.shutdownNow();
+
+        Result result = new Result();
+        result.published = published.get();
+        result.peakThreads = threads.getPeakThreadCount();
+        result.peakHeapBytes = peakHeap.get();
+        System.out.println(String.format("BENCH %s devices=%d latency=%dms: %s",
+          mode, DEVICES, LATENCY_MILLIS, result));
+        return result;
+    }
+
+    @Test
+    public void compareBlockingAndVirtual() {
+        assumeTrue(VirtualThreads.isAvailable(), "Virtual threads need Java 21 or later");
+
+        Result blocking = measure(Mode.BLOCKING, DeviceRunner::blockingMain);
+        Result virtual = measure(Mode.VIRTUAL, DeviceRunner::virtualMain);
+
+        assertTrue(blocking.published > 0);
+        assertTrue(virtual.published > 0);
+        // virtual threads are not platform threads
+        assertTrue(virtual.peakThreads < DEVICES);
+    }
+
+}
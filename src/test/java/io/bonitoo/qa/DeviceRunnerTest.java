@@ -86,7 +86,7 @@ public class DeviceRunnerTest {
 
         BrokerConfig broker = new BrokerConfig("my.mqttserver.net", 1883, new AuthConfig("fred", "changeit".toCharArray()));
 
-        RunnerConfig runnerConf = new RunnerConfig(broker, Arrays.asList(device), 30000l, Mode.BLOCKING);
+        RunnerConfig runnerConf = new RunnerConfig(broker, Arrays.asList(device), 30000l, Mode.BLOCKING, true);
 
         ObjectWriter writer = new ObjectMapper(new YAMLFactory()).writer().withDefaultPrettyPrinter();
 
@@ -101,6 +101,7 @@ public class DeviceRunnerTest {
         assertEquals(runnerConf.getTtl(), parsedConf.getTtl());
         assertEquals(runnerConf.getBroker(), parsedConf.getBroker());
         assertEquals(runnerConf.getMode(), parsedConf.getMode());
+        assertEquals(runnerConf.isPrettyPrint(), parsedConf.isPrettyPrint());
 
         for(DeviceConfig deviceConf: runnerConf.getDevices()){
             assertTrue(parsedConf.getDevices().contains(deviceConf));
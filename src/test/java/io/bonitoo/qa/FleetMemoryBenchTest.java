@@ -0,0 +1,120 @@
+package io.bonitoo.qa;
+
+import io.bonitoo.qa.conf.Config;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.ItemStringConfig;
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.conf.device.DeviceConfig;
+import io.bonitoo.qa.data.ItemType;
+import io.bonitoo.qa.data.Sample;
+import io.bonitoo.qa.data.generator.NumGenerator;
+import io.bonitoo.qa.data.serializer.PayloadBuffer;
+import io.bonitoo.qa.device.Device;
+import io.bonitoo.qa.device.GenericDevice;
+import io.bonitoo.qa.sink.SampleSink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reports the heap retained per simulated device, since heap rather than CPU caps
+ * the size of a fleet.
+ *
+ * <p>Run with <code>mvn test -P bench</code>.  The fleet size and the number of items
+ * per sample can be set with the system properties <code>bench.devices</code> and
+ * <code>bench.items</code>.</p>
+ */
+@Tag("bench")
+public class FleetMemoryBenchTest {
+
+    static final int DEVICES = Integer.getInteger("bench.devices", 20000);
+    static final int ITEMS = Integer.getInteger("bench.items", 10);
+
+    /**
+     * Shared by all devices, so that only the devices themselves are measured.
+     */
+    static class NullSink implements SampleSink {
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void write(Sample sample, PayloadBuffer buffer) {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+    }
+
+    @BeforeEach
+    public void setup() {
+        Config.reset();
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        // a few rounds, as a single call to gc() may leave garbage behind
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+
+    private static DeviceConfig fleetConfig() {
+        List<ItemConfig> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            switch (i % 3) {
+                case 0:
+                    items.add(new ItemNumConfig("memDouble" + i, "dbl" + i, ItemType.Double,
+                      0, 100, 1.0, NumGenerator.DEFAULT_DEV));
+                    break;
+                case 1:
+                    items.add(new ItemNumConfig("memLong" + i, "lng" + i, ItemType.Long,
+                      0, 100, 1.0, NumGenerator.DEFAULT_DEV));
+                    break;
+                default:
+                    items.add(new ItemStringConfig("memString" + i, "str" + i, ItemType.String,
+                      Arrays.asList("Do", "Re", "Mi", "Fa", "Sol", "La", "Ti")));
+            }
+        }
+        SampleConfig sConf = new SampleConfig("memSample", "memSample", "test/mem", items);
+        return new DeviceConfig("memDevice", "memDevice", "Memory bench device",
+          Arrays.asList(sConf), 1000L, 0L, DEVICES);
+    }
+
+    @Test
+    public void retainedBytesPerDevice() {
+        DeviceConfig devConf = fleetConfig();
+        SampleSink sink = new NullSink();
+        List<Device> devices = new ArrayList<>(DEVICES);
+
+        long before = usedHeapAfterGc();
+        for (int i = 1; i <= DEVICES; i++) {
+            devices.add(GenericDevice.numberedDevice(sink, new DeviceConfig(devConf, i), i));
+        }
+        long after = usedHeapAfterGc();
+
+        double perDevice = (after - before) / (double) DEVICES;
+        System.out.println(String.format("BENCH fleet memory devices=%d items=%d: "
+            + "retainedBytes/device=%.0f, retainedMB=%.1f",
+          DEVICES, ITEMS, perDevice, (after - before) / (1024.0 * 1024.0)));
+
+        assertEquals(DEVICES, devices.size());
+        assertTrue(perDevice > 0);
+    }
+
+}
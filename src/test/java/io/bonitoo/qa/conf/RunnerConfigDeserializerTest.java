@@ -1,10 +1,19 @@
 package io.bonitoo.qa.conf;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.bonitoo.qa.sink.SinkFormat;
+import io.bonitoo.qa.sink.SinkType;
+import io.bonitoo.qa.util.RandomStreams;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Tag("unit")
 public class RunnerConfigDeserializerTest {
@@ -42,9 +51,185 @@ public class RunnerConfigDeserializerTest {
     assertEquals(Mode.ASYNC, RunnerConfigDeserializer.parseMode("ASYNC"));
   }
 
+  @Test
+  public void parseModeVirtualTest(){
+    assertEquals(Mode.VIRTUAL, RunnerConfigDeserializer.parseMode("virtual"));
+    assertEquals(Mode.VIRTUAL, RunnerConfigDeserializer.parseMode("Virtual"));
+    assertEquals(Mode.VIRTUAL, RunnerConfigDeserializer.parseMode("VIRTUAL"));
+    assertEquals(Mode.VIRTUAL, RunnerConfigDeserializer.parseMode("virtual_threads"));
+    assertEquals(Mode.VIRTUAL, RunnerConfigDeserializer.parseMode("VIRTUAL_THREADS"));
+  }
+
   @Test
   public void parseModeInvalidTest(){
     assertThrows(VirDevConfigException.class, () -> RunnerConfigDeserializer.parseMode("SpongeBob"));
   }
 
+  @Test
+  public void parseSeedTest() throws JsonProcessingException {
+    ObjectMapper om = new ObjectMapper(new YAMLFactory());
+    try {
+      RunnerConfig seeded = om.readValue("ttl: 1000\nseed: 1234\n", RunnerConfig.class);
+      assertEquals(1234L, seeded.getSeed());
+      assertEquals(1234L, RandomStreams.getSeed());
+
+      RunnerConfig unseeded = om.readValue("ttl: 1000\n", RunnerConfig.class);
+      assertNull(unseeded.getSeed());
+      assertFalse(RandomStreams.isSeeded());
+    } finally {
+      RandomStreams.setSeed(null);
+    }
+  }
+
+  @Test
+  public void parseModeBackfillTest(){
+    assertEquals(Mode.BACKFILL, RunnerConfigDeserializer.parseMode("backfill"));
+    assertEquals(Mode.BACKFILL, RunnerConfigDeserializer.parseMode("Backfill"));
+    assertEquals(Mode.BACKFILL, RunnerConfigDeserializer.parseMode("BACKFILL"));
+  }
+
+  @Test
+  public void parseBackfillTest() throws JsonProcessingException {
+    ObjectMapper om = new ObjectMapper(new YAMLFactory());
+
+    RunnerConfig iso = om.readValue("ttl: 1000\nmode: backfill\nbackfill:\n"
+      + "  start: 2023-01-01T00:00:00Z\n  end: 2023-01-08T00:00:00Z\n", RunnerConfig.class);
+    assertEquals(Mode.BACKFILL, iso.getMode());
+    assertEquals(1672531200000L, iso.getBackfill().getStart());
+    assertEquals(1672531200000L + (7 * 24 * 60 * 60 * 1000L), iso.getBackfill().getEnd());
+
+    long before = System.currentTimeMillis();
+    RunnerConfig millis = om.readValue("ttl: 1000\nbackfill:\n  start: 1000\n", RunnerConfig.class);
+    assertEquals(1000L, millis.getBackfill().getStart());
+    assertTrue(millis.getBackfill().getEnd() >= before);
+    assertEquals(BackfillConfig.DEFAULT_TIMEOUT_MILLIS, millis.getBackfill().getTimeout());
+
+    RunnerConfig bounded = om.readValue("ttl: 1000\nbackfill:\n  start: 1000\n  timeout: 60000\n",
+      RunnerConfig.class);
+    assertEquals(60000L, bounded.getBackfill().getTimeout());
+
+    assertNull(om.readValue("ttl: 1000\n", RunnerConfig.class).getBackfill());
+  }
+
+  @Test
+  public void parseBackfillInvalidTest() {
+    ObjectMapper om = new ObjectMapper(new YAMLFactory());
+
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nmode: backfill\n", RunnerConfig.class));
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nbackfill:\n  end: 1000\n", RunnerConfig.class));
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nbackfill:\n  start: 2000\n  end: 1000\n", RunnerConfig.class));
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nbackfill:\n  start: yesterday\n", RunnerConfig.class));
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nbackfill:\n  start: 1000\n  timeout: 0\n", RunnerConfig.class));
+  }
+
+  @Test
+  public void parseSinkTest() throws JsonProcessingException {
+    ObjectMapper om = new ObjectMapper(new YAMLFactory());
+
+    RunnerConfig file = om.readValue("ttl: 1000\nsink:\n  type: file\n"
+      + "  path: data/samples.lp\n  format: lineProtocol\n", RunnerConfig.class);
+    assertEquals(SinkType.FILE, file.getSink().getType());
+    assertEquals("data/samples.lp", file.getSink().getPath());
+    assertEquals(SinkFormat.LINE_PROTOCOL, file.getSink().getFormat());
+
+    RunnerConfig ndjson = om.readValue("ttl: 1000\nmode: backfill\nbackfill:\n  start: 1000\n"
+      + "sink:\n  type: FILE\n  path: samples.ndjson\n", RunnerConfig.class);
+    assertEquals(SinkFormat.NDJSON, ndjson.getSink().getFormat());
+
+    assertEquals(SinkType.MQTT,
+      om.readValue("ttl: 1000\nsink:\n  type: mqtt\n", RunnerConfig.class).getSink().getType());
+    assertNull(om.readValue("ttl: 1000\n", RunnerConfig.class).getSink());
+  }
+
+  @Test
+  public void parseSinkInvalidTest() {
+    ObjectMapper om = new ObjectMapper(new YAMLFactory());
+
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nsink:\n  type: file\n", RunnerConfig.class));
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nsink:\n  type: kafka\n", RunnerConfig.class));
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nsink:\n  type: file\n  path: out.csv\n  format: csv\n",
+        RunnerConfig.class));
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nmode: async\nsink:\n  type: file\n  path: out.ndjson\n",
+        RunnerConfig.class));
+  }
+
+  @Test
+  public void parseConnectionsTest() throws JsonProcessingException {
+    ObjectMapper om = new ObjectMapper(new YAMLFactory());
+
+    assertEquals(8, om.readValue("ttl: 1000\nconnections: 8\n", RunnerConfig.class)
+      .getConnections());
+    assertEquals(4, om.readValue("ttl: 1000\nmode: async\nconnections: 4\n", RunnerConfig.class)
+      .getConnections());
+    assertEquals(0, om.readValue("ttl: 1000\n", RunnerConfig.class).getConnections());
+
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nconnections: -1\n", RunnerConfig.class));
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nmode: reactive\nconnections: 2\n", RunnerConfig.class));
+  }
+
+  @Test
+  public void parseLazyTest() throws JsonProcessingException {
+    ObjectMapper om = new ObjectMapper(new YAMLFactory());
+
+    assertTrue(om.readValue("ttl: 1000\nlazy: true\n", RunnerConfig.class).isLazy());
+    assertTrue(om.readValue("ttl: 1000\nmode: blocking\nlazy: true\nconnections: 16\n",
+      RunnerConfig.class).isLazy());
+    assertFalse(om.readValue("ttl: 1000\n", RunnerConfig.class).isLazy());
+
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nmode: async\nlazy: true\n", RunnerConfig.class));
+  }
+
+  @Test
+  public void parseRampTest() throws JsonProcessingException {
+    ObjectMapper om = new ObjectMapper(new YAMLFactory());
+
+    RampConfig ramp = om.readValue("ttl: 1000\nramp:\n  connectsPerSecond: 250\n"
+      + "  maxConcurrent: 50\n  curve: constant\n  reportMillis: 500\n", RunnerConfig.class)
+      .getRamp();
+    assertEquals(250.0, ramp.getConnectsPerSecond());
+    assertEquals(50, ramp.getMaxConcurrent());
+    assertEquals(RampCurve.CONSTANT, ramp.getCurve());
+    assertEquals(500, ramp.getReportMillis());
+
+    ramp = om.readValue("ttl: 1000\nramp:\n  connectsPerSecond: 10\n  rampMillis: 30000\n",
+      RunnerConfig.class).getRamp();
+    assertEquals(0, ramp.getMaxConcurrent());
+    assertEquals(RampCurve.LINEAR, ramp.getCurve());
+    assertEquals(30000, ramp.getRampMillis());
+    assertEquals(RampConfig.DEFAULT_REPORT_MILLIS, ramp.getReportMillis());
+
+    assertNull(om.readValue("ttl: 1000\n", RunnerConfig.class).getRamp());
+  }
+
+  @Test
+  public void parseRampInvalidTest() {
+    ObjectMapper om = new ObjectMapper(new YAMLFactory());
+
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nramp:\n  maxConcurrent: 5\n", RunnerConfig.class));
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nramp:\n  connectsPerSecond: 0\n", RunnerConfig.class));
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nramp:\n  connectsPerSecond: 5\n  maxConcurrent: -1\n",
+        RunnerConfig.class));
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nramp:\n  connectsPerSecond: 5\n  curve: cubic\n",
+        RunnerConfig.class));
+    assertThrows(VirDevConfigException.class,
+      () -> om.readValue("ttl: 1000\nramp:\n  connectsPerSecond: 5\n  reportMillis: 0\n",
+        RunnerConfig.class));
+  }
+
 }
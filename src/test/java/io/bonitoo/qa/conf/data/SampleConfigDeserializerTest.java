@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
 import io.bonitoo.qa.conf.VirDevConfigException;
 import io.bonitoo.qa.data.ItemType;
 import io.bonitoo.qa.data.generator.NumGenerator;
@@ -369,4 +370,40 @@ public class SampleConfigDeserializerTest {
         assertEquals(5, scr.getItems().get(1).getCount());
     }
 
+    @Test
+    public void qosAndRetain() throws JsonProcessingException {
+
+        ObjectMapper om = new ObjectMapper(new YAMLFactory());
+
+        SampleConfig conf = om.readValue(confSampleItemStringsYAML + "\nqos: 1\nretain: true",
+          SampleConfig.class);
+        assertEquals(MqttQos.AT_LEAST_ONCE, conf.getQos());
+        assertTrue(conf.getRetain());
+        assertEquals(MqttQos.AT_LEAST_ONCE, conf.qosOr(MqttQos.EXACTLY_ONCE));
+        assertTrue(conf.retainOr(false));
+
+        conf = om.readValue(confSampleItemStringsYAML + "\nqos: at_most_once", SampleConfig.class);
+        assertEquals(MqttQos.AT_MOST_ONCE, conf.getQos());
+        assertNull(conf.getRetain());
+        assertFalse(conf.retainOr(false));
+        // copies keep their settings
+        assertEquals(MqttQos.AT_MOST_ONCE, new SampleConfig(conf).getQos());
+
+        conf = om.readValue(confSampleItemStringsYAML, SampleConfig.class);
+        assertNull(conf.getQos());
+        assertEquals(MqttQos.EXACTLY_ONCE, conf.qosOr(MqttQos.EXACTLY_ONCE));
+        assertNull(conf.qosOr(null));
+    }
+
+    @Test
+    public void invalidQos() {
+
+        ObjectMapper om = new ObjectMapper(new YAMLFactory());
+
+        assertThrows(VirDevConfigException.class,
+          () -> om.readValue(confSampleItemStringsYAML + "\nqos: 3", SampleConfig.class));
+        assertThrows(VirDevConfigException.class,
+          () -> om.readValue(confSampleItemStringsYAML + "\nqos: twice", SampleConfig.class));
+    }
+
 }
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import io.bonitoo.qa.conf.VirDevConfigException;
 import io.bonitoo.qa.conf.device.DeviceConfig;
 import io.bonitoo.qa.conf.device.DeviceConfigDeserializer;
 import io.bonitoo.qa.data.*;
@@ -12,6 +14,7 @@ import io.bonitoo.qa.conf.data.ItemNumConfig;
 import io.bonitoo.qa.conf.data.ItemStringConfig;
 import io.bonitoo.qa.conf.data.SampleConfig;
 import io.bonitoo.qa.data.generator.NumGenerator;
+import io.bonitoo.qa.sink.BatchMode;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -19,6 +22,11 @@ import org.junit.jupiter.api.Test;
 import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Tag("unit")
 public class DeviceConfigDeserializerTest {
@@ -150,6 +158,87 @@ public class DeviceConfigDeserializerTest {
         assertEquals(DeviceConfigDeserializer.defaultCount, conf.getCount());
     }
 
+    @Test
+    public void batchRoundTrip() throws JsonProcessingException {
+
+        DeviceConfig batched = new DeviceConfig("1234", "Test Device", "A device for testing",
+          Arrays.asList(testSampConfig), 1000l, 0l, 1, DeviceConfig.DEFAULT_MAX_IN_FLIGHT,
+          new BatchConfig(BatchMode.NDJSON, 50, 65536, 2000L));
+
+        ObjectMapper om = new ObjectMapper(new YAMLFactory());
+        DeviceConfig testCfg = om.readValue(om.writeValueAsString(batched), DeviceConfig.class);
+
+        assertEquals(batched, testCfg);
+        assertEquals(batched.getBatch(), testCfg.getBatch());
+        assertNotEquals(testDevConfig, testCfg);
+    }
+
+    @Test
+    public void parseBatch() throws JsonProcessingException {
+
+        ObjectMapper om = new ObjectMapper(new YAMLFactory());
+
+        BatchConfig defaults = DeviceConfigDeserializer.parseBatch(om.readTree("{}"));
+        assertEquals(BatchMode.PIPELINE, defaults.getMode());
+        assertEquals(BatchConfig.DEFAULT_MAX_SAMPLES, defaults.getMaxSamples());
+        assertEquals(BatchConfig.DEFAULT_MAX_BYTES, defaults.getMaxBytes());
+        assertEquals(BatchConfig.DEFAULT_MAX_LINGER_MILLIS, defaults.getMaxLingerMillis());
+
+        BatchConfig array = DeviceConfigDeserializer.parseBatch(
+          om.readTree("mode: json_array\nmaxSamples: 10\nmaxBytes: 4096\nmaxLingerMillis: 500"));
+        assertEquals(new BatchConfig(BatchMode.JSON_ARRAY, 10, 4096, 500L), array);
+    }
+
+    @Test
+    public void parseBatchInvalid() throws JsonProcessingException {
+
+        ObjectMapper om = new ObjectMapper(new YAMLFactory());
+
+        assertThrows(VirDevConfigException.class,
+          () -> DeviceConfigDeserializer.parseBatch(om.readTree("mode: csv")));
+        assertThrows(VirDevConfigException.class,
+          () -> DeviceConfigDeserializer.parseBatch(om.readTree("maxSamples: 0")));
+        assertThrows(VirDevConfigException.class,
+          () -> DeviceConfigDeserializer.parseBatch(om.readTree("maxLingerMillis: -1")));
+    }
+
+    @Test
+    public void qosAndRetain() throws JsonProcessingException {
+
+        SampleConfig sc1 = new SampleConfig("random", "qosSample", "testing/qos",
+          Arrays.asList(new ItemNumConfig("alpha", "alpha", ItemType.Double, -100, 100, 1.0, NumGenerator.DEFAULT_DEV)));
+        sc1.setQos(MqttQos.AT_MOST_ONCE);
+
+        String deviceConfYAML = "---\n" +
+                "id: \"1234\"\n" +
+                "name: \"QosDevice\"\n" +
+                "description: \"A device with QoS\"\n" +
+                "qos: 2\n" +
+                "retain: true\n" +
+                "samples:\n" +
+                "- " + sc1.getName();
+
+        ObjectMapper om = new ObjectMapper(new YAMLFactory());
+
+        DeviceConfig conf = om.readValue(deviceConfYAML, DeviceConfig.class);
+
+        assertEquals(MqttQos.EXACTLY_ONCE, conf.getQos());
+        assertTrue(conf.getRetain());
+        // the sample sets its own QoS, but inherits retain
+        assertEquals(MqttQos.AT_MOST_ONCE, conf.qosFor(conf.getSample(0)));
+        assertTrue(conf.retainFor(conf.getSample(0)));
+
+        DeviceConfig copy = new DeviceConfig(conf, 1);
+        assertEquals(MqttQos.EXACTLY_ONCE, copy.getQos());
+        assertEquals(MqttQos.AT_MOST_ONCE, copy.qosFor(copy.getSample(0)));
+
+        assertEquals(conf, om.readValue(om.writeValueAsString(conf), DeviceConfig.class));
+
+        DeviceConfig defaults = om.readValue(YAMLDevConfig, DeviceConfig.class);
+        assertNull(defaults.qosFor(defaults.getSample(0)));
+        assertFalse(defaults.retainFor(defaults.getSample(0)));
+    }
+
     // N.B. for device deserialization with SamplePlugin see SamplePluginIntegrationTest
 
 }
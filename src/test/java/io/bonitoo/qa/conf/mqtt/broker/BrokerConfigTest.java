@@ -5,10 +5,19 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import io.bonitoo.qa.conf.Constants;
+import io.bonitoo.qa.util.EncryptPass;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
 
 @Tag("unit")
 public class BrokerConfigTest {
@@ -161,4 +170,42 @@ public class BrokerConfigTest {
 
     }
 
+    @Test
+    public void encryptedPasswordsDecryptedOnce() {
+        char[] encrypted = EncryptPass.encryptPass(
+          TlsConfig.class.getPackage().getName().toCharArray(), "changeit".toCharArray())
+          .toCharArray();
+        AuthConfig auth = new AuthConfig("fred", encrypted);
+        TlsConfig tls = new TlsConfig("teststore.jks", encrypted);
+
+        try (MockedStatic<EncryptPass> encryptPass = mockStatic(EncryptPass.class, CALLS_REAL_METHODS)) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals("changeit", new String(auth.getPassword()));
+                assertEquals("changeit", new String(tls.getTrustPass()));
+            }
+            encryptPass.verify(() -> EncryptPass.decryptPass(any(), anyString()), times(2));
+
+            // callers may clear the password they get
+            Arrays.fill(auth.getPassword(), ' ');
+            assertEquals("changeit", new String(auth.getPassword()));
+            encryptPass.verify(() -> EncryptPass.decryptPass(any(), anyString()), times(2));
+
+            // a new password is decrypted again
+            auth.setPassword(EncryptPass.encryptPass(
+              TlsConfig.class.getPackage().getName().toCharArray(), "foobar".toCharArray())
+              .toCharArray());
+            assertEquals("foobar", new String(auth.getPassword()));
+            encryptPass.verify(() -> EncryptPass.decryptPass(any(), anyString()), times(3));
+        }
+
+        char[] plain = "plain".toCharArray();
+        auth.setPassword(plain);
+        assertEquals("plain", new String(auth.getPassword()));
+
+        // a plain password is copied as well, so clearing it leaves the config intact
+        assertNotSame(plain, auth.getPassword());
+        Arrays.fill(auth.getPassword(), ' ');
+        assertEquals("plain", new String(auth.getPassword()));
+    }
+
 }
@@ -13,9 +13,11 @@ import io.bonitoo.qa.plugin.item.ItemPluginMill;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 @Tag("unit")
 public class ItemTest {
@@ -210,13 +212,13 @@ public class ItemTest {
 
         // master copy in registry is unchanged
         assertEquals(configNum.hashCode(), ItemConfigRegistry.get(configNum.getName()).hashCode());
-        // item received a copy of master
-        assertNotEquals(ItemConfigRegistry.get(configNum.getName()).hashCode(), itNum.getConfig().hashCode());
+        // item shares master
+        assertSame(ItemConfigRegistry.get(configNum.getName()), itNum.getConfig());
 
         // master copy in registry is unchanged
         assertEquals(configString.hashCode(), ItemConfigRegistry.get(configString.getName()).hashCode());
-        // item received a copy of master
-        assertNotEquals(ItemConfigRegistry.get(configString.getName()).hashCode(), itString.getConfig().hashCode());
+        // item shares master
+        assertSame(ItemConfigRegistry.get(configString.getName()), itString.getConfig());
 
         // master copy in registry is unchanged
         assertEquals(configPlugin.hashCode(), ItemConfigRegistry.get(configPlugin.getName()).hashCode());
@@ -225,6 +227,17 @@ public class ItemTest {
 
     }
 
+    @Test
+    public void itemsShareConfig(){
+        ItemNumConfig conf = new ItemNumConfig("testShared", "shared", ItemType.Double, 0, 10, 1.0, NumGenerator.DEFAULT_DEV);
+
+        Item item1 = Item.of(conf);
+        Item item2 = Item.of(conf);
+
+        assertSame(conf, item1.getConfig());
+        assertSame(item1.getConfig(), item2.getConfig());
+    }
+
     @Test
     public void generateNegativeNumbers(){
         double min = -40;
@@ -246,4 +259,72 @@ public class ItemTest {
 
     }
 
+    @Test
+    public void specializedItemsFromConfig(){
+        Item itDouble = Item.of(new ItemNumConfig("testDouble", "dbl", ItemType.Double, 0, 10, 1.0, NumGenerator.DEFAULT_DEV));
+        Item itLong = Item.of(new ItemNumConfig("testLong", "lng", ItemType.Long, 0, 10, 1.0, NumGenerator.DEFAULT_DEV));
+        Item itString = Item.of(new ItemStringConfig("testString", "str", ItemType.String, Arrays.asList("Do", "Re")));
+
+        assertInstanceOf(DoubleItem.class, itDouble);
+        assertInstanceOf(LongItem.class, itLong);
+        assertInstanceOf(StringItem.class, itString);
+
+        // boxed accessors remain consistent with the primitive values
+        assertEquals(((DoubleItem) itDouble).doubleValue(), itDouble.asDouble());
+        assertEquals(((LongItem) itLong).longValue(), itLong.asLong());
+        assertNull(itDouble.asLong());
+        assertNull(itLong.asDouble());
+        assertNull(itDouble.asString());
+        assertTrue(itString.asString().equals("Do") || itString.asString().equals("Re"));
+
+        itDouble.setVal(42L);
+        itLong.setVal("17");
+        itString.setVal(3);
+
+        assertEquals(42.0, itDouble.getVal());
+        assertEquals(17L, itLong.getVal());
+        assertEquals("3", itString.getVal());
+    }
+
+    @Test
+    public void precisionMatchesParsedPowers(){
+        double[] vals = {Math.PI, -Math.E, 12345.6789, 0.000123456, 987654321.123};
+        for (double val : vals) {
+            for (int prec = -25; prec <= 25; prec++) {
+                double p = prec < 0 ? Double.parseDouble("1e" + prec) * -1 : Double.parseDouble("1e" + prec);
+                assertEquals((long) (val * p) / p, Item.precision(val, prec));
+            }
+        }
+    }
+
+    @Test
+    public void numericUpdateDoesNotAllocate(){
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        DoubleItem itDouble = (DoubleItem) Item.of(new ItemNumConfig("testDouble", "dbl", ItemType.Double, 0, 10, 1.0, NumGenerator.DEFAULT_DEV));
+        LongItem itLong = (LongItem) Item.of(new ItemNumConfig("testLong", "lng", ItemType.Long, 0, 10, 1.0, NumGenerator.DEFAULT_DEV));
+
+        int count = 100000;
+        for (int i = 0; i < count; i++) {
+            itDouble.update();
+            itLong.update();
+        }
+
+        long tid = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(tid);
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += itDouble.update().getConfig() == null ? 0 : itDouble.doubleValue();
+            sum += itLong.update().getConfig() == null ? 0 : itLong.longValue();
+        }
+        long allocated = threads.getThreadAllocatedBytes(tid) - before;
+
+        assertTrue(sum > 0);
+        // boxing would cost at least 16 bytes per update
+        assertTrue(allocated < count * 2L, "allocated " + allocated + " bytes");
+    }
+
 }
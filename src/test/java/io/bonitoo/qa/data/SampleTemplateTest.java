@@ -0,0 +1,143 @@
+package io.bonitoo.qa.data;
+
+import io.bonitoo.qa.conf.data.ItemArType;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.ItemStringConfig;
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.data.generator.NumGenerator;
+import io.bonitoo.qa.data.serializer.JsonWriterCache;
+import io.bonitoo.qa.data.serializer.PayloadBuffer;
+import io.bonitoo.qa.data.serializer.SampleTemplate;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+public class SampleTemplateTest {
+
+  private static String jackson(GenericSample sample) throws IOException {
+    return JsonWriterCache.writerFor(GenericSample.class, false).writeValueAsString(sample);
+  }
+
+  private static String template(GenericSample sample) throws IOException {
+    PayloadBuffer buffer = new PayloadBuffer();
+    sample.toPayload(buffer);
+    return buffer.asString();
+  }
+
+  private static ItemConfig counted(ItemConfig config, int count, ItemArType arType) {
+    config.setCount(count);
+    config.setArType(arType);
+    return config;
+  }
+
+  @Test
+  public void layoutsMatchJackson() throws IOException {
+    List<ItemConfig> configs = Arrays.asList(
+      new ItemNumConfig("tmplDouble", "dbl", ItemType.Double, -40, 40, 1.0, NumGenerator.DEFAULT_DEV, 2),
+      new ItemNumConfig("tmplRawDouble", "raw", ItemType.Double, 0, 1e9, 1.0, NumGenerator.DEFAULT_DEV),
+      new ItemNumConfig("tmplLong", "lng", ItemType.Long, -1000, 1000, 1.0, NumGenerator.DEFAULT_DEV),
+      new ItemStringConfig("tmplString", "str", ItemType.String,
+        Arrays.asList("plain", "say \"hi\"", "back\\slash", "tab\there", "žluťoučký kůň")),
+      counted(new ItemNumConfig("tmplArray", "arr", ItemType.Double, 0, 100, 1.0, 0.3, 1), 3, ItemArType.Array),
+      counted(new ItemNumConfig("tmplObject", "obj", ItemType.Long, 0, 100, 1.0, 0.3), 12, ItemArType.Object),
+      counted(new ItemStringConfig("tmplFlat", "flt", ItemType.String, Arrays.asList("a", "b")), 5, ItemArType.Flat),
+      counted(new ItemNumConfig("tmplUndef", "und", ItemType.Long, 0, 100, 1.0, 0.3), 2, ItemArType.Undefined)
+    );
+    GenericSample sample = GenericSample.of(new SampleConfig("random", "tmplSample", "test/template", configs));
+
+    for (int i = 0; i < 100; i++) {
+      sample.update();
+      assertEquals(jackson(sample), template(sample));
+    }
+  }
+
+  @Test
+  public void decimalsMatchJackson() throws IOException {
+    List<ItemConfig> configs = new ArrayList<>();
+    double[][] ranges = {{-1e-3, 1e-3}, {0, 0.01}, {-10, 10}, {0, 1000}, {-1e6, 1e6}, {9e6, 2e7}, {1e12, 1e14}};
+    for (int prec = 0; prec <= 16; prec++) {
+      for (int r = 0; r < ranges.length; r++) {
+        configs.add(new ItemNumConfig(String.format("tmplDec%02d_%d", prec, r), String.format("d%02d_%d", prec, r),
+          ItemType.Double, ranges[r][0], ranges[r][1], 1.0, 0.5, prec));
+      }
+    }
+    GenericSample sample = GenericSample.of(new SampleConfig("random", "tmplDecSample", "test/template", configs));
+
+    for (int i = 0; i < 200; i++) {
+      sample.update();
+      assertEquals(jackson(sample), template(sample));
+    }
+
+    Item item = sample.item("tmplDec02_2");
+    for (double d : new double[]{Double.NaN, Double.NEGATIVE_INFINITY, -0.0, -0.001, 0.005, 0.009, 12.0, -12.3456, 9999999.999}) {
+      item.setVal(d);
+      assertEquals(jackson(sample), template(sample), "value " + d);
+    }
+  }
+
+  @Test
+  public void edgeValuesMatchJackson() throws IOException {
+    GenericSample sample = GenericSample.of(new SampleConfig("id with \"quotes\"", "tmplEdgeSample", "test/template",
+      Arrays.asList(
+        new ItemNumConfig("tmplEdgeDouble", "dbl", ItemType.Double, 0, 1, 1.0, NumGenerator.DEFAULT_DEV),
+        new ItemNumConfig("tmplEdgeLong", "lng", ItemType.Long, 0, 1, 1.0, NumGenerator.DEFAULT_DEV),
+        new ItemStringConfig("tmplEdgeString", "str", ItemType.String, Collections.singletonList("x")))));
+
+    Item dbl = sample.item("tmplEdgeDouble");
+    Item lng = sample.item("tmplEdgeLong");
+    Item str = sample.item("tmplEdgeString");
+
+    for (double d : new double[]{Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+      -0.0, 1e-300, Double.MAX_VALUE}) {
+      dbl.setVal(d);
+      assertEquals(jackson(sample), template(sample));
+    }
+
+    for (long l : new long[]{0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE}) {
+      lng.setVal(l);
+      assertEquals(jackson(sample), template(sample));
+    }
+
+    str.setVal(null);
+    assertEquals(jackson(sample), template(sample));
+
+    sample.setId(null);
+    assertEquals(jackson(sample), template(sample));
+  }
+
+  @Test
+  public void recompiledWhenLayoutReplaced() throws IOException {
+    GenericSample sample = GenericSample.of(new SampleConfig("tmplFirstId", "tmplReplacedSample", "test/template",
+      Collections.singletonList(new ItemNumConfig("tmplReplDouble", "dbl", ItemType.Double, 0, 10, 1.0, 0.1))));
+
+    SampleTemplate template = SampleTemplate.compile(sample);
+    assertTrue(template.isSupported());
+    assertTrue(template.matches(sample));
+
+    template(sample);
+    // a replaced id is encoded again without recompiling the template
+    sample.setId("tmplSecondId");
+    assertTrue(template.matches(sample));
+    assertTrue(template(sample).contains("\"id\":\"tmplSecondId\""));
+
+    // generic items are left to Jackson
+    ItemConfig genericConf = new ItemNumConfig("tmplGeneric", "gen", ItemType.Double, 0, 10, 1.0, 0.1);
+    List<Item> generic = new ArrayList<>();
+    generic.add(new Item(genericConf, 42.0));
+    sample.getItems().put("tmplGeneric", generic);
+
+    assertFalse(SampleTemplate.compile(sample).isSupported());
+    assertEquals(jackson(sample), template(sample));
+    assertTrue(template(sample).contains("\"gen\":42.0"));
+  }
+
+}
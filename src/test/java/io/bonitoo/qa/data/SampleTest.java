@@ -7,14 +7,21 @@ import io.bonitoo.qa.VirtualDeviceRuntimeException;
 import io.bonitoo.qa.conf.VirDevConfigException;
 import io.bonitoo.qa.conf.data.*;
 import io.bonitoo.qa.data.generator.NumGenerator;
+import io.bonitoo.qa.data.serializer.JsonWriterCache;
+import io.bonitoo.qa.data.serializer.PayloadBuffer;
 import io.bonitoo.qa.plugin.eg.CounterItemPlugin;
 import io.bonitoo.qa.plugin.PluginProperties;
 import io.bonitoo.qa.plugin.PluginResultType;
 import io.bonitoo.qa.plugin.PluginType;
 import io.bonitoo.qa.plugin.item.ItemPluginMill;
+import io.bonitoo.qa.util.RandomStreams;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -134,6 +141,41 @@ Example from Scientio
         assertNull(map.get("topic"));
     }
 
+    @Test
+    public void nameClashCheckedOnBuild() throws JsonProcessingException {
+        ItemConfig badConfigConf = new ItemNumConfig("Config", "config", ItemType.Long, 0, 10, 1.0, NumGenerator.DEFAULT_DEV);
+        ItemConfig okConf = new ItemNumConfig("configData", "data", ItemType.Double, 0, 100, 1.0, NumGenerator.DEFAULT_DEV);
+
+        Sample sample = GenericSample.of(new SampleConfig("random", "clashSample", "test/sample",
+                Arrays.asList(badConfigConf, okConf)));
+
+        // removed when built, before any serialization
+        assertFalse(sample.getItems().containsKey("Config"));
+        assertTrue(sample.getItems().containsKey("configData"));
+
+        // serializing leaves the items as they are
+        sample.toJson();
+        sample.toString();
+        assertEquals(1, sample.getItems().size());
+    }
+
+    @Test
+    public void laterFieldNamesNotReserved() throws JsonProcessingException {
+        ItemConfig clockConf = new ItemNumConfig("clock", "clock", ItemType.Long, 0, 10, 1.0, NumGenerator.DEFAULT_DEV);
+        ItemConfig reservedConf = new ItemNumConfig("RESERVED_NAMES", "reserved", ItemType.Long, 0, 10, 1.0, NumGenerator.DEFAULT_DEV);
+
+        Sample sample = GenericSample.of(new SampleConfig("random", "clockSample", "test/sample",
+                Arrays.asList(clockConf, reservedConf)));
+
+        // fields added to samples over time do not take names from items
+        assertTrue(sample.getItems().containsKey("clock"));
+        assertTrue(sample.getItems().containsKey("RESERVED_NAMES"));
+
+        HashMap<String,Object> map = new ObjectMapper().readValue(sample.update().toJson(),
+                new TypeReference<HashMap<String,Object>>(){});
+        assertInstanceOf(Number.class, map.get("clock"));
+    }
+
     @Test
     public void getInexistantSampleConf(){
 
@@ -242,8 +284,8 @@ Example from Scientio
 
         String payload = gs.toJson();
         // verify flat (default) serialization
-        assertTrue(payload.contains("\"" + ic01.getLabel() + "00\" :"));
-        assertTrue(payload.contains("\"" + ic01.getLabel() + "01\" :"));
+        assertTrue(payload.contains("\"" + ic01.getLabel() + "00\":"));
+        assertTrue(payload.contains("\"" + ic01.getLabel() + "01\":"));
 
     }
 
@@ -300,18 +342,162 @@ Example from Scientio
         String payload = gs.toJson();
 
         // singleton
-        assertTrue(payload.contains("\"car\" :"));
+        assertTrue(payload.contains("\"car\":"));
 
         // array type start
-        assertTrue(payload.contains("\"bar\" : ["));
+        assertTrue(payload.contains("\"bar\":["));
 
         // object type start
-        assertTrue(payload.contains("\"dar\" : {\n"));
+        assertTrue(payload.contains("\"dar\":{"));
 
         // flat type
-        assertTrue(payload.contains("\"lar00\" :"));
-        assertTrue(payload.contains("\"lar02\" :"));
-        assertTrue(payload.contains("\"lar04\" :"));
+        assertTrue(payload.contains("\"lar00\":"));
+        assertTrue(payload.contains("\"lar02\":"));
+        assertTrue(payload.contains("\"lar04\":"));
+
+    }
+
+    @Test
+    public void largeItemArraysKeepOrder() throws JsonProcessingException {
 
+        final int count = 1000;
+        ObjectMapper mapper = new ObjectMapper();
+
+        for (ItemArType arType : Arrays.asList(ItemArType.Array, ItemArType.Object, ItemArType.Flat)) {
+            ItemConfig ic = new ItemNumConfig("bigLoo" + arType, "big", ItemType.Long, 0, 10, 1.0, 0.33);
+            ic.setCount(count);
+            ic.setArType(arType);
+            GenericSample gs = GenericSample.of(new SampleConfig("random", "bigTesting" + arType,
+              "test/big", Collections.singletonList(ic)));
+
+            List<Item> items = gs.getItems().get("bigLoo" + arType);
+            for (int i = 0; i < count; i++) {
+                items.get(i).setVal((long) i);
+            }
+
+            Map<String, Object> map = mapper.readValue(gs.toJson(), new TypeReference<Map<String, Object>>(){});
+
+            for (int i = 0; i < count; i++) {
+                Object val;
+                switch (arType) {
+                    case Array:
+                        val = ((List<?>) map.get("big")).get(i);
+                        break;
+                    case Object:
+                        val = ((Map<?, ?>) map.get("big")).get(String.format("%04d", i));
+                        break;
+                    default:
+                        val = map.get(String.format("big%04d", i));
+                }
+                assertEquals(i, ((Number) val).intValue(), arType + " element " + i);
+            }
+        }
     }
+
+    @Test
+    public void sampleToPayloadReusesBuffer() throws IOException {
+
+        ItemConfig ic01 = new ItemNumConfig("foo", "bar", ItemType.Double, 0.0, 100.0, 1.0, 0.17, 3);
+        ItemConfig icString = new ItemStringConfig("hoo", "dar", ItemType.String, Arrays.asList("cat", "dog"));
+        SampleConfig sc = new SampleConfig("random", "testing", "test/pokus", Arrays.asList(ic01, icString));
+        GenericSample gs = GenericSample.of(sc);
+
+        PayloadBuffer buffer = new PayloadBuffer();
+
+        ByteBuffer payload = gs.toPayload(buffer);
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        assertEquals(gs.toJson(), new String(bytes, StandardCharsets.UTF_8));
+        assertEquals(gs.toJson(), buffer.asString());
+
+        int grownCapacity = payload.capacity();
+
+        gs.update();
+        ByteBuffer payload2 = gs.toPayload(buffer);
+        assertEquals(gs.toJson(), buffer.asString());
+        // same backing array, no reallocation once grown
+        assertSame(payload.array(), payload2.array());
+        assertEquals(grownCapacity, payload2.capacity());
+
+        // stream is left open to the caller
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                fail("stream should not be closed");
+            }
+        };
+        gs.serializeInto(out);
+        assertEquals(gs.toJson(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void sampleToJsonCompactOrPretty() throws JsonProcessingException {
+
+        ItemConfig ic01 = new ItemNumConfig("foo", "bar", ItemType.Double, 0.0, 100.0, 1.0, 0.17, 3);
+        ItemConfig icString = new ItemStringConfig("hoo", "dar", ItemType.String, Arrays.asList("cat", "dog"));
+        icString.setCount(2);
+        icString.setArType(ItemArType.Object);
+        SampleConfig sc = new SampleConfig("random", "testing", "test/pokus", Arrays.asList(ic01, icString));
+        GenericSample gs = GenericSample.of(sc);
+
+        String compact = gs.toJson();
+        assertFalse(compact.contains("\n"));
+        assertTrue(compact.contains("\"bar\":"));
+        assertTrue(compact.contains("\"dar\":{"));
+
+        try {
+            JsonWriterCache.setPrettyPrint(true);
+            String pretty = gs.toJson();
+            assertTrue(pretty.contains("\"bar\" :"));
+            assertTrue(pretty.contains("\"dar\" : {\n"));
+        } finally {
+            JsonWriterCache.setPrettyPrint(false);
+        }
+
+        // same writer instance reused for each class
+        assertSame(JsonWriterCache.writerFor(GenericSample.class), JsonWriterCache.writerFor(GenericSample.class));
+        assertNotSame(JsonWriterCache.writerFor(GenericSample.class, false),
+          JsonWriterCache.writerFor(GenericSample.class, true));
+    }
+    @Test
+    public void seededItemsReplay(){
+        ItemConfig strConf = new ItemStringConfig("seedString", "note", ItemType.String,
+          Arrays.asList("Do", "Re", "Mi", "Fa", "Sol", "La", "Ti"));
+        strConf.setCount(3);
+        ItemConfig numConf = new ItemNumConfig("seedDouble", "level", ItemType.Double, 0, 10, 1.0, NumGenerator.DEFAULT_DEV);
+        SampleConfig sConf = new SampleConfig("seedSample", "seedSample", "test/seed", Arrays.asList(strConf, numConf));
+
+        try {
+            RandomStreams.setSeed(31337L);
+
+            GenericSample first = GenericSample.of(sConf);
+            GenericSample replay = GenericSample.of(sConf);
+            GenericSample other = GenericSample.of(sConf);
+            first.seedItems(1, 0);
+            replay.seedItems(1, 0);
+            other.seedItems(2, 0);
+
+            assertNotNull(first.item("seedDouble").getGenerator().getRandom());
+
+            StringBuilder firstVals = new StringBuilder();
+            StringBuilder replayVals = new StringBuilder();
+            StringBuilder otherVals = new StringBuilder();
+            for (int i = 0; i < 20; i++) {
+                first.update();
+                replay.update();
+                other.update();
+                for (int j = 0; j < 3; j++) {
+                    firstVals.append(first.getItems().get("seedString").get(j).asString());
+                    replayVals.append(replay.getItems().get("seedString").get(j).asString());
+                    otherVals.append(other.getItems().get("seedString").get(j).asString());
+                }
+            }
+
+            assertEquals(firstVals.toString(), replayVals.toString());
+            assertNotEquals(firstVals.toString(), otherVals.toString());
+        } finally {
+            RandomStreams.setSeed(null);
+        }
+    }
+
 }
@@ -0,0 +1,82 @@
+package io.bonitoo.qa.data;
+
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.data.generator.NumGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+public class TickContextTest {
+
+  @Test
+  public void millisSinceMidnightInZone() {
+    ZonedDateTime utc = ZonedDateTime.of(2023, 6, 15, 13, 45, 30, 250_000_000, ZoneOffset.UTC);
+    long millis = utc.toInstant().toEpochMilli();
+
+    assertEquals(((13 * 60 + 45) * 60 + 30) * 1000 + 250,
+      TickContext.millisSince0Hour(millis, ZoneOffset.UTC));
+    // 19:15:30.250 in Kolkata
+    assertEquals(((19 * 60 + 15) * 60 + 30) * 1000 + 250,
+      new TickContext(ZoneId.of("Asia/Kolkata")).setMillis(millis).getMillisSince0Hour());
+    // 23:45:30.250 the day before in Honolulu
+    assertEquals(((3 * 60 + 45) * 60 + 30) * 1000 + 250,
+      TickContext.millisSince0Hour(millis, ZoneId.of("Pacific/Honolulu")));
+  }
+
+  @Test
+  public void setMillisRecalculates() {
+    TickContext tick = new TickContext(ZoneOffset.UTC);
+    tick.setMillis(1000L);
+    assertEquals(1000L, tick.getMillisSince0Hour());
+    assertEquals(NumGenerator.radiansOfClock(1000L), tick.getRadiansOfClock());
+
+    tick.setMillis(2000L);
+    assertEquals(2000L, tick.getMillis());
+    assertEquals(2000L, tick.getMillisSince0Hour());
+    assertEquals(NumGenerator.radiansOfClock(2000L), tick.getRadiansOfClock());
+  }
+
+  @Test
+  public void legacyMillisSince0HourAgrees() {
+    LocalDateTime before = LocalDateTime.now();
+    long millis = NumGenerator.millisSince0Hour();
+    long expected = before.toLocalTime().toNanoOfDay() / 1_000_000;
+    // allow for the time elapsed between the two readings, and for passing midnight
+    assertTrue(millis - expected >= 0 && millis - expected < 1000 || expected - millis > 86_000_000);
+  }
+
+  @Test
+  public void sampleStampedWithTick() {
+    ItemNumConfig conf = new ItemNumConfig("tickDouble", "level", ItemType.Double, 10, 20, 1.0, 0.0);
+    SampleConfig sConf = new SampleConfig("tickSample", "tickSample", "test/tick", Collections.singletonList(conf));
+    GenericSample sample = GenericSample.of(sConf);
+
+    long then = 1_600_000_000_000L;
+    sample.update(new TickContext(then));
+
+    assertEquals(then, sample.getTimestamp());
+    // dev 0 yields the mid value regardless of time
+    assertEquals(15.0, sample.item("tickDouble").asDouble());
+
+    sample.update();
+    assertTrue(sample.getTimestamp() > then);
+  }
+
+  @Test
+  public void radiansMatchTimeBasedValues() {
+    long millis = 1_600_000_000_000L;
+    double radians = new TickContext(millis).getRadiansOfClock();
+    assertEquals(NumGenerator.genDoubleValSin(1.0, 0.25, -4, 8, millis, 0.42),
+      NumGenerator.genDoubleValAtRadians(1.0, 0.25, -4, 8, radians, 0.42));
+  }
+
+}
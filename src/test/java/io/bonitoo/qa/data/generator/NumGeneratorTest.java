@@ -7,6 +7,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.Random;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -82,4 +83,116 @@ public class NumGeneratorTest {
         assertEquals("The deviation value 'dev' is 3.142.  But must be between 0.0 and 1.0", exp2.getMessage());
 
     }
+
+    /**
+     * The rejection loop originally used by NumGenerator.gaussNormalFilter, drawing from a
+     * seeded Random.  Kept as the reference distribution for gaussNormalQuantile.
+     */
+    static double legacyGaussNormalFilter(double min, double max, Random rand) {
+        double spread = max - min;
+        double sigma3Max = spread * 0.997;
+        double sigma3Min = max - sigma3Max;
+        double sigma2dot5Max = spread * 0.987;
+        double sigma2dot5Min = max - sigma2dot5Max;
+        double sigma2Max = spread * 0.95;
+        double sigma2Min = max - sigma2Max;
+        double sigma1dot5Max = spread * 0.87;
+        double sigma1dot5Min = max - sigma1dot5Max;
+        double sigma1Max = spread * 0.68;
+        double sigma1Min = max - sigma1Max;
+        double sigma0dot5Max = max - (spread * 0.38);
+        double sigma0dot5Min = max - sigma0dot5Max;
+
+        double d = (rand.nextDouble() * spread) + min;
+
+        while (true) {
+            double check = rand.nextDouble();
+            if ((d > sigma0dot5Min && d < sigma0dot5Max) && check < 0.380) {
+                break;
+            } else if (((d > sigma1Min && d < sigma0dot5Min) || (d < sigma1Max && d > sigma0dot5Max))
+              && check < 0.300) {
+                break;
+            } else if (((d > sigma1dot5Min && d < sigma1Min) || (d < sigma1dot5Max && d > sigma1Max))
+              && check < 0.190) {
+                break;
+            } else if (((d > sigma2Min && d < sigma1dot5Min) || (d < sigma2Max && d > sigma2dot5Max))
+              && check < 0.080) {
+                break;
+            } else if (((d > sigma2dot5Min && d < sigma2Min) || (d < sigma2dot5Max && d > sigma2Max))
+              && check < 0.037) {
+                break;
+            } else if (((d > sigma3Min && d < sigma2dot5Min) || (d < sigma3Max && d > sigma2dot5Max))
+              && check < 0.010) {
+                break;
+            } else if (check < 0.003) {
+                break;
+            }
+            d = (rand.nextDouble() * spread) + min;
+        }
+        return d;
+    }
+
+    static Stream<Arguments> bandStream(){
+        return Stream.of(
+          Arguments.of(0.0, 10.0),
+          Arguments.of(-4.0, 8.0),
+          Arguments.of(10.0, 20.0),
+          Arguments.of(-15.0, -5.0),
+          Arguments.of(0.6, 1.4),
+          Arguments.of(8.0, -4.0)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("bandStream")
+    public void quantileMatchesRejectionHistogram(double min, double max){
+        final int bins = 50;
+        final int samples = 100000;
+        long[] legacy = new long[bins];
+        long[] quantile = new long[bins];
+
+        Random legacyRand = new Random(42);
+        Random quantileRand = new Random(24);
+
+        for (int i = 0; i < samples; i++) {
+            legacy[bin(legacyGaussNormalFilter(min, max, legacyRand), min, max, bins)]++;
+            quantile[bin(NumGenerator.gaussNormalQuantile(min, max, quantileRand.nextDouble()), min, max, bins)]++;
+        }
+
+        // two sample chi-square over bins holding data
+        double chiSq = 0;
+        int df = -1;
+        for (int i = 0; i < bins; i++) {
+            long sum = legacy[i] + quantile[i];
+            if (sum > 0) {
+                chiSq += Math.pow(legacy[i] - quantile[i], 2) / sum;
+                df++;
+            }
+        }
+
+        // critical value at p = 0.001 is below df + 3.3 * sqrt(2 * df) for these df
+        double critical = df + 3.3 * Math.sqrt(2.0 * df);
+        assertTrue(chiSq < critical,
+          String.format("chi-square %.2f exceeds %.2f with %d degrees of freedom", chiSq, critical, df));
+    }
+
+    private static int bin(double val, double min, double max, int bins){
+        double lower = Math.min(min, max);
+        double upper = Math.max(min, max);
+        assertTrue(val >= lower && val <= upper, "value " + val + " outside " + lower + " to " + upper);
+        return Math.min(bins - 1, (int) ((val - lower) / (upper - lower) * bins));
+    }
+
+    @Test
+    public void quantileBoundsAndDegenerateSpread(){
+        assertEquals(5.0, NumGenerator.gaussNormalQuantile(5.0, 5.0, 0.5));
+        assertEquals(0.0, NumGenerator.gaussNormalQuantile(0.0, 10.0, 0.0));
+        assertTrue(NumGenerator.gaussNormalQuantile(0.0, 10.0, Math.nextDown(1.0)) <= 10.0);
+        double prev = Double.NEGATIVE_INFINITY;
+        for (double u = 0; u < 1.0; u += 0.001) {
+            double val = NumGenerator.gaussNormalQuantile(-4.0, 8.0, u);
+            assertTrue(val >= prev);
+            prev = val;
+        }
+    }
 }
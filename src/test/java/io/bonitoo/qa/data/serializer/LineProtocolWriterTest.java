@@ -0,0 +1,70 @@
+package io.bonitoo.qa.data.serializer;
+
+import io.bonitoo.qa.conf.Config;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.data.DoubleItem;
+import io.bonitoo.qa.data.GenericSample;
+import io.bonitoo.qa.data.ItemType;
+import io.bonitoo.qa.data.LongItem;
+import io.bonitoo.qa.data.generator.NumGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+public class LineProtocolWriterTest {
+
+  @BeforeEach
+  public void setup() {
+    Config.reset();
+  }
+
+  @Test
+  public void primitiveItemsNotBoxed() throws Exception {
+    ItemConfig dConf = new ItemNumConfig("lpDouble", "dbl", ItemType.Double, 0, 100, 1.0,
+      NumGenerator.DEFAULT_DEV);
+    ItemConfig lConf = new ItemNumConfig("lpLong", "lng", ItemType.Long, 0, 100, 1.0,
+      NumGenerator.DEFAULT_DEV);
+    GenericSample sample = GenericSample.of(new SampleConfig("lpSample", "lpSample", "test/lp",
+      Arrays.asList(dConf, lConf)));
+
+    // watch the items for boxing of their values
+    AtomicInteger boxed = new AtomicInteger();
+    sample.getItems().put("lpDouble", Collections.singletonList(
+        new DoubleItem(dConf, 42.5, null) {
+          @Override
+          public Object getVal() {
+            boxed.incrementAndGet();
+            return super.getVal();
+          }
+        }));
+    sample.getItems().put("lpLong", Collections.singletonList(
+        new LongItem(lConf, 42L, null) {
+          @Override
+          public Object getVal() {
+            boxed.incrementAndGet();
+            return super.getVal();
+          }
+        }));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertTrue(LineProtocolWriter.write(sample, out));
+
+    String line = out.toString(StandardCharsets.UTF_8.name());
+    assertTrue(line.startsWith("lpSample,id=lpSample "), line);
+    assertTrue(line.matches(".* (dbl=42.5,lng=42i|lng=42i,dbl=42.5) [0-9]+"), line);
+
+    assertEquals(0, boxed.get());
+  }
+
+}
@@ -0,0 +1,200 @@
+package io.bonitoo.qa.device;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.MqttClientState;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
+import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5Connect;
+import com.hivemq.client.mqtt.mqtt5.message.connect.connack.Mqtt5ConnAck;
+import com.hivemq.client.mqtt.mqtt5.message.disconnect.Mqtt5Disconnect;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishResult;
+import io.bonitoo.qa.DeviceRunner;
+import io.bonitoo.qa.conf.Config;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.conf.device.DeviceConfig;
+import io.bonitoo.qa.data.ItemType;
+import io.bonitoo.qa.data.generator.NumGenerator;
+import io.bonitoo.qa.mqtt.client.MqttClientAsync;
+import io.bonitoo.qa.mqtt.client.VirDevMqttClientBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@Tag("intg")
+@ExtendWith(MockitoExtension.class)
+public class AsyncDeviceTest {
+
+  static long origTTL;
+
+  @Mock
+  Mqtt5AsyncClient mHiveClient;
+
+  @Mock
+  Mqtt5ConnAck mockHiveAck;
+
+  @Mock
+  Mqtt5PublishResult mockPubResult;
+
+  @BeforeEach
+  public void setup() {
+    reset(mHiveClient);
+    lenient().when(mHiveClient.connect()).thenReturn(CompletableFuture.completedFuture(mockHiveAck));
+    lenient().when(mHiveClient.connect(any(Mqtt5Connect.class)))
+      .thenReturn(CompletableFuture.completedFuture(mockHiveAck));
+    lenient().when(mHiveClient.publish(any(Mqtt5Publish.class)))
+      .thenReturn(CompletableFuture.completedFuture(mockPubResult));
+    lenient().when(mHiveClient.getState()).thenReturn(MqttClientState.CONNECTED);
+    lenient().when(mHiveClient.disconnect(any(Mqtt5Disconnect.class)))
+      .thenReturn(CompletableFuture.completedFuture(null));
+    Config.reset();
+    // N.B. changing values in static Config can impact other tests
+    origTTL = Config.ttl();
+  }
+
+  @AfterEach
+  public void resetAny(){
+    // N.B. changing values in static Config can impact other tests
+    Config.getRunnerConfig().setTtl(origTTL);
+  }
+
+  private MqttClientAsync genClient(String id) {
+    VirDevMqttClientBuilder builder = new VirDevMqttClientBuilder(Config.getBrokerConf());
+    builder.id(id);
+    MqttClientAsync client = builder.buildAsync();
+    client.setClient(mHiveClient);
+    return client;
+  }
+
+  @Test
+  public void genericDeviceAsyncBaseTest() {
+
+    ItemConfig iConf = new ItemNumConfig("testItem", "anyVal", ItemType.Double, 0, 100, 1.0, NumGenerator.DEFAULT_DEV);
+    SampleConfig sConf = new SampleConfig("asyncSample01", "asyncSample", "test/async",
+      Collections.singletonList(iConf));
+
+    DeviceConfig devConf = new DeviceConfig("asyncDevice01", "asyncDevice", "A test device",
+      Collections.singletonList(sConf), 1000L, 0L, 1);
+
+    GenericDevice device = GenericDevice.singleDevice(genClient("ASDF Client"), devConf);
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    device.asyncRun(System.currentTimeMillis() + 2000, scheduler).join();
+
+    scheduler.shutdown();
+
+    verify(mHiveClient, times(1)).connect(any(Mqtt5Connect.class));
+    verify(mHiveClient, times(2)).publish(any(Mqtt5Publish.class));
+    verify(mHiveClient, times(1)).disconnect(any(Mqtt5Disconnect.class));
+  }
+
+  @Test
+  public void maxInFlightBoundsPublishes() {
+
+    // acknowledgements never arrive, so in flight publishes accumulate
+    CompletableFuture<Mqtt5PublishResult> neverAcked = new CompletableFuture<>();
+    when(mHiveClient.publish(any(Mqtt5Publish.class))).thenReturn(neverAcked);
+
+    ItemConfig iConf = new ItemNumConfig("testItem", "anyVal", ItemType.Double, 0, 100, 1.0, NumGenerator.DEFAULT_DEV);
+    SampleConfig sConf = new SampleConfig("asyncSample01", "asyncSample", "test/async",
+      Collections.singletonList(iConf));
+
+    DeviceConfig devConf = new DeviceConfig("asyncDevice01", "asyncDevice", "A test device",
+      Collections.singletonList(sConf), 100L, 0L, 1, 3);
+
+    GenericDevice device = GenericDevice.singleDevice(genClient("ASDF Client"), devConf);
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    CompletableFuture<Void> run = device.asyncRun(System.currentTimeMillis() + 1000, scheduler);
+
+    scheduler.schedule(() -> neverAcked.complete(mockPubResult), 1500, TimeUnit.MILLISECONDS);
+
+    run.join();
+
+    scheduler.shutdown();
+
+    // ten ticks were possible, but only three publishes may await acknowledgement
+    verify(mHiveClient, times(3)).publish(any(Mqtt5Publish.class));
+    verify(mHiveClient, times(1)).disconnect(any(Mqtt5Disconnect.class));
+  }
+
+  @Test
+  public void qosZeroNotBoundByMaxInFlight() {
+
+    // a QoS 0 publish is never acknowledged, so it is not counted as in flight
+    when(mHiveClient.publish(any(Mqtt5Publish.class))).thenReturn(new CompletableFuture<>());
+
+    ItemConfig iConf = new ItemNumConfig("testItem", "anyVal", ItemType.Double, 0, 100, 1.0, NumGenerator.DEFAULT_DEV);
+    SampleConfig sConf = new SampleConfig("asyncSample01", "asyncSample", "test/async",
+      Collections.singletonList(iConf));
+
+    DeviceConfig devConf = new DeviceConfig("asyncDevice01", "asyncDevice", "A test device",
+      Collections.singletonList(sConf), 100L, 0L, 1, 3, null, MqttQos.AT_MOST_ONCE, null);
+
+    GenericDevice device = GenericDevice.singleDevice(genClient("ASDF Client"), devConf);
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    device.asyncRun(System.currentTimeMillis() + 1000, scheduler).join();
+
+    scheduler.shutdown();
+
+    ArgumentCaptor<Mqtt5Publish> captor = ArgumentCaptor.forClass(Mqtt5Publish.class);
+    verify(mHiveClient, atLeast(8)).publish(captor.capture());
+    for (Mqtt5Publish publish : captor.getAllValues()) {
+      assertEquals(MqttQos.AT_MOST_ONCE, publish.getQos());
+    }
+    verify(mHiveClient, times(1)).disconnect(any(Mqtt5Disconnect.class));
+  }
+
+  @Test
+  public void asyncMainRunsDevicesOnSharedScheduler() {
+
+    ItemConfig iConf = new ItemNumConfig("testItem", "anyVal", ItemType.Double, 0, 100, 1.0, NumGenerator.DEFAULT_DEV);
+    SampleConfig sConfA = new SampleConfig("SampleA", "SampleA", "test/alpha", Arrays.asList(iConf));
+    SampleConfig sConfB = new SampleConfig("SampleB", "SampleB", "test/beta", Arrays.asList(iConf));
+
+    DeviceConfig devConf = new DeviceConfig("asyncDevice", "asyncDevice", "A test device",
+      Arrays.asList(sConfA, sConfB), 1000L, 0L, 10);
+
+    List<Device> devices = new ArrayList<>();
+    for (int i = 1; i <= devConf.getCount(); i++) {
+      DeviceConfig copyConf = new DeviceConfig(devConf, i);
+      devices.add(GenericDevice.numberedDevice(genClient(copyConf.getId()), copyConf, i));
+    }
+
+    Config.getRunnerConfig().setTtl(2000L);
+
+    long start = System.currentTimeMillis();
+    DeviceRunner.asyncMain(devices);
+    assertTrue(System.currentTimeMillis() - start < Config.ttl() + 1000);
+
+    verify(mHiveClient, times(devices.size())).connect(any(Mqtt5Connect.class));
+    // each device publishes two samples twice
+    verify(mHiveClient, times(devices.size() * 4)).publish(any(Mqtt5Publish.class));
+    verify(mHiveClient, times(devices.size())).disconnect(any(Mqtt5Disconnect.class));
+  }
+
+}
@@ -0,0 +1,162 @@
+package io.bonitoo.qa.device;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.bonitoo.qa.DeviceRunner;
+import io.bonitoo.qa.VirtualDeviceRuntimeException;
+import io.bonitoo.qa.conf.BackfillConfig;
+import io.bonitoo.qa.conf.Config;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.conf.device.DeviceConfig;
+import io.bonitoo.qa.data.ItemType;
+import io.bonitoo.qa.mqtt.client.MqttClientAsync;
+import io.bonitoo.qa.mqtt.client.MqttClientBlocking;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@Tag("intg")
+@ExtendWith(MockitoExtension.class)
+public class BackfillDeviceTest {
+
+  static final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+
+  @Mock
+  MqttClientBlocking mockClient;
+
+  @BeforeEach
+  public void setup() {
+    reset(mockClient);
+    Config.reset();
+  }
+
+  private DeviceConfig genDeviceConfig(long interval, long jitter) {
+    // period 1 - values peak at 06h UTC and bottom out at 18h UTC
+    ItemConfig iConf = new ItemNumConfig("backfillItem", "level", ItemType.Double, 0, 100, 1.0, 0.01);
+    SampleConfig sConf = new SampleConfig("backfillSample", "backfillSample", "test/backfill",
+      Collections.singletonList(iConf));
+    return new DeviceConfig("backfillDevice", "backfillDevice", "A backfilling test device",
+      Collections.singletonList(sConf), interval, jitter, 1);
+  }
+
+  @Test
+  public void backfillOneDay() throws Exception {
+
+    List<JsonNode> published = new ArrayList<>();
+    ObjectMapper om = new ObjectMapper();
+
+    when(mockClient.publish(eq("test/backfill"), any(ByteBuffer.class))).thenAnswer(invocation -> {
+      ByteBuffer payload = invocation.getArgument(1);
+      byte[] bytes = new byte[payload.remaining()];
+      payload.duplicate().get(bytes);
+      published.add(om.readTree(new String(bytes, StandardCharsets.UTF_8)));
+      return mockClient;
+    });
+
+    GenericDevice device = GenericDevice.singleDevice(mockClient, genDeviceConfig(60000L, 0L));
+
+    long start = Instant.parse("2023-03-20T00:00:00Z").toEpochMilli();
+    long wallStart = System.currentTimeMillis();
+
+    long ticks = device.backfillRun(start, start + DAY_MILLIS);
+
+    // a simulated day of one minute intervals takes far less than a day
+    assertTrue(System.currentTimeMillis() - wallStart < 30000);
+    assertEquals(24 * 60, ticks);
+    assertEquals(24 * 60, published.size());
+
+    verify(mockClient, times(1)).connect();
+    verify(mockClient, times(1)).disconnect();
+
+    for (int i = 0; i < published.size(); i++) {
+      assertEquals(start + (i * 60000L), published.get(i).get("timestamp").asLong());
+    }
+
+    // values follow the simulated clock
+    double at06h = published.get(6 * 60).get("level").asDouble();
+    double at18h = published.get(18 * 60).get("level").asDouble();
+    assertTrue(at06h > 90, "value at 06h " + at06h);
+    assertTrue(at18h < 10, "value at 18h " + at18h);
+  }
+
+  @Test
+  public void backfillFailuresReported() {
+
+    MqttClientBlocking failingClient = mock(MqttClientBlocking.class);
+    when(mockClient.publish(eq("test/backfill"), any(ByteBuffer.class))).thenReturn(mockClient);
+    when(failingClient.publish(eq("test/backfill"), any(ByteBuffer.class)))
+      .thenThrow(new VirtualDeviceRuntimeException("broker gone"));
+
+    List<Device> devices = Arrays.asList(
+      GenericDevice.singleDevice(mockClient, genDeviceConfig(60000L, 0L)),
+      GenericDevice.singleDevice(failingClient, genDeviceConfig(60000L, 0L)));
+
+    long start = Instant.parse("2023-03-20T00:00:00Z").toEpochMilli();
+
+    VirtualDeviceRuntimeException failed = assertThrows(VirtualDeviceRuntimeException.class,
+      () -> DeviceRunner.backfillMain(devices, new BackfillConfig(start, start + DAY_MILLIS)));
+    assertTrue(failed.getMessage().contains("1 of 2 devices"), failed.getMessage());
+    assertEquals("broker gone", failed.getCause().getMessage());
+  }
+
+  @Test
+  public void backfillTimesOut() {
+
+    when(mockClient.publish(eq("test/backfill"), any(ByteBuffer.class))).thenAnswer(invocation -> {
+      Thread.sleep(10000);
+      return mockClient;
+    });
+
+    List<Device> devices = Collections.singletonList(
+      GenericDevice.singleDevice(mockClient, genDeviceConfig(60000L, 0L)));
+
+    long start = Instant.parse("2023-03-20T00:00:00Z").toEpochMilli();
+    long wallStart = System.currentTimeMillis();
+
+    VirtualDeviceRuntimeException failed = assertThrows(VirtualDeviceRuntimeException.class,
+      () -> DeviceRunner.backfillMain(devices,
+        new BackfillConfig(start, start + DAY_MILLIS, 200L)));
+    assertTrue(failed.getMessage().contains("timeout of 200 ms"), failed.getMessage());
+    assertTrue(System.currentTimeMillis() - wallStart < 5000);
+  }
+
+  @Test
+  public void backfillFollowsJitter() throws Exception {
+
+    when(mockClient.publish(eq("test/backfill"), any(ByteBuffer.class))).thenReturn(mockClient);
+
+    GenericDevice device = GenericDevice.numberedDevice(mockClient, genDeviceConfig(1000L, 500L), 2);
+
+    // first tick at start + 1500, then every 1500
+    long ticks = device.backfillRun(0L, 15000L);
+
+    assertEquals(9, ticks);
+    verify(mockClient, times(9)).publish(eq("test/backfill"), any(ByteBuffer.class));
+  }
+
+  @Test
+  public void backfillRejectsOtherClients() {
+    GenericDevice device = GenericDevice.singleDevice(mock(MqttClientAsync.class), genDeviceConfig(1000L, 0L));
+
+    assertThrows(RuntimeException.class, () -> device.backfillRun(0L, 10000L));
+  }
+
+}
@@ -1,5 +1,6 @@
 package io.bonitoo.qa.device;
 
+import com.hivemq.client.mqtt.datatypes.MqttQos;
 import io.bonitoo.qa.data.*;
 import io.bonitoo.qa.conf.data.ItemConfig;
 import io.bonitoo.qa.conf.data.ItemNumConfig;
@@ -14,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -66,7 +68,7 @@ public class BlockingDeviceTest {
         DeviceConfig devConf = Config.deviceConf(0);
 
         SampleConfig sampConf = Config.sampleConf(0, 0);
-        when(mockClient.publish(eq(sampConf.getTopic()),anyString())).thenReturn(mockClient);
+        when(mockClient.publish(eq(sampConf.getTopic()),any(ByteBuffer.class))).thenReturn(mockClient);
 
         devConf.setInterval(1000l);
 
@@ -79,7 +81,7 @@ public class BlockingDeviceTest {
         executor.shutdown();
 
         verify(mockClient, times(1)).connect();
-        verify(mockClient, times(2)).publish(eq(sampConf.getTopic()), anyString());
+        verify(mockClient, times(2)).publish(eq(sampConf.getTopic()), any(ByteBuffer.class));
     }
 
     @Test
@@ -105,7 +107,7 @@ public class BlockingDeviceTest {
         assertEquals(2, Config.getSampleConfs(0).size());
 
         for(SampleConfig sampConf : Config.getSampleConfs(0)) {
-            when(mockClient.publish(eq(sampConf.getTopic()), anyString())).thenReturn(mockClient);
+            when(mockClient.publish(eq(sampConf.getTopic()), any(ByteBuffer.class))).thenReturn(mockClient);
         }
 
         GenericDevice device = GenericDevice.singleDevice(mockClient, Config.deviceConf(0));
@@ -120,7 +122,7 @@ public class BlockingDeviceTest {
         verify(mockClient, times(1)).connect();
 
         for (SampleConfig sampConf : Config.getSampleConfs(0)) {
-            verify(mockClient, times(2)).publish(eq(sampConf.getTopic()), anyString());
+            verify(mockClient, times(2)).publish(eq(sampConf.getTopic()), any(ByteBuffer.class));
         }
     }
 
@@ -164,7 +166,7 @@ public class BlockingDeviceTest {
         verify(mockClient, times(3)).connect();
         for(DeviceConfig devConf : Config.getDeviceConfs()){
             verify(mockClient, times(3)).publish(
-                    eq(devConf.getSample(0).getTopic()), anyString());
+                    eq(devConf.getSample(0).getTopic()), any(ByteBuffer.class));
         }
     }
 
@@ -218,11 +220,11 @@ public class BlockingDeviceTest {
             verify(((GenericDevice)device).getClient(),times(1)).connect();
             // First Sample published three times
             verify(((GenericDevice)device).getClient(),times(3)).publish(
-                    eq(device.getConfig().getSample(0).getTopic()), anyString()
+                    eq(device.getConfig().getSample(0).getTopic()), any(ByteBuffer.class)
             );
             // Second Sample published three times
             verify(((GenericDevice)device).getClient(),times(3)).publish(
-                    eq(device.getConfig().getSample(1).getTopic()), anyString()
+                    eq(device.getConfig().getSample(1).getTopic()), any(ByteBuffer.class)
             );
         }
     }
@@ -255,7 +257,7 @@ public class BlockingDeviceTest {
         executor.shutdown();
 
         verify(mockClient, times(1)).connect();
-        verify(mockClient, times(2)).publish(eq(sampConf.getTopic()), anyString());
+        verify(mockClient, times(2)).publish(eq(sampConf.getTopic()), any(ByteBuffer.class));
     }
 
     @Test
@@ -297,5 +299,28 @@ public class BlockingDeviceTest {
     }
 
     // TODO no id with value "RANDOM" test.
-}
 
+    @Test
+    public void qosAndRetainFromConfig() throws Exception {
+
+        ItemConfig iConf = new ItemNumConfig("testItem", "anyVal", ItemType.Double, 0, 100, 1.0, NumGenerator.DEFAULT_DEV);
+        SampleConfig inheriting = new SampleConfig("inheriting", "inheriting", "test/qos/device", Arrays.asList(iConf));
+        SampleConfig overriding = new SampleConfig("overriding", "overriding", "test/qos/sample", Arrays.asList(iConf));
+        overriding.setQos(MqttQos.AT_MOST_ONCE);
+        overriding.setRetain(false);
+
+        DeviceConfig devConf = new DeviceConfig("qosDevice", "qosDevice", "A device with QoS",
+          Arrays.asList(inheriting, overriding), 1000l, 0l, 1, DeviceConfig.DEFAULT_MAX_IN_FLIGHT,
+          null, MqttQos.AT_LEAST_ONCE, true);
+
+        GenericDevice device = GenericDevice.singleDevice(mockClient, devConf);
+        device.tick();
+
+        verify(mockClient, times(1)).publish(eq("test/qos/device"), any(ByteBuffer.class),
+          eq(MqttQos.AT_LEAST_ONCE), eq(true));
+        verify(mockClient, times(1)).publish(eq("test/qos/sample"), any(ByteBuffer.class),
+          eq(MqttQos.AT_MOST_ONCE), eq(false));
+        verify(mockClient, never()).publish(anyString(), any(ByteBuffer.class));
+    }
+
+}
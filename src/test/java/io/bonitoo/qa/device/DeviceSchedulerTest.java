@@ -0,0 +1,261 @@
+package io.bonitoo.qa.device;
+
+import io.bonitoo.qa.conf.Config;
+import io.bonitoo.qa.conf.RampConfig;
+import io.bonitoo.qa.conf.RampCurve;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.conf.device.DeviceConfig;
+import io.bonitoo.qa.data.ItemType;
+import io.bonitoo.qa.data.generator.NumGenerator;
+import io.bonitoo.qa.metrics.MetricsRegistry;
+import io.bonitoo.qa.mqtt.client.MqttClientAsync;
+import io.bonitoo.qa.mqtt.client.MqttClientBlocking;
+import io.bonitoo.qa.sink.FleetSink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@Tag("intg")
+@ExtendWith(MockitoExtension.class)
+public class DeviceSchedulerTest {
+
+  @Mock
+  MqttClientBlocking mockClient;
+
+  @BeforeEach
+  public void setup() {
+    reset(mockClient);
+    Config.reset();
+  }
+
+  private DeviceConfig genDeviceConfig(int count) {
+    ItemConfig iConf = new ItemNumConfig("testItem", "anyVal", ItemType.Double, 0, 100, 1.0, NumGenerator.DEFAULT_DEV);
+    SampleConfig sConf = new SampleConfig("schedSample", "schedSample", "test/scheduled",
+      Collections.singletonList(iConf));
+    return new DeviceConfig("schedDevice", "schedDevice", "A scheduled test device",
+      Collections.singletonList(sConf), 1000L, 0L, count);
+  }
+
+  @Test
+  public void manyDevicesFewThreads() throws InterruptedException {
+
+    Set<String> publishingThreads = ConcurrentHashMap.newKeySet();
+
+    when(mockClient.publish(eq("test/scheduled"), any(ByteBuffer.class))).thenAnswer(invocation -> {
+      publishingThreads.add(Thread.currentThread().getName());
+      return mockClient;
+    });
+
+    DeviceConfig devConf = genDeviceConfig(200);
+
+    List<GenericDevice> devices = new ArrayList<>();
+    for (int i = 1; i <= devConf.getCount(); i++) {
+      devices.add(GenericDevice.numberedDevice(mockClient, new DeviceConfig(devConf, i), i));
+    }
+
+    DeviceScheduler scheduler = new DeviceScheduler(2);
+
+    long ttl = System.currentTimeMillis() + 2000;
+
+    for (GenericDevice device : devices) {
+      scheduler.scheduleBlocking(device, ttl);
+    }
+
+    assertTrue(scheduler.awaitCompletion(5000));
+    scheduler.shutdown();
+
+    verify(mockClient, times(devices.size())).connect();
+    verify(mockClient, times(devices.size() * 2)).publish(eq("test/scheduled"), any(ByteBuffer.class));
+    verify(mockClient, times(devices.size())).disconnect();
+
+    assertTrue(publishingThreads.size() <= 2);
+  }
+
+  @Test
+  public void fleetSharesClientWithoutConnecting() throws InterruptedException {
+
+    Set<String> publishingThreads = ConcurrentHashMap.newKeySet();
+    Set<String> sampleIds = ConcurrentHashMap.newKeySet();
+
+    when(mockClient.publish(eq("test/scheduled"), any(ByteBuffer.class))).thenAnswer(invocation -> {
+      publishingThreads.add(Thread.currentThread().getName());
+      String payload = StandardCharsets.UTF_8
+        .decode(invocation.getArgument(1, ByteBuffer.class).duplicate()).toString();
+      sampleIds.add(payload.substring(0, payload.indexOf(',')));
+      return mockClient;
+    });
+
+    LazyFleet fleet = new LazyFleet(Collections.singletonList(genDeviceConfig(100)));
+
+    DeviceScheduler scheduler = new DeviceScheduler(2);
+
+    MetricsRegistry.clear();
+
+    // device n ticks (n - 1) * 10 ms into each second, so twice before ttl
+    scheduler.scheduleFleet(fleet, template -> new FleetSink(mockClient, template),
+      System.currentTimeMillis() + 2000);
+
+    assertTrue(scheduler.awaitCompletion(5000));
+    scheduler.shutdown();
+
+    verify(mockClient, never()).connect();
+    verify(mockClient, times(200)).publish(eq("test/scheduled"), any(ByteBuffer.class));
+    verify(mockClient, never()).disconnect();
+
+    assertTrue(publishingThreads.size() <= 2);
+
+    // each thread reuses one device for its range, renumbered for each device
+    assertEquals(100, sampleIds.size());
+    assertTrue(sampleIds.contains("{\"id\":\"schedSample-042\""), sampleIds.toString());
+
+    // metrics are kept per config rather than per device
+    assertEquals(Collections.singleton("schedSample"), MetricsRegistry.samples("schedDevice"));
+    assertEquals(200, MetricsRegistry.device("schedDevice").messages());
+  }
+
+  @Test
+  public void laggingRangeYieldsThread() throws InterruptedException {
+
+    AtomicInteger fastTicks = new AtomicInteger();
+    long ttl = System.currentTimeMillis() + 1000;
+
+    // 200 devices of 2 ms each every 100 ms cannot keep up
+    when(mockClient.publish(eq("test/scheduled"), any(ByteBuffer.class))).thenAnswer(invocation -> {
+      Thread.sleep(2);
+      return mockClient;
+    });
+    when(mockClient.publish(eq("test/fast"), any(ByteBuffer.class))).thenAnswer(invocation -> {
+      // not held back until the lagging range is done
+      if (System.currentTimeMillis() < ttl) {
+        fastTicks.incrementAndGet();
+      }
+      return mockClient;
+    });
+
+    DeviceConfig slow = genDeviceConfig(200);
+    slow.setInterval(100L);
+    ItemConfig iConf = new ItemNumConfig("fastItem", "anyVal", ItemType.Double, 0, 100, 1.0, NumGenerator.DEFAULT_DEV);
+    DeviceConfig fast = new DeviceConfig("fastDevice", "fastDevice", "A fast test device",
+      Collections.singletonList(new SampleConfig("fastSample", "fastSample", "test/fast",
+        Collections.singletonList(iConf))), 100L, 0L, 1);
+
+    DeviceScheduler scheduler = new DeviceScheduler(1);
+
+    scheduler.scheduleFleet(new LazyFleet(Arrays.asList(slow, fast)),
+      template -> new FleetSink(mockClient, template), ttl);
+
+    assertTrue(scheduler.awaitCompletion(5000));
+    scheduler.shutdown();
+
+    // about ten ticks, taking turns with the lagging range
+    assertTrue(fastTicks.get() >= 5, "fast device ticked " + fastTicks.get() + " times");
+  }
+
+  @Test
+  public void slowConnectsDoNotHoldUpTicks() throws InterruptedException {
+
+    MqttClientBlocking slowClient = mock(MqttClientBlocking.class);
+    MqttClientBlocking queuedClient = mock(MqttClientBlocking.class);
+    AtomicInteger earlyTicks = new AtomicInteger();
+    long start = System.currentTimeMillis();
+
+    when(mockClient.publish(eq("test/scheduled"), any(ByteBuffer.class))).thenAnswer(invocation -> {
+      if (System.currentTimeMillis() < start + 500) {
+        earlyTicks.incrementAndGet();
+      }
+      return mockClient;
+    });
+    // holds the only handshake of the ramp, while the next device waits for it
+    when(slowClient.connect()).thenAnswer(invocation -> {
+      Thread.sleep(600);
+      return slowClient;
+    });
+
+    RampUpController ramp = new RampUpController(
+      new RampConfig(1000000, 1, RampCurve.CONSTANT, 0, 1000));
+    List<GenericDevice> devices = new ArrayList<>();
+    int number = 1;
+    for (MqttClientBlocking client : Arrays.asList(mockClient, slowClient, queuedClient)) {
+      DeviceConfig devConf = genDeviceConfig(3);
+      devConf.setInterval(50L);
+      GenericDevice device = GenericDevice.numberedDevice(client, new DeviceConfig(devConf, number), number++);
+      device.setRamp(ramp);
+      devices.add(device);
+    }
+
+    DeviceScheduler scheduler = new DeviceScheduler(1);
+
+    for (GenericDevice device : devices) {
+      scheduler.scheduleBlocking(device, start + 1000);
+    }
+
+    assertTrue(scheduler.awaitCompletion(5000));
+    scheduler.shutdown();
+
+    verify(queuedClient, times(1)).connect();
+    // about ten ticks, while the other devices connect
+    assertTrue(earlyTicks.get() >= 5, "connected device ticked " + earlyTicks.get() + " times");
+  }
+
+  @Test
+  public void jitterDelaysStart() throws InterruptedException {
+
+    DeviceConfig devConf = genDeviceConfig(1);
+    devConf.setJitter(500L);
+
+    GenericDevice device = GenericDevice.numberedDevice(mockClient, devConf, 2);
+
+    DeviceScheduler scheduler = new DeviceScheduler(1);
+
+    long start = System.currentTimeMillis();
+
+    // connect after 1000 ms, first tick 500 ms later, then ttl reached
+    scheduler.scheduleBlocking(device, start + 2000);
+
+    assertTrue(scheduler.awaitCompletion(5000));
+    scheduler.shutdown();
+
+    verify(mockClient, times(1)).connect();
+    verify(mockClient, times(1)).publish(eq("test/scheduled"), any(ByteBuffer.class));
+    verify(mockClient, times(1)).disconnect();
+  }
+
+  @Test
+  public void scheduleBlockingRejectsOtherClients() {
+
+    GenericDevice device = GenericDevice.singleDevice(mock(MqttClientAsync.class), genDeviceConfig(1));
+
+    DeviceScheduler scheduler = new DeviceScheduler(1);
+
+    assertThrows(RuntimeException.class, () -> scheduler.scheduleBlocking(device, System.currentTimeMillis()));
+
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void defaultPoolSizeBoundedByDevices() {
+    assertEquals(1, DeviceScheduler.defaultPoolSize(0));
+    assertEquals(1, DeviceScheduler.defaultPoolSize(1));
+    assertTrue(DeviceScheduler.defaultPoolSize(100000) <= Runtime.getRuntime().availableProcessors());
+  }
+
+}
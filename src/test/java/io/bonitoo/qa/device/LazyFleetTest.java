@@ -0,0 +1,185 @@
+package io.bonitoo.qa.device;
+
+import io.bonitoo.qa.conf.Config;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.ItemStringConfig;
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.conf.device.DeviceConfig;
+import io.bonitoo.qa.data.ItemType;
+import io.bonitoo.qa.data.Sample;
+import io.bonitoo.qa.data.generator.NumGenerator;
+import io.bonitoo.qa.data.serializer.PayloadBuffer;
+import io.bonitoo.qa.sink.SampleSink;
+import io.bonitoo.qa.util.RandomStreams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@Tag("unit")
+public class LazyFleetTest {
+
+  @BeforeEach
+  public void setup() {
+    Config.reset();
+  }
+
+  @AfterEach
+  public void cleanup() {
+    RandomStreams.setSeed(null);
+  }
+
+  private DeviceConfig genDeviceConfig(String id, int count) {
+    ItemConfig iConf = new ItemNumConfig("lazyItem", "anyVal", ItemType.Double, 0, 100, 1.0, NumGenerator.DEFAULT_DEV);
+    SampleConfig sConf = new SampleConfig("lazySample", "lazySample", "test/lazy",
+      new ArrayList<>(Collections.singletonList(iConf)));
+    return new DeviceConfig(id, id, "A lazy test device",
+      Collections.singletonList(sConf), 1000L, 0L, count);
+  }
+
+  @Test
+  public void rangesCoverEachConfig() {
+    DeviceConfig large = genDeviceConfig("large", 10);
+    DeviceConfig single = genDeviceConfig("single", 1);
+    LazyFleet fleet = new LazyFleet(Arrays.asList(large, single));
+
+    assertEquals(11, fleet.size());
+
+    // four threads, shared by the number of devices, but at least one per config
+    List<LazyFleet.Range> ranges = fleet.ranges(4);
+
+    assertEquals(4, ranges.size());
+    int next = 1;
+    for (LazyFleet.Range range : ranges.subList(0, 3)) {
+      assertSame(large, range.getTemplate());
+      assertEquals(next, range.getFrom());
+      assertTrue(range.getTo() > range.getFrom());
+      next = range.getTo();
+    }
+    assertEquals(11, next);
+    assertSame(single, ranges.get(3).getTemplate());
+    assertEquals(1, ranges.get(3).getFrom());
+    assertEquals(2, ranges.get(3).getTo());
+
+    assertEquals(2, fleet.ranges(1).size());
+  }
+
+  @Test
+  public void liveDeviceNumbered() {
+    SampleSink sink = mock(SampleSink.class);
+
+    GenericDevice device = new DeviceTemplate(genDeviceConfig("many", 20), 7).live(sink);
+    assertEquals("many-007", device.getConfig().getId());
+    assertEquals(1, device.getSampleList().size());
+
+    GenericDevice single = new DeviceTemplate(genDeviceConfig("single", 1), 1).live(sink);
+    assertEquals("single", single.getConfig().getId());
+  }
+
+  @Test
+  public void liveDeviceRenumbered() throws Exception {
+    DeviceConfig devConf = genDeviceConfig("reused", 1200);
+    List<String> payloads = new ArrayList<>();
+    SampleSink sink = new SampleSink() {
+      @Override
+      public void connect() {
+      }
+
+      @Override
+      public void write(Sample sample, PayloadBuffer buffer) throws IOException {
+        sample.toPayload(buffer);
+        payloads.add(buffer.asString());
+      }
+
+      @Override
+      public void disconnect() {
+      }
+    };
+
+    GenericDevice device = new DeviceTemplate(devConf, 7).live(sink);
+    assertEquals("reused-007", device.getConfig().getId());
+
+    new DeviceTemplate(devConf, 1012).applyTo(device, 0);
+    device.tick();
+    assertEquals(1012, device.getNumber());
+    assertEquals("reused-1012", device.getConfig().getId());
+    assertEquals("reused-1012", device.getConfig().getName());
+    assertEquals("lazySample-1012", device.getSampleList().get(0).getId());
+    assertEquals("lazySample-1012", device.getSampleList().get(0).getName());
+
+    new DeviceTemplate(devConf, 12).applyTo(device, 0);
+    device.tick();
+    assertEquals("reused-012", device.getConfig().getId());
+
+    assertTrue(payloads.get(0).startsWith("{\"id\":\"lazySample-1012\","), payloads.get(0));
+    assertTrue(payloads.get(1).startsWith("{\"id\":\"lazySample-012\","), payloads.get(1));
+
+    // the template is left as it was
+    assertEquals("reused", devConf.getId());
+    assertEquals("lazySample", devConf.getSamples().get(0).getId());
+  }
+
+  @Test
+  public void liveDeviceSeededOncePerTick() {
+    RandomStreams.setSeed(42L);
+    SampleSink sink = mock(SampleSink.class);
+    DeviceConfig devConf = genDeviceConfig("seededOnce", 5);
+    devConf.getSamples().get(0).getItems().add(new ItemStringConfig("lazyLetter", "letter",
+      ItemType.String, Arrays.asList("A", "B", "C", "D", "E", "F", "G", "H")));
+
+    GenericDevice device;
+    try (MockedStatic<RandomStreams> streams = mockStatic(RandomStreams.class, CALLS_REAL_METHODS)) {
+      device = new DeviceTemplate(devConf, 1).live(sink);
+      streams.verify(() -> RandomStreams.stream(any(long[].class)), never());
+
+      new DeviceTemplate(devConf, 4).applyTo(device, 2);
+      // one stream per item, for the tick only
+      streams.verify(() -> RandomStreams.stream(any(long[].class)), times(2));
+    }
+
+    // a reused device draws what a device built for the tick draws
+    assertEquals(values(seeded(new DeviceTemplate(devConf, 4), sink, 2)), values(device));
+  }
+
+  private static GenericDevice seeded(DeviceTemplate template, SampleSink sink, long tick) {
+    GenericDevice device = template.live(sink);
+    template.applyTo(device, tick);
+    return device;
+  }
+
+  private static List<Object> values(GenericDevice device) {
+    List<Object> values = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      values.add(device.getSampleList().get(0).update().itemVal("lazyLetter"));
+    }
+    return values;
+  }
+
+  @Test
+  public void seededTicksReplay() {
+    RandomStreams.setSeed(42L);
+    SampleSink sink = mock(SampleSink.class);
+    DeviceConfig devConf = genDeviceConfig("seeded", 5);
+    devConf.getSamples().get(0).getItems().add(new ItemStringConfig("lazyLetter", "letter",
+      ItemType.String, Arrays.asList("A", "B", "C", "D", "E", "F", "G", "H")));
+    DeviceTemplate template = new DeviceTemplate(devConf, 3);
+
+    List<Object> firstTick = values(seeded(template, sink, 0));
+
+    assertEquals(firstTick, values(seeded(template, sink, 0)));
+    assertNotEquals(firstTick, values(seeded(template, sink, 1)));
+  }
+
+}
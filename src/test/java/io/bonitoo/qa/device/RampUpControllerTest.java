@@ -0,0 +1,167 @@
+package io.bonitoo.qa.device;
+
+import io.bonitoo.qa.conf.RampConfig;
+import io.bonitoo.qa.conf.RampCurve;
+import io.bonitoo.qa.conf.VirDevConfigException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+public class RampUpControllerTest {
+
+  static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  public void constantSlots() {
+    RampUpController ramp = new RampUpController(
+        new RampConfig(100, 0, RampCurve.CONSTANT, 10000, 1000));
+
+    assertEquals(0, ramp.slotNanos(0));
+    assertEquals(SECOND / 100, ramp.slotNanos(1), 1);
+    assertEquals(SECOND, ramp.slotNanos(100), 1);
+  }
+
+  @Test
+  public void linearSlots() {
+    // rate rises to 100/s over 2s, so 100 slots fall within the ramp
+    RampUpController ramp = new RampUpController(
+        new RampConfig(100, 0, RampCurve.LINEAR, 2000, 1000));
+
+    assertEquals(0, ramp.slotNanos(0));
+    assertEquals(SECOND, ramp.slotNanos(25), 1000);
+    assertEquals(2 * SECOND, ramp.slotNanos(100), 1000);
+    assertEquals(3 * SECOND, ramp.slotNanos(200), 1000);
+
+    // slots come closer while the rate rises
+    long previousGap = Long.MAX_VALUE;
+    for (int slot = 1; slot < 100; slot++) {
+      long gap = ramp.slotNanos(slot + 1) - ramp.slotNanos(slot);
+      assertTrue(gap <= previousGap, "gap at slot " + slot);
+      previousGap = gap;
+    }
+  }
+
+  @Test
+  public void linearWithoutRampIsConstant() {
+    RampUpController ramp = new RampUpController(new RampConfig(50, 0, RampCurve.LINEAR, 0, 1000));
+
+    assertEquals(SECOND, ramp.slotNanos(50), 1);
+  }
+
+  @Test
+  public void reserveHandsOutSlotsInOrder() {
+    RampUpController ramp = new RampUpController(
+        new RampConfig(10, 0, RampCurve.CONSTANT, 0, 1000));
+
+    assertTrue(ramp.reserve() <= SECOND / 10);
+    long second = ramp.reserve();
+    long third = ramp.reserve();
+    assertTrue(second > 0 && second <= SECOND / 10);
+    assertTrue(third > second);
+  }
+
+  @Test
+  public void rejectsZeroRate() {
+    assertThrows(VirDevConfigException.class,
+        () -> new RampUpController(new RampConfig(0, 0, RampCurve.CONSTANT, 0, 1000)));
+  }
+
+  @Test
+  public void boundsConcurrentConnects() throws InterruptedException {
+    RampUpController ramp = new RampUpController(
+        new RampConfig(1000000, 2, RampCurve.CONSTANT, 0, 1000));
+    AtomicInteger concurrent = new AtomicInteger();
+    AtomicInteger maxSeen = new AtomicInteger();
+
+    ExecutorService service = Executors.newFixedThreadPool(8);
+    for (int i = 0; i < 16; i++) {
+      service.execute(() -> {
+        try {
+          ramp.rampConnect(() -> {
+            maxSeen.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            Thread.sleep(10);
+            concurrent.decrementAndGet();
+          });
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      });
+    }
+    service.shutdown();
+    assertTrue(service.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertEquals(2, maxSeen.get());
+    assertEquals(16, ramp.getConnectLatency().count());
+    assertTrue(ramp.getConnectLatency().percentile(50) >= TimeUnit.MILLISECONDS.toNanos(10));
+  }
+
+  @Test
+  public void countsFailedConnects() {
+    RampUpController ramp = new RampUpController(
+        new RampConfig(1000000, 1, RampCurve.CONSTANT, 0, 1000));
+
+    assertThrows(IllegalStateException.class, () -> ramp.connect(() -> {
+      throw new IllegalStateException("refused");
+    }));
+    assertEquals(1, ramp.failed.get());
+    assertEquals(0, ramp.getConnectLatency().count());
+    // the handshake was handed back
+    assertEquals(0, ramp.handshakes);
+  }
+
+  @Test
+  public void asyncConnectsWaitForHandshake() {
+    RampUpController ramp = new RampUpController(
+        new RampConfig(1000000, 1, RampCurve.CONSTANT, 0, 1000));
+    List<CompletableFuture<String>> acks = new ArrayList<>();
+    AtomicInteger started = new AtomicInteger();
+
+    CompletableFuture<String> first = ramp.connectAsync(() -> {
+      started.incrementAndGet();
+      CompletableFuture<String> ack = new CompletableFuture<>();
+      acks.add(ack);
+      return ack;
+    });
+    CompletableFuture<String> second = ramp.connectAsync(() -> {
+      started.incrementAndGet();
+      return CompletableFuture.completedFuture("second");
+    });
+
+    // the second connect waits for the first to be acknowledged
+    assertEquals(1, started.get());
+    assertFalse(second.isDone());
+
+    acks.get(0).complete("first");
+
+    assertEquals("first", first.join());
+    assertEquals("second", second.join());
+    assertEquals(2, started.get());
+    assertEquals(2, ramp.getConnectLatency().count());
+    assertEquals(0, ramp.handshakes);
+  }
+
+  @Test
+  public void reportsProgress() {
+    RampUpController ramp = new RampUpController(
+        new RampConfig(1000000, 0, RampCurve.CONSTANT, 0, 50));
+    ramp.startReporting(1);
+    assertNotNull(ramp.reporter);
+
+    ramp.connectAsync(() -> CompletableFuture.completedFuture(null)).join();
+
+    // the ramp is complete once the expected devices have connected
+    assertNull(ramp.reporter);
+    assertTrue(ramp.progress().startsWith("connected=1/1,failed=0"), ramp.progress());
+  }
+
+}
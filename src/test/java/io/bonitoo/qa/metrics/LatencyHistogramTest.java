@@ -0,0 +1,107 @@
+package io.bonitoo.qa.metrics;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+public class LatencyHistogramTest {
+
+  @Test
+  public void bucketsCoverValues() {
+    for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 123456789L, Long.MAX_VALUE}) {
+      int bucket = LatencyHistogram.bucketOf(value);
+      assertTrue(LatencyHistogram.upperBoundOf(bucket) >= value, "upper bound of " + value);
+      if (bucket > 0) {
+        assertTrue(LatencyHistogram.upperBoundOf(bucket - 1) < value, "lower bound of " + value);
+      }
+    }
+  }
+
+  @Test
+  public void bucketsBoundedToRealisticRange() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    // nothing allocated until the first record
+    assertNull(histogram.counts);
+
+    histogram.record(100);
+    histogram.record(TimeUnit.MINUTES.toNanos(10));
+
+    assertEquals(LatencyHistogram.BUCKETS, histogram.counts.length());
+    assertTrue(LatencyHistogram.BUCKETS < 64 * LatencyHistogram.SUB_BUCKETS / 2);
+    assertEquals(0, LatencyHistogram.bucketOf(100));
+    assertEquals(LatencyHistogram.BUCKETS - 1,
+      LatencyHistogram.bucketOf(TimeUnit.MINUTES.toNanos(10)));
+    // values out of range are reported within their bounds
+    assertEquals(1023, histogram.percentile(50));
+    assertEquals(TimeUnit.MINUTES.toNanos(10), histogram.percentile(100));
+  }
+
+  @Test
+  public void emptyHistogram() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.count());
+    assertEquals(0, histogram.percentile(99));
+    assertEquals(0.0, histogram.mean());
+  }
+
+  @Test
+  public void percentilesWithinRelativeError() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 1; i <= 1000; i++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+
+    assertEquals(1000, histogram.count());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), histogram.max());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(1) * 500.5, histogram.mean(), 1.0);
+
+    for (double p : new double[]{50, 90, 99}) {
+      double expected = TimeUnit.MILLISECONDS.toNanos((long) (p * 10));
+      double actual = histogram.percentile(p);
+      assertTrue(actual >= expected && actual <= expected * 1.07,
+          String.format("p%.0f %f expected about %f", p, actual, expected));
+    }
+    assertEquals(histogram.max(), histogram.percentile(100));
+  }
+
+  @Test
+  public void concurrentRecords() throws InterruptedException {
+    LatencyHistogram histogram = new LatencyHistogram();
+    ExecutorService service = Executors.newFixedThreadPool(4);
+    for (int t = 0; t < 4; t++) {
+      service.execute(() -> {
+        for (int i = 0; i < 10000; i++) {
+          histogram.record(i);
+        }
+      });
+    }
+    service.shutdown();
+    assertTrue(service.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertEquals(40000, histogram.count());
+    assertEquals(9999, histogram.max());
+  }
+
+  @Test
+  public void addHistograms() {
+    LatencyHistogram first = new LatencyHistogram();
+    LatencyHistogram second = new LatencyHistogram();
+    first.record(100);
+    first.record(200);
+    second.record(5000);
+
+    first.add(second);
+
+    assertEquals(3, first.count());
+    assertEquals(5000, first.max());
+    assertEquals(5300 / 3.0, first.mean(), 0.001);
+    assertEquals(1, second.count());
+  }
+
+}
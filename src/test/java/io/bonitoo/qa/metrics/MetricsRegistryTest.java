@@ -0,0 +1,138 @@
+package io.bonitoo.qa.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+public class MetricsRegistryTest {
+
+  @BeforeEach
+  public void setup() {
+    MetricsRegistry.clear();
+  }
+
+  @Test
+  public void countsPerDeviceAndSample() {
+    MetricsRegistry.of("device-001", "temp").published(100, TimeUnit.MILLISECONDS.toNanos(2));
+    MetricsRegistry.of("device-001", "temp").published(120, TimeUnit.MILLISECONDS.toNanos(4));
+    MetricsRegistry.of("device-001", "humid").sent(50);
+    MetricsRegistry.of("device-002", "temp").failed();
+
+    assertSame(MetricsRegistry.of("device-001", "temp"), MetricsRegistry.get("device-001", "temp"));
+    assertNull(MetricsRegistry.get("device-003", "temp"));
+    assertEquals(new HashSet<>(Arrays.asList("device-001", "device-002")),
+      MetricsRegistry.devices());
+    assertEquals(new HashSet<>(Arrays.asList("temp", "humid")),
+      MetricsRegistry.samples("device-001"));
+    assertTrue(MetricsRegistry.samples("device-003").isEmpty());
+
+    PublishMetrics temp = MetricsRegistry.get("device-001", "temp");
+    assertEquals(2, temp.messages());
+    assertEquals(220, temp.bytes());
+    assertEquals(2, temp.getLatency().count());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(4), temp.getLatency().max());
+
+    PublishMetrics device = MetricsRegistry.device("device-001");
+    assertEquals(3, device.messages());
+    assertEquals(270, device.bytes());
+    // messages not awaiting an acknowledgement have no latency
+    assertEquals(2, device.getLatency().count());
+
+    PublishMetrics total = MetricsRegistry.total();
+    assertEquals(3, total.messages());
+    assertEquals(1, total.failures());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(3), total.getLatency().mean(), 1.0);
+  }
+
+  @Test
+  public void totalIsSnapshot() {
+    MetricsRegistry.of("device-001", "temp").sent(10);
+    PublishMetrics total = MetricsRegistry.total();
+    MetricsRegistry.of("device-001", "temp").sent(10);
+
+    assertEquals(1, total.messages());
+    assertEquals(2, MetricsRegistry.total().messages());
+  }
+
+  @Test
+  public void countsReconnects() {
+    MetricsRegistry.connected("client-1");
+    MetricsRegistry.connected("client-2");
+    assertEquals(0, MetricsRegistry.reconnects("client-1"));
+    assertEquals(0, MetricsRegistry.reconnects());
+
+    MetricsRegistry.connected("client-1");
+    MetricsRegistry.connected("client-1");
+    assertEquals(2, MetricsRegistry.reconnects("client-1"));
+    assertEquals(0, MetricsRegistry.reconnects("client-3"));
+    assertEquals(2, MetricsRegistry.reconnects());
+  }
+
+  @Test
+  public void summaryListsGroups() {
+    MetricsRegistry.of("device-002", "temp-002").published(100, 1000000);
+    MetricsRegistry.of("device-001", "temp-001").published(100, 1000000);
+    MetricsRegistry.of("other", "temp").published(100, 1000000);
+    MetricsRegistry.connected("client-1");
+    MetricsRegistry.connected("client-1");
+
+    String[] lines = MetricsRegistry.summary().split("\n");
+
+    assertEquals(3, lines.length);
+    assertTrue(lines[0].startsWith("total: messages=3("), lines[0]);
+    assertTrue(lines[0].endsWith("reconnects=1"), lines[0]);
+    assertTrue(lines[0].contains("latency[count=3,"), lines[0]);
+    assertTrue(lines[1].startsWith("device/temp: messages=2("), lines[1]);
+    assertTrue(lines[1].contains("latency[count=2,"), lines[1]);
+    assertTrue(lines[2].startsWith("other/temp: messages=1("), lines[2]);
+
+    String[] devices = MetricsRegistry.deviceSummary().split("\n");
+    assertEquals(3, devices.length);
+    assertTrue(devices[0].startsWith("device-001/temp-001: messages=1("), devices[0]);
+    assertTrue(devices[1].startsWith("device-002/temp-002: messages=1("), devices[1]);
+  }
+
+  @Test
+  public void latencySharedPerGroup() {
+    MetricsRegistry.of("device-001", "temp").published(100, 1000000);
+    MetricsRegistry.of("device-002", "temp").published(100, 3000000);
+
+    // counts stay per device, latencies are kept once for the group
+    assertEquals(1, MetricsRegistry.get("device-001", "temp").messages());
+    assertSame(MetricsRegistry.get("device-001", "temp").getLatency(),
+      MetricsRegistry.get("device-002", "temp").getLatency());
+    assertEquals(2, MetricsRegistry.total().getLatency().count());
+    assertEquals(2, MetricsRegistry.groups().get("device/temp").getLatency().count());
+  }
+
+  @Test
+  public void groupStripsNumber() {
+    assertEquals("device", MetricsRegistry.groupOf("device-001"));
+    assertEquals("device", MetricsRegistry.groupOf("device-1234"));
+    assertEquals("device-01", MetricsRegistry.groupOf("device-01"));
+    assertEquals("device001", MetricsRegistry.groupOf("device001"));
+    assertEquals("-001", MetricsRegistry.groupOf("-001"));
+    assertEquals("", MetricsRegistry.groupOf(""));
+  }
+
+  @Test
+  public void clearDiscardsMetrics() {
+    MetricsRegistry.of("device-001", "temp").sent(10);
+    MetricsRegistry.connected("client-1");
+    MetricsRegistry.connected("client-1");
+
+    MetricsRegistry.clear();
+
+    assertTrue(MetricsRegistry.devices().isEmpty());
+    assertEquals(0, MetricsRegistry.total().messages());
+    assertEquals(0, MetricsRegistry.reconnects());
+  }
+
+}
@@ -0,0 +1,44 @@
+package io.bonitoo.qa.mqtt.client;
+
+import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
+import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5Connect;
+import com.hivemq.client.mqtt.mqtt5.message.connect.connack.Mqtt5ConnAck;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5WillPublish;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@Tag("unit")
+public class MqttClientAsyncTest {
+
+  @Test
+  public void connectSimpleLeavesWill() throws Exception {
+
+    Mqtt5AsyncClient hiveClient = mock(Mqtt5AsyncClient.class);
+    when(hiveClient.connect(any(Mqtt5Connect.class)))
+      .thenReturn(CompletableFuture.completedFuture(mock(Mqtt5ConnAck.class)));
+
+    MqttClientAsync client = MqttClientAsync.builder().client(hiveClient).build();
+    client.setId("willTest");
+
+    client.connectSimpleAsync("fred", "changeit").get();
+
+    ArgumentCaptor<Mqtt5Connect> captor = ArgumentCaptor.forClass(Mqtt5Connect.class);
+    verify(hiveClient).connect(captor.capture());
+
+    Mqtt5WillPublish will = captor.getValue().getWillPublish()
+      .orElseThrow(() -> new AssertionError("no will"));
+    assertEquals("virtual/device", will.getTopic().toString());
+    assertEquals("device willTest gone",
+      new String(will.getPayloadAsBytes(), StandardCharsets.UTF_8));
+    assertEquals("fred", captor.getValue().getSimpleAuth().get().getUsername().get().toString());
+  }
+
+}
@@ -0,0 +1,83 @@
+package io.bonitoo.qa.mqtt.client;
+
+import com.hivemq.client.mqtt.datatypes.MqttClientIdentifier;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5BlockingClient;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientConfig;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@Tag("unit")
+public class MqttClientBlockingTest {
+
+  Mqtt5BlockingClient hiveClient;
+  Mqtt5AsyncClient hiveAsyncClient;
+  MqttClientBlocking client;
+
+  @BeforeEach
+  public void setup() {
+    hiveClient = mock(Mqtt5BlockingClient.class);
+    hiveAsyncClient = mock(Mqtt5AsyncClient.class);
+    Mqtt5ClientConfig config = mock(Mqtt5ClientConfig.class);
+    when(config.getClientIdentifier()).thenReturn(Optional.of(MqttClientIdentifier.of("qosTest")));
+    when(hiveClient.getConfig()).thenReturn(config);
+    when(hiveClient.toAsync()).thenReturn(hiveAsyncClient);
+    client = MqttClientBlocking.builder().client(hiveClient).build();
+  }
+
+  @Test
+  public void qosZeroDoesNotWait() throws Exception {
+
+    CompletableFuture<Mqtt5PublishResult> neverSent = new CompletableFuture<>();
+    when(hiveAsyncClient.publish(any(Mqtt5Publish.class))).thenReturn(neverSent);
+
+    ByteBuffer payload = ByteBuffer.wrap("{\"val\":1}".getBytes(StandardCharsets.UTF_8));
+    assertSame(client, client.publish("test/qos", payload, MqttQos.AT_MOST_ONCE, true));
+
+    // returns although the message has not been sent
+    ArgumentCaptor<Mqtt5Publish> captor = ArgumentCaptor.forClass(Mqtt5Publish.class);
+    verify(hiveAsyncClient).publish(captor.capture());
+    verify(hiveClient, never()).publish(any(Mqtt5Publish.class));
+
+    // the caller may reuse its buffer at once
+    payload.put(0, (byte) 'X');
+
+    Mqtt5Publish publish = captor.getValue();
+    assertEquals(MqttQos.AT_MOST_ONCE, publish.getQos());
+    assertTrue(publish.isRetain());
+    assertEquals("test/qos", publish.getTopic().toString());
+    assertEquals("{\"val\":1}", new String(publish.getPayloadAsBytes(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void qosAboveZeroWaits() throws Exception {
+
+    ByteBuffer payload = ByteBuffer.wrap("{\"val\":2}".getBytes(StandardCharsets.UTF_8));
+    client.publish("test/qos", payload, MqttQos.AT_LEAST_ONCE, false);
+    client.publish("test/qos", payload);
+
+    ArgumentCaptor<Mqtt5Publish> captor = ArgumentCaptor.forClass(Mqtt5Publish.class);
+    verify(hiveClient, times(2)).publish(captor.capture());
+    verify(hiveAsyncClient, never()).publish(any(Mqtt5Publish.class));
+
+    assertEquals(MqttQos.AT_LEAST_ONCE, captor.getAllValues().get(0).getQos());
+    assertFalse(captor.getAllValues().get(0).isRetain());
+    // the default of the client is left as it was
+    assertEquals(Mqtt5Publish.DEFAULT_QOS, captor.getAllValues().get(1).getQos());
+  }
+
+}
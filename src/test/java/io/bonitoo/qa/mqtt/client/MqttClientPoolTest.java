@@ -0,0 +1,284 @@
+package io.bonitoo.qa.mqtt.client;
+
+import com.hivemq.client.mqtt.MqttClientState;
+import com.hivemq.client.mqtt.datatypes.MqttClientIdentifier;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5BlockingClient;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientConfig;
+import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5Connect;
+import com.hivemq.client.mqtt.mqtt5.message.connect.connack.Mqtt5ConnAck;
+import com.hivemq.client.mqtt.mqtt5.message.disconnect.Mqtt5Disconnect;
+import io.bonitoo.qa.VirtualDeviceRuntimeException;
+import io.bonitoo.qa.conf.Mode;
+import io.bonitoo.qa.conf.mqtt.broker.BrokerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@Tag("unit")
+public class MqttClientPoolTest {
+
+  VirDevMqttClientBuilder builder;
+
+  @BeforeEach
+  public void setup() {
+    // anonymous, so a connect is a plain connect() on the HiveMQ client
+    builder = new VirDevMqttClientBuilder(new BrokerConfig("localhost", 1883, null));
+  }
+
+  private static Mqtt5ClientConfig mockConfig(String id) {
+    Mqtt5ClientConfig config = mock(Mqtt5ClientConfig.class);
+    when(config.getClientIdentifier()).thenReturn(Optional.of(MqttClientIdentifier.of(id)));
+    return config;
+  }
+
+  @Test
+  public void leasesRoundRobin() {
+
+    MqttClientPool pool = new MqttClientPool(builder, Mode.BLOCKING, 3, "poolTest");
+    assertEquals(3, pool.size());
+
+    Set<String> ids = new HashSet<>();
+    for (MqttClient connection : pool.getConnections()) {
+      ids.add(((MqttClientBlocking) connection).getId());
+    }
+    assertEquals(3, ids.size());
+    assertTrue(ids.contains("poolTest-001"));
+
+    List<MqttClient> leased = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      leased.add(pool.lease());
+    }
+    for (int i = 0; i < leased.size(); i++) {
+      // leased clients can be run by devices like dedicated ones
+      assertInstanceOf(MqttClientBlocking.class, leased.get(i));
+      MqttClientBlocking physical = (MqttClientBlocking) pool.getConnections().get(i % 3);
+      assertSame(physical.getClient(), ((MqttClientBlocking) leased.get(i)).getClient());
+      assertNotSame(physical, leased.get(i));
+    }
+  }
+
+  @Test
+  public void blockingConnectionOpenedOnceClosedLast() throws InterruptedException {
+
+    MqttClientPool pool = new MqttClientPool(builder, Mode.BLOCKING, 1, "poolTest");
+
+    Mqtt5BlockingClient hiveClient = mock(Mqtt5BlockingClient.class);
+    Mqtt5ClientConfig config = mockConfig("poolTest-001");
+    when(hiveClient.getConfig()).thenReturn(config);
+    when(hiveClient.connect()).thenReturn(mock(Mqtt5ConnAck.class));
+    when(hiveClient.getState()).thenReturn(MqttClientState.CONNECTED);
+    ((MqttClientBlocking) pool.getConnections().get(0)).setClient(hiveClient);
+
+    List<MqttClient> leased = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      MqttClient client = pool.lease();
+      client.connect();
+      leased.add(client);
+    }
+    verify(hiveClient, times(1)).connect();
+
+    leased.get(0).disconnect();
+    leased.get(1).disconnect();
+    verify(hiveClient, never()).disconnect();
+
+    leased.get(2).disconnect();
+    verify(hiveClient, times(1)).disconnect();
+
+    // a later device opens the connection again
+    pool.lease().connect();
+    verify(hiveClient, times(2)).connect();
+  }
+
+  @Test
+  public void blockingConnectNotUnderLock() throws Exception {
+
+    MqttClientPool.SharedConnection connection = new MqttClientPool.SharedConnection();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger connects = new AtomicInteger();
+
+    MqttClientPool.SharedConnection.Action slowConnect = () -> {
+      connects.incrementAndGet();
+      started.countDown();
+      release.await();
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> first = executor.submit(() -> {
+        connection.open(slowConnect);
+        return null;
+      });
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      Future<?> second = executor.submit(() -> {
+        connection.open(slowConnect);
+        return null;
+      });
+
+      // the bookkeeping stays available while the broker is slow
+      assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+        synchronized (connection) {
+          assertEquals(2, waitForUsers(connection, 2));
+        }
+      });
+      assertFalse(second.isDone());
+
+      release.countDown();
+      first.get(5, TimeUnit.SECONDS);
+      second.get(5, TimeUnit.SECONDS);
+      assertEquals(1, connects.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static int waitForUsers(MqttClientPool.SharedConnection connection, int users)
+    throws InterruptedException {
+    while (connection.users < users) {
+      connection.wait(10);
+    }
+    return connection.users;
+  }
+
+  @Test
+  public void failedBlockingConnectRetried() throws Exception {
+
+    MqttClientPool.SharedConnection connection = new MqttClientPool.SharedConnection();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> failing = executor.submit(() -> {
+        connection.open(() -> {
+          started.countDown();
+          release.await();
+          throw new VirtualDeviceRuntimeException("broker down");
+        });
+        return null;
+      });
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      Future<?> waiting = executor.submit(() -> {
+        connection.open(() -> fail("connect under way"));
+        return null;
+      });
+      synchronized (connection) {
+        waitForUsers(connection, 2);
+      }
+      release.countDown();
+
+      // the waiting device fails with the connect of the first
+      ExecutionException failed = assertThrows(ExecutionException.class,
+        () -> failing.get(5, TimeUnit.SECONDS));
+      assertInstanceOf(VirtualDeviceRuntimeException.class, failed.getCause());
+      failed = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+      assertInstanceOf(VirtualDeviceRuntimeException.class, failed.getCause());
+      assertEquals(0, connection.users);
+
+      // the next device tries again
+      AtomicInteger connects = new AtomicInteger();
+      connection.open(connects::incrementAndGet);
+      assertEquals(1, connects.get());
+      assertEquals(1, connection.users);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void asyncConnectionOpenedOnceClosedLast() {
+
+    MqttClientPool pool = new MqttClientPool(builder, Mode.ASYNC, 1, "poolTest");
+
+    Mqtt5AsyncClient hiveClient = mock(Mqtt5AsyncClient.class);
+    CompletableFuture<Mqtt5ConnAck> connecting = new CompletableFuture<>();
+    when(hiveClient.connect()).thenReturn(connecting);
+    when(hiveClient.connect(any(Mqtt5Connect.class))).thenReturn(connecting);
+    when(hiveClient.getState()).thenReturn(MqttClientState.CONNECTED);
+    when(hiveClient.disconnect(any(Mqtt5Disconnect.class)))
+      .thenReturn(CompletableFuture.completedFuture(null));
+    ((MqttClientAsync) pool.getConnections().get(0)).setClient(hiveClient);
+
+    MqttClientAsync first = (MqttClientAsync) pool.lease();
+    MqttClientAsync second = (MqttClientAsync) pool.lease();
+
+    CompletableFuture<Mqtt5ConnAck> firstAck = first.connectAsync();
+    CompletableFuture<Mqtt5ConnAck> secondAck = second.connectAsync();
+    // the second device waits on the connect of the first
+    assertFalse(secondAck.isDone());
+    connecting.complete(mock(Mqtt5ConnAck.class));
+    assertTrue(firstAck.isDone());
+    assertTrue(secondAck.isDone());
+
+    first.disconnectAsync().join();
+    verify(hiveClient, never()).disconnect(any(Mqtt5Disconnect.class));
+    second.disconnectAsync().join();
+    verify(hiveClient, times(1)).disconnect(any(Mqtt5Disconnect.class));
+    verify(hiveClient, times(1)).connect();
+  }
+
+  @Test
+  public void failedAsyncConnectReleased() {
+
+    MqttClientPool.SharedConnection connection = new MqttClientPool.SharedConnection();
+    CompletableFuture<Mqtt5ConnAck> connecting = new CompletableFuture<>();
+
+    CompletableFuture<Mqtt5ConnAck> firstAck = connection.openAsync(() -> connecting);
+    CompletableFuture<Mqtt5ConnAck> secondAck = connection.openAsync(() -> {
+      fail("connect under way");
+      return null;
+    });
+    assertEquals(2, connection.users);
+
+    // neither device will disconnect
+    connecting.completeExceptionally(new VirtualDeviceRuntimeException("broker down"));
+    ExecutionException failed = assertThrows(ExecutionException.class, firstAck::get);
+    assertInstanceOf(VirtualDeviceRuntimeException.class, failed.getCause());
+    assertThrows(ExecutionException.class, secondAck::get);
+    assertEquals(0, connection.users);
+
+    // the next device tries again, and closes the connection as its last user
+    AtomicInteger connects = new AtomicInteger();
+    AtomicInteger disconnects = new AtomicInteger();
+    connection.openAsync(() -> {
+      connects.incrementAndGet();
+      return CompletableFuture.completedFuture(mock(Mqtt5ConnAck.class));
+    }).join();
+    assertEquals(1, connects.get());
+    connection.closeAsync(() -> {
+      disconnects.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    }).join();
+    assertEquals(1, disconnects.get());
+    assertEquals(0, connection.users);
+  }
+
+  @Test
+  public void invalidPools() {
+    assertThrows(VirtualDeviceRuntimeException.class,
+      () -> new MqttClientPool(builder, Mode.REACTIVE, 2, "poolTest"));
+    assertThrows(VirtualDeviceRuntimeException.class,
+      () -> new MqttClientPool(builder, Mode.BLOCKING, 0, "poolTest"));
+  }
+
+}
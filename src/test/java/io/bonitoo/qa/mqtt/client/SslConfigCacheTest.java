@@ -0,0 +1,96 @@
+package io.bonitoo.qa.mqtt.client;
+
+import com.hivemq.client.mqtt.MqttClientSslConfig;
+import com.hivemq.client.util.KeyStoreUtil;
+import io.bonitoo.qa.conf.mqtt.broker.AuthConfig;
+import io.bonitoo.qa.conf.mqtt.broker.BrokerConfig;
+import io.bonitoo.qa.conf.mqtt.broker.TlsConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.File;
+import java.security.KeyStore;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+
+@Tag("unit")
+public class SslConfigCacheTest {
+
+  TrustManagerFactory trustManagerFactory;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    SslConfigCache.clear();
+    trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+    trustManagerFactory.init((KeyStore) null);
+  }
+
+  @Test
+  public void truststoreLoadedOncePerConfig() throws SSLException {
+    TlsConfig tls = new TlsConfig("fleetTrust.jks", "changeit".toCharArray());
+
+    try (MockedStatic<KeyStoreUtil> keyStoreUtil = mockStatic(KeyStoreUtil.class)) {
+      keyStoreUtil.when(() -> KeyStoreUtil.trustManagerFromKeystore(any(File.class), anyString()))
+        .thenReturn(trustManagerFactory);
+
+      MqttClientSslConfig first = SslConfigCache.sslConfig(tls);
+      for (int i = 0; i < 10; i++) {
+        assertSame(first, SslConfigCache.sslConfig(tls));
+      }
+      keyStoreUtil.verify(() -> KeyStoreUtil.trustManagerFromKeystore(any(File.class), anyString()),
+        times(1));
+      assertSame(trustManagerFactory, first.getTrustManagerFactory().get());
+
+      // a replaced truststore is loaded again
+      tls.setTrustStore("otherTrust.jks");
+      assertNotSame(first, SslConfigCache.sslConfig(tls));
+      keyStoreUtil.verify(() -> KeyStoreUtil.trustManagerFromKeystore(any(File.class), anyString()),
+        times(2));
+    }
+  }
+
+  @Test
+  public void fleetSharesSslConfig() {
+    BrokerConfig broker = new BrokerConfig("localhost", 8883,
+      new AuthConfig("fred", "changeit".toCharArray()),
+      new TlsConfig("fleetTrust.jks", "changeit".toCharArray()));
+    VirDevMqttClientBuilder builder = new VirDevMqttClientBuilder(broker);
+
+    try (MockedStatic<KeyStoreUtil> keyStoreUtil = mockStatic(KeyStoreUtil.class)) {
+      keyStoreUtil.when(() -> KeyStoreUtil.trustManagerFromKeystore(any(File.class), anyString()))
+        .thenReturn(trustManagerFactory);
+
+      MqttClientBlocking first = builder.id("device-001").buildBlocking();
+      MqttClientBlocking second = builder.id("device-002").buildBlocking();
+
+      assertSame(first.getClient().getConfig().getSslConfig().get(),
+        second.getClient().getConfig().getSslConfig().get());
+      keyStoreUtil.verify(() -> KeyStoreUtil.trustManagerFromKeystore(any(File.class), anyString()),
+        times(1));
+    }
+  }
+
+  @Test
+  public void failedLoadNotCached() {
+    TlsConfig tls = new TlsConfig("missingTrust.jks", "changeit".toCharArray());
+
+    try (MockedStatic<KeyStoreUtil> keyStoreUtil = mockStatic(KeyStoreUtil.class)) {
+      keyStoreUtil.when(() -> KeyStoreUtil.trustManagerFromKeystore(any(File.class), anyString()))
+        .thenThrow(new SSLException("missing"));
+
+      assertThrows(SSLException.class, () -> SslConfigCache.sslConfig(tls));
+      assertThrows(SSLException.class, () -> SslConfigCache.sslConfig(tls));
+      keyStoreUtil.verify(() -> KeyStoreUtil.trustManagerFromKeystore(any(File.class), anyString()),
+        times(2));
+    }
+  }
+
+}
@@ -1,19 +1,85 @@
 package io.bonitoo.qa.plugin;
 
 import io.bonitoo.qa.conf.VirDevConfigException;
+import io.bonitoo.qa.data.generator.DataGenerator;
+import io.bonitoo.qa.plugin.eg.EmptyItemGenPlugin;
 import io.bonitoo.qa.plugin.item.ItemPluginMill;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import java.lang.invoke.MethodHandle;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 @Tag("unit")
 public class ItemPluginMillTest {
 
+  static PluginProperties props = new PluginProperties(EmptyItemGenPlugin.class.getName(),
+    "EmptyTestPlugin",
+    "val",
+    "A Test Plugin",
+    "0.0.1",
+    PluginType.Item,
+    PluginResultType.String,
+    new Properties()
+  );
+
+  @AfterEach
+  public void cleanUp(){
+    ItemPluginMill.removePluginClass("EmptyTestPlugin");
+    ItemPluginMill.removePluginClass("EmptyTestPluginCopy");
+  }
+
   @Test
   public void unknownKeyThrowsException(){
     assertThrowsExactly(VirDevConfigException.class,
       () -> ItemPluginMill.getPluginProps("FooBar"),
       "Plugin key: FooBar unknown.  Is it in the plugins/ directory?");
   }
+
+  @Test
+  public void pluginIndexedByClassName() throws NoSuchMethodException, IllegalAccessException {
+    String className = EmptyItemGenPlugin.class.getName();
+    assertFalse(ItemPluginMill.hasPluginClass(className));
+    assertNull(ItemPluginMill.getConstructorByName(className));
+
+    ItemPluginMill.addPluginClass("EmptyTestPlugin", EmptyItemGenPlugin.class, props);
+
+    assertTrue(ItemPluginMill.hasPluginClass(className));
+    assertEquals(EmptyItemGenPlugin.class, ItemPluginMill.getPluginClassByName(className));
+    MethodHandle constructor = ItemPluginMill.getConstructorByName(className);
+    assertNotNull(constructor);
+    assertSame(constructor, ItemPluginMill.getConstructorByName(className));
+
+    DataGenerator<?> first = DataGenerator.create(className);
+    DataGenerator<?> second = DataGenerator.create(className);
+    assertInstanceOf(EmptyItemGenPlugin.class, first);
+    assertNotSame(first, second);
+
+    ItemPluginMill.removePluginClass("EmptyTestPlugin");
+    assertFalse(ItemPluginMill.hasPluginClass(className));
+    assertNull(ItemPluginMill.getConstructorByName(className));
+    assertThrowsExactly(RuntimeException.class,
+      () -> ItemPluginMill.getPluginClassByName(className));
+  }
+
+  @Test
+  public void classFoundUnderRemainingKey() {
+    String className = EmptyItemGenPlugin.class.getName();
+    ItemPluginMill.addPluginClass("EmptyTestPlugin", EmptyItemGenPlugin.class, props);
+    ItemPluginMill.addPluginClass("EmptyTestPluginCopy", EmptyItemGenPlugin.class, props);
+
+    ItemPluginMill.removePluginClass("EmptyTestPluginCopy");
+
+    assertTrue(ItemPluginMill.hasPluginClass(className));
+    assertEquals(EmptyItemGenPlugin.class, ItemPluginMill.getPluginClassByName(className));
+  }
+
+  @Test
+  public void unknownGeneratorClassThrowsException() {
+    assertThrowsExactly(VirDevConfigException.class,
+      () -> DataGenerator.create("io.bonitoo.qa.data.generator.NoSuchGenerator"));
+  }
 }
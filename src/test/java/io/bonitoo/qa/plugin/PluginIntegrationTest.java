@@ -31,6 +31,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
@@ -117,7 +118,7 @@ public class PluginIntegrationTest {
     verify(mockClient, times(1)).connect();
 
     for (SampleConfig sampConf : Config.getSampleConfs(0)) {
-      verify(mockClient, times(20)).publish(eq(sampConf.getTopic()), anyString());
+      verify(mockClient, times(20)).publish(eq(sampConf.getTopic()), any(ByteBuffer.class));
     }
 
   }
@@ -225,7 +226,7 @@ public class PluginIntegrationTest {
     // the first record
 
     for (SampleConfig sampConf : Config.getSampleConfs(0)) {
-      verify(mockClient, atLeast(33)).publish(eq(sampConf.getTopic()), anyString());
+      verify(mockClient, atLeast(33)).publish(eq(sampConf.getTopic()), any(ByteBuffer.class));
     }
   }
 
@@ -359,7 +360,7 @@ public class PluginIntegrationTest {
     verify(mockClient, times(1)).connect();
 
     SampleConfig sampConf = Config.getSampleConfs(0).get(0);
-    verify(mockClient, times(17)).publish(eq(sampConf.getTopic()), anyString());
+    verify(mockClient, times(17)).publish(eq(sampConf.getTopic()), any(ByteBuffer.class));
 
   }
 
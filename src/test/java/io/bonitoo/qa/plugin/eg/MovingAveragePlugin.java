@@ -50,7 +50,7 @@ public class MovingAveragePlugin extends ItemGenPlugin {
   }
 
   public MovingAveragePlugin addDataToQueue(){
-    dataStream.add((Math.random() * (this.max - this.min)) + this.min);
+    dataStream.add((nextDouble() * (this.max - this.min)) + this.min);
     return this;
   }
 
@@ -25,6 +25,7 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -256,7 +257,7 @@ public class SamplePluginIntegrationTest {
     service.shutdown();
 
     verify(mockClient, times(1)).connect();
-    verify(mockClient, times(10)).publish(eq(conf.getTopic()), anyString());
+    verify(mockClient, times(10)).publish(eq(conf.getTopic()), any(ByteBuffer.class));
 
   }
 
@@ -10,6 +10,7 @@ import io.bonitoo.qa.plugin.PluginType;
 import org.junit.jupiter.api.*;
 
 import java.io.File;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -157,6 +158,25 @@ public class SamplePluginMillTest {
 
   }
 
+  @Test
+  public void createMethodResolvedOnce()
+    throws PluginConfigException, InvocationTargetException, NoSuchMethodException,
+    InstantiationException, IllegalAccessException {
+
+    SamplePluginMill.addPluginClass(defaultKey,
+      SamplePluginTest.FooSamplePlugin.class,
+      SamplePluginTest.defaultProps);
+
+    SamplePlugin first = SamplePluginMill.genNewInstance(SamplePluginTest.conf);
+    MethodHandle create = SamplePluginMill.getMap().get(defaultKey).create;
+    assertNotNull(create);
+
+    SamplePlugin second = SamplePluginMill.genNewInstance(SamplePluginTest.conf);
+    assertNotSame(first, second);
+    assertSame(create, SamplePluginMill.getMap().get(defaultKey).create);
+    assertEquals(SamplePluginTest.defaultProps, second.getProps());
+  }
+
   public static class BarSamplePlugin extends SamplePlugin {
     /**
      * Constructs a Sample Plugin.
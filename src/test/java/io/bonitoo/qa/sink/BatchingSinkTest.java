@@ -0,0 +1,222 @@
+package io.bonitoo.qa.sink;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishResult;
+import io.bonitoo.qa.VirtualDeviceRuntimeException;
+import io.bonitoo.qa.conf.Config;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.conf.device.BatchConfig;
+import io.bonitoo.qa.conf.device.DeviceConfig;
+import io.bonitoo.qa.data.ItemType;
+import io.bonitoo.qa.device.GenericDevice;
+import io.bonitoo.qa.metrics.MetricsRegistry;
+import io.bonitoo.qa.metrics.PublishMetrics;
+import io.bonitoo.qa.mqtt.client.MqttClient;
+import io.bonitoo.qa.mqtt.client.MqttClientBlocking;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@Tag("unit")
+public class BatchingSinkTest {
+
+  static final ObjectMapper om = new ObjectMapper();
+
+  MqttClientBlocking client;
+
+  // decoded payloads in publishing order
+  List<String> published;
+
+  @BeforeEach
+  public void setup() throws InterruptedException {
+    Config.reset();
+    published = new ArrayList<>();
+    client = mock(MqttClientBlocking.class);
+    when(client.publish(anyString(), any(ByteBuffer.class))).thenAnswer(invocation -> {
+      published.add(decode(invocation.getArgument(1)));
+      return client;
+    });
+  }
+
+  private static String decode(ByteBuffer payload) {
+    return StandardCharsets.UTF_8.decode(payload.duplicate()).toString();
+  }
+
+  private DeviceConfig genDeviceConfig(BatchConfig batch) {
+    SampleConfig sConf = new SampleConfig("batchSample", "batchSample", "test/batch",
+      Collections.singletonList(new ItemNumConfig("batchItem", "val", ItemType.Double, 0, 100, 1.0, 0.1)));
+    return new DeviceConfig("batchDevice", "batchDevice", "A batching test device",
+      Collections.singletonList(sConf), 1000L, 0L, 1, DeviceConfig.DEFAULT_MAX_IN_FLIGHT, batch);
+  }
+
+  // ten ticks at 0, 1000, ... 9000 of simulated time
+  private GenericDevice backfill(BatchConfig batch) throws InterruptedException {
+    GenericDevice device = GenericDevice.singleDevice(client, genDeviceConfig(batch));
+    assertEquals(10L, device.backfillRun(0L, 10000L));
+    return device;
+  }
+
+  @Test
+  public void jsonArrayClosedAtMaxSamples() throws Exception {
+
+    backfill(new BatchConfig(BatchMode.JSON_ARRAY, 4, BatchConfig.DEFAULT_MAX_BYTES, 100000L));
+
+    // the last batch is published on disconnect
+    assertEquals(3, published.size());
+    int[] sizes = {4, 4, 2};
+    long expectedTimestamp = 0L;
+    for (int i = 0; i < sizes.length; i++) {
+      JsonNode array = om.readTree(published.get(i));
+      assertTrue(array.isArray());
+      assertEquals(sizes[i], array.size());
+      for (JsonNode node : array) {
+        assertEquals(expectedTimestamp, node.get("timestamp").asLong());
+        assertTrue(node.get("val").isNumber());
+        expectedTimestamp += 1000L;
+      }
+    }
+    verify(client, never()).publishAsync(anyString(), any(ByteBuffer.class), any(), anyBoolean());
+  }
+
+  @Test
+  public void ndjsonClosedAfterLinger() throws Exception {
+
+    backfill(new BatchConfig(BatchMode.NDJSON, 100, BatchConfig.DEFAULT_MAX_BYTES, 2500L));
+
+    // batches opened at 0 and 4000 linger until the end of the ticks at 3000 and 7000
+    assertEquals(3, published.size());
+    int[] sizes = {4, 4, 2};
+    for (int i = 0; i < sizes.length; i++) {
+      String[] lines = published.get(i).split("\n");
+      assertEquals(sizes[i], lines.length);
+      for (String line : lines) {
+        assertTrue(om.readTree(line).isObject());
+      }
+    }
+  }
+
+  @Test
+  public void noLingerClosesBatchEveryTick() throws Exception {
+
+    backfill(new BatchConfig(BatchMode.JSON_ARRAY, 100, BatchConfig.DEFAULT_MAX_BYTES, 0L));
+
+    assertEquals(10, published.size());
+    for (String payload : published) {
+      assertEquals(1, om.readTree(payload).size());
+    }
+  }
+
+  @Test
+  public void batchKeptWithinMaxBytes() throws Exception {
+
+    int maxBytes = 200;
+    backfill(new BatchConfig(BatchMode.JSON_ARRAY, 100, maxBytes, 100000L));
+
+    assertTrue(published.size() > 1);
+    int samples = 0;
+    for (String payload : published) {
+      assertTrue(payload.getBytes(StandardCharsets.UTF_8).length <= maxBytes, payload);
+      samples += om.readTree(payload).size();
+    }
+    assertEquals(10, samples);
+  }
+
+  @Test
+  public void pipelineAwaitsAcksAtBoundary() throws Exception {
+
+    Mqtt5PublishResult result = mock(Mqtt5PublishResult.class);
+    List<Integer> pendingAtAwait = new ArrayList<>();
+    List<CompletableFuture<Mqtt5PublishResult>> pending = new ArrayList<>();
+
+    when(client.publishAsync(anyString(), any(ByteBuffer.class), any(), anyBoolean())).thenAnswer(invocation -> {
+      ByteBuffer payload = invocation.getArgument(1);
+      String sent = decode(payload);
+      CompletableFuture<Mqtt5PublishResult> future = new CompletableFuture<Mqtt5PublishResult>() {
+        @Override
+        public Mqtt5PublishResult get() {
+          // the payload of an unacknowledged message must not have been reused
+          assertEquals(sent, decode(payload));
+          pendingAtAwait.add(pending.size());
+          pending.remove(this);
+          return result;
+        }
+      };
+      pending.add(future);
+      published.add(sent);
+      return future;
+    });
+
+    backfill(new BatchConfig(BatchMode.PIPELINE, 4, BatchConfig.DEFAULT_MAX_BYTES, 100000L));
+
+    // still one message per sample
+    assertEquals(10, published.size());
+    for (String payload : published) {
+      assertTrue(om.readTree(payload).isObject());
+    }
+    verify(client, never()).publish(anyString(), any(ByteBuffer.class));
+    assertTrue(pending.isEmpty());
+    // every ack is awaited once a batch of 4 is in flight, the last 2 on disconnect
+    assertEquals(10, pendingAtAwait.size());
+    assertEquals(4, pendingAtAwait.get(0));
+    assertEquals(4, pendingAtAwait.get(4));
+    assertEquals(2, pendingAtAwait.get(8));
+  }
+
+  @Test
+  public void pipelineFailureSurfaces() throws Exception {
+
+    CompletableFuture<Mqtt5PublishResult> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new IllegalStateException("broker gone"));
+    when(client.publishAsync(anyString(), any(ByteBuffer.class), any(), anyBoolean())).thenReturn(failed);
+
+    GenericDevice device = GenericDevice.singleDevice(client,
+      genDeviceConfig(new BatchConfig(BatchMode.PIPELINE, 2, BatchConfig.DEFAULT_MAX_BYTES, 0L)));
+    device.connect();
+
+    MetricsRegistry.clear();
+    VirtualDeviceRuntimeException e = assertThrows(VirtualDeviceRuntimeException.class,
+      device::tick);
+    assertInstanceOf(IllegalStateException.class, e.getCause());
+    assertEquals(1, MetricsRegistry.get("batchDevice", "batchSample").failures());
+    assertEquals(0, MetricsRegistry.get("batchDevice", "batchSample").messages());
+  }
+
+  @Test
+  public void batchesCountedInMetrics() throws Exception {
+
+    MetricsRegistry.clear();
+    backfill(new BatchConfig(BatchMode.JSON_ARRAY, 4, BatchConfig.DEFAULT_MAX_BYTES, 100000L));
+
+    // one message per batch, not per sample
+    PublishMetrics metrics = MetricsRegistry.get("batchDevice", "batchSample");
+    assertEquals(3, metrics.messages());
+    assertEquals(published.stream().mapToInt(String::length).sum(), metrics.bytes());
+    assertEquals(0, metrics.failures());
+    assertEquals(3, metrics.getLatency().count());
+    assertEquals(3, MetricsRegistry.total().messages());
+  }
+
+  @Test
+  public void pipelineNeedsAsyncCapableClient() {
+    assertThrows(VirtualDeviceRuntimeException.class, () -> new BatchingSink(mock(MqttClient.class),
+      new BatchConfig()));
+    assertDoesNotThrow(() -> new BatchingSink(mock(MqttClient.class),
+      new BatchConfig(BatchMode.NDJSON, 10, 1024, 0L)));
+  }
+
+}
@@ -0,0 +1,141 @@
+package io.bonitoo.qa.sink;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.bonitoo.qa.VirtualDeviceRuntimeException;
+import io.bonitoo.qa.conf.Config;
+import io.bonitoo.qa.conf.data.ItemConfig;
+import io.bonitoo.qa.conf.data.ItemNumConfig;
+import io.bonitoo.qa.conf.data.ItemStringConfig;
+import io.bonitoo.qa.conf.data.SampleConfig;
+import io.bonitoo.qa.conf.device.DeviceConfig;
+import io.bonitoo.qa.data.ItemType;
+import io.bonitoo.qa.device.GenericDevice;
+import io.bonitoo.qa.util.SimulatedClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("intg")
+public class FileSinkTest {
+
+  @TempDir
+  Path tempDir;
+
+  @BeforeEach
+  public void setup() {
+    Config.reset();
+  }
+
+  private DeviceConfig genDeviceConfig(String sampleName, List<ItemConfig> items, int count) {
+    SampleConfig sConf = new SampleConfig("sinkSample", sampleName, "test/sink", items);
+    return new DeviceConfig("sinkDevice", "sinkDevice", "A file sink test device",
+      Collections.singletonList(sConf), 1000L, 0L, count);
+  }
+
+  @Test
+  public void ndjsonFromConcurrentDevices() throws Exception {
+
+    Path file = tempDir.resolve("samples.ndjson");
+    DeviceConfig devConf = genDeviceConfig("sinkSample",
+      Collections.singletonList(new ItemNumConfig("sinkItem", "val", ItemType.Double, 0, 100, 1.0, 0.1)), 4);
+
+    // small buffer so lines get drained to the file while devices are writing
+    FileSink sink = new FileSink(file, SinkFormat.NDJSON, 128);
+
+    List<GenericDevice> devices = new ArrayList<>();
+    for (int i = 1; i <= devConf.getCount(); i++) {
+      devices.add(GenericDevice.numberedDevice(sink, new DeviceConfig(devConf, i), i));
+    }
+
+    ExecutorService service = Executors.newFixedThreadPool(devices.size());
+    List<Future<Long>> results = new ArrayList<>();
+    for (GenericDevice device : devices) {
+      results.add(service.submit(() -> device.backfillRun(0L, 100000L)));
+    }
+    for (Future<Long> result : results) {
+      assertEquals(100L, result.get());
+    }
+    service.shutdown();
+
+    sink.close();
+
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    assertEquals(400, lines.size());
+    assertEquals(400, sink.getLines());
+    assertEquals(Files.size(file), sink.getBytes());
+
+    ObjectMapper om = new ObjectMapper();
+    Set<String> ids = new HashSet<>();
+    for (String line : lines) {
+      JsonNode node = om.readTree(line);
+      ids.add(node.get("id").asText());
+      assertTrue(node.get("timestamp").asLong() < 100000L);
+      assertTrue(node.get("val").isNumber());
+    }
+    assertEquals(4, ids.size());
+  }
+
+  @Test
+  public void lineProtocol() throws Exception {
+
+    Path file = tempDir.resolve("samples.lp");
+    ItemConfig temp = new ItemNumConfig("sinkTemp", "temp", ItemType.Double, 10, 20, 0.0, 0.0, 1);
+    ItemConfig count = new ItemNumConfig("sinkCount", "count", ItemType.Long, 10, 20, 0.0, 0.0);
+    ItemConfig note = new ItemStringConfig("sinkNote", "note", ItemType.String,
+      Collections.singletonList("say \"hi\""));
+    DeviceConfig devConf = genDeviceConfig("sink sample", Arrays.asList(temp, count, note), 1);
+
+    FileSink sink = new FileSink(file, SinkFormat.LINE_PROTOCOL);
+    GenericDevice device = GenericDevice.numberedDevice(sink, devConf, 1);
+    device.setClock(new SimulatedClock(1679270400000L));
+
+    device.connect();
+    device.tick();
+    device.disconnect();
+    sink.close();
+
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    assertEquals(1, lines.size());
+
+    String line = lines.get(0);
+    String head = "sink\\ sample,id=" + devConf.getSample(0).getId() + " ";
+    assertTrue(line.startsWith(head), line);
+    assertTrue(line.endsWith(" 1679270400000000000"), line);
+
+    Set<String> fields = new HashSet<>(Arrays.asList(
+      line.substring(head.length(), line.lastIndexOf(' ')).split(",")));
+    assertEquals(new HashSet<>(Arrays.asList("temp=15.0", "count=15i", "note=\"say \\\"hi\\\"\"")),
+      fields);
+  }
+
+  @Test
+  public void closedSinkRejectsDevices() throws Exception {
+    FileSink sink = new FileSink(tempDir.resolve("closed.ndjson"), SinkFormat.NDJSON);
+    sink.close();
+    // closing twice is harmless
+    sink.close();
+
+    GenericDevice device = GenericDevice.numberedDevice(sink, genDeviceConfig("sinkSample",
+      Collections.singletonList(new ItemNumConfig("sinkItem", "val", ItemType.Double, 0, 100, 1.0, 0.1)), 1), 1);
+
+    assertThrows(VirtualDeviceRuntimeException.class, device::connect);
+  }
+
+}
@@ -0,0 +1,54 @@
+package io.bonitoo.qa.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.InvocationTargetException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+public class FactoryHandlesTest {
+
+  static class Failing {
+    Failing(String failure) {
+      if ("error".equals(failure)) {
+        throw new StackOverflowError("too deep");
+      }
+      throw new IllegalStateException("bad state");
+    }
+  }
+
+  private static InvocationTargetException create(String failure) throws Exception {
+    MethodHandle constructor = FactoryHandles.constructor(Failing.class, String.class);
+    try {
+      Object created = (Object) constructor.invokeExact(failure);
+      fail("created " + created);
+      return null;
+    } catch (Throwable t) {
+      return FactoryHandles.wrap(FactoryHandles.target(t));
+    }
+  }
+
+  @Test
+  public void exceptionsWrapped() throws Exception {
+    InvocationTargetException wrapped = create("exception");
+    assertInstanceOf(IllegalStateException.class, wrapped.getCause());
+  }
+
+  @Test
+  public void errorsPassedOn() {
+    assertThrows(StackOverflowError.class, () -> create("error"));
+  }
+
+  @Test
+  public void wrongTypesPassedOn() {
+    assertThrows(WrongMethodTypeException.class,
+      () -> FactoryHandles.target(new WrongMethodTypeException("(String)Object")));
+    assertThrows(ClassCastException.class,
+      () -> FactoryHandles.target(new ClassCastException("not a plugin")));
+  }
+
+}
@@ -0,0 +1,156 @@
+package io.bonitoo.qa.util;
+
+import io.bonitoo.qa.data.serializer.PayloadBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@Tag("unit")
+public class HotPathLogTest {
+
+  Logger target;
+
+  @BeforeEach
+  public void setup() {
+    HotPathLog.setAsync(false);
+    HotPathLog.setPayloadEvery(1);
+    target = mock(Logger.class);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    HotPathLog.setPayloadEvery(HotPathLog.DEFAULT_PAYLOAD_EVERY);
+    HotPathLog.setAsync(true);
+  }
+
+  private static PayloadBuffer buffer(String payload) {
+    PayloadBuffer buffer = new PayloadBuffer();
+    byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+    buffer.write(bytes, 0, bytes.length);
+    return buffer;
+  }
+
+  @Test
+  public void disabledLevelsComputeNothing() {
+    HotPathLog log = HotPathLog.of(target);
+    AtomicInteger supplied = new AtomicInteger();
+
+    log.debug("device-001", "Wait to publish", () -> supplied.incrementAndGet());
+    log.info("device-001", "Published", () -> supplied.incrementAndGet());
+    log.payload("sample-001", buffer("{}"));
+
+    assertEquals(0, supplied.get());
+    verify(target, never()).debug(anyString());
+    verify(target, never()).info(anyString());
+  }
+
+  @Test
+  public void messagesMatchLogHelper() {
+    when(target.isDebugEnabled()).thenReturn(true);
+    when(target.isInfoEnabled()).thenReturn(true);
+    HotPathLog log = HotPathLog.of(target);
+
+    log.debug("device-001", "Wait to publish", "%d", 2500L);
+    log.debug("device-001", "Sample", () -> "{\"val\":1}");
+    log.info("test/batch", "Publishing batch", "%d samples, %d bytes", 4, 120);
+    log.info("device-001", "Published", (Object) null);
+
+    verify(target).debug(LogHelper.buildMsg("device-001", "Wait to publish", "2500"));
+    verify(target).debug(LogHelper.buildMsg("device-001", "Sample", "{\"val\":1}"));
+    verify(target).info("test/batch: Publishing batch - 4 samples, 120 bytes");
+    verify(target).info("device-001: Published - null");
+  }
+
+  @Test
+  public void payloadsSampled() {
+    when(target.isInfoEnabled()).thenReturn(true);
+    HotPathLog log = HotPathLog.of(target);
+    HotPathLog.setPayloadEvery(4);
+
+    for (int i = 0; i < 12; i++) {
+      log.payload("sample-001", buffer("{\"n\":" + i + "}"));
+    }
+
+    verify(target, times(3)).info(anyString());
+    verify(target).info(LogHelper.buildMsg("sample-001", "Publishing", "{\"n\":3}"));
+    verify(target).info(LogHelper.buildMsg("sample-001", "Publishing", "{\"n\":7}"));
+    verify(target).info(LogHelper.buildMsg("sample-001", "Publishing", "{\"n\":11}"));
+
+    assertThrows(IllegalArgumentException.class, () -> HotPathLog.setPayloadEvery(0));
+  }
+
+  @Test
+  public void payloadsSampledByDefault() {
+    when(target.isInfoEnabled()).thenReturn(true);
+    HotPathLog log = HotPathLog.of(target);
+    HotPathLog.setPayloadEvery(HotPathLog.DEFAULT_PAYLOAD_EVERY);
+
+    for (int i = 0; i < 2500; i++) {
+      log.payload("sample-001", buffer("{\"n\":" + i + "}"));
+    }
+
+    assertEquals(1000, HotPathLog.DEFAULT_PAYLOAD_EVERY);
+    verify(target, times(2)).info(anyString());
+  }
+
+  @Test
+  public void payloadsSampledPerThread() throws Exception {
+    when(target.isInfoEnabled()).thenReturn(true);
+    HotPathLog log = HotPathLog.of(target);
+    HotPathLog.setPayloadEvery(4);
+
+    for (int i = 0; i < 3; i++) {
+      log.payload("sample-001", buffer("{\"n\":" + i + "}"));
+    }
+    // another thread does not advance the count of this one
+    Thread other = new Thread(() -> {
+      for (int i = 0; i < 3; i++) {
+        log.payload("sample-002", buffer("{\"n\":" + i + "}"));
+      }
+    });
+    other.start();
+    other.join();
+    verify(target, never()).info(anyString());
+
+    log.payload("sample-001", buffer("{\"n\":3}"));
+    verify(target).info(LogHelper.buildMsg("sample-001", "Publishing", "{\"n\":3}"));
+  }
+
+  @Test
+  public void asyncWritesOnBackgroundThread() {
+    when(target.isInfoEnabled()).thenReturn(true);
+    HotPathLog log = HotPathLog.of(target);
+    HotPathLog.setAsync(true);
+
+    // the buffer is reused straight away, but the logged payload is not affected
+    PayloadBuffer reused = buffer("{\"n\":1}");
+    log.payload("sample-001", reused);
+    reused.reset();
+    log.info("device-001", "Published", "done");
+    HotPathLog.flush();
+
+    verify(target, timeout(5000)).info(LogHelper.buildMsg("sample-001", "Publishing", "{\"n\":1}"));
+    verify(target, timeout(5000)).info(LogHelper.buildMsg("device-001", "Published", "done"));
+  }
+
+  @Test
+  public void failingSupplierDoesNotPropagate() {
+    when(target.isDebugEnabled()).thenReturn(true);
+    HotPathLog log = HotPathLog.of(target);
+
+    assertDoesNotThrow(() -> log.debug("device-001", "Sample", () -> {
+      throw new IllegalStateException("gone");
+    }));
+    verify(target, never()).debug(anyString());
+  }
+
+}
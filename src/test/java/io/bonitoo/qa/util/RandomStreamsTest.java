@@ -0,0 +1,87 @@
+package io.bonitoo.qa.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+public class RandomStreamsTest {
+
+  @AfterEach
+  public void tearDown() {
+    RandomStreams.setSeed(null);
+  }
+
+  @Test
+  public void unseededHasNoStreams() {
+    RandomStreams.setSeed(null);
+    assertFalse(RandomStreams.isSeeded());
+    assertNull(RandomStreams.stream(1, 2, 3));
+    assertNotEquals(RandomStreams.randomUuid(), RandomStreams.randomUuid());
+  }
+
+  @Test
+  public void sameKeysSameStream() {
+    RandomStreams.setSeed(1234L);
+    SplittableRandom first = RandomStreams.stream(7, 1, 0, 2);
+    SplittableRandom second = RandomStreams.stream(7, 1, 0, 2);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(first.nextLong(), second.nextLong());
+    }
+  }
+
+  @Test
+  public void differentKeysOrSeedsDiffer() {
+    RandomStreams.setSeed(1234L);
+    long base = RandomStreams.stream(7, 1, 0, 2).nextLong();
+    assertNotEquals(base, RandomStreams.stream(7, 2, 0, 2).nextLong());
+    assertNotEquals(base, RandomStreams.stream(7, 1, 0, 3).nextLong());
+    assertNotEquals(base, RandomStreams.stream(7, 0, 1, 2).nextLong());
+    RandomStreams.setSeed(4321L);
+    assertNotEquals(base, RandomStreams.stream(7, 1, 0, 2).nextLong());
+  }
+
+  @Test
+  public void streamsTakeNoLock() throws Exception {
+    RandomStreams.setSeed(1234L);
+    long expected = RandomStreams.stream(7, 1, 0, 2).nextLong();
+
+    // streams are derived while a writer would hold the lock
+    synchronized (RandomStreams.class) {
+      Future<Long> drawn = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+      }).submit(() -> RandomStreams.isSeeded() ? RandomStreams.stream(7, 1, 0, 2).nextLong() : 0L);
+      assertEquals(expected, drawn.get(5, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void seededUuidsReplay() {
+    RandomStreams.setSeed(99L);
+    String first = RandomStreams.randomUuid();
+    String second = RandomStreams.randomUuid();
+    assertNotEquals(first, second);
+    assertEquals(4, UUID.fromString(first).version());
+    assertEquals(2, UUID.fromString(first).variant());
+
+    // same seed again keeps the stream position
+    RandomStreams.setSeed(99L);
+    assertNotEquals(first, RandomStreams.randomUuid());
+
+    RandomStreams.setSeed(null);
+    RandomStreams.setSeed(99L);
+    assertEquals(first, RandomStreams.randomUuid());
+    assertEquals(second, RandomStreams.randomUuid());
+  }
+
+}
@@ -0,0 +1,38 @@
+package io.bonitoo.qa.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("unit")
+public class SimulatedClockTest {
+
+  @Test
+  public void timeOnlyMovesWhenTold() throws InterruptedException {
+    SimulatedClock clock = new SimulatedClock(1000L);
+    Thread.sleep(5);
+    assertEquals(1000L, clock.millis());
+    assertEquals(Instant.ofEpochMilli(1000L), clock.instant());
+    assertEquals(ZoneOffset.UTC, clock.getZone());
+
+    assertEquals(1500L, clock.advance(500L));
+    clock.setMillis(42L);
+    assertEquals(42L, clock.millis());
+  }
+
+  @Test
+  public void zonedViewSharesTime() {
+    SimulatedClock clock = new SimulatedClock(1000L);
+    Clock zoned = clock.withZone(ZoneId.of("Europe/Prague"));
+    clock.advance(1000L);
+    assertEquals(2000L, zoned.millis());
+    assertEquals(ZoneId.of("Europe/Prague"), zoned.getZone());
+  }
+
+}